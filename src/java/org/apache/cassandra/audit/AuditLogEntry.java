@@ -71,11 +71,28 @@ public class AuditLogEntry
 
     String getLogString()
     {
-        StringBuilder builder = new StringBuilder(100);
+        return appendLogString(new StringBuilder(100), user, host, source, timestamp, type, batch, keyspace, scope, operation).toString();
+    }
+
+    /**
+     * Appends the log string of an entry with the given fields to the builder, so that it can be built from the
+     * fields of an entry away from the request thread, or from their binary form, without building the entry.
+     */
+    static StringBuilder appendLogString(StringBuilder builder,
+                                         String user,
+                                         InetAddressAndPort host,
+                                         InetAddressAndPort source,
+                                         long timestamp,
+                                         AuditLogEntryType type,
+                                         UUID batch,
+                                         String keyspace,
+                                         String scope,
+                                         String operation)
+    {
         builder.append("user:").append(user)
                .append("|host:").append(host)
-               .append("|source:").append(source.address);
-        if (source.port > 0)
+               .append("|source:").append(source == null ? null : source.address);
+        if (source != null && source.port > 0)
         {
             builder.append("|port:").append(source.port);
         }
@@ -100,7 +117,28 @@ public class AuditLogEntry
         {
             builder.append("|operation:").append(operation);
         }
-        return builder.toString();
+        return builder;
+    }
+
+    /**
+     * @return the user an entry built from this query state is logged for
+     */
+    static String user(QueryState queryState)
+    {
+        ClientState clientState = queryState.getClientState();
+        if (clientState == null)
+            return AuthenticatedUser.SYSTEM_USER.getName();
+        return clientState.getUser() == null ? null : clientState.getUser().getName();
+    }
+
+    /**
+     * @return the keyspace an entry for this statement, executed with this query state, is logged against
+     */
+    static String keyspace(QueryState queryState, @Nullable CQLStatement statement)
+    {
+        return statement != null && statement.getAuditLogContext().keyspace != null
+               ? statement.getAuditLogContext().keyspace
+               : queryState.getClientState().getRawKeyspace();
     }
 
     public InetAddressAndPort getHost()
@@ -263,9 +301,7 @@ public class AuditLogEntry
 
         public Builder setKeyspace(QueryState queryState, @Nullable CQLStatement statement)
         {
-            keyspace = statement != null && statement.getAuditLogContext().keyspace != null
-                       ? statement.getAuditLogContext().keyspace
-                       : queryState.getClientState().getRawKeyspace();
+            keyspace = AuditLogEntry.keyspace(queryState, statement);
             return this;
         }
 
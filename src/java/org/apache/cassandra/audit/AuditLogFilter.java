@@ -135,9 +135,20 @@ public class AuditLogFilter
      */
     boolean isFiltered(AuditLogEntry auditLogEntry)
     {
-        return isFiltered(auditLogEntry.getKeyspace(), includedKeyspaces, excludedKeyspaces)
-               || isFiltered(auditLogEntry.getType().getCategory().toString(), includedCategories, excludedCategories)
-               || isFiltered(auditLogEntry.getUser(), includedUsers, excludedUsers);
+        return isFiltered(auditLogEntry.getKeyspace(), auditLogEntry.getType(), auditLogEntry.getUser());
+    }
+
+    /**
+     * Checks whether an AuditLog Entry with the given keyspace, type and user would be filtered, so that the
+     * entries that are filtered don't have to be built
+     *
+     * @return true if it is filtered, false otherwise
+     */
+    boolean isFiltered(String keyspace, AuditLogEntryType type, String user)
+    {
+        return isFiltered(keyspace, includedKeyspaces, excludedKeyspaces)
+               || isFiltered(type.getCategory().toString(), includedCategories, excludedCategories)
+               || isFiltered(user, includedUsers, excludedUsers);
     }
 
     /**
@@ -46,6 +46,7 @@ import org.apache.cassandra.service.QueryState;
 import org.apache.cassandra.transport.Message;
 import org.apache.cassandra.transport.messages.ResultMessage;
 import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.UUIDGen;
 
 /**
  * Central location for managing the logging of client/user-initated actions (like queries, log in commands, and so on).
@@ -118,6 +119,15 @@ public class AuditLogManager implements QueryEvents.Listener, AuthEvents.Listene
         }
     }
 
+    /**
+     * Checks whether the entry of a successful request would be filtered, before building it, so that requests that
+     * are not audited don't pay for their entries.
+     */
+    private boolean isFiltered(QueryState state, AuditLogEntryType type, String keyspace)
+    {
+        return filter.isFiltered(keyspace, type, AuditLogEntry.user(state));
+    }
+
     private void log(AuditLogEntry logEntry, Exception e)
     {
         AuditLogEntry.Builder builder = new AuditLogEntry.Builder(logEntry);
@@ -191,6 +201,9 @@ public class AuditLogManager implements QueryEvents.Listener, AuthEvents.Listene
 
     public void querySuccess(CQLStatement statement, String query, QueryOptions options, QueryState state, long queryTime, Message.Response response)
     {
+        if (isFiltered(state, statement.getAuditLogContext().auditLogEntryType, AuditLogEntry.keyspace(state, statement)))
+            return;
+
         AuditLogEntry entry = new AuditLogEntry.Builder(state).setType(statement.getAuditLogContext().auditLogEntryType)
                                                               .setOperation(query)
                                                               .setTimestamp(queryTime)
@@ -198,7 +211,7 @@ public class AuditLogManager implements QueryEvents.Listener, AuthEvents.Listene
                                                               .setKeyspace(state, statement)
                                                               .setOptions(options)
                                                               .build();
-        log(entry);
+        auditLogger.log(entry);
     }
 
     public void queryFailure(CQLStatement stmt, String query, QueryOptions options, QueryState state, Exception cause)
@@ -211,6 +224,9 @@ public class AuditLogManager implements QueryEvents.Listener, AuthEvents.Listene
 
     public void executeSuccess(CQLStatement statement, String query, QueryOptions options, QueryState state, long queryTime, Message.Response response)
     {
+        if (isFiltered(state, statement.getAuditLogContext().auditLogEntryType, AuditLogEntry.keyspace(state, statement)))
+            return;
+
         AuditLogEntry entry = new AuditLogEntry.Builder(state).setType(statement.getAuditLogContext().auditLogEntryType)
                                                               .setOperation(query)
                                                               .setTimestamp(queryTime)
@@ -218,7 +234,7 @@ public class AuditLogManager implements QueryEvents.Listener, AuthEvents.Listene
                                                               .setKeyspace(state, statement)
                                                               .setOptions(options)
                                                               .build();
-        log(entry);
+        auditLogger.log(entry);
     }
 
     public void executeFailure(CQLStatement statement, String query, QueryOptions options, QueryState state, Exception cause)
@@ -248,7 +264,7 @@ public class AuditLogManager implements QueryEvents.Listener, AuthEvents.Listene
         List<AuditLogEntry> entries = buildEntriesForBatch(statements, queries, state, options, queryTime);
         for (AuditLogEntry auditLogEntry : entries)
         {
-            log(auditLogEntry);
+            auditLogger.log(auditLogEntry);
         }
     }
 
@@ -262,46 +278,75 @@ public class AuditLogManager implements QueryEvents.Listener, AuthEvents.Listene
         log(entry, cause);
     }
 
-    private static List<AuditLogEntry> buildEntriesForBatch(List<? extends CQLStatement> statements, List<String> queries, QueryState state, QueryOptions options, long queryStartTimeMillis)
+    /**
+     * Builds the entries of the batch, and of the statements in it, that are not filtered. The batch id is only
+     * generated if any of them is logged.
+     */
+    private List<AuditLogEntry> buildEntriesForBatch(List<? extends CQLStatement> statements, List<String> queries, QueryState state, QueryOptions options, long queryStartTimeMillis)
     {
-        List<AuditLogEntry> auditLogEntries = new ArrayList<>(statements.size() + 1);
-        UUID batchId = UUID.randomUUID();
-        String queryString = String.format("BatchId:[%s] - BATCH of [%d] statements", batchId, statements.size());
-        AuditLogEntry entry = new AuditLogEntry.Builder(state)
-                              .setOperation(queryString)
-                              .setOptions(options)
-                              .setTimestamp(queryStartTimeMillis)
-                              .setBatch(batchId)
-                              .setType(AuditLogEntryType.BATCH)
-                              .build();
-        auditLogEntries.add(entry);
+        boolean batchFiltered = isFiltered(state, AuditLogEntryType.BATCH, state.getClientState().getRawKeyspace());
+        List<AuditLogEntry> auditLogEntries = null;
+        UUID batchId = null;
 
         for (int i = 0; i < statements.size(); i++)
         {
             CQLStatement statement = statements.get(i);
-            entry = new AuditLogEntry.Builder(state)
-                    .setType(statement.getAuditLogContext().auditLogEntryType)
-                    .setOperation(queries.get(i))
-                    .setTimestamp(queryStartTimeMillis)
-                    .setScope(statement)
-                    .setKeyspace(state, statement)
-                    .setOptions(options)
-                    .setBatch(batchId)
-                    .build();
+            if (isFiltered(state, statement.getAuditLogContext().auditLogEntryType, AuditLogEntry.keyspace(state, statement)))
+                continue;
+
+            if (auditLogEntries == null)
+            {
+                auditLogEntries = new ArrayList<>(statements.size() + 1);
+                batchId = UUIDGen.getTimeUUID();
+                if (!batchFiltered)
+                    auditLogEntries.add(buildBatchEntry(batchId, statements.size(), state, options, queryStartTimeMillis));
+            }
+
+            AuditLogEntry entry = new AuditLogEntry.Builder(state)
+                                  .setType(statement.getAuditLogContext().auditLogEntryType)
+                                  .setOperation(queries.get(i))
+                                  .setTimestamp(queryStartTimeMillis)
+                                  .setScope(statement)
+                                  .setKeyspace(state, statement)
+                                  .setOptions(options)
+                                  .setBatch(batchId)
+                                  .build();
             auditLogEntries.add(entry);
         }
 
+        if (auditLogEntries == null)
+        {
+            if (batchFiltered)
+                return Collections.emptyList();
+
+            return Collections.singletonList(buildBatchEntry(UUIDGen.getTimeUUID(), statements.size(), state, options, queryStartTimeMillis));
+        }
+
         return auditLogEntries;
     }
 
+    private static AuditLogEntry buildBatchEntry(UUID batchId, int size, QueryState state, QueryOptions options, long queryStartTimeMillis)
+    {
+        return new AuditLogEntry.Builder(state)
+               .setOperation("BatchId:[" + batchId + "] - BATCH of [" + size + "] statements")
+               .setOptions(options)
+               .setTimestamp(queryStartTimeMillis)
+               .setBatch(batchId)
+               .setType(AuditLogEntryType.BATCH)
+               .build();
+    }
+
     public void prepareSuccess(CQLStatement statement, String query, QueryState state, long queryTime, ResultMessage.Prepared response)
     {
+        if (isFiltered(state, AuditLogEntryType.PREPARE_STATEMENT, statement.getAuditLogContext().keyspace))
+            return;
+
         AuditLogEntry entry = new AuditLogEntry.Builder(state).setOperation(query)
                                                               .setType(AuditLogEntryType.PREPARE_STATEMENT)
                                                               .setScope(statement)
                                                               .setKeyspace(statement)
                                                               .build();
-        log(entry);
+        auditLogger.log(entry);
     }
 
     public void prepareFailure(@Nullable CQLStatement stmt, @Nullable String query, QueryState state, Exception cause)
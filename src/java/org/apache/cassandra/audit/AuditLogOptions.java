@@ -60,6 +60,7 @@ public class AuditLogOptions extends BinLogOptions
                ", block=" + block +
                ", max_queue_weight=" + max_queue_weight +
                ", max_log_size=" + max_log_size +
+               ", compressed_batches=" + compressed_batches +
                '}';
     }
 }
@@ -19,6 +19,7 @@ package org.apache.cassandra.audit;
 
 import java.nio.file.Paths;
 import java.util.Map;
+import java.util.UUID;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.primitives.Ints;
@@ -26,8 +27,12 @@ import com.google.common.primitives.Ints;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.util.Recycler;
 import net.openhft.chronicle.wire.WireOut;
 import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.locator.InetAddressAndPort;
+import org.apache.cassandra.transport.CBUtil;
 import org.apache.cassandra.utils.ObjectSizes;
 import org.apache.cassandra.utils.binlog.BinLog;
 import org.apache.cassandra.utils.concurrent.WeightedQueue;
@@ -37,6 +42,17 @@ public class BinAuditLogger implements IAuditLogger
     public static final long CURRENT_VERSION = 0;
     public static final String AUDITLOG_TYPE = "audit";
     public static final String AUDITLOG_MESSAGE = "message";
+
+    /**
+     * The type of the documents audit log entries are batched in, when compressed_batches is enabled. Each record of
+     * the batch holds the fields of an entry, rather than its log string, as
+     * [user][inetaddr host][int host port][boolean has source]([inetaddr source][int source port])[long timestamp]
+     * [string type][boolean has batch]([uuid batch])[keyspace][scope][boolean has operation]([long string operation]),
+     * where user, keyspace and scope are a boolean telling whether they are set, followed by the string if so. The
+     * log strings can be rebuilt with {@link #readLogString(ByteBuf)}.
+     */
+    public static final String AUDITLOG_COMPRESSED_BATCH = "audit-compressed-batch";
+
     private static final Logger logger = LoggerFactory.getLogger(BinAuditLogger.class);
 
     private volatile BinLog binLog;
@@ -52,6 +68,7 @@ public class BinAuditLogger implements IAuditLogger
                                           .maxLogSize(auditLoggingOptions.max_log_size)
                                           .archiveCommand(auditLoggingOptions.archive_command)
                                           .maxArchiveRetries(auditLoggingOptions.max_archive_retries)
+                                          .compressedBatches(auditLoggingOptions.compressed_batches)
                                           .build(false);
     }
 
@@ -89,9 +106,156 @@ public class BinAuditLogger implements IAuditLogger
         {
             return;
         }
-        binLog.logRecord(new Message(auditLogEntry.getLogString()));
+        // the log string is only built, or the entry encoded, by the thread writing the log
+        binLog.logRecord(EntryRecord.get(auditLogEntry));
+    }
+
+    /**
+     * Rebuilds the log string of an entry from a record of a {@link #AUDITLOG_COMPRESSED_BATCH}.
+     */
+    public static String readLogString(ByteBuf in)
+    {
+        String user = readNullableString(in);
+        InetAddressAndPort host = InetAddressAndPort.getByAddressOverrideDefaults(CBUtil.readInetAddr(in), in.readInt());
+        InetAddressAndPort source = in.readBoolean()
+                                    ? InetAddressAndPort.getByAddressOverrideDefaults(CBUtil.readInetAddr(in), in.readInt())
+                                    : null;
+        long timestamp = in.readLong();
+        AuditLogEntryType type = AuditLogEntryType.valueOf(CBUtil.readString(in));
+        UUID batch = in.readBoolean() ? CBUtil.readUUID(in) : null;
+        String keyspace = readNullableString(in);
+        String scope = readNullableString(in);
+        String operation = in.readBoolean() ? CBUtil.readLongString(in) : null;
+        return AuditLogEntry.appendLogString(new StringBuilder(100), user, host, source, timestamp, type, batch, keyspace, scope, operation).toString();
+    }
+
+    private static String readNullableString(ByteBuf in)
+    {
+        return in.readBoolean() ? CBUtil.readString(in) : null;
     }
 
+    private static void writeNullableString(String str, ByteBuf out)
+    {
+        out.writeBoolean(str != null);
+        if (str != null)
+            CBUtil.writeString(str, out);
+    }
+
+    /**
+     * The record of an audit log entry, which only holds on to the fields of the entry that are logged, and is
+     * recycled once written so that logging an entry doesn't allocate a record.
+     */
+    private static final class EntryRecord extends BinLog.BatchableWriteMarshallable implements WeightedQueue.Weighable
+    {
+        private static final Recycler<EntryRecord> recycler = new Recycler<EntryRecord>()
+        {
+            protected EntryRecord newObject(Handle<EntryRecord> handle)
+            {
+                return new EntryRecord(handle);
+            }
+        };
+
+        private static final long EMPTY_SIZE = ObjectSizes.measure(new EntryRecord(null));
+
+        private final Recycler.Handle<EntryRecord> handle;
+
+        private String user;
+        private InetAddressAndPort host;
+        private InetAddressAndPort source;
+        private long timestamp;
+        private AuditLogEntryType type;
+        private UUID batch;
+        private String keyspace;
+        private String scope;
+        private String operation;
+        private int weight;
+
+        private EntryRecord(Recycler.Handle<EntryRecord> handle)
+        {
+            this.handle = handle;
+        }
+
+        static EntryRecord get(AuditLogEntry entry)
+        {
+            EntryRecord record = recycler.get();
+            record.user = entry.getUser();
+            record.host = entry.getHost();
+            record.source = entry.getSource();
+            record.timestamp = entry.getTimestamp();
+            record.type = entry.getType();
+            record.batch = entry.getBatch();
+            record.keyspace = entry.getKeyspace();
+            record.scope = entry.getScope();
+            record.operation = entry.getOperation();
+            // the other fields are either shared or small, the operation is the query and can be arbitrarily large
+            record.weight = Ints.saturatedCast(EMPTY_SIZE + (record.operation == null ? 0 : ObjectSizes.sizeOf(record.operation)));
+            return record;
+        }
+
+        protected long version()
+        {
+            return CURRENT_VERSION;
+        }
+
+        protected String type()
+        {
+            return AUDITLOG_TYPE;
+        }
+
+        protected String batchType()
+        {
+            return AUDITLOG_COMPRESSED_BATCH;
+        }
+
+        @Override
+        public void writeMarshallablePayload(WireOut wire)
+        {
+            wire.write(AUDITLOG_MESSAGE).text(AuditLogEntry.appendLogString(new StringBuilder(100), user, host, source, timestamp, type, batch, keyspace, scope, operation));
+        }
+
+        protected void writeTo(ByteBuf out)
+        {
+            writeNullableString(user, out);
+            CBUtil.writeInetAddr(host.address, out);
+            out.writeInt(host.port);
+            out.writeBoolean(source != null);
+            if (source != null)
+            {
+                CBUtil.writeInetAddr(source.address, out);
+                out.writeInt(source.port);
+            }
+            out.writeLong(timestamp);
+            CBUtil.writeString(type.name(), out);
+            out.writeBoolean(batch != null);
+            if (batch != null)
+                CBUtil.writeUUID(batch, out);
+            writeNullableString(keyspace, out);
+            writeNullableString(scope, out);
+            out.writeBoolean(operation != null);
+            if (operation != null)
+                CBUtil.writeLongString(operation, out);
+        }
+
+        @Override
+        public void release()
+        {
+            user = null;
+            host = null;
+            source = null;
+            type = null;
+            batch = null;
+            keyspace = null;
+            scope = null;
+            operation = null;
+            handle.recycle(this);
+        }
+
+        @Override
+        public int weight()
+        {
+            return weight;
+        }
+    }
 
     @VisibleForTesting
     public static class Message extends BinLog.ReleaseableWriteMarshallable implements WeightedQueue.Weighable
@@ -17,31 +17,40 @@
  */
 package org.apache.cassandra.batchlog;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import com.google.common.util.concurrent.RateLimiter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.concurrent.DebuggableScheduledThreadPoolExecutor;
+import org.apache.cassandra.concurrent.DebuggableThreadPoolExecutor;
+import org.apache.cassandra.concurrent.ScheduledExecutors;
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.cql3.UntypedResultSet;
 import org.apache.cassandra.db.ColumnFamilyStore;
@@ -73,6 +82,7 @@ import org.apache.cassandra.schema.SchemaConstants;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.service.WriteResponseHandler;
+import org.apache.cassandra.utils.CloseableIterator;
 import org.apache.cassandra.utils.ExecutorUtils;
 import org.apache.cassandra.utils.FBUtilities;
 import org.apache.cassandra.utils.MBeanWrapper;
@@ -94,7 +104,7 @@ public class BatchlogManager implements BatchlogManagerMBean
     public static final BatchlogManager instance = new BatchlogManager();
     public static final long BATCHLOG_REPLAY_TIMEOUT = Long.getLong("cassandra.batchlog.replay_timeout_in_ms", DatabaseDescriptor.getWriteRpcTimeout(MILLISECONDS) * 2);
 
-    private volatile long totalBatchesReplayed = 0; // no concurrency protection necessary as only written by replay thread.
+    private final AtomicLong totalBatchesReplayed = new AtomicLong(); // segments of the log store are replayed concurrently
     private volatile UUID lastReplayedUuid = UUIDGen.minTimeUUID(0);
 
     // Single-thread executor service for scheduling and serializing log replay.
@@ -102,11 +112,48 @@ public class BatchlogManager implements BatchlogManagerMBean
 
     private final RateLimiter rateLimiter = RateLimiter.create(Double.MAX_VALUE);
 
+    // null unless batches are stored in segment files rather than in system.batches (batchlog_storage: log)
+    private final BatchlogStore logStore;
+    // replays the segments of the log stores in parallel, null if there is no log store
+    private final ExecutorService segmentReplayExecutor;
+
+    // Batches left behind in the storage that isn't configured (anymore), which are replayed along with the others
+    // until there are none left, so that changing batchlog_storage doesn't lose them. Only used by batchlogTasks.
+    private volatile BatchlogStore previousLogStore;
+    private volatile boolean replayPreviousTable;
+
     public BatchlogManager()
+    {
+        this(DatabaseDescriptor.getBatchlogStorage(), DatabaseDescriptor.getBatchlogDirectory());
+    }
+
+    @VisibleForTesting
+    BatchlogManager(Config.BatchlogStorage storage, File logDirectory)
     {
         ScheduledThreadPoolExecutor executor = new DebuggableScheduledThreadPoolExecutor("BatchlogTasks");
         executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
         batchlogTasks = executor;
+
+        if (storage == Config.BatchlogStorage.log)
+        {
+            logStore = BatchlogStore.open(logDirectory, DatabaseDescriptor.getBatchlogSegmentSize());
+            // system.batches can't be read yet, it is checked on the first replay
+            replayPreviousTable = true;
+        }
+        else
+        {
+            logStore = null;
+            BatchlogStore previous = logDirectory == null ? null : BatchlogStore.open(logDirectory, DatabaseDescriptor.getBatchlogSegmentSize());
+            if (previous != null && previous.count() > 0)
+            {
+                logger.info("Replaying {} batches left in {} although batchlog_storage is table", previous.count(), logDirectory);
+                previousLogStore = previous;
+            }
+        }
+
+        segmentReplayExecutor = logStore != null || previousLogStore != null
+                              ? DebuggableThreadPoolExecutor.createWithFixedPoolSize("BatchlogReplay", DatabaseDescriptor.getBatchlogReplayThreads())
+                              : null;
     }
 
     public void start()
@@ -117,14 +164,34 @@ public class BatchlogManager implements BatchlogManagerMBean
                                              StorageService.RING_DELAY,
                                              REPLAY_INTERVAL,
                                              MILLISECONDS);
+
+        // the log store is synced as often as the commit log when it isn't synced on every write
+        if (logStore != null && DatabaseDescriptor.getCommitLogSync() == Config.CommitLogSync.periodic)
+        {
+            int syncPeriod = DatabaseDescriptor.getCommitLogSyncPeriod();
+            ScheduledExecutors.scheduledFastTasks.scheduleWithFixedDelay(logStore::sync, syncPeriod, syncPeriod, MILLISECONDS);
+        }
     }
 
     public void shutdownAndWait(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException
     {
-        ExecutorUtils.shutdownAndWait(timeout, unit, batchlogTasks);
+        ExecutorUtils.shutdownAndWait(timeout, unit, batchlogTasks, segmentReplayExecutor);
+        if (logStore != null)
+            logStore.close();
+        BatchlogStore previous = previousLogStore;
+        if (previous != null)
+            previous.close();
     }
 
     public static void remove(UUID id)
+    {
+        if (instance.logStore != null)
+            instance.logStore.remove(id);
+        else
+            removeFromTable(id);
+    }
+
+    private static void removeFromTable(UUID id)
     {
         new Mutation(PartitionUpdate.fullPartitionDelete(SystemKeyspace.Batches,
                                                          UUIDType.instance.decompose(id),
@@ -139,6 +206,28 @@ public class BatchlogManager implements BatchlogManagerMBean
     }
 
     public static void store(Batch batch, boolean durableWrites)
+    {
+        List<ByteBuffer> mutations = encodeMutations(batch);
+
+        if (instance.logStore != null)
+        {
+            // like the commit log, only sync every write if the commit log does
+            boolean sync = durableWrites && DatabaseDescriptor.getCommitLogSync() != Config.CommitLogSync.periodic;
+            instance.logStore.store(batch.id, batch.creationTime, MessagingService.current_version, mutations, sync);
+            return;
+        }
+
+        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(SystemKeyspace.Batches, batch.id);
+        builder.row()
+               .timestamp(batch.creationTime)
+               .add("version", MessagingService.current_version)
+               .appendAll("mutations", mutations);
+
+        builder.buildAsMutation().apply(durableWrites);
+    }
+
+    @VisibleForTesting
+    static List<ByteBuffer> encodeMutations(Batch batch)
     {
         List<ByteBuffer> mutations = new ArrayList<>(batch.encodedMutations.size() + batch.decodedMutations.size());
         mutations.addAll(batch.encodedMutations);
@@ -156,18 +245,22 @@ public class BatchlogManager implements BatchlogManagerMBean
                 throw new AssertionError(e);
             }
         }
-
-        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(SystemKeyspace.Batches, batch.id);
-        builder.row()
-               .timestamp(batch.creationTime)
-               .add("version", MessagingService.current_version)
-               .appendAll("mutations", mutations);
-
-        builder.buildAsMutation().apply(durableWrites);
+        return mutations;
     }
 
     @VisibleForTesting
     public int countAllBatches()
+    {
+        BatchlogStore previous = previousLogStore;
+        int count = previous == null ? 0 : previous.count();
+        if (logStore == null || replayPreviousTable)
+            count += countTableBatches();
+        if (logStore != null)
+            count += logStore.count();
+        return count;
+    }
+
+    private static int countTableBatches()
     {
         String query = String.format("SELECT count(*) FROM %s.%s", SchemaConstants.SYSTEM_KEYSPACE_NAME, SystemKeyspace.BATCHES);
         UntypedResultSet results = executeInternal(query);
@@ -179,7 +272,7 @@ public class BatchlogManager implements BatchlogManagerMBean
 
     public long getTotalBatchesReplayed()
     {
-        return totalBatchesReplayed;
+        return totalBatchesReplayed.get();
     }
 
     public void forceBatchlogReplay() throws Exception
@@ -214,6 +307,46 @@ public class BatchlogManager implements BatchlogManagerMBean
         setRate(DatabaseDescriptor.getBatchlogReplayThrottleInKB());
 
         UUID limitUuid = UUIDGen.maxTimeUUID(System.currentTimeMillis() - getBatchlogTimeout());
+        if (logStore != null)
+            replayLogSegments(logStore, UUIDGen.unixTimestamp(limitUuid));
+        else
+            replayTable(limitUuid);
+
+        replayPreviousStorage(limitUuid);
+        logger.trace("Finished replayFailedBatches");
+    }
+
+    /**
+     * Replays the batches left in the storage used before batchlog_storage was changed, until there are none left.
+     */
+    private void replayPreviousStorage(UUID limitUuid)
+    {
+        if (replayPreviousTable)
+        {
+            if (countTableBatches() > 0)
+            {
+                logger.debug("Replaying batches left in {}.{} although batchlog_storage is log", SchemaConstants.SYSTEM_KEYSPACE_NAME, SystemKeyspace.BATCHES);
+                replayTable(limitUuid);
+            }
+            replayPreviousTable = countTableBatches() > 0;
+        }
+
+        BatchlogStore previous = previousLogStore;
+        if (previous != null)
+        {
+            replayLogSegments(previous, UUIDGen.unixTimestamp(limitUuid));
+            if (previous.count() == 0)
+            {
+                // the segment of its removals is dropped the next time the directory is opened
+                previous.close();
+                previousLogStore = null;
+                logger.info("Replayed all the batches left in the batchlog segments");
+            }
+        }
+    }
+
+    private void replayTable(UUID limitUuid)
+    {
         ColumnFamilyStore store = Keyspace.open(SchemaConstants.SYSTEM_KEYSPACE_NAME).getColumnFamilyStore(SystemKeyspace.BATCHES);
         int pageSize = calculatePageSize(store);
         // There cannot be any live content where token(id) <= token(lastReplayedUuid) as every processed batch is
@@ -223,9 +356,29 @@ public class BatchlogManager implements BatchlogManagerMBean
                                      SchemaConstants.SYSTEM_KEYSPACE_NAME,
                                      SystemKeyspace.BATCHES);
         UntypedResultSet batches = executeInternalWithPaging(query, pageSize, lastReplayedUuid, limitUuid);
-        processBatchlogEntries(batches, pageSize, rateLimiter);
+        processBatchlogEntries(batches, pageSize, rateLimiter, BatchlogManager::removeFromTable);
         lastReplayedUuid = limitUuid;
-        logger.trace("Finished replayFailedBatches");
+    }
+
+    /**
+     * Replays the live batches of {@code store} created up to {@code maxTimeMillis}, with a task per segment.
+     */
+    private void replayLogSegments(BatchlogStore store, long maxTimeMillis)
+    {
+        Set<InetAddressAndPort> hintedNodes = ConcurrentHashMap.newKeySet();
+        Set<UUID> replayedBatches = ConcurrentHashMap.newKeySet();
+        List<Future<?>> replays = new ArrayList<>();
+        for (BatchlogStore.Segment segment : store.segments())
+        {
+            replays.add(segmentReplayExecutor.submit(() -> {
+                try (CloseableIterator<StoredBatch> batches = store.read(segment, maxTimeMillis))
+                {
+                    replayBatches(batches, DEFAULT_PAGE_SIZE, rateLimiter, hintedNodes, replayedBatches, store::remove);
+                }
+            }));
+        }
+        FBUtilities.waitOnFutures(replays);
+        finishReplay(hintedNodes, replayedBatches, store::remove);
     }
 
     /**
@@ -259,39 +412,53 @@ public class BatchlogManager implements BatchlogManagerMBean
         return (int) Math.max(1, Math.min(DEFAULT_PAGE_SIZE, 4 * 1024 * 1024 / averageRowSize));
     }
 
-    private void processBatchlogEntries(UntypedResultSet batches, int pageSize, RateLimiter rateLimiter)
+    private void processBatchlogEntries(UntypedResultSet batches, int pageSize, RateLimiter rateLimiter, Consumer<UUID> remove)
+    {
+        Set<InetAddressAndPort> hintedNodes = new HashSet<>();
+        Set<UUID> replayedBatches = new HashSet<>();
+        Iterator<StoredBatch> stored = Iterators.transform(batches.iterator(), row -> new StoredBatch(row.getUUID("id"),
+                                                                                                     row.getInt("version"),
+                                                                                                     row.getList("mutations", BytesType.instance)));
+        replayBatches(stored, pageSize, rateLimiter, hintedNodes, replayedBatches, remove);
+        finishReplay(hintedNodes, replayedBatches, remove);
+    }
+
+    private void replayBatches(Iterator<StoredBatch> batches,
+                               int pageSize,
+                               RateLimiter rateLimiter,
+                               Set<InetAddressAndPort> hintedNodes,
+                               Set<UUID> replayedBatches,
+                               Consumer<UUID> remove)
     {
         int positionInPage = 0;
         ArrayList<ReplayingBatch> unfinishedBatches = new ArrayList<>(pageSize);
 
-        Set<InetAddressAndPort> hintedNodes = new HashSet<>();
-        Set<UUID> replayedBatches = new HashSet<>();
         Exception caughtException = null;
         int skipped = 0;
 
         // Sending out batches for replay without waiting for them, so that one stuck batch doesn't affect others
-        for (UntypedResultSet.Row row : batches)
+        while (batches.hasNext())
         {
-            UUID id = row.getUUID("id");
-            int version = row.getInt("version");
+            StoredBatch stored = batches.next();
+            UUID id = stored.id;
             try
             {
-                ReplayingBatch batch = new ReplayingBatch(id, version, row.getList("mutations", BytesType.instance));
+                ReplayingBatch batch = new ReplayingBatch(id, stored.version, stored.mutations);
                 if (batch.replay(rateLimiter, hintedNodes) > 0)
                 {
                     unfinishedBatches.add(batch);
                 }
                 else
                 {
-                    remove(id); // no write mutations were sent (either expired or all CFs involved truncated).
-                    ++totalBatchesReplayed;
+                    remove.accept(id); // no write mutations were sent (either expired or all CFs involved truncated).
+                    totalBatchesReplayed.incrementAndGet();
                 }
             }
             catch (IOException e)
             {
                 logger.warn("Skipped batch replay of {} due to {}", id, e.getMessage());
                 caughtException = e;
-                remove(id);
+                remove.accept(id);
                 ++skipped;
             }
 
@@ -308,12 +475,15 @@ public class BatchlogManager implements BatchlogManagerMBean
 
         if (caughtException != null)
             logger.warn(String.format("Encountered %d unexpected exceptions while sending out batches", skipped), caughtException);
+    }
 
+    private void finishReplay(Set<InetAddressAndPort> hintedNodes, Set<UUID> replayedBatches, Consumer<UUID> remove)
+    {
         // to preserve batch guarantees, we must ensure that hints (if any) have made it to disk, before deleting the batches
         HintsService.instance.flushAndFsyncBlockingly(transform(hintedNodes, StorageService.instance::getHostIdForEndpoint));
 
         // once all generated hints are fsynced, actually delete the batches
-        replayedBatches.forEach(BatchlogManager::remove);
+        replayedBatches.forEach(remove);
     }
 
     private void finishAndClearBatches(ArrayList<ReplayingBatch> batches, Set<InetAddressAndPort> hintedNodes, Set<UUID> replayedBatches)
@@ -325,7 +495,7 @@ public class BatchlogManager implements BatchlogManagerMBean
             replayedBatches.add(batch.id);
         }
 
-        totalBatchesReplayed += batches.size();
+        totalBatchesReplayed.addAndGet(batches.size());
         batches.clear();
     }
 
@@ -334,6 +504,23 @@ public class BatchlogManager implements BatchlogManagerMBean
         return BATCHLOG_REPLAY_TIMEOUT; // enough time for the actual write + BM removal mutation
     }
 
+    /**
+     * A batch as stored in the batchlog, its mutations still serialized with {@code version}.
+     */
+    static final class StoredBatch
+    {
+        final UUID id;
+        final int version;
+        final List<ByteBuffer> mutations;
+
+        StoredBatch(UUID id, int version, List<ByteBuffer> mutations)
+        {
+            this.id = id;
+            this.version = version;
+            this.mutations = mutations;
+        }
+    }
+
     private static class ReplayingBatch
     {
         private final UUID id;
@@ -0,0 +1,513 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.batchlog;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.cassandra.hints.ChecksummedDataInput;
+import org.apache.cassandra.io.FSWriteError;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.CloseableIterator;
+import org.apache.cassandra.utils.SyncUtil;
+import org.apache.cassandra.utils.UUIDGen;
+
+import static org.apache.cassandra.utils.FBUtilities.updateChecksum;
+import static org.apache.cassandra.utils.FBUtilities.updateChecksumInt;
+
+/**
+ * Stores logged batches in segmented append-only files, rather than in system.batches, so that completing a batch
+ * doesn't leave a tombstone behind to be compacted away.
+ *
+ * Batches are appended to the current segment, and so is a record of their removal once they are done. Which batches
+ * of each segment are still live is tracked in memory, and a segment is deleted as a whole as soon as it's no longer
+ * the current one and all its batches have been removed. On startup, the segments are read back in order, every removal
+ * record cancelling the batch it refers to. Removal records are never synced, and are lost with the segment they were
+ * written to, so a batch may be replayed again after a restart, which is harmless as replaying a batch is idempotent.
+ *
+ * Like hints, every record is written as [size][crc(size)][record][crc(size, record)], so that a torn write at the end
+ * of a segment is detected and ignored.
+ */
+public class BatchlogStore
+{
+    private static final Logger logger = LoggerFactory.getLogger(BatchlogStore.class);
+
+    private static final String SEGMENT_PREFIX = "batchlog-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte STORE = 0;
+    private static final byte REMOVE = 1;
+
+    private final File directory;
+    private final long segmentSize;
+
+    // the segment of every live batch
+    private final ConcurrentHashMap<UUID, Segment> live = new ConcurrentHashMap<>();
+    // every segment not yet deleted, oldest first
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+
+    // guarded by this
+    private Segment current;
+    private long nextSegmentId;
+
+    @VisibleForTesting
+    BatchlogStore(File directory, long segmentSize)
+    {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Opens the store in {@code directory}, loading the live batches of the segments found there.
+     */
+    public static BatchlogStore open(File directory, long segmentSize)
+    {
+        BatchlogStore store = new BatchlogStore(directory, segmentSize);
+        store.load();
+        return store;
+    }
+
+    private void load()
+    {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null)
+            return;
+
+        List<Segment> found = new ArrayList<>(files.length);
+        for (File file : files)
+            found.add(new Segment(segmentId(file), file));
+        found.sort((a, b) -> Long.compare(a.id, b.id));
+
+        for (Segment segment : found)
+        {
+            segments.put(segment.id, segment);
+            nextSegmentId = segment.id + 1;
+            try (ChecksummedDataInput in = ChecksummedDataInput.open(segment.file))
+            {
+                Record record;
+                while ((record = readRecord(in, segment, false)) != null)
+                {
+                    if (record.type == STORE)
+                    {
+                        live.put(record.id, segment);
+                        segment.liveBatches.incrementAndGet();
+                    }
+                    else
+                    {
+                        Segment removed = live.remove(record.id);
+                        if (removed != null)
+                            removed.liveBatches.decrementAndGet();
+                    }
+                }
+            }
+        }
+
+        for (Segment segment : found)
+        {
+            if (segment.liveBatches.get() == 0)
+                delete(segment);
+        }
+
+        logger.debug("Loaded {} live batches from {} batchlog segments", live.size(), segments.size());
+    }
+
+    private static long segmentId(File file)
+    {
+        String name = file.getName();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Appends a batch, made of its mutations serialized with {@code version}, to the current segment.
+     *
+     * @param sync whether to sync the segment to disk before returning
+     */
+    public void store(UUID id, long creationTime, int version, List<ByteBuffer> mutations, boolean sync)
+    {
+        ByteBuffer record = serializeStore(id, creationTime, version, mutations);
+        synchronized (this)
+        {
+            Segment segment = append(record);
+            segment.liveBatches.incrementAndGet();
+            live.put(id, segment);
+            if (sync)
+                segment.sync();
+        }
+    }
+
+    /**
+     * Records that a batch is done, deleting its segment if that was its last live batch.
+     */
+    public void remove(UUID id)
+    {
+        Segment segment = live.remove(id);
+        if (segment == null)
+            return;
+
+        ByteBuffer record = serializeRemove(id);
+        synchronized (this)
+        {
+            append(record);
+            if (segment.liveBatches.decrementAndGet() == 0 && segment != current)
+                delete(segment);
+        }
+    }
+
+    /**
+     * Syncs the current segment to disk.
+     */
+    public synchronized void sync()
+    {
+        if (current != null)
+            current.sync();
+    }
+
+    public synchronized void close()
+    {
+        if (current != null)
+            current.close();
+        current = null;
+    }
+
+    public int count()
+    {
+        return live.size();
+    }
+
+    /**
+     * @return the segments that may still have live batches, oldest first
+     */
+    public List<Segment> segments()
+    {
+        return new ArrayList<>(segments.values());
+    }
+
+    /**
+     * @return the batches of {@code segment} that are still live and were created no later than {@code maxTimeMillis}
+     */
+    CloseableIterator<BatchlogManager.StoredBatch> read(Segment segment, long maxTimeMillis)
+    {
+        return new SegmentIterator(segment, maxTimeMillis);
+    }
+
+    // guarded by this
+    private Segment append(ByteBuffer record)
+    {
+        if (current == null || current.size >= segmentSize)
+            roll();
+
+        current.write(record);
+        return current;
+    }
+
+    // guarded by this
+    private void roll()
+    {
+        Segment previous = current;
+        current = Segment.create(directory, nextSegmentId++);
+        segments.put(current.id, current);
+
+        if (previous != null)
+        {
+            previous.close();
+            if (previous.liveBatches.get() == 0)
+                delete(previous);
+        }
+    }
+
+    private void delete(Segment segment)
+    {
+        segments.remove(segment.id);
+        FileUtils.deleteWithConfirm(segment.file);
+    }
+
+    private static ByteBuffer serializeStore(UUID id, long creationTime, int version, List<ByteBuffer> mutations)
+    {
+        try (DataOutputBuffer out = new DataOutputBuffer())
+        {
+            out.writeByte(STORE);
+            out.writeLong(id.getMostSignificantBits());
+            out.writeLong(id.getLeastSignificantBits());
+            out.writeLong(creationTime);
+            out.writeUnsignedVInt(version);
+            out.writeUnsignedVInt(mutations.size());
+            for (ByteBuffer mutation : mutations)
+                ByteBufferUtil.writeWithVIntLength(mutation, out);
+            return frame(out.buffer());
+        }
+        catch (IOException e)
+        {
+            // shouldn't happen
+            throw new AssertionError(e);
+        }
+    }
+
+    private static ByteBuffer serializeRemove(UUID id)
+    {
+        ByteBuffer record = ByteBuffer.allocate(1 + 16);
+        record.put(REMOVE);
+        record.putLong(id.getMostSignificantBits());
+        record.putLong(id.getLeastSignificantBits());
+        record.flip();
+        return frame(record);
+    }
+
+    private static ByteBuffer frame(ByteBuffer record)
+    {
+        int size = record.remaining();
+        ByteBuffer framed = ByteBuffer.allocate(size + 12);
+
+        CRC32 crc = new CRC32();
+        framed.putInt(size);
+        updateChecksumInt(crc, size);
+        framed.putInt((int) crc.getValue());
+
+        updateChecksum(crc, record);
+        framed.put(record);
+        framed.putInt((int) crc.getValue());
+        framed.flip();
+        return framed;
+    }
+
+    /**
+     * @param active whether the segment is still being written to, in which case its last record may be only partly
+     * written, and reaching its end is not unexpected
+     * @return the next record of the segment, or null if there is none, or if the rest of the segment is corrupted
+     * (which is expected if it wasn't synced before shutdown)
+     */
+    private static Record readRecord(ChecksummedDataInput in, Segment segment, boolean active)
+    {
+        try
+        {
+            if (in.isEOF())
+                return null;
+
+            in.resetCrc();
+            in.resetLimit();
+            int size = in.readInt();
+            if (!in.checkCrc())
+                throw new IOException("Digest mismatch reading record size");
+
+            in.limit(size);
+            byte type = in.readByte();
+            UUID id = new UUID(in.readLong(), in.readLong());
+            Record record;
+            if (type == STORE)
+            {
+                long creationTime = in.readLong();
+                int version = (int) in.readUnsignedVInt();
+                int count = (int) in.readUnsignedVInt();
+                List<ByteBuffer> mutations = new ArrayList<>(count);
+                for (int i = 0; i < count; i++)
+                    mutations.add(ByteBufferUtil.readWithVIntLength(in));
+                record = new Record(type, id, new BatchlogManager.StoredBatch(id, version, mutations));
+            }
+            else
+            {
+                record = new Record(type, id, null);
+            }
+            in.checkLimit(0);
+
+            if (!in.checkCrc())
+                throw new IOException("Digest mismatch reading record");
+            return record;
+        }
+        catch (EOFException e)
+        {
+            if (active)
+                return null;
+            logger.warn("Unexpected end of batchlog segment {}, likely due to a segment not synced before shutdown; ignoring the rest of it", segment.file);
+            return null;
+        }
+        catch (IOException e)
+        {
+            logger.warn("Ignoring the rest of corrupted batchlog segment {}: {}", segment.file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static final class Record
+    {
+        private final byte type;
+        private final UUID id;
+        private final BatchlogManager.StoredBatch batch;
+
+        private Record(byte type, UUID id, BatchlogManager.StoredBatch batch)
+        {
+            this.type = type;
+            this.id = id;
+            this.batch = batch;
+        }
+    }
+
+    private final class SegmentIterator extends AbstractIterator<BatchlogManager.StoredBatch> implements CloseableIterator<BatchlogManager.StoredBatch>
+    {
+        private final Segment segment;
+        private final long maxTimeMillis;
+        private final ChecksummedDataInput in;
+        private final boolean active;
+
+        private SegmentIterator(Segment segment, long maxTimeMillis)
+        {
+            this.segment = segment;
+            this.maxTimeMillis = maxTimeMillis;
+            synchronized (BatchlogStore.this)
+            {
+                this.active = segment == current;
+            }
+            // the segment may have been deleted since it was listed, in which case none of its batches are live
+            this.in = segment.file.exists() ? openQuietly(segment) : null;
+        }
+
+        protected BatchlogManager.StoredBatch computeNext()
+        {
+            if (in == null)
+                return endOfData();
+
+            Record record;
+            while ((record = readRecord(in, segment, active)) != null)
+            {
+                if (record.type == STORE && live.get(record.id) == segment && UUIDGen.unixTimestamp(record.id) <= maxTimeMillis)
+                    return record.batch;
+            }
+            return endOfData();
+        }
+
+        public void close()
+        {
+            if (in != null)
+                in.close();
+        }
+    }
+
+    private static ChecksummedDataInput openQuietly(Segment segment)
+    {
+        try
+        {
+            return ChecksummedDataInput.open(segment.file);
+        }
+        catch (RuntimeException e)
+        {
+            if (!segment.file.exists())
+                return null;
+            throw e;
+        }
+    }
+
+    public static final class Segment
+    {
+        private final long id;
+        private final File file;
+        private final AtomicInteger liveBatches = new AtomicInteger();
+
+        // only set while the segment is the current one
+        private FileChannel channel;
+        private long size;
+
+        private Segment(long id, File file)
+        {
+            this.id = id;
+            this.file = file;
+        }
+
+        private static Segment create(File directory, long id)
+        {
+            Segment segment = new Segment(id, new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX));
+            try
+            {
+                segment.channel = FileChannel.open(segment.file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, segment.file);
+            }
+            return segment;
+        }
+
+        private void write(ByteBuffer record)
+        {
+            try
+            {
+                size += record.remaining();
+                while (record.hasRemaining())
+                    channel.write(record);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, file);
+            }
+        }
+
+        private void sync()
+        {
+            try
+            {
+                SyncUtil.force(channel, true);
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, file);
+            }
+        }
+
+        private void close()
+        {
+            try
+            {
+                SyncUtil.force(channel, true);
+                channel.close();
+            }
+            catch (IOException e)
+            {
+                throw new FSWriteError(e, file);
+            }
+            channel = null;
+        }
+
+        @VisibleForTesting
+        File file()
+        {
+            return file;
+        }
+
+        @Override
+        public String toString()
+        {
+            return file.getName() + '(' + liveBatches.get() + " live batches)";
+        }
+    }
+}
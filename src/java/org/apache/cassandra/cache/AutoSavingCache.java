@@ -29,9 +29,11 @@ import org.cliffc.high_scale_lib.NonBlockingHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
 
 import org.apache.cassandra.concurrent.ScheduledExecutors;
 import org.apache.cassandra.schema.TableId;
@@ -84,7 +86,8 @@ public class AutoSavingCache<K extends CacheKey, V> extends InstrumentingCache<K
      *
      * "f" introduced with CASSANDRA-9425, changes "keyspace.table.index" in cache keys to TableMetadata.id+TableMetadata.indexName
      */
-    private static final String CURRENT_VERSION = "f";
+    @VisibleForTesting
+    static final String CURRENT_VERSION = "f";
 
     private static volatile IStreamFactory streamFactory = new IStreamFactory()
     {
@@ -189,6 +192,8 @@ public class AutoSavingCache<K extends CacheKey, V> extends InstrumentingCache<K
     {
         int count = 0;
         long start = System.nanoTime();
+        int throughputKbPerSec = DatabaseDescriptor.getSavedCachesLoadThroughputKbPerSec();
+        RateLimiter limiter = throughputKbPerSec > 0 ? RateLimiter.create(throughputKbPerSec * 1024.0) : null;
 
         // modern format, allows both key and value (so key cache load can be purely sequential)
         File dataPath = getCacheDataPath(CURRENT_VERSION);
@@ -199,7 +204,8 @@ public class AutoSavingCache<K extends CacheKey, V> extends InstrumentingCache<K
             try
             {
                 logger.info("reading saved cache {}", dataPath);
-                in = new DataInputStreamPlus(new LengthAvailableInputStream(new BufferedInputStream(streamFactory.getInputStream(dataPath, crcPath)), dataPath.length()));
+                TrackedInputStream tracked = new TrackedInputStream(new LengthAvailableInputStream(new BufferedInputStream(streamFactory.getInputStream(dataPath, crcPath)), dataPath.length()));
+                in = new DataInputStreamPlus(tracked);
 
                 //Check the schema has not changed since CFs are looked up by name which is ambiguous
                 UUID schemaVersion = new UUID(in.readLong(), in.readLong());
@@ -212,6 +218,8 @@ public class AutoSavingCache<K extends CacheKey, V> extends InstrumentingCache<K
                 ArrayDeque<Future<Pair<K, V>>> futures = new ArrayDeque<Future<Pair<K, V>>>();
                 while (in.available() > 0)
                 {
+                    long entryStart = tracked.getBytesRead();
+
                     //tableId and indexName are serialized by the serializers in CacheService
                     //That is delegated there because there are serializer specific conditions
                     //where a cache key is skipped and not written
@@ -225,6 +233,9 @@ public class AutoSavingCache<K extends CacheKey, V> extends InstrumentingCache<K
                         cfs = cfs.indexManager.getIndexByName(indexName).getBackingTable().orElse(null);
 
                     Future<Pair<K, V>> entryFuture = cacheLoader.deserialize(in, cfs);
+                    // pay for the bytes of the entry read from the saved cache before loading the next one
+                    if (limiter != null)
+                        throttleLoad(limiter, tracked.getBytesRead() - entryStart);
                     // Key cache entry can return null, if the SSTable doesn't exist.
                     if (entryFuture == null)
                         continue;
@@ -280,6 +291,15 @@ public class AutoSavingCache<K extends CacheKey, V> extends InstrumentingCache<K
         return count;
     }
 
+    /**
+     * Waits until the throughput budget allows for {@code bytesRead} more bytes read from the saved cache.
+     */
+    private static void throttleLoad(RateLimiter limiter, long bytesRead)
+    {
+        if (bytesRead > 0)
+            limiter.acquire((int) Math.min(Integer.MAX_VALUE, bytesRead));
+    }
+
     public Future<?> submitWrite(int keysToSave)
     {
         return CompactionManager.instance.submitCacheWrite(getWriter(keysToSave));
@@ -297,7 +317,8 @@ public class AutoSavingCache<K extends CacheKey, V> extends InstrumentingCache<K
             int size = size();
             if (keysToSave >= size || keysToSave == 0)
             {
-                keyIterator = keyIterator();
+                // caches loaded in the background are saved hottest first, so that those get loaded first
+                keyIterator = DatabaseDescriptor.getSavedCachesLoadInBackground() ? hotKeyIterator(size) : keyIterator();
                 keysEstimate = size;
             }
             else
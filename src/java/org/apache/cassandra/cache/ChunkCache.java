@@ -33,6 +33,7 @@ import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.io.sstable.CorruptSSTableException;
 import org.apache.cassandra.io.util.*;
 import org.apache.cassandra.metrics.ChunkCacheMetrics;
+import org.apache.cassandra.tracing.SpanSampler;
 import org.apache.cassandra.utils.memory.BufferPool;
 
 public class ChunkCache
@@ -151,7 +152,16 @@ public class ChunkCache
     {
         ByteBuffer buffer = BufferPool.get(key.file.chunkSize(), key.file.preferredBufferType());
         assert buffer != null;
-        key.file.readChunk(key.position, buffer);
+        if (SpanSampler.isSampling())
+        {
+            long start = System.nanoTime();
+            key.file.readChunk(key.position, buffer);
+            SpanSampler.addChunkCacheMiss(System.nanoTime() - start);
+        }
+        else
+        {
+            key.file.readChunk(key.position, buffer);
+        }
         return new Buffer(buffer, key.position);
     }
 
@@ -119,6 +119,29 @@ public class SerializingCache<K, V> implements ICache<K, V>
         return freeableMemory;
     }
 
+    /**
+     * @return whether {@code value} serializes to the content of {@code mem}
+     */
+    private boolean serializesTo(V value, RefCountedMemory mem)
+    {
+        if (serializer.serializedSize(value) != mem.size())
+            return false;
+
+        RefCountedMemory serialized = serialize(value);
+        if (serialized == null)
+            return false; // out of memory.  never mind.
+
+        try
+        {
+            int size = (int) mem.size();
+            return serialized.asByteBuffer(0, size).equals(mem.asByteBuffer(0, size));
+        }
+        finally
+        {
+            serialized.unreference();
+        }
+    }
+
     public long capacity()
     {
         return cache.policy().eviction().get().getMaximum();
@@ -221,18 +244,25 @@ public class SerializingCache<K, V> implements ICache<K, V>
         if (old == null)
             return false;
 
-        V oldValue;
-        // reference old guy before de-serializing
+        // reference old guy before comparing it
         if (!old.reference())
             return false; // we have already freed hence noop.
 
-        oldValue = deserialize(old);
-        old.unreference();
+        // see if the old value matches the one we want to replace. Callers only ever hold deserialized copies of the
+        // cached values, so they are compared in serialized form rather than relying on the values implementing equals
+        boolean matches;
+        try
+        {
+            matches = serializesTo(oldToReplace, old);
+        }
+        finally
+        {
+            old.unreference();
+        }
 
-        if (!oldValue.equals(oldToReplace))
+        if (!matches)
             return false;
 
-        // see if the old value matches the one we want to replace
         RefCountedMemory mem = serialize(value);
         if (mem == null)
             return false; // out of memory.  never mind.
@@ -35,6 +35,7 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.audit.AuditLogOptions;
 import org.apache.cassandra.fql.FullQueryLoggerOptions;
+import org.apache.cassandra.tracing.TracingBinLogOptions;
 import org.apache.cassandra.db.ConsistencyLevel;
 
 /**
@@ -74,6 +75,7 @@ public class Config
     public Set<String> hinted_handoff_disabled_datacenters = Sets.newConcurrentHashSet();
     public volatile int max_hint_window_in_ms = 3 * 3600 * 1000; // three hours
     public String hints_directory;
+    public String batchlog_directory;
 
     public ParameterizedClass seed_provider;
     public DiskAccessMode disk_access_mode = DiskAccessMode.auto;
@@ -97,12 +99,31 @@ public class Config
 
     public volatile long range_request_timeout_in_ms = 10000L;
 
+    /**
+     * If positive, identical single partition reads (same table, key, filters and consistency level) received by a
+     * coordinator within this many milliseconds of an in-flight one share its replica round trip and result, unless a
+     * write to that partition went through this node in between. 0 disables coalescing.
+     */
+    public volatile int read_coalescing_window_in_ms = 0;
+
     public volatile long write_request_timeout_in_ms = 2000L;
 
     public volatile long counter_write_request_timeout_in_ms = 5000L;
 
     public volatile long cas_contention_timeout_in_ms = 1000L;
 
+    /**
+     * Whether the read of a compare-and-set is sent along with its Paxos prepare, saving a round trip when the
+     * replicas agree. Requires every node of the cluster to understand PAXOS_PREPARE_AND_READ_REQ.
+     */
+    public volatile boolean paxos_prepare_with_read = false;
+
+    /**
+     * Size of the in-memory cache of Paxos state kept in front of system.paxos, so that prepares and proposals don't
+     * have to read it back. Defaults to min(1% of the heap, 32MB), 0 disables it.
+     */
+    public Long paxos_state_cache_size_in_mb = null;
+
     public volatile long truncate_request_timeout_in_ms = 60000L;
 
     public Integer streaming_connections_per_host = 1;
@@ -266,6 +287,13 @@ public class Config
     public int dynamic_snitch_update_interval_in_ms = 100;
     public int dynamic_snitch_reset_interval_in_ms = 600000;
     public double dynamic_snitch_badness_threshold = 0.1;
+    /**
+     * If true, the dynamic snitch ranks replicas by their in-flight requests and smoothed latency as tracked by
+     * {@link org.apache.cassandra.locator.ReplicaLoadTracker} on every response, rather than by its periodically
+     * recomputed scores, and speculative retries are also triggered when the contacted replicas are late with respect
+     * to their own latency.
+     */
+    public volatile boolean dynamic_snitch_load_aware = false;
 
     public EncryptionOptions.ServerEncryptionOptions server_encryption_options = new EncryptionOptions.ServerEncryptionOptions();
     public EncryptionOptions client_encryption_options = new EncryptionOptions();
@@ -274,6 +302,14 @@ public class Config
 
     public int hinted_handoff_throttle_in_kb = 1024;
     public int batchlog_replay_throttle_in_kb = 1024;
+    /**
+     * Where logged batches are stored until they have been applied: in the system.batches table, or in segmented
+     * append-only files under batchlog_directory, which are dropped as a whole once all their batches are done.
+     * The batches left in the other storage when this is changed are still replayed from there.
+     */
+    public BatchlogStorage batchlog_storage = BatchlogStorage.table;
+    public int batchlog_segment_size_in_mb = 32;
+    public int batchlog_replay_threads = 2;
     public int max_hints_delivery_threads = 2;
     public int hints_flush_period_in_ms = 10000;
     public int max_hints_file_size_in_mb = 128;
@@ -294,11 +330,25 @@ public class Config
     public long row_cache_size_in_mb = 0;
     public volatile int row_cache_save_period = 0;
     public volatile int row_cache_keys_to_save = Integer.MAX_VALUE;
+    /**
+     * Whether writes to a partition in the row cache are merged into the cached partition rather than invalidating it.
+     */
+    public volatile boolean row_cache_merge_writes = false;
 
     public Long counter_cache_size_in_mb = null;
     public volatile int counter_cache_save_period = 7200;
     public volatile int counter_cache_keys_to_save = Integer.MAX_VALUE;
 
+    /**
+     * Whether the saved key and row caches are loaded in the background once the node has started, rather than before
+     * it starts. They are then saved hottest entries first, so that those are the first ones loaded.
+     */
+    public boolean saved_caches_load_in_background = false;
+    /**
+     * Throttles the loading of the saved caches to this many kb read from the saved cache files per second, 0 to disable.
+     */
+    public volatile int saved_caches_load_throughput_kb_per_sec = 0;
+
     private static boolean isClientMode = false;
     private static Supplier<Config> overrideLoadConfig = null;
 
@@ -345,6 +395,21 @@ public class Config
     public int tracetype_query_ttl = (int) TimeUnit.DAYS.toSeconds(1);
     public int tracetype_repair_ttl = (int) TimeUnit.DAYS.toSeconds(7);
 
+    /**
+     * The probability with which a read or a write records, in memory, a span of where its time went on the
+     * coordinator and on the replicas, see {@link org.apache.cassandra.tracing.SpanSampler}. 0 disables sampling.
+     */
+    public volatile double span_sampling_probability = 0.01;
+    // the number of most recent sampled spans kept in memory
+    public int sampled_spans_buffer_size = 4096;
+
+    /**
+     * Where tracing sessions and events are written: to the system_traces tables, or only to a local binary log,
+     * rolled and capped in size as configured by tracing_binlog_options, which costs no write to the cluster.
+     */
+    public TracingStorage tracing_storage = TracingStorage.table;
+    public TracingBinLogOptions tracing_binlog_options = new TracingBinLogOptions();
+
     /**
      * Maintain statistics on whether writes achieve the ideal consistency level
      * before expiring and becoming hints
@@ -559,6 +624,18 @@ public class Config
         group
     }
 
+    public enum BatchlogStorage
+    {
+        table,
+        log
+    }
+
+    public enum TracingStorage
+    {
+        table,
+        binlog
+    }
+
     public enum FlushCompression
     {
         none,
@@ -69,6 +69,7 @@ import org.apache.cassandra.locator.SeedProvider;
 import org.apache.cassandra.security.EncryptionContext;
 import org.apache.cassandra.security.SSLFactory;
 import org.apache.cassandra.service.CacheService.CacheType;
+import org.apache.cassandra.tracing.TracingBinLogOptions;
 import org.apache.cassandra.utils.FBUtilities;
 
 import org.apache.commons.lang3.StringUtils;
@@ -128,6 +129,7 @@ public class DatabaseDescriptor
 
     private static long keyCacheSizeInMB;
     private static long counterCacheSizeInMB;
+    private static long paxosStateCacheSizeInMB;
     private static long indexSummaryCapacityInMB;
 
     private static String localDC;
@@ -529,6 +531,30 @@ public class DatabaseDescriptor
             conf.hints_directory = storagedirFor("hints");
         }
 
+        // also defaulted with batchlog_storage: table when possible, to replay the batches left there by batchlog_storage: log
+        if (conf.batchlog_directory == null
+            && (conf.batchlog_storage == Config.BatchlogStorage.log || System.getProperty(Config.PROPERTY_PREFIX + "storagedir") != null))
+        {
+            conf.batchlog_directory = storagedirFor("batchlog");
+        }
+
+        if (conf.tracing_storage == Config.TracingStorage.binlog && StringUtils.isEmpty(conf.tracing_binlog_options.log_dir))
+        {
+            conf.tracing_binlog_options.log_dir = storagedirFor("tracing");
+        }
+
+        if (conf.batchlog_segment_size_in_mb <= 0)
+            throw new ConfigurationException("batchlog_segment_size_in_mb must be positive, but was " + conf.batchlog_segment_size_in_mb, false);
+
+        if (conf.batchlog_replay_threads <= 0)
+            throw new ConfigurationException("batchlog_replay_threads must be positive, but was " + conf.batchlog_replay_threads, false);
+
+        if (conf.span_sampling_probability < 0 || conf.span_sampling_probability > 1)
+            throw new ConfigurationException("span_sampling_probability must be between 0 and 1, but was " + conf.span_sampling_probability, false);
+
+        if (conf.sampled_spans_buffer_size <= 0)
+            throw new ConfigurationException("sampled_spans_buffer_size must be positive, but was " + conf.sampled_spans_buffer_size, false);
+
         if (conf.native_transport_max_concurrent_requests_in_bytes <= 0)
         {
             conf.native_transport_max_concurrent_requests_in_bytes = Runtime.getRuntime().maxMemory() / 10;
@@ -727,6 +753,15 @@ public class DatabaseDescriptor
                                              + conf.counter_cache_size_in_mb + "', supported values are <integer> >= 0.", false);
         }
 
+        // if paxos_state_cache_size_in_mb isn't set, use min(1% of Heap (in MB), 32MB)
+        paxosStateCacheSizeInMB = (conf.paxos_state_cache_size_in_mb == null)
+                                  ? Math.min(Math.max(1, (int) (Runtime.getRuntime().totalMemory() * 0.01 / 1024 / 1024)), 32)
+                                  : conf.paxos_state_cache_size_in_mb;
+
+        if (paxosStateCacheSizeInMB < 0)
+            throw new ConfigurationException("paxos_state_cache_size_in_mb option was set incorrectly to '"
+                                             + conf.paxos_state_cache_size_in_mb + "', it should be a non-negative integer.", false);
+
         // if set to empty/"auto" then use 5% of Heap size
         indexSummaryCapacityInMB = (conf.index_summary_capacity_in_mb == null)
                                    ? Math.max(1, (int) (Runtime.getRuntime().totalMemory() * 0.05 / 1024 / 1024))
@@ -1332,6 +1367,13 @@ public class DatabaseDescriptor
                 throw new ConfigurationException("hints_directory must be specified", false);
             FileUtils.createDirectory(conf.hints_directory);
 
+            if (conf.batchlog_storage == Config.BatchlogStorage.log)
+            {
+                if (conf.batchlog_directory == null)
+                    throw new ConfigurationException("batchlog_directory must be specified", false);
+                FileUtils.createDirectory(conf.batchlog_directory);
+            }
+
             if (conf.saved_caches_directory == null)
                 throw new ConfigurationException("saved_caches_directory must be specified", false);
             FileUtils.createDirectory(conf.saved_caches_directory);
@@ -1555,6 +1597,16 @@ public class DatabaseDescriptor
         conf.read_request_timeout_in_ms = timeOutInMillis;
     }
 
+    public static int getReadCoalescingWindowInMs()
+    {
+        return conf.read_coalescing_window_in_ms;
+    }
+
+    public static void setReadCoalescingWindowInMs(int windowInMs)
+    {
+        conf.read_coalescing_window_in_ms = windowInMs;
+    }
+
     public static long getRangeRpcTimeout(TimeUnit unit)
     {
         return unit.convert(conf.range_request_timeout_in_ms, MILLISECONDS);
@@ -1595,6 +1647,16 @@ public class DatabaseDescriptor
         conf.cas_contention_timeout_in_ms = timeOutInMillis;
     }
 
+    public static boolean getPaxosPrepareWithRead()
+    {
+        return conf.paxos_prepare_with_read;
+    }
+
+    public static void setPaxosPrepareWithRead(boolean prepareWithRead)
+    {
+        conf.paxos_prepare_with_read = prepareWithRead;
+    }
+
     public static long getTruncateRpcTimeout(TimeUnit unit)
     {
         return unit.convert(conf.truncate_request_timeout_in_ms, MILLISECONDS);
@@ -2356,6 +2418,16 @@ public class DatabaseDescriptor
         conf.dynamic_snitch_badness_threshold = dynamicBadnessThreshold;
     }
 
+    public static boolean isDynamicSnitchLoadAware()
+    {
+        return conf.dynamic_snitch_load_aware;
+    }
+
+    public static void setDynamicSnitchLoadAware(boolean loadAware)
+    {
+        conf.dynamic_snitch_load_aware = loadAware;
+    }
+
     public static EncryptionOptions.ServerEncryptionOptions getInternodeMessagingEncyptionOptions()
     {
         return conf.server_encryption_options;
@@ -2397,6 +2469,32 @@ public class DatabaseDescriptor
         conf.batchlog_replay_throttle_in_kb = throttleInKB;
     }
 
+    public static Config.BatchlogStorage getBatchlogStorage()
+    {
+        return conf.batchlog_storage;
+    }
+
+    @VisibleForTesting
+    public static void setBatchlogStorage(Config.BatchlogStorage storage)
+    {
+        conf.batchlog_storage = storage;
+    }
+
+    public static File getBatchlogDirectory()
+    {
+        return conf.batchlog_directory == null ? null : new File(conf.batchlog_directory);
+    }
+
+    public static long getBatchlogSegmentSize()
+    {
+        return conf.batchlog_segment_size_in_mb * 1024L * 1024L;
+    }
+
+    public static int getBatchlogReplayThreads()
+    {
+        return conf.batchlog_replay_threads;
+    }
+
     public static int getMaxHintsDeliveryThreads()
     {
         return conf.max_hints_delivery_threads;
@@ -2566,6 +2664,42 @@ public class DatabaseDescriptor
         return conf.row_cache_keys_to_save;
     }
 
+    public static boolean getRowCacheMergeWrites()
+    {
+        return conf.row_cache_merge_writes;
+    }
+
+    public static void setRowCacheMergeWrites(boolean mergeWrites)
+    {
+        conf.row_cache_merge_writes = mergeWrites;
+    }
+
+    public static boolean getSavedCachesLoadInBackground()
+    {
+        return conf.saved_caches_load_in_background;
+    }
+
+    @VisibleForTesting
+    public static void setSavedCachesLoadInBackground(boolean loadInBackground)
+    {
+        conf.saved_caches_load_in_background = loadInBackground;
+    }
+
+    public static int getSavedCachesLoadThroughputKbPerSec()
+    {
+        return conf.saved_caches_load_throughput_kb_per_sec;
+    }
+
+    public static void setSavedCachesLoadThroughputKbPerSec(int throughputKbPerSec)
+    {
+        conf.saved_caches_load_throughput_kb_per_sec = throughputKbPerSec;
+    }
+
+    public static long getPaxosStateCacheSizeInMB()
+    {
+        return paxosStateCacheSizeInMB;
+    }
+
     public static long getCounterCacheSizeInMB()
     {
         return counterCacheSizeInMB;
@@ -2720,6 +2854,37 @@ public class DatabaseDescriptor
         return conf.tracetype_query_ttl;
     }
 
+    public static double getSpanSamplingProbability()
+    {
+        return conf.span_sampling_probability;
+    }
+
+    public static void setSpanSamplingProbability(double probability)
+    {
+        conf.span_sampling_probability = probability;
+    }
+
+    public static int getSampledSpansBufferSize()
+    {
+        return conf.sampled_spans_buffer_size;
+    }
+
+    public static Config.TracingStorage getTracingStorage()
+    {
+        return conf.tracing_storage;
+    }
+
+    @VisibleForTesting
+    public static void setTracingStorage(Config.TracingStorage storage)
+    {
+        conf.tracing_storage = storage;
+    }
+
+    public static TracingBinLogOptions getTracingBinLogOptions()
+    {
+        return conf.tracing_binlog_options;
+    }
+
     public static int getWindowsTimerInterval()
     {
         return conf.windows_timer_interval;
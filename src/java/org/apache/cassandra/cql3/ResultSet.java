@@ -48,6 +48,11 @@ public class ResultSet
     public final ResultMetadata metadata;
     public final List<List<ByteBuffer>> rows;
 
+    // The serialized size of the (serialized columns of the) rows, maintained as rows are added so that encoding
+    // a large page doesn't have to walk every value once to size the frame and then once more to write it.
+    // -1 if the rows have been provided at construction and the size hasn't been computed yet.
+    private int rowsEncodedSize;
+
     public ResultSet(ResultMetadata resultMetadata)
     {
         this(resultMetadata, new ArrayList<List<ByteBuffer>>());
@@ -57,6 +62,7 @@ public class ResultSet
     {
         this.metadata = resultMetadata;
         this.rows = rows;
+        this.rowsEncodedSize = rows.isEmpty() ? 0 : -1;
     }
 
     public int size()
@@ -73,6 +79,8 @@ public class ResultSet
     {
         assert row.size() == metadata.valueCount();
         rows.add(row);
+        if (rowsEncodedSize >= 0)
+            rowsEncodedSize += encodedSize(row);
     }
 
     public void addColumnValue(ByteBuffer value)
@@ -80,7 +88,10 @@ public class ResultSet
         if (rows.isEmpty() || lastRow().size() == metadata.valueCount())
             rows.add(new ArrayList<ByteBuffer>(metadata.valueCount()));
 
-        lastRow().add(value);
+        List<ByteBuffer> row = lastRow();
+        if (rowsEncodedSize >= 0 && row.size() < metadata.columnCount)
+            rowsEncodedSize += CBUtil.sizeOfValue(value);
+        row.add(value);
     }
 
     private List<ByteBuffer> lastRow()
@@ -99,8 +110,36 @@ public class ResultSet
         if (toRemove > 0)
         {
             for (int i = 0; i < toRemove; i++)
-                rows.remove(rows.size() - 1);
+            {
+                List<ByteBuffer> removed = rows.remove(rows.size() - 1);
+                if (rowsEncodedSize >= 0)
+                    rowsEncodedSize -= encodedSize(removed);
+            }
+        }
+    }
+
+    /**
+     * Returns the serialized size of the rows of this result set, excluding the metadata and the rows count.
+     */
+    int rowsEncodedSize()
+    {
+        if (rowsEncodedSize < 0)
+        {
+            int size = 0;
+            for (List<ByteBuffer> row : rows)
+                size += encodedSize(row);
+            rowsEncodedSize = size;
         }
+        return rowsEncodedSize;
+    }
+
+    private int encodedSize(List<ByteBuffer> row)
+    {
+        // only the first columnCount values are serialized, see Codec.encode
+        int size = 0;
+        for (int i = 0, m = Math.min(row.size(), metadata.columnCount); i < m; i++)
+            size += CBUtil.sizeOfValue(row.get(i));
+        return size;
     }
 
     @Override
@@ -176,13 +215,7 @@ public class ResultSet
 
         public int encodedSize(ResultSet rs, ProtocolVersion version)
         {
-            int size = ResultMetadata.codec.encodedSize(rs.metadata, version) + 4;
-            for (List<ByteBuffer> row : rs.rows)
-            {
-                for (int i = 0; i < rs.metadata.columnCount; i++)
-                    size += CBUtil.sizeOfValue(row.get(i));
-            }
-            return size;
+            return ResultMetadata.codec.encodedSize(rs.metadata, version) + 4 + rs.rowsEncodedSize();
         }
     }
 
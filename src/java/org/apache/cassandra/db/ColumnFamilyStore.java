@@ -52,6 +52,7 @@ import org.apache.cassandra.db.streaming.CassandraStreamManager;
 import org.apache.cassandra.db.repair.CassandraTableRepairManager;
 import org.apache.cassandra.db.view.TableViews;
 import org.apache.cassandra.db.lifecycle.*;
+import org.apache.cassandra.db.partitions.CachedBTreePartition;
 import org.apache.cassandra.db.partitions.CachedPartition;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.db.rows.CellPath;
@@ -156,6 +157,11 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
     public static final String SNAPSHOT_TRUNCATE_PREFIX = "truncated";
     public static final String SNAPSHOT_DROP_PREFIX = "dropped";
 
+    /**
+     * sstables opened by {@link #preloadSSTables} ahead of the creation of their table, consumed by its constructor
+     */
+    private static final ConcurrentMap<TableId, Collection<SSTableReader>> preloadedSSTables = new ConcurrentHashMap<>();
+
     static
     {
         try
@@ -407,8 +413,12 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         // scan for sstables corresponding to this cf and load them
         if (data.loadsstables)
         {
-            Directories.SSTableLister sstableFiles = directories.sstableLister(Directories.OnTxnErr.IGNORE).skipTemporary(true);
-            Collection<SSTableReader> sstables = SSTableReader.openAll(sstableFiles.list().entrySet(), metadata);
+            Collection<SSTableReader> sstables = preloadedSSTables.remove(metadata.id);
+            if (sstables == null)
+            {
+                Directories.SSTableLister sstableFiles = directories.sstableLister(Directories.OnTxnErr.IGNORE).skipTemporary(true);
+                sstables = SSTableReader.openAll(sstableFiles.list().entrySet(), metadata);
+            }
             data.addInitialSSTables(sstables);
         }
 
@@ -565,6 +575,22 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
     }
 
 
+    /**
+     * Opens the sstables of the provided tables, which must not have been created yet, concurrently on a single pool.
+     * They are then handed over to the tables when they get created, instead of each table opening its own sstables
+     * in turn, which is what makes startup slow on nodes with many small tables.
+     */
+    public static void preloadSSTables(Collection<TableMetadataRef> tables)
+    {
+        Map<TableMetadataRef, Set<Map.Entry<Descriptor, Set<Component>>>> entries = new HashMap<>();
+        for (TableMetadataRef metadata : tables)
+        {
+            Directories directories = new Directories(metadata.get());
+            entries.put(metadata, directories.sstableLister(Directories.OnTxnErr.IGNORE).skipTemporary(true).list().entrySet());
+        }
+        preloadedSSTables.putAll(SSTableReader.openAll(entries));
+    }
+
     public static ColumnFamilyStore createColumnFamilyStore(Keyspace keyspace, TableMetadataRef metadata, boolean loadSSTables)
     {
         return createColumnFamilyStore(keyspace, metadata.name, metadata, loadSSTables);
@@ -1268,7 +1294,7 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
             Memtable mt = data.getMemtableFor(opGroup, commitLogPosition);
             long timeDelta = mt.put(update, indexer, opGroup);
             DecoratedKey key = update.partitionKey();
-            invalidateCachedPartition(key);
+            updateCachedPartition(update);
             metric.topWritePartitionFrequency.addSample(key.getKey(), 1);
             if (metric.topWritePartitionSize.isEnabled()) // dont compute datasize if not needed
                 metric.topWritePartitionSize.addSample(key.getKey(), update.dataSize());
@@ -2056,6 +2082,43 @@ public class ColumnFamilyStore implements ColumnFamilyStoreMBean
         invalidateCachedPartition(new RowCacheKey(metadata(), key));
     }
 
+    /**
+     * Applies a write to the cached partition of its key, if there is one, instead of invalidating it so that hot
+     * partitions that are also written to can be served from the row cache. If the cached partition can't be
+     * updated safely (counters, concurrent population or update of the entry), it is invalidated.
+     */
+    public void updateCachedPartition(PartitionUpdate update)
+    {
+        if (!isRowCacheEnabled())
+            return;
+
+        RowCacheKey key = new RowCacheKey(metadata(), update.partitionKey());
+        if (!DatabaseDescriptor.getRowCacheMergeWrites() || metadata().isCounter())
+        {
+            invalidateCachedPartition(key);
+            return;
+        }
+
+        IRowCacheEntry cached = CacheService.instance.rowCache.getInternal(key);
+        if (cached == null)
+            return;
+
+        // a sentinel means a read is populating the entry, which it may do from data that predates this write
+        if (!(cached instanceof CachedBTreePartition))
+        {
+            invalidateCachedPartition(key);
+            return;
+        }
+
+        CachedBTreePartition partition = (CachedBTreePartition) cached;
+        boolean isWholePartition = partition.cachedLiveRows() < metadata().params.caching.rowsPerPartitionToCache();
+        CachedBTreePartition updated = partition.withUpdate(update, isWholePartition, FBUtilities.nowInSeconds());
+
+        // the entry may have been updated by a concurrent write since we read it, in which case we'd lose it
+        if (!CacheService.instance.rowCache.replace(key, cached, updated))
+            invalidateCachedPartition(key);
+    }
+
     public ClockAndCount getCachedCounter(ByteBuffer partitionKey, Clustering<?> clustering, ColumnMetadata column, CellPath path)
     {
         if (CacheService.instance.counterCache.getCapacity() == 0L) // counter cache disabled.
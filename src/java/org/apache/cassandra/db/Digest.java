@@ -18,6 +18,7 @@
 
 package org.apache.cassandra.db;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 
 import com.google.common.hash.Hasher;
@@ -31,7 +32,17 @@ public class Digest
 {
     private static final ThreadLocal<byte[]> localBuffer = ThreadLocal.withInitial(() -> new byte[4096]);
 
+    // Small inputs, like the timestamps, TTLs and values of cells, are staged here and fed to the hasher in bulk,
+    // as the cost of hashing them is otherwise dominated by the per-call overhead of the hasher (MD5 in particular
+    // processes putByte calls one at a time). Hashing the staged bytes yields the same digest as hashing them directly.
+    private static final int STAGING_SIZE = 128;
+    private static final int MAX_STAGED_INPUT = 32;
+
     private final Hasher hasher;
+    // where the input is appended rather than hashed, for recording digests
+    private final ByteArrayOutputStream recording;
+    private final byte[] staged = new byte[STAGING_SIZE];
+    private int stagedLength;
     private long inputBytes = 0;
 
     @SuppressWarnings("deprecation")
@@ -77,14 +88,39 @@ public class Digest
         };
     }
 
+    /**
+     * Returns a digest that doesn't hash its input but appends it to {@code output}, so that it can be fed to another
+     * digest later on with {@link #update(byte[], int, int)}: hashing the concatenation of the recorded inputs yields
+     * the same result as hashing those inputs directly. {@link #digest()} returns the recorded input.
+     */
+    public static Digest recording(ByteArrayOutputStream output)
+    {
+        return new Digest(null, output);
+    }
+
     Digest(Hasher hasher)
+    {
+        this(hasher, null);
+    }
+
+    private Digest(Hasher hasher, ByteArrayOutputStream recording)
     {
         this.hasher = hasher;
+        this.recording = recording;
     }
 
     public Digest update(byte[] input, int offset, int len)
     {
-        hasher.putBytes(input, offset, len);
+        if (len <= MAX_STAGED_INPUT)
+        {
+            System.arraycopy(input, offset, staged, stage(len), len);
+            staged();
+        }
+        else
+        {
+            flushStaged();
+            putBytes(input, offset, len);
+        }
         inputBytes += len;
         return this;
     }
@@ -115,11 +151,20 @@ public class Digest
         if (len <= 0)
             return this;
 
+        if (len <= MAX_STAGED_INPUT)
+        {
+            FastByteOperations.copy(input, pos, staged, stage(len), len);
+            staged();
+            inputBytes += len;
+            return this;
+        }
+
+        flushStaged();
         if (input.hasArray())
         {
             byte[] b = input.array();
             int ofs = input.arrayOffset();
-            hasher.putBytes(b, ofs + pos, len);
+            putBytes(b, ofs + pos, len);
             inputBytes += len;
         }
         else
@@ -129,7 +174,7 @@ public class Digest
             {
                 int chunk = Math.min(len, tempArray.length);
                 FastByteOperations.copy(input, pos, tempArray, 0, chunk);
-                hasher.putBytes(tempArray, 0, chunk);
+                putBytes(tempArray, 0, chunk);
                 len -= chunk;
                 pos += chunk;
                 inputBytes += chunk;
@@ -159,31 +204,36 @@ public class Digest
 
     public Digest updateWithByte(int val)
     {
-        hasher.putByte((byte) (val & 0xFF));
+        staged[stage(1)] = (byte) (val & 0xFF);
+        staged();
         inputBytes++;
         return this;
     }
 
     public Digest updateWithInt(int val)
     {
-        hasher.putByte((byte) ((val >>> 24) & 0xFF));
-        hasher.putByte((byte) ((val >>> 16) & 0xFF));
-        hasher.putByte((byte) ((val >>>  8) & 0xFF));
-        hasher.putByte((byte) ((val >>> 0) & 0xFF));
+        int pos = stage(4);
+        staged[pos]     = (byte) ((val >>> 24) & 0xFF);
+        staged[pos + 1] = (byte) ((val >>> 16) & 0xFF);
+        staged[pos + 2] = (byte) ((val >>>  8) & 0xFF);
+        staged[pos + 3] = (byte) ((val >>> 0) & 0xFF);
+        staged();
         inputBytes += 4;
         return this;
     }
 
     public Digest updateWithLong(long val)
     {
-        hasher.putByte((byte) ((val >>> 56) & 0xFF));
-        hasher.putByte((byte) ((val >>> 48) & 0xFF));
-        hasher.putByte((byte) ((val >>> 40) & 0xFF));
-        hasher.putByte((byte) ((val >>> 32) & 0xFF));
-        hasher.putByte((byte) ((val >>> 24) & 0xFF));
-        hasher.putByte((byte) ((val >>> 16) & 0xFF));
-        hasher.putByte((byte) ((val >>>  8) & 0xFF));
-        hasher.putByte((byte)  ((val >>> 0) & 0xFF));
+        int pos = stage(8);
+        staged[pos]     = (byte) ((val >>> 56) & 0xFF);
+        staged[pos + 1] = (byte) ((val >>> 48) & 0xFF);
+        staged[pos + 2] = (byte) ((val >>> 40) & 0xFF);
+        staged[pos + 3] = (byte) ((val >>> 32) & 0xFF);
+        staged[pos + 4] = (byte) ((val >>> 24) & 0xFF);
+        staged[pos + 5] = (byte) ((val >>> 16) & 0xFF);
+        staged[pos + 6] = (byte) ((val >>>  8) & 0xFF);
+        staged[pos + 7] = (byte)  ((val >>> 0) & 0xFF);
+        staged();
         inputBytes += 8;
         return this;
     }
@@ -196,7 +246,49 @@ public class Digest
 
     public byte[] digest()
     {
-        return hasher.hash().asBytes();
+        flushStaged();
+        return recording == null ? hasher.hash().asBytes() : recording.toByteArray();
+    }
+
+    private void putBytes(byte[] input, int offset, int len)
+    {
+        if (recording == null)
+            hasher.putBytes(input, offset, len);
+        else
+            recording.write(input, offset, len);
+    }
+
+    /**
+     * Reserves {@code len} bytes of the staging buffer, flushing it first if they don't fit.
+     *
+     * @return the position at which the input should be staged
+     */
+    private int stage(int len)
+    {
+        if (stagedLength + len > STAGING_SIZE)
+            flushStaged();
+        int pos = stagedLength;
+        stagedLength += len;
+        return pos;
+    }
+
+    /**
+     * Called once input has been staged. Recording digests don't keep anything staged, as their output is read
+     * directly rather than through {@link #digest()}, and a ByteArrayOutputStream is a buffer already.
+     */
+    private void staged()
+    {
+        if (recording != null)
+            flushStaged();
+    }
+
+    private void flushStaged()
+    {
+        if (stagedLength == 0)
+            return;
+
+        putBytes(staged, 0, stagedLength);
+        stagedLength = 0;
     }
 
     public long inputBytes()
@@ -204,4 +296,3 @@ public class Digest
         return inputBytes;
     }
 }
-
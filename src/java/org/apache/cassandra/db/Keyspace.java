@@ -63,6 +63,7 @@ import org.apache.cassandra.schema.SchemaProvider;
 import org.apache.cassandra.schema.TableId;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.schema.TableMetadataRef;
+import org.apache.cassandra.service.reads.ReadCoalescer;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FBUtilities;
@@ -529,6 +530,8 @@ public class Keyspace
         if (TEST_FAIL_WRITES && metadata.name.equals(TEST_FAIL_WRITES_KS))
             throw new RuntimeException("Testing write failures");
 
+        ReadCoalescer.instance.onWrite(mutation);
+
         Lock[] locks = null;
 
         boolean requiresViewUpdate = updateIndexes && viewManager.updatesAffectView(Collections.singleton(mutation), false);
@@ -660,6 +663,9 @@ public class Keyspace
                     baseComplete.set(System.currentTimeMillis());
             }
 
+            // applied, and about to be acknowledged: reads that started in the meantime may not reflect it
+            ReadCoalescer.instance.onWrite(mutation);
+
             if (future != null) {
                 future.complete(null);
             }
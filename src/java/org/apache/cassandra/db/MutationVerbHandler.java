@@ -20,8 +20,11 @@ package org.apache.cassandra.db;
 import org.apache.cassandra.exceptions.WriteTimeoutException;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.net.*;
+import org.apache.cassandra.tracing.SpanSampler;
 import org.apache.cassandra.tracing.Tracing;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 public class MutationVerbHandler implements IVerbHandler<Mutation>
 {
     public static final MutationVerbHandler instance = new MutationVerbHandler();
@@ -53,6 +56,7 @@ public class MutationVerbHandler implements IVerbHandler<Mutation>
             respondToAddress = from;
         }
 
+        SpanSampler.Span span = SpanSampler.instance.maybeStart(SpanSampler.Kind.REPLICA_WRITE, message.payload, message.elapsedSinceCreated(NANOSECONDS));
         try
         {
             message.payload.applyFuture().thenAccept(o -> respond(message, respondToAddress)).exceptionally(wto -> {
@@ -64,6 +68,10 @@ public class MutationVerbHandler implements IVerbHandler<Mutation>
         {
             failed();
         }
+        finally
+        {
+            SpanSampler.instance.finish(span);
+        }
     }
 
     private static void forwardToLocalNodes(Message<Mutation> originalMessage, ForwardingInfo forwardTo)
@@ -29,6 +29,7 @@ import org.apache.cassandra.net.IVerbHandler;
 import org.apache.cassandra.net.Message;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.service.StorageService;
+import org.apache.cassandra.tracing.SpanSampler;
 import org.apache.cassandra.tracing.Tracing;
 
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
@@ -56,11 +57,18 @@ public class ReadCommandVerbHandler implements IVerbHandler<ReadCommand>
             command.trackRepairedStatus();
 
         ReadResponse response;
+        SpanSampler.Span span = SpanSampler.instance.maybeStart(command.isRangeRequest() ? SpanSampler.Kind.REPLICA_RANGE_READ : SpanSampler.Kind.REPLICA_READ,
+                                                                command.metadata(),
+                                                                message.elapsedSinceCreated(NANOSECONDS));
         try (ReadExecutionController executionController = command.executionController();
              UnfilteredPartitionIterator iterator = command.executeLocally(executionController))
         {
             response = command.createResponse(iterator);
         }
+        finally
+        {
+            SpanSampler.instance.finish(span);
+        }
 
         if (!command.complete())
         {
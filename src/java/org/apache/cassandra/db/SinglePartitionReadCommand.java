@@ -662,8 +662,9 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
                 else
                 {
                     nonIntersectingSSTables++;
-                    // sstable contains no tombstone if maxLocalDeletionTime == Integer.MAX_VALUE, so we can safely skip those entirely
-                    if (sstable.mayHaveTombstones())
+                    // we only need to look for a partition delete if the sstable may contain any, so we can safely skip
+                    // those that don't entirely
+                    if (sstable.mayHavePartitionLevelDeletions())
                     {
                         // 'iter' is added to iterators which is closed on exception, or through the closing of the final merged iterator
                         @SuppressWarnings("resource")
@@ -836,9 +837,9 @@ public class SinglePartitionReadCommand extends ReadCommand implements SinglePar
                 // This mean that nothing queried by the filter can be in the sstable. One exception is the top-level partition deletion
                 // however: if it is set, it impacts everything and must be included. Getting that top-level partition deletion costs us
                 // some seek in general however (unless the partition is indexed and is in the key cache), so we first check if the sstable
-                // has any tombstone at all as a shortcut.
-                if (!sstable.mayHaveTombstones())
-                    continue; // no tombstone at all, we can skip that sstable
+                // may have any partition deletion at all as a shortcut.
+                if (!sstable.mayHavePartitionLevelDeletions())
+                    continue; // no partition deletion at all, we can skip that sstable
 
                 // We need to get the partition deletion and include it if it's live. In any case though, we're done with that sstable.
                 try (UnfilteredRowIterator iter = StorageHook.instance.makeRowIterator(cfs,
@@ -1169,6 +1169,9 @@ public final class SystemKeyspace
                           ? new Commit(row.getUUID("most_recent_commit_at"),
                                        PartitionUpdate.fromBytes(row.getBytes("most_recent_commit"), row.getInt("most_recent_commit_version")))
                           : Commit.emptyCommit(key, metadata);
+        // a proposal that isn't more recent than the most recent commit is over, see savePaxosCommit
+        if (!accepted.isAfter(mostRecent))
+            accepted = Commit.emptyCommit(key, metadata);
         return new PaxosState(promised, accepted, mostRecent);
     }
 
@@ -1203,9 +1206,9 @@ public final class SystemKeyspace
 
     public static void savePaxosCommit(Commit commit)
     {
-        // We always erase the last proposal (with the commit timestamp to no erase more recent proposal in case the commit is old)
-        // even though that's really just an optimization  since SP.beginAndRepairPaxos will exclude accepted proposal older than the mrc.
-        String cql = "UPDATE system.%s USING TIMESTAMP ? AND TTL ? SET proposal_ballot = null, proposal = null, most_recent_commit_at = ?, most_recent_commit = ?, most_recent_commit_version = ? WHERE row_key = ? AND cf_id = ?";
+        // We don't erase the last proposal, as that would cost a tombstone on every commit: loadPaxosState ignores any
+        // proposal that isn't more recent than the most recent commit instead, and it expires with the rest of the state.
+        String cql = "UPDATE system.%s USING TIMESTAMP ? AND TTL ? SET most_recent_commit_at = ?, most_recent_commit = ?, most_recent_commit_version = ? WHERE row_key = ? AND cf_id = ?";
         executeInternal(format(cql, PAXOS),
                         UUIDGen.microsTimestamp(commit.ballot),
                         paxosTtlSec(commit.update.metadata()),
@@ -18,8 +18,10 @@
 package org.apache.cassandra.db.partitions;
 
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.cassandra.db.*;
+import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.filter.DataLimits;
 import org.apache.cassandra.db.rows.*;
 import org.apache.cassandra.io.ISerializer;
@@ -81,10 +83,51 @@ public class CachedBTreePartition extends ImmutableBTreePartition implements Cac
     public static CachedBTreePartition create(UnfilteredRowIterator iterator, int initialRowCapacity, int nowInSec)
     {
         Holder holder = ImmutableBTreePartition.build(iterator, initialRowCapacity);
+        return create(iterator.metadata(), iterator.partitionKey(), holder, nowInSec, nowInSec, 0);
+    }
+
+    /**
+     * Returns a copy of this cached partition with the provided update applied, so that writing to a cached
+     * partition doesn't have to invalidate it.
+     *
+     * If this partition only holds the head of the actual partition, the part of the update that falls after its
+     * last row is ignored: the cached partition must keep covering everything from the start of the partition up to
+     * its last row, but nothing past it (see {@link ColumnFamilyStore#isFilterFullyCoveredBy}).
+     *
+     * @param update the update to apply.
+     * @param isWholePartition whether this cached partition holds the whole partition.
+     * @param nowInSec the current time in seconds.
+     * @return the updated partition.
+     */
+    public CachedBTreePartition withUpdate(PartitionUpdate update, boolean isWholePartition, int nowInSec)
+    {
+        Row last = lastRow();
+        Slices slices = isWholePartition || last == null
+                      ? Slices.ALL
+                      : Slices.with(metadata().comparator, Slice.make(ClusteringBound.BOTTOM, ClusteringBound.inclusiveEndOf(last.clustering())));
 
+        Holder holder;
+        try (UnfilteredRowIterator merged = UnfilteredRowIterators.merge(Arrays.asList(unfilteredIterator(),
+                                                                                       update.unfilteredIterator(ColumnFilter.all(update.metadata()), slices, false))))
+        {
+            holder = ImmutableBTreePartition.build(merged, rowCount() + update.rowCount());
+        }
+
+        // Deleting rows from a partition head must not make it look like a whole partition, and conversely, so we
+        // never decrease the number of rows that were live when the partition was first cached.
+        return create(update.metadata(), partitionKey(), holder, createdAtInSec, nowInSec, cachedLiveRows);
+    }
+
+    private static CachedBTreePartition create(TableMetadata metadata,
+                                               DecoratedKey partitionKey,
+                                               Holder holder,
+                                               int createdAtInSec,
+                                               int nowInSec,
+                                               int minCachedLiveRows)
+    {
         int cachedLiveRows = 0;
         int rowsWithNonExpiringCells = 0;
-        boolean enforceStrictLiveness = iterator.metadata().enforceStrictLiveness();
+        boolean enforceStrictLiveness = metadata.enforceStrictLiveness();
 
         for (Row row : BTree.<Row>iterable(holder.tree))
         {
@@ -105,11 +148,11 @@ public class CachedBTreePartition extends ImmutableBTreePartition implements Cac
                 ++rowsWithNonExpiringCells;
         }
 
-        return new CachedBTreePartition(iterator.metadata(),
-                                        iterator.partitionKey(),
+        return new CachedBTreePartition(metadata,
+                                        partitionKey,
                                         holder,
-                                        nowInSec,
-                                        cachedLiveRows,
+                                        createdAtInSec,
+                                        Math.max(cachedLiveRows, minCachedLiveRows),
                                         rowsWithNonExpiringCells);
     }
 
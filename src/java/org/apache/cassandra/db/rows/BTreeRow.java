@@ -59,6 +59,7 @@ import org.apache.cassandra.utils.ObjectSizes;
 import org.apache.cassandra.utils.btree.BTree;
 import org.apache.cassandra.utils.btree.BTreeSearchIterator;
 import org.apache.cassandra.utils.btree.UpdateFunction;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
 
 /**
  * Immutable implementation of a Row object.
@@ -408,6 +409,12 @@ public class BTreeRow extends AbstractRow
                                                                             : cd);
     }
 
+    public Row copy(AbstractAllocator allocator)
+    {
+        Object[] copied = BTree.transformAndFilter(btree, (ColumnData cd) -> cd.copy(allocator));
+        return new BTreeRow(clustering.copy(allocator), primaryKeyLivenessInfo, deletion, copied, minLocalDeletionTime);
+    }
+
     public boolean hasDeletion(int nowInSec)
     {
         return nowInSec >= minLocalDeletionTime;
@@ -24,6 +24,7 @@ import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.db.DeletionPurger;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.serializers.MarshalException;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
 
 /**
  * Generic interface for the data of a given column (inside a row).
@@ -95,5 +96,10 @@ public abstract class ColumnData
 
     public abstract ColumnData purge(DeletionPurger purger, int nowInSec);
 
+    /**
+     * Returns a copy of this data whose values (and cell paths) are cloned using the provided allocator.
+     */
+    public abstract ColumnData copy(AbstractAllocator allocator);
+
     public abstract long maxTimestamp();
 }
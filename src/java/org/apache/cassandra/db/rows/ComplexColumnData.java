@@ -36,6 +36,7 @@ import org.apache.cassandra.utils.BiLongAccumulator;
 import org.apache.cassandra.utils.LongAccumulator;
 import org.apache.cassandra.utils.ObjectSizes;
 import org.apache.cassandra.utils.btree.BTree;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
 
 /**
  * The data for a complex column, that is it's cells and potential complex
@@ -188,6 +189,11 @@ public class ComplexColumnData extends ColumnData implements Iterable<Cell<?>>
         return transformAndFilter(complexDeletion, (cell) -> filter.fetchedCellIsQueried(column, cell.path()) ? null : cell);
     }
 
+    public ComplexColumnData copy(AbstractAllocator allocator)
+    {
+        return transformAndFilter(complexDeletion, (cell) -> cell.copy(allocator));
+    }
+
     private ComplexColumnData transformAndFilter(DeletionTime newDeletion, Function<? super Cell<?>, ? extends Cell<?>> function)
     {
         Object[] transformed = BTree.transformAndFilter(cells, function);
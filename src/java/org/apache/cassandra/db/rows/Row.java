@@ -32,6 +32,7 @@ import org.apache.cassandra.utils.MergeIterator;
 import org.apache.cassandra.utils.SearchIterator;
 import org.apache.cassandra.utils.btree.BTree;
 import org.apache.cassandra.utils.btree.UpdateFunction;
+import org.apache.cassandra.utils.memory.AbstractAllocator;
 
 /**
  * Storage engine representation of a row.
@@ -252,6 +253,14 @@ public interface Row extends Unfiltered, Iterable<ColumnData>
      */
     public Row markCounterLocalToBeCleared();
 
+    /**
+     * Returns a copy of this row whose clustering and cell values are cloned using the provided allocator.
+     * <p>
+     * Contrarily to copying the row through a {@link Row.Builder}, this preserves the structure of the row and so
+     * doesn't have to sort and reconcile its cells again.
+     */
+    public Row copy(AbstractAllocator allocator);
+
     /**
      * Returns a copy of this row where all live timestamp have been replaced by {@code newTimestamp} and every deletion
      * timestamp by {@code newTimestamp - 1}.
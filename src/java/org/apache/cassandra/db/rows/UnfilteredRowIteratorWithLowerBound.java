@@ -155,7 +155,7 @@ public class UnfilteredRowIteratorWithLowerBound extends LazilyInitializedUnfilt
     @Override
     public DeletionTime partitionLevelDeletion()
     {
-        if (!sstable.mayHaveTombstones())
+        if (!sstable.mayHavePartitionLevelDeletions())
             return DeletionTime.LIVE;
 
         return super.partitionLevelDeletion();
@@ -226,19 +226,17 @@ public class UnfilteredRowIteratorWithLowerBound extends LazilyInitializedUnfilt
      * {@link Clustering} which is always "full" (all components are always present). As for null values, we happen to
      * only allow those in compact tables (for backward compatibility), so we can simply exclude those tables.
      * <p>
-     * Note that the information we currently have at our disposal make this condition less precise that it could be.
-     * In particular, {@link SSTableReader#mayHaveTombstones} could return {@code true} (making us not use the stats)
-     * because of cell tombstone or even expiring cells even if the sstable has no range tombstone markers, even though
-     * it's really only markers we want to exclude here (more precisely, as said above, we want to exclude anything
-     * whose clustering is not "full", but that's only markers). It wouldn't be very hard to collect whether a sstable
-     * has any range tombstone marker however so it's a possible improvement.
+     * Sstables record whether they contain any range tombstone marker, so cell tombstones and expiring cells (which
+     * are common on time series tables) don't prevent us from using the stats. For sstables that predate that
+     * information, {@link SSTableReader#mayHaveRangeTombstones} conservatively falls back on
+     * {@link SSTableReader#mayHaveTombstones}.
      */
     private boolean canUseMetadataLowerBound()
     {
         // Side-note: pre-2.1 sstable stat file had clustering value arrays whose size may not match the comparator size
         // and that would break getMetadataLowerBound. We don't support upgrade from 2.0 to 3.0 directly however so it's
-        // not a true concern. Besides, !sstable.mayHaveTombstones already ensure this is a 3.0 sstable anyway.
-        return !sstable.mayHaveTombstones();
+        // not a true concern. Besides, !sstable.mayHaveRangeTombstones already ensure this is a 3.0 sstable anyway.
+        return !sstable.mayHaveRangeTombstones();
     }
 
     /**
@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.db.virtual;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.marshal.CompositeType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.InetAddressType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.locator.InetAddressAndPort;
+import org.apache.cassandra.locator.ReplicaLoadTracker;
+import org.apache.cassandra.schema.TableMetadata;
+
+final class ReplicaLoadTable extends AbstractVirtualTable
+{
+    private static final String ADDRESS = "address";
+    private static final String PORT = "port";
+    private static final String DC = "dc";
+    private static final String RACK = "rack";
+
+    private static final String OUTSTANDING = "outstanding";
+    private static final String COMPLETED = "completed";
+    private static final String SMOOTHED_LATENCY_MICROS = "smoothed_latency_micros";
+    private static final String LATENCY_VARIATION_MICROS = "latency_variation_micros";
+    private static final String SCORE = "score";
+
+    ReplicaLoadTable(String keyspace)
+    {
+        super(TableMetadata.builder(keyspace, "replica_load")
+                           .kind(TableMetadata.Kind.VIRTUAL)
+                           .partitioner(new LocalPartitioner(CompositeType.getInstance(InetAddressType.instance, Int32Type.instance)))
+                           .addPartitionKeyColumn(ADDRESS, InetAddressType.instance)
+                           .addPartitionKeyColumn(PORT, Int32Type.instance)
+                           .addClusteringColumn(DC, UTF8Type.instance)
+                           .addClusteringColumn(RACK, UTF8Type.instance)
+                           .addRegularColumn(OUTSTANDING, Int32Type.instance)
+                           .addRegularColumn(COMPLETED, LongType.instance)
+                           .addRegularColumn(SMOOTHED_LATENCY_MICROS, LongType.instance)
+                           .addRegularColumn(LATENCY_VARIATION_MICROS, LongType.instance)
+                           .addRegularColumn(SCORE, DoubleType.instance)
+                           .build());
+    }
+
+    @Override
+    public DataSet data(DecoratedKey partitionKey)
+    {
+        ByteBuffer[] addressAndPortBytes = ((CompositeType) metadata().partitionKeyType).split(partitionKey.getKey());
+        InetAddress address = InetAddressType.instance.compose(addressAndPortBytes[0]);
+        int port = Int32Type.instance.compose(addressAndPortBytes[1]);
+        InetAddressAndPort addressAndPort = InetAddressAndPort.getByAddressOverrideDefaults(address, port);
+
+        SimpleDataSet result = new SimpleDataSet(metadata());
+        ReplicaLoadTracker.ReplicaLoad load = ReplicaLoadTracker.instance.get(addressAndPort);
+        if (null != load)
+            addRow(result, addressAndPort, load);
+        return result;
+    }
+
+    @Override
+    public DataSet data()
+    {
+        SimpleDataSet result = new SimpleDataSet(metadata());
+        ReplicaLoadTracker.instance.forEach((addressAndPort, load) -> addRow(result, addressAndPort, load));
+        return result;
+    }
+
+    private void addRow(SimpleDataSet dataSet, InetAddressAndPort addressAndPort, ReplicaLoadTracker.ReplicaLoad load)
+    {
+        String dc = DatabaseDescriptor.getEndpointSnitch().getDatacenter(addressAndPort);
+        String rack = DatabaseDescriptor.getEndpointSnitch().getRack(addressAndPort);
+        long smoothed = load.smoothedLatencyNanos();
+        dataSet.row(addressAndPort.address, addressAndPort.port, dc, rack)
+               .column(OUTSTANDING, load.outstanding())
+               .column(COMPLETED, load.completed())
+               .column(SMOOTHED_LATENCY_MICROS, smoothed < 0 ? null : smoothed / 1000)
+               .column(LATENCY_VARIATION_MICROS, smoothed < 0 ? null : load.latencyVariationNanos() / 1000)
+               .column(SCORE, load.score());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.virtual;
+
+import java.util.Date;
+
+import org.apache.cassandra.db.marshal.CompositeType;
+import org.apache.cassandra.db.marshal.Int32Type;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.TimestampType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.tracing.SpanSampler;
+
+/**
+ * The most recent spans recorded by the {@link SpanSampler}, in the partition of each table they are a span of.
+ */
+final class SampledSpansTable extends AbstractVirtualTable
+{
+    private static final String KEYSPACE_NAME = "keyspace_name";
+    private static final String TABLE_NAME = "table_name";
+    private static final String SEQUENCE = "sequence";
+    private static final String KIND = "kind";
+    private static final String STARTED_AT = "started_at";
+    private static final String DURATION_MICROS = "duration_micros";
+    private static final String QUEUE_MICROS = "queue_micros";
+    private static final String SSTABLES = "sstables";
+    private static final String CHUNK_CACHE_MISSES = "chunk_cache_misses";
+    private static final String DISK_WAIT_MICROS = "disk_wait_micros";
+
+    SampledSpansTable(String keyspace)
+    {
+        super(TableMetadata.builder(keyspace, "sampled_spans")
+                           .kind(TableMetadata.Kind.VIRTUAL)
+                           .partitioner(new LocalPartitioner(CompositeType.getInstance(UTF8Type.instance, UTF8Type.instance)))
+                           .addPartitionKeyColumn(KEYSPACE_NAME, UTF8Type.instance)
+                           .addPartitionKeyColumn(TABLE_NAME, UTF8Type.instance)
+                           .addClusteringColumn(SEQUENCE, LongType.instance)
+                           .addRegularColumn(KIND, UTF8Type.instance)
+                           .addRegularColumn(STARTED_AT, TimestampType.instance)
+                           .addRegularColumn(DURATION_MICROS, LongType.instance)
+                           .addRegularColumn(QUEUE_MICROS, LongType.instance)
+                           .addRegularColumn(SSTABLES, Int32Type.instance)
+                           .addRegularColumn(CHUNK_CACHE_MISSES, Int32Type.instance)
+                           .addRegularColumn(DISK_WAIT_MICROS, LongType.instance)
+                           .build());
+    }
+
+    @Override
+    public DataSet data()
+    {
+        SimpleDataSet result = new SimpleDataSet(metadata());
+        for (SpanSampler.Span span : SpanSampler.instance.recentSpans())
+        {
+            for (TableMetadata table : span.tables)
+            {
+                result.row(table.keyspace, table.name, span.sequence())
+                      .column(KIND, span.kind.toString())
+                      .column(STARTED_AT, new Date(span.startedAtMillis))
+                      .column(DURATION_MICROS, span.durationNanos() / 1000)
+                      .column(QUEUE_MICROS, span.queueNanos / 1000)
+                      .column(SSTABLES, span.sstables())
+                      .column(CHUNK_CACHE_MISSES, span.chunkCacheMisses())
+                      .column(DISK_WAIT_MICROS, span.diskWaitNanos() / 1000);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.virtual;
+
+import org.apache.cassandra.db.marshal.CompositeType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.tracing.SpanSampler;
+
+/**
+ * The aggregates, since startup, of the spans recorded by the {@link SpanSampler} for each table, by kind of span.
+ */
+final class SpanBreakdownsTable extends AbstractVirtualTable
+{
+    private static final String KEYSPACE_NAME = "keyspace_name";
+    private static final String TABLE_NAME = "table_name";
+    private static final String KIND = "kind";
+    private static final String SPANS = "spans";
+    private static final String MEAN_DURATION_MICROS = "mean_duration_micros";
+    private static final String MAX_DURATION_MICROS = "max_duration_micros";
+    private static final String MEAN_QUEUE_MICROS = "mean_queue_micros";
+    private static final String MEAN_SSTABLES = "mean_sstables";
+    private static final String MEAN_CHUNK_CACHE_MISSES = "mean_chunk_cache_misses";
+    private static final String MEAN_DISK_WAIT_MICROS = "mean_disk_wait_micros";
+
+    SpanBreakdownsTable(String keyspace)
+    {
+        super(TableMetadata.builder(keyspace, "span_breakdowns")
+                           .kind(TableMetadata.Kind.VIRTUAL)
+                           .partitioner(new LocalPartitioner(CompositeType.getInstance(UTF8Type.instance, UTF8Type.instance)))
+                           .addPartitionKeyColumn(KEYSPACE_NAME, UTF8Type.instance)
+                           .addPartitionKeyColumn(TABLE_NAME, UTF8Type.instance)
+                           .addClusteringColumn(KIND, UTF8Type.instance)
+                           .addRegularColumn(SPANS, LongType.instance)
+                           .addRegularColumn(MEAN_DURATION_MICROS, DoubleType.instance)
+                           .addRegularColumn(MAX_DURATION_MICROS, LongType.instance)
+                           .addRegularColumn(MEAN_QUEUE_MICROS, DoubleType.instance)
+                           .addRegularColumn(MEAN_SSTABLES, DoubleType.instance)
+                           .addRegularColumn(MEAN_CHUNK_CACHE_MISSES, DoubleType.instance)
+                           .addRegularColumn(MEAN_DISK_WAIT_MICROS, DoubleType.instance)
+                           .build());
+    }
+
+    @Override
+    public DataSet data()
+    {
+        SimpleDataSet result = new SimpleDataSet(metadata());
+        for (SpanSampler.TableBreakdown table : SpanSampler.instance.breakdowns())
+        {
+            for (SpanSampler.Kind kind : SpanSampler.Kind.values())
+            {
+                SpanSampler.Breakdown breakdown = table.get(kind);
+                long spans = breakdown.spans();
+                if (spans == 0)
+                    continue;
+
+                result.row(table.keyspace, table.table, kind.toString())
+                      .column(SPANS, spans)
+                      .column(MEAN_DURATION_MICROS, breakdown.durationNanos() / 1000.0 / spans)
+                      .column(MAX_DURATION_MICROS, breakdown.maxDurationNanos() / 1000)
+                      .column(MEAN_QUEUE_MICROS, breakdown.queueNanos() / 1000.0 / spans)
+                      .column(MEAN_SSTABLES, (double) breakdown.sstables() / spans)
+                      .column(MEAN_CHUNK_CACHE_MISSES, (double) breakdown.chunkCacheMisses() / spans)
+                      .column(MEAN_DISK_WAIT_MICROS, breakdown.diskWaitNanos() / 1000.0 / spans);
+            }
+        }
+        return result;
+    }
+}
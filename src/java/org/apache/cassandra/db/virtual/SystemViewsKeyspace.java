@@ -36,6 +36,10 @@ public final class SystemViewsKeyspace extends VirtualKeyspace
                     .add(new ThreadPoolsTable(VIRTUAL_VIEWS))
                     .add(new InternodeOutboundTable(VIRTUAL_VIEWS))
                     .add(new InternodeInboundTable(VIRTUAL_VIEWS))
+                    .add(new ReplicaLoadTable(VIRTUAL_VIEWS))
+                    .add(new TableSketchesTable(VIRTUAL_VIEWS))
+                    .add(new SampledSpansTable(VIRTUAL_VIEWS))
+                    .add(new SpanBreakdownsTable(VIRTUAL_VIEWS))
                     .addAll(TableMetricTables.getAll(VIRTUAL_VIEWS))
                     .build());
     }
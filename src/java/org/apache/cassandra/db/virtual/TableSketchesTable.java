@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.db.virtual;
+
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.lifecycle.SSTableSet;
+import org.apache.cassandra.db.marshal.BytesType;
+import org.apache.cassandra.db.marshal.CompositeType;
+import org.apache.cassandra.db.marshal.DoubleType;
+import org.apache.cassandra.db.marshal.LongType;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.dht.LocalPartitioner;
+import org.apache.cassandra.metrics.LogarithmicHistogram;
+import org.apache.cassandra.metrics.TableMetrics;
+import org.apache.cassandra.schema.TableMetadata;
+
+/**
+ * The latencies and partition sizes of every table, as serialized {@link LogarithmicHistogram}s. The sketches of
+ * several nodes, or of several tables, can be merged to compute accurate cluster wide percentiles, and the
+ * percentiles of a period are those of the difference of the sketches read at its start and end, as their counts
+ * never decay.
+ */
+final class TableSketchesTable extends AbstractVirtualTable
+{
+    private static final String KEYSPACE_NAME = "keyspace_name";
+    private static final String TABLE_NAME = "table_name";
+    private static final String NAME = "name";
+    private static final String UNIT = "unit";
+    private static final String RELATIVE_ACCURACY = "relative_accuracy";
+    private static final String COUNT = "count";
+    private static final String SKETCH = "sketch";
+
+    private static final String MICROSECONDS = "microseconds";
+    private static final String BYTES = "bytes";
+
+    TableSketchesTable(String keyspace)
+    {
+        super(TableMetadata.builder(keyspace, "table_sketches")
+                           .kind(TableMetadata.Kind.VIRTUAL)
+                           .partitioner(new LocalPartitioner(CompositeType.getInstance(UTF8Type.instance, UTF8Type.instance)))
+                           .addPartitionKeyColumn(KEYSPACE_NAME, UTF8Type.instance)
+                           .addPartitionKeyColumn(TABLE_NAME, UTF8Type.instance)
+                           .addClusteringColumn(NAME, UTF8Type.instance)
+                           .addRegularColumn(UNIT, UTF8Type.instance)
+                           .addRegularColumn(RELATIVE_ACCURACY, DoubleType.instance)
+                           .addRegularColumn(COUNT, LongType.instance)
+                           .addRegularColumn(SKETCH, BytesType.instance)
+                           .build());
+    }
+
+    @Override
+    public DataSet data()
+    {
+        SimpleDataSet result = new SimpleDataSet(metadata());
+        for (ColumnFamilyStore cfs : ColumnFamilyStore.all())
+        {
+            TableMetrics metric = cfs.metric;
+            addRow(result, cfs, "local_read_latency", MICROSECONDS, metric.readLatency.sketch.getSnapshot());
+            addRow(result, cfs, "local_scan_latency", MICROSECONDS, metric.rangeLatency.sketch.getSnapshot());
+            addRow(result, cfs, "local_write_latency", MICROSECONDS, metric.writeLatency.sketch.getSnapshot());
+            addRow(result, cfs, "cas_prepare_latency", MICROSECONDS, metric.casPrepare.sketch.getSnapshot());
+            addRow(result, cfs, "cas_propose_latency", MICROSECONDS, metric.casPropose.sketch.getSnapshot());
+            addRow(result, cfs, "cas_commit_latency", MICROSECONDS, metric.casCommit.sketch.getSnapshot());
+            addRow(result, cfs, "partition_size", BYTES, TableMetrics.partitionSizeSketch(cfs.getSSTables(SSTableSet.CANONICAL)));
+        }
+        return result;
+    }
+
+    private static void addRow(SimpleDataSet result, ColumnFamilyStore cfs, String name, String unit, LogarithmicHistogram.Snapshot sketch)
+    {
+        result.row(cfs.keyspace.getName(), cfs.name, name)
+              .column(UNIT, unit)
+              .column(RELATIVE_ACCURACY, sketch.relativeAccuracy)
+              .column(COUNT, sketch.count())
+              .column(SKETCH, sketch.serialize());
+    }
+}
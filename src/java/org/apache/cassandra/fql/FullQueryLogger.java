@@ -18,6 +18,7 @@
 package org.apache.cassandra.fql;
 
 import java.io.File;
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -35,6 +36,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import net.openhft.chronicle.bytes.BytesStore;
 import net.openhft.chronicle.wire.ValueOut;
 import net.openhft.chronicle.wire.WireOut;
@@ -71,6 +73,11 @@ public class FullQueryLogger implements QueryEvents.Listener
     public static final String GENERATED_TIMESTAMP = "generated-timestamp";
     public static final String GENERATED_NOW_IN_SECONDS = "generated-now-in-seconds";
     public static final String KEYSPACE = "keyspace";
+    /**
+     * The optional last field of single query and batch documents, holding the [inet] address of the client
+     * connection, encoded as in the native protocol. Absent from the documents logged before it was added.
+     */
+    public static final String CLIENT_ADDRESS = "client-address";
 
     public static final String BATCH = "batch";
     public static final String SINGLE_QUERY = "single-query";
@@ -80,6 +87,17 @@ public class FullQueryLogger implements QueryEvents.Listener
     public static final String QUERIES = "queries";
     public static final String VALUES = "values";
 
+    /**
+     * The type of the documents holding LZ4 compressed batches of queries, see {@link BinLog#readBatch}. Each record
+     * of a batch is the type of the query as a [string], followed by the fields of the query in the order they are
+     * written as separate document fields, encoded as in the native protocol: [long] start time, [int] protocol
+     * version, [bytes] query options, [long] generated timestamp, [int] generated nowInSeconds, a byte set to 1 if
+     * a [string] keyspace follows, a byte set to 1 if the [inet] address of the client connection follows, and then
+     * the [long string] query, or the [string] batch type, the [short] number of queries and their [long string]s,
+     * and the [int] number of value lists and the value lists.
+     */
+    public static final String COMPRESSED_BATCH = "compressed-batch";
+
     private static final int EMPTY_BYTEBUFFER_SIZE = Ints.checkedCast(ObjectSizes.sizeOnHeapExcludingData(ByteBuffer.allocate(0)));
 
     private static final int EMPTY_LIST_SIZE = Ints.checkedCast(ObjectSizes.measureDeep(new ArrayList(0)));
@@ -93,6 +111,11 @@ public class FullQueryLogger implements QueryEvents.Listener
     volatile BinLog binLog;
 
     public synchronized void enable(Path path, String rollCycle, boolean blocking, int maxQueueWeight, long maxLogSize, String archiveCommand, int maxArchiveRetries)
+    {
+        enable(path, rollCycle, blocking, maxQueueWeight, maxLogSize, archiveCommand, maxArchiveRetries, false);
+    }
+
+    public synchronized void enable(Path path, String rollCycle, boolean blocking, int maxQueueWeight, long maxLogSize, String archiveCommand, int maxArchiveRetries, boolean compressedBatches)
     {
         if (this.binLog != null)
             throw new IllegalStateException("Binlog is already configured");
@@ -103,6 +126,7 @@ public class FullQueryLogger implements QueryEvents.Listener
                                           .maxLogSize(maxLogSize)
                                           .archiveCommand(archiveCommand)
                                           .maxArchiveRetries(maxArchiveRetries)
+                                          .compressedBatches(compressedBatches)
                                           .build(true);
         QueryEvents.instance.registerListener(this);
     }
@@ -133,6 +157,7 @@ public class FullQueryLogger implements QueryEvents.Listener
             options.max_archive_retries = binLogOptions.max_archive_retries;
             options.max_queue_weight = binLogOptions.max_queue_weight;
             options.max_log_size = binLogOptions.max_log_size;
+            options.compressed_batches = binLogOptions.compressed_batches;
             options.log_dir = binLog.path.toString();
 
             return options;
@@ -335,6 +360,14 @@ public class FullQueryLogger implements QueryEvents.Listener
         {
             super.writeMarshallablePayload(wire);
             wire.write(QUERY).text(query);
+            writeClientAddress(wire);
+        }
+
+        @Override
+        protected void writeTo(ByteBuf batch)
+        {
+            super.writeTo(batch);
+            CBUtil.writeLongString(query, batch);
         }
 
         @Override
@@ -411,6 +444,20 @@ public class FullQueryLogger implements QueryEvents.Listener
                     valueOut.bytes(BytesStore.wrap(value));
                 }
             }
+            writeClientAddress(wire);
+        }
+
+        @Override
+        protected void writeTo(ByteBuf batch)
+        {
+            super.writeTo(batch);
+            CBUtil.writeString(batchType.name(), batch);
+            batch.writeShort(queries.size());
+            for (String query : queries)
+                CBUtil.writeLongString(query, batch);
+            batch.writeInt(values.size());
+            for (List<ByteBuffer> subValues : values)
+                CBUtil.writeValueList(subValues, batch);
         }
 
         @Override
@@ -420,7 +467,7 @@ public class FullQueryLogger implements QueryEvents.Listener
         }
     }
 
-    private static abstract class AbstractLogEntry extends BinLog.ReleaseableWriteMarshallable implements WeightedQueue.Weighable
+    private static abstract class AbstractLogEntry extends BinLog.BatchableWriteMarshallable implements WeightedQueue.Weighable
     {
         private final long queryStartTime;
         private final int protocolVersion;
@@ -430,6 +477,9 @@ public class FullQueryLogger implements QueryEvents.Listener
         private final int generatedNowInSeconds;
         @Nullable
         private final String keyspace;
+        // for replays to keep the queries of a connection in order
+        @Nullable
+        private final InetSocketAddress clientAddress;
 
         AbstractLogEntry(QueryOptions queryOptions, QueryState queryState, long queryStartTime)
         {
@@ -442,6 +492,7 @@ public class FullQueryLogger implements QueryEvents.Listener
             this.generatedTimestamp = queryState.generatedTimestamp();
             this.generatedNowInSeconds = queryState.generatedNowInSeconds();
             this.keyspace = queryState.getClientState().getRawKeyspace();
+            this.clientAddress = queryState.getClientState().getRemoteAddress();
 
             /*
              * Struggled with what tradeoff to make in terms of query options which is potentially large and complicated
@@ -485,6 +536,44 @@ public class FullQueryLogger implements QueryEvents.Listener
             wire.write(KEYSPACE).text(keyspace);
         }
 
+        /**
+         * Writes the address of the client connection, if known, as the last field of the document, so that readers
+         * can tell it apart from the end of the documents logged without it.
+         */
+        protected void writeClientAddress(WireOut wire)
+        {
+            if (clientAddress == null)
+                return;
+
+            ByteBuf address = Unpooled.buffer(CBUtil.sizeOfInet(clientAddress));
+            CBUtil.writeInet(clientAddress, address);
+            wire.write(CLIENT_ADDRESS).bytes(address.array());
+        }
+
+        @Override
+        protected String batchType()
+        {
+            return COMPRESSED_BATCH;
+        }
+
+        @Override
+        protected void writeTo(ByteBuf batch)
+        {
+            CBUtil.writeString(type(), batch);
+            batch.writeLong(queryStartTime);
+            batch.writeInt(protocolVersion);
+            batch.writeInt(queryOptionsBuffer.readableBytes());
+            batch.writeBytes(queryOptionsBuffer, queryOptionsBuffer.readerIndex(), queryOptionsBuffer.readableBytes());
+            batch.writeLong(generatedTimestamp);
+            batch.writeInt(generatedNowInSeconds);
+            batch.writeBoolean(keyspace != null);
+            if (keyspace != null)
+                CBUtil.writeString(keyspace, batch);
+            batch.writeBoolean(clientAddress != null);
+            if (clientAddress != null)
+                CBUtil.writeInet(clientAddress, batch);
+        }
+
         @Override
         public void release()
         {
@@ -500,6 +589,7 @@ public class FullQueryLogger implements QueryEvents.Listener
                  + EMPTY_BYTEBUF_SIZE + queryOptionsBuffer.capacity() // queryOptionsBuffer
                  + 8                                                  // generatedTimestamp
                  + 4                                                  // generatedNowInSeconds
+                 + OBJECT_REFERENCE_SIZE                              // clientAddress, shared with the client state
                  + (keyspace != null
                     ? Ints.checkedCast(ObjectSizes.sizeOf(keyspace))  // keyspace
                     : OBJECT_REFERENCE_SIZE);                         // null
@@ -35,7 +35,8 @@ public class FullQueryLoggerOptionsCompositeData
                                                              "block",
                                                              "max_queue_weight",
                                                              "max_log_size",
-                                                             "max_archive_retries" };
+                                                             "max_archive_retries",
+                                                             "compressed_batches" };
 
     private static final String[] ITEM_DESC = new String[]{ "directory where FQL data are stored",
                                                             "archive command for FQL data",
@@ -43,7 +44,8 @@ public class FullQueryLoggerOptionsCompositeData
                                                             "indicates if the BinLog should block if the it falls behind or should drop bin log records",
                                                             "maximum weight of in memory queue for records waiting to be written to the binlog file before blocking or dropping the log records",
                                                             "maximum size of the rolled files to retain on disk before deleting the oldest file",
-                                                            "number of times to retry an archive command" };
+                                                            "number of times to retry an archive command",
+                                                            "indicates if queries are written in LZ4 compressed batches rather than one by one" };
 
     private static final OpenType<?>[] ITEM_TYPES;
 
@@ -59,7 +61,8 @@ public class FullQueryLoggerOptionsCompositeData
                                          SimpleType.BOOLEAN,
                                          SimpleType.INTEGER,
                                          SimpleType.LONG,
-                                         SimpleType.INTEGER };
+                                         SimpleType.INTEGER,
+                                         SimpleType.BOOLEAN };
 
             COMPOSITE_TYPE = new CompositeType(FullQueryLoggerOptions.class.getName(),
                                                "FullQueryLoggerOptions",
@@ -83,6 +86,7 @@ public class FullQueryLoggerOptionsCompositeData
         valueMap.put(ITEM_NAMES[4], options.max_queue_weight);
         valueMap.put(ITEM_NAMES[5], options.max_log_size);
         valueMap.put(ITEM_NAMES[6], options.max_archive_retries);
+        valueMap.put(ITEM_NAMES[7], options.compressed_batches);
 
         try
         {
@@ -109,6 +113,7 @@ public class FullQueryLoggerOptionsCompositeData
         options.max_queue_weight = (Integer) values[4];
         options.max_log_size = (Long) values[5];
         options.max_archive_retries = (Integer) values[6];
+        options.compressed_batches = (Boolean) values[7];
 
         return options;
     }
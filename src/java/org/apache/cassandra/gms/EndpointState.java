@@ -46,6 +46,9 @@ public class EndpointState
     private volatile HeartBeatState hbState;
     private final AtomicReference<Map<ApplicationState, VersionedValue>> applicationState;
 
+    // the maximum version of the application states, computed on demand for a given application state map
+    private volatile MaxVersion maxApplicationStateVersion;
+
     /* fields below do not get serialized */
     private volatile long updateTimestamp;
     private volatile boolean isAlive;
@@ -84,6 +87,36 @@ public class EndpointState
         return applicationState.get().entrySet();
     }
 
+    /**
+     * @return the highest version of the application states of this endpoint, or 0 if it has none. As the application
+     * states are replaced on every update, this is only computed once per update, rather than on every gossip round.
+     */
+    int getMaxApplicationStateVersion()
+    {
+        Map<ApplicationState, VersionedValue> states = applicationState.get();
+        MaxVersion cached = maxApplicationStateVersion;
+        if (cached != null && cached.states == states)
+            return cached.version;
+
+        int version = 0;
+        for (VersionedValue value : states.values())
+            version = Math.max(version, value.version);
+        maxApplicationStateVersion = new MaxVersion(states, version);
+        return version;
+    }
+
+    private static final class MaxVersion
+    {
+        private final Map<ApplicationState, VersionedValue> states;
+        private final int version;
+
+        private MaxVersion(Map<ApplicationState, VersionedValue> states, int version)
+        {
+            this.states = states;
+            this.version = version;
+        }
+    }
+
     public void addApplicationState(ApplicationState key, VersionedValue value)
     {
         addApplicationStates(Collections.singletonMap(key, value));
@@ -38,6 +38,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFutureTask;
 import com.google.common.util.concurrent.Uninterruptibles;
 
+import com.codahale.metrics.Timer;
+
 import org.apache.cassandra.concurrent.JMXEnabledSingleThreadExecutor;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.net.NoPayload;
@@ -56,6 +58,7 @@ import org.apache.cassandra.concurrent.Stage;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.SystemKeyspace;
 import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.metrics.GossipMetrics;
 import org.apache.cassandra.net.RequestCallback;
 import org.apache.cassandra.net.Message;
 import org.apache.cassandra.net.MessagingService;
@@ -232,6 +235,7 @@ public class Gossiper implements IFailureDetectionEventListener, GossiperMBean
                 MessagingService.instance().waitUntilListening();
 
                 taskLock.lock();
+                long start = System.nanoTime();
 
                 /* Update the local heartbeat counter. */
                 endpointStateMap.get(FBUtilities.getBroadcastAddressAndPort()).getHeartBeatState().updateHeartBeat();
@@ -273,6 +277,7 @@ public class Gossiper implements IFailureDetectionEventListener, GossiperMBean
 
                     doStatusCheck();
                 }
+                GossipMetrics.roundLatency.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             }
             catch (Exception e)
             {
@@ -509,10 +514,7 @@ public class Gossiper implements IFailureDetectionEventListener, GossiperMBean
      */
     int getMaxEndpointStateVersion(EndpointState epState)
     {
-        int maxVersion = epState.getHeartBeatState().getHeartBeatVersion();
-        for (Map.Entry<ApplicationState, VersionedValue> state : epState.states())
-            maxVersion = Math.max(maxVersion, state.getValue().version);
-        return maxVersion;
+        return Math.max(epState.getHeartBeatState().getHeartBeatVersion(), epState.getMaxApplicationStateVersion());
     }
 
     /**
@@ -1312,6 +1314,14 @@ public class Gossiper implements IFailureDetectionEventListener, GossiperMBean
     void applyStateLocally(Map<InetAddressAndPort, EndpointState> epStateMap)
     {
         checkProperThreadForStateMutation();
+        try (Timer.Context ignored = GossipMetrics.stateApplicationLatency.time())
+        {
+            applyStateLocallyInternal(epStateMap);
+        }
+    }
+
+    private void applyStateLocallyInternal(Map<InetAddressAndPort, EndpointState> epStateMap)
+    {
         for (Entry<InetAddressAndPort, EndpointState> entry : epStateMap.entrySet())
         {
             InetAddressAndPort ep = entry.getKey();
@@ -524,36 +524,56 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
     public static Collection<SSTableReader> openAll(Set<Map.Entry<Descriptor, Set<Component>>> entries,
                                                     final TableMetadataRef metadata)
     {
-        final Collection<SSTableReader> sstables = new LinkedBlockingQueue<>();
+        Collection<SSTableReader> sstables = openAll(Collections.singletonMap(metadata, entries)).get(metadata.id);
+        return sstables == null ? Collections.emptyList() : sstables;
+    }
+
+    /**
+     * Opens the sstables of several tables at once. All the sstables are opened on the same pool, sized after the
+     * number of available processors, so that tables with few sstables do not leave it idle the way opening them
+     * one table after the other does.
+     *
+     * @return the opened sstables of each table, corrupt or unreadable sstables being skipped
+     */
+    public static Map<TableId, Collection<SSTableReader>> openAll(Map<TableMetadataRef, Set<Map.Entry<Descriptor, Set<Component>>>> entriesByTable)
+    {
+        final Map<TableId, Collection<SSTableReader>> sstablesByTable = new HashMap<>();
 
         ExecutorService executor = DebuggableThreadPoolExecutor.createWithFixedPoolSize("SSTableBatchOpen", FBUtilities.getAvailableProcessors());
-        for (final Map.Entry<Descriptor, Set<Component>> entry : entries)
+        for (Map.Entry<TableMetadataRef, Set<Map.Entry<Descriptor, Set<Component>>>> tableEntries : entriesByTable.entrySet())
         {
-            Runnable runnable = new Runnable()
+            final TableMetadataRef metadata = tableEntries.getKey();
+            final Collection<SSTableReader> sstables = new LinkedBlockingQueue<>();
+            sstablesByTable.put(metadata.id, sstables);
+
+            for (final Map.Entry<Descriptor, Set<Component>> entry : tableEntries.getValue())
             {
-                public void run()
+                Runnable runnable = new Runnable()
                 {
-                    SSTableReader sstable;
-                    try
+                    public void run()
                     {
-                        sstable = open(entry.getKey(), entry.getValue(), metadata);
-                    }
-                    catch (CorruptSSTableException ex)
-                    {
-                        JVMStabilityInspector.inspectThrowable(ex);
-                        logger.error("Corrupt sstable {}; skipping table", entry, ex);
-                        return;
-                    }
-                    catch (FSError ex)
-                    {
-                        JVMStabilityInspector.inspectThrowable(ex);
-                        logger.error("Cannot read sstable {}; file system error, skipping table", entry, ex);
-                        return;
+                        SSTableReader sstable;
+                        try
+                        {
+                            sstable = open(entry.getKey(), entry.getValue(), metadata);
+                        }
+                        catch (CorruptSSTableException ex)
+                        {
+                            JVMStabilityInspector.inspectThrowable(ex);
+                            logger.error("Corrupt sstable {}; skipping table", entry, ex);
+                            return;
+                        }
+                        catch (FSError ex)
+                        {
+                            JVMStabilityInspector.inspectThrowable(ex);
+                            logger.error("Cannot read sstable {}; file system error, skipping table", entry, ex);
+                            return;
+                        }
+                        sstables.add(sstable);
                     }
-                    sstables.add(sstable);
-                }
-            };
-            executor.submit(runnable);
+                };
+                executor.submit(runnable);
+            }
         }
 
         executor.shutdown();
@@ -566,8 +586,7 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
             throw new AssertionError(e);
         }
 
-        return sstables;
-
+        return sstablesByTable;
     }
 
     /**
@@ -1778,6 +1797,25 @@ public abstract class SSTableReader extends SSTable implements SelfRefCounted<SS
         return getMinLocalDeletionTime() != Cell.NO_DELETION_TIME;
     }
 
+    /**
+     * Whether the sstable may contain a partition level deletion, or if it is guaranteed to not contain any, in which
+     * case reads don't need to open the partition to check for one.
+     */
+    public boolean mayHavePartitionLevelDeletions()
+    {
+        return mayHaveTombstones() && sstableMetadata.hasPartitionLevelDeletions;
+    }
+
+    /**
+     * Whether the sstable may contain range tombstone markers, or if it is guaranteed to not contain any, in which
+     * case the clustering values of its stats can be used as a lower bound for its partitions even if it contains
+     * other kinds of tombstones.
+     */
+    public boolean mayHaveRangeTombstones()
+    {
+        return mayHaveTombstones() && sstableMetadata.hasRangeTombstones;
+    }
+
     public int getMinTTL()
     {
         return sstableMetadata.minTTL;
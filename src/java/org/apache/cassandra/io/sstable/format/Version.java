@@ -68,6 +68,11 @@ public abstract class Version
 
     public abstract boolean hasAccurateMinMax();
 
+    /**
+     * Whether the stats metadata records if the sstable has any partition level deletion and range tombstone marker.
+     */
+    public abstract boolean hasDeletionPresenceMarkers();
+
     public String getVersion()
     {
         return version;
@@ -112,7 +112,7 @@ public class BigFormat implements SSTableFormat
     // we always incremented the major version.
     static class BigVersion extends Version
     {
-        public static final String current_version = "na";
+        public static final String current_version = "nb";
         public static final String earliest_supported_version = "ma";
 
         // ma (3.0.0): swap bf hash order
@@ -122,6 +122,7 @@ public class BigFormat implements SSTableFormat
         // md (3.0.18, 3.11.4): corrected sstable min/max clustering
 
         // na (4.0.0): uncompressed chunks, pending repair session, isTransient, checksummed sstable metadata file, new Bloomfilter format
+        // nb (4.0.0): partition level deletion and range tombstone presence markers
         //
         // NOTE: when adding a new version, please add that to LegacySSTableTest, too.
 
@@ -134,6 +135,7 @@ public class BigFormat implements SSTableFormat
         private final boolean hasPendingRepair;
         private final boolean hasMetadataChecksum;
         private final boolean hasIsTransient;
+        private final boolean hasDeletionPresenceMarkers;
 
         /**
          * CASSANDRA-9067: 4.0 bloom filter representation changed (two longs just swapped)
@@ -156,6 +158,7 @@ public class BigFormat implements SSTableFormat
             hasIsTransient = version.compareTo("na") >= 0;
             hasMetadataChecksum = version.compareTo("na") >= 0;
             hasOldBfFormat = version.compareTo("na") < 0;
+            hasDeletionPresenceMarkers = version.compareTo("nb") >= 0;
         }
 
         @Override
@@ -205,6 +208,12 @@ public class BigFormat implements SSTableFormat
             return hasAccurateMinMax;
         }
 
+        @Override
+        public boolean hasDeletionPresenceMarkers()
+        {
+            return hasDeletionPresenceMarkers;
+        }
+
         public boolean isCompatible()
         {
             return version.compareTo(earliest_supported_version) >= 0 && version.charAt(0) <= current_version.charAt(0);
@@ -89,7 +89,9 @@ public class MetadataCollector implements PartitionStatisticsCollector
                                  -1,
                                  -1,
                                  null,
-                                 false);
+                                 false,
+                                 true,
+                                 true);
     }
 
     protected EstimatedHistogram estimatedPartitionSize = defaultPartitionSizeHistogram();
@@ -107,6 +109,8 @@ public class MetadataCollector implements PartitionStatisticsCollector
     protected boolean hasLegacyCounterShards = false;
     protected long totalColumnsSet;
     protected long totalRows;
+    protected boolean hasPartitionLevelDeletions = false;
+    protected boolean hasRangeTombstones = false;
 
     /**
      * Default cardinality estimation method is to use HyperLogLog++.
@@ -192,6 +196,18 @@ public class MetadataCollector implements PartitionStatisticsCollector
         }
     }
 
+    public void updatePartitionDeletion(DeletionTime dt)
+    {
+        if (!dt.isLive())
+            hasPartitionLevelDeletions = true;
+        update(dt);
+    }
+
+    public void updateHasRangeTombstones()
+    {
+        hasRangeTombstones = true;
+    }
+
     public void updateColumnSetPerRow(long columnSetInRow)
     {
         totalColumnsSet += columnSetInRow;
@@ -266,7 +282,9 @@ public class MetadataCollector implements PartitionStatisticsCollector
                                                              totalColumnsSet,
                                                              totalRows,
                                                              pendingRepair,
-                                                             isTransient));
+                                                             isTransient,
+                                                             hasPartitionLevelDeletions,
+                                                             hasRangeTombstones));
         components.put(MetadataType.COMPACTION, new CompactionMetadata(cardinality));
         components.put(MetadataType.HEADER, header.toComponent());
         return components;
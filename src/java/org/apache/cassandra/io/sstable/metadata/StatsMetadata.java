@@ -69,6 +69,10 @@ public class StatsMetadata extends MetadataComponent
     public final long totalRows;
     public final UUID pendingRepair;
     public final boolean isTransient;
+    // whether the sstable may contain partition level deletions and range tombstone markers respectively; always
+    // true for sstables written before those were recorded
+    public final boolean hasPartitionLevelDeletions;
+    public final boolean hasRangeTombstones;
     // just holds the current encoding stats to avoid allocating - it is not serialized
     public final EncodingStats encodingStats;
 
@@ -91,7 +95,9 @@ public class StatsMetadata extends MetadataComponent
                          long totalColumnsSet,
                          long totalRows,
                          UUID pendingRepair,
-                         boolean isTransient)
+                         boolean isTransient,
+                         boolean hasPartitionLevelDeletions,
+                         boolean hasRangeTombstones)
     {
         this.estimatedPartitionSize = estimatedPartitionSize;
         this.estimatedCellPerPartitionCount = estimatedCellPerPartitionCount;
@@ -113,6 +119,8 @@ public class StatsMetadata extends MetadataComponent
         this.totalRows = totalRows;
         this.pendingRepair = pendingRepair;
         this.isTransient = isTransient;
+        this.hasPartitionLevelDeletions = hasPartitionLevelDeletions;
+        this.hasRangeTombstones = hasRangeTombstones;
         this.encodingStats = new EncodingStats(minTimestamp, minLocalDeletionTime, minTTL);
     }
 
@@ -166,7 +174,9 @@ public class StatsMetadata extends MetadataComponent
                                  totalColumnsSet,
                                  totalRows,
                                  pendingRepair,
-                                 isTransient);
+                                 isTransient,
+                                 hasPartitionLevelDeletions,
+                                 hasRangeTombstones);
     }
 
     public StatsMetadata mutateRepairedMetadata(long newRepairedAt, UUID newPendingRepair, boolean newIsTransient)
@@ -190,7 +200,9 @@ public class StatsMetadata extends MetadataComponent
                                  totalColumnsSet,
                                  totalRows,
                                  newPendingRepair,
-                                 newIsTransient);
+                                 newIsTransient,
+                                 hasPartitionLevelDeletions,
+                                 hasRangeTombstones);
     }
 
     @Override
@@ -220,6 +232,8 @@ public class StatsMetadata extends MetadataComponent
                        .append(totalColumnsSet, that.totalColumnsSet)
                        .append(totalRows, that.totalRows)
                        .append(pendingRepair, that.pendingRepair)
+                       .append(hasPartitionLevelDeletions, that.hasPartitionLevelDeletions)
+                       .append(hasRangeTombstones, that.hasRangeTombstones)
                        .build();
     }
 
@@ -246,6 +260,8 @@ public class StatsMetadata extends MetadataComponent
                        .append(totalColumnsSet)
                        .append(totalRows)
                        .append(pendingRepair)
+                       .append(hasPartitionLevelDeletions)
+                       .append(hasRangeTombstones)
                        .build();
     }
 
@@ -289,6 +305,12 @@ public class StatsMetadata extends MetadataComponent
                 size += TypeSizes.sizeof(component.isTransient);
             }
 
+            if (version.hasDeletionPresenceMarkers())
+            {
+                size += TypeSizes.sizeof(component.hasPartitionLevelDeletions);
+                size += TypeSizes.sizeof(component.hasRangeTombstones);
+            }
+
             return size;
         }
 
@@ -340,6 +362,12 @@ public class StatsMetadata extends MetadataComponent
             {
                 out.writeBoolean(component.isTransient);
             }
+
+            if (version.hasDeletionPresenceMarkers())
+            {
+                out.writeBoolean(component.hasPartitionLevelDeletions);
+                out.writeBoolean(component.hasRangeTombstones);
+            }
         }
 
         public StatsMetadata deserialize(Version version, DataInputPlus in) throws IOException
@@ -420,6 +448,10 @@ public class StatsMetadata extends MetadataComponent
 
             boolean isTransient = version.hasIsTransient() && in.readBoolean();
 
+            // older sstables may contain anything
+            boolean hasPartitionLevelDeletions = !version.hasDeletionPresenceMarkers() || in.readBoolean();
+            boolean hasRangeTombstones = !version.hasDeletionPresenceMarkers() || in.readBoolean();
+
             return new StatsMetadata(partitionSizes,
                                      columnCounts,
                                      commitLogIntervals,
@@ -439,7 +471,9 @@ public class StatsMetadata extends MetadataComponent
                                      totalColumnsSet,
                                      totalRows,
                                      pendingRepair,
-                                     isTransient);
+                                     isTransient,
+                                     hasPartitionLevelDeletions,
+                                     hasRangeTombstones);
         }
     }
 }
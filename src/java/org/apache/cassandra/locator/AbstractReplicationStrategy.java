@@ -21,6 +21,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -57,9 +58,6 @@ public abstract class AbstractReplicationStrategy
     public final Map<String, String> configOptions;
     private final TokenMetadata tokenMetadata;
 
-    // track when the token range changes, signaling we need to invalidate our endpoint cache
-    private volatile long lastInvalidatedVersion = 0;
-
     public IEndpointSnitch snitch;
 
     protected AbstractReplicationStrategy(String keyspaceName, TokenMetadata tokenMetadata, IEndpointSnitch snitch, Map<String, String> configOptions)
@@ -74,26 +72,47 @@ public abstract class AbstractReplicationStrategy
         // lazy-initialize keyspace itself since we don't create them until after the replication strategies
     }
 
-    private final Map<Token, EndpointsForRange> cachedReplicas = new NonBlockingHashMap<>();
-
-    public EndpointsForRange getCachedReplicas(Token t)
+    /**
+     * The replicas computed for a given ring version. A ring change never mutates a published instance: the first
+     * lookup that sees a newer ring version swaps in a new, empty one, so a lookup racing with a ring change can
+     * never cache replicas computed from the old ring under the new one.
+     */
+    private static final class CachedReplicas
     {
-        long lastVersion = tokenMetadata.getRingVersion();
+        final long ringVersion;
+        final Map<Token, EndpointsForRange> replicas = new NonBlockingHashMap<>();
 
-        if (lastVersion > lastInvalidatedVersion)
+        CachedReplicas(long ringVersion)
         {
-            synchronized (this)
-            {
-                if (lastVersion > lastInvalidatedVersion)
-                {
-                    logger.trace("clearing cached endpoints");
-                    cachedReplicas.clear();
-                    lastInvalidatedVersion = lastVersion;
-                }
-            }
+            this.ringVersion = ringVersion;
         }
+    }
 
-        return cachedReplicas.get(t);
+    private final AtomicReference<CachedReplicas> cachedReplicas = new AtomicReference<>(new CachedReplicas(0));
+
+    /**
+     * @return the replicas cached for {@code ringVersion}, or null if the cache has already moved on to a newer ring
+     */
+    private CachedReplicas cachedReplicas(long ringVersion)
+    {
+        CachedReplicas current = cachedReplicas.get();
+        if (current.ringVersion == ringVersion)
+            return current;
+        if (current.ringVersion > ringVersion)
+            return null;
+
+        logger.trace("clearing cached endpoints");
+        // if we lose the race, it is either to a thread with the same ring version, whose cache we'll use, or to one
+        // with a newer version, in which case we can't use it
+        cachedReplicas.compareAndSet(current, new CachedReplicas(ringVersion));
+        current = cachedReplicas.get();
+        return current.ringVersion == ringVersion ? current : null;
+    }
+
+    public EndpointsForRange getCachedReplicas(Token t)
+    {
+        CachedReplicas current = cachedReplicas(tokenMetadata.getRingVersion());
+        return current == null ? null : current.replicas.get(t);
     }
 
     /**
@@ -119,7 +138,10 @@ public abstract class AbstractReplicationStrategy
             // if our cache got invalidated, it's possible there is a new token to account for too
             keyToken = TokenMetadata.firstToken(tm.sortedTokens(), searchToken);
             endpoints = calculateNaturalReplicas(searchToken, tm);
-            cachedReplicas.put(keyToken, endpoints);
+            // only cache the result under the ring version it was computed from
+            CachedReplicas current = cachedReplicas(tm.getRingVersion());
+            if (current != null)
+                current.replicas.put(keyToken, endpoints);
         }
 
         return endpoints;
@@ -171,6 +171,9 @@ public class DynamicEndpointSnitch extends AbstractEndpointSnitch implements Lat
     public <C extends ReplicaCollection<? extends C>> C sortedByProximity(final InetAddressAndPort address, C unsortedAddresses)
     {
         assert address.equals(FBUtilities.getBroadcastAddressAndPort()); // we only know about ourself
+        if (DatabaseDescriptor.isDynamicSnitchLoadAware())
+            return sortedByProximityWithLoad(address, unsortedAddresses);
+
         return dynamicBadnessThreshold == 0
                 ? sortedByProximityWithScore(address, unsortedAddresses)
                 : sortedByProximityWithBadness(address, unsortedAddresses);
@@ -186,6 +189,19 @@ public class DynamicEndpointSnitch extends AbstractEndpointSnitch implements Lat
         return unsortedAddresses.sorted((r1, r2) -> compareEndpoints(address, r1, r2, scores));
     }
 
+    private <C extends ReplicaCollection<? extends C>> C sortedByProximityWithLoad(final InetAddressAndPort address, C replicas)
+    {
+        if (replicas.size() < 2)
+            return replicas;
+
+        // the load of a replica changes with every request and response, so as for sortedByProximityWithScore
+        // we need a snapshot of it for the comparator to be stable during the sort
+        final HashMap<InetAddressAndPort, Double> scores = new HashMap<>(replicas.size());
+        for (Replica replica : replicas)
+            scores.put(replica.endpoint(), ReplicaLoadTracker.instance.score(replica.endpoint()));
+        return replicas.sorted((r1, r2) -> compareEndpoints(address, r1, r2, scores));
+    }
+
     private <C extends ReplicaCollection<? extends C>> C sortedByProximityWithBadness(final InetAddressAndPort address, C replicas)
     {
         if (replicas.size() < 2)
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.locator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BiConsumer;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import org.apache.cassandra.net.LatencySubscribers;
+
+/**
+ * Tracks, for every replica we read from, the number of requests still awaiting a response and a smoothed estimate
+ * of its response latency and of that latency's variation, computed the way TCP computes its retransmission
+ * timeout (RFC 6298).
+ *
+ * Unlike the scores of {@link DynamicEndpointSnitch}, which are recomputed from a decaying reservoir every
+ * {@code dynamic_snitch_update_interval_in_ms}, both are updated on every request and response, so a replica that
+ * stops responding (GC pause, compaction) is penalised as soon as requests start queuing against it.
+ */
+public class ReplicaLoadTracker implements LatencySubscribers.Subscriber
+{
+    public static final ReplicaLoadTracker instance = new ReplicaLoadTracker();
+
+    private final ConcurrentHashMap<InetAddressAndPort, ReplicaLoad> loads = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    ReplicaLoadTracker()
+    {
+    }
+
+    public static class ReplicaLoad
+    {
+        private static final AtomicIntegerFieldUpdater<ReplicaLoad> outstandingUpdater = AtomicIntegerFieldUpdater.newUpdater(ReplicaLoad.class, "outstanding");
+        private static final AtomicLongFieldUpdater<ReplicaLoad> smoothedLatencyUpdater = AtomicLongFieldUpdater.newUpdater(ReplicaLoad.class, "smoothedLatencyNanos");
+        private static final AtomicLongFieldUpdater<ReplicaLoad> completedUpdater = AtomicLongFieldUpdater.newUpdater(ReplicaLoad.class, "completed");
+
+        private volatile int outstanding;
+        private volatile long completed;
+        // -1 until the first sample is received
+        private volatile long smoothedLatencyNanos = -1;
+        // only ever updated after smoothedLatencyNanos, racing updates only make the estimate slightly less accurate
+        private volatile long latencyVariationNanos;
+
+        void onRequest()
+        {
+            outstandingUpdater.incrementAndGet(this);
+        }
+
+        void onCompletion()
+        {
+            outstandingUpdater.decrementAndGet(this);
+            completedUpdater.incrementAndGet(this);
+        }
+
+        void onLatency(long latencyNanos)
+        {
+            while (true)
+            {
+                long current = smoothedLatencyNanos;
+                if (current < 0)
+                {
+                    if (smoothedLatencyUpdater.compareAndSet(this, current, latencyNanos))
+                    {
+                        latencyVariationNanos = latencyNanos / 2;
+                        return;
+                    }
+                    continue;
+                }
+
+                // SRTT = 7/8 * SRTT + 1/8 * R; RTTVAR = 3/4 * RTTVAR + 1/4 * |SRTT - R|
+                if (smoothedLatencyUpdater.compareAndSet(this, current, current + ((latencyNanos - current) >> 3)))
+                {
+                    long variation = latencyVariationNanos;
+                    latencyVariationNanos = variation + ((Math.abs(current - latencyNanos) - variation) >> 2);
+                    return;
+                }
+            }
+        }
+
+        public int outstanding()
+        {
+            return outstanding;
+        }
+
+        public long completed()
+        {
+            return completed;
+        }
+
+        /**
+         * @return the smoothed latency of the replica, or -1 if it has never responded
+         */
+        public long smoothedLatencyNanos()
+        {
+            return smoothedLatencyNanos;
+        }
+
+        public long latencyVariationNanos()
+        {
+            return latencyVariationNanos;
+        }
+
+        /**
+         * @return the time after which a response from this replica should be considered late, or -1 if unknown
+         */
+        public long expectedLatencyNanos()
+        {
+            long smoothed = smoothedLatencyNanos;
+            return smoothed < 0 ? -1 : smoothed + 4 * latencyVariationNanos;
+        }
+
+        /**
+         * The score used to rank replicas, lower is better. As in C3 ("Cutting Tail Latency in Cloud Data Stores via
+         * Adaptive Replica Selection"), the queue of outstanding requests is penalised cubically, so that a replica
+         * with a slightly higher latency but an empty queue is preferred over a fast one that is falling behind.
+         */
+        public double score()
+        {
+            long smoothed = smoothedLatencyNanos;
+            if (smoothed < 0)
+                return 0.0;
+
+            double queue = 1 + outstanding;
+            return smoothed * queue * queue * queue;
+        }
+    }
+
+    private ReplicaLoad load(InetAddressAndPort endpoint)
+    {
+        ReplicaLoad load = loads.get(endpoint);
+        if (load == null)
+            load = loads.computeIfAbsent(endpoint, ignore -> new ReplicaLoad());
+        return load;
+    }
+
+    /**
+     * Records that a latency-tracked request has been sent to {@code endpoint}.
+     */
+    public void onRequest(InetAddressAndPort endpoint)
+    {
+        load(endpoint).onRequest();
+    }
+
+    /**
+     * Records that a request previously registered with {@link #onRequest} has completed, whether by a response,
+     * a failure or an expiration.
+     */
+    public void onCompletion(InetAddressAndPort endpoint)
+    {
+        load(endpoint).onCompletion();
+    }
+
+    public void receiveTiming(InetAddressAndPort endpoint, long latency, TimeUnit unit)
+    {
+        load(endpoint).onLatency(unit.toNanos(latency));
+    }
+
+    public double score(InetAddressAndPort endpoint)
+    {
+        ReplicaLoad load = loads.get(endpoint);
+        return load == null ? 0.0 : load.score();
+    }
+
+    /**
+     * @return the time after which we should consider that one of the provided replicas is late to respond, that is the
+     * maximum of their expected latencies, or -1 if any of the other replicas has no latency information. Our own
+     * latency is that of our local reads, and is ignored until we have read locally.
+     */
+    public long expectedLatencyNanos(ReplicaCollection<?> replicas)
+    {
+        long max = -1;
+        for (Replica replica : replicas)
+        {
+            ReplicaLoad load = loads.get(replica.endpoint());
+            long expected = load == null ? -1 : load.expectedLatencyNanos();
+            if (expected < 0)
+            {
+                if (replica.isSelf())
+                    continue;
+                return -1;
+            }
+            max = Math.max(max, expected);
+        }
+        return max;
+    }
+
+    public void forEach(BiConsumer<InetAddressAndPort, ReplicaLoad> consumer)
+    {
+        for (Map.Entry<InetAddressAndPort, ReplicaLoad> entry : loads.entrySet())
+            consumer.accept(entry.getKey(), entry.getValue());
+    }
+
+    public ReplicaLoad get(InetAddressAndPort endpoint)
+    {
+        return loads.get(endpoint);
+    }
+}
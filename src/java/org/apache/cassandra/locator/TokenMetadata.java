@@ -21,6 +21,7 @@ import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -95,6 +96,11 @@ public class TokenMetadata
     // NOTE: this may contain ranges that conflict with the those implied by sortedTokens when a range is changing its transient status
     private final ConcurrentMap<String, PendingRangeMaps> pendingRanges = new ConcurrentHashMap<String, PendingRangeMaps>();
 
+    // the pending ranges last calculated for each distinct replication, valid for lastPendingRangeInputs only;
+    // both only accessed while synchronized on pendingRanges
+    private final Map<ReplicationKey, PendingRangeMaps> pendingRangesByReplication = new HashMap<>();
+    private PendingRangeInputs lastPendingRangeInputs;
+
     // nodes which are migrating to the new tokens in the ring
     private final Set<Pair<Token, InetAddressAndPort>> movingEndpoints = new HashSet<>();
 
@@ -108,6 +114,7 @@ public class TokenMetadata
 
     // signals replication strategies that nodes have joined or left the ring and they need to recompute ownership
     private volatile long ringVersion = 0;
+    private static final AtomicLongFieldUpdater<TokenMetadata> ringVersionUpdater = AtomicLongFieldUpdater.newUpdater(TokenMetadata.class, "ringVersion");
 
     public TokenMetadata()
     {
@@ -118,10 +125,16 @@ public class TokenMetadata
     }
 
     private TokenMetadata(BiMultiValMap<Token, InetAddressAndPort> tokenToEndpointMap, BiMap<InetAddressAndPort, UUID> endpointsMap, Topology topology, IPartitioner partitioner)
+    {
+        this(tokenToEndpointMap, endpointsMap, topology, partitioner, 0);
+    }
+
+    private TokenMetadata(BiMultiValMap<Token, InetAddressAndPort> tokenToEndpointMap, BiMap<InetAddressAndPort, UUID> endpointsMap, Topology topology, IPartitioner partitioner, long ringVersion)
     {
         this.tokenToEndpointMap = tokenToEndpointMap;
         this.topology = topology;
         this.partitioner = partitioner;
+        this.ringVersion = ringVersion;
         endpointToHostIdMap = endpointsMap;
         sortedTokens = sortTokens();
     }
@@ -637,7 +650,8 @@ public class TokenMetadata
             return new TokenMetadata(SortedBiMultiValMap.create(tokenToEndpointMap),
                                      HashBiMap.create(endpointToHostIdMap),
                                      topology,
-                                     partitioner);
+                                     partitioner,
+                                     ringVersion);
         }
         finally
         {
@@ -650,18 +664,21 @@ public class TokenMetadata
      * uses a cached copy that is invalided when the ring changes, so in the common case
      * no extra locking is required.
      *
+     * The copy carries the ring version it was taken at (see {@link #getRingVersion()}), which is what decides whether
+     * it is still current: a copy taken just before a ring change can't be published as the current one.
+     *
      * Callers must *NOT* mutate the returned metadata object.
      */
     public TokenMetadata cachedOnlyTokenMap()
     {
         TokenMetadata tm = cachedTokenMap.get();
-        if (tm != null)
+        if (tm != null && tm.ringVersion == ringVersion)
             return tm;
 
         // synchronize to prevent thundering herd (CASSANDRA-6345)
         synchronized (this)
         {
-            if ((tm = cachedTokenMap.get()) != null)
+            if ((tm = cachedTokenMap.get()) != null && tm.ringVersion == ringVersion)
                 return tm;
 
             tm = cloneOnlyTokenMap();
@@ -858,10 +875,33 @@ public class TokenMetadata
                 lock.readLock().unlock();
             }
 
-            pendingRanges.put(keyspaceName, calculatePendingRanges(strategy, metadata, bootstrapTokensClone,
-                                                                   leavingEndpointsClone, movingEndpointsClone));
-            if (logger.isDebugEnabled())
-                logger.debug("Starting pending range calculation for {}", keyspaceName);
+            // pending ranges only depend on the ring, on the ongoing operations and on the replication of the
+            // keyspace, so we only recompute them when one of those changed, and once for all the keyspaces
+            // that share the same replication
+            PendingRangeInputs inputs = new PendingRangeInputs(metadata.getRingVersion(), bootstrapTokensClone,
+                                                               leavingEndpointsClone, movingEndpointsClone);
+            if (!inputs.equals(lastPendingRangeInputs))
+            {
+                pendingRangesByReplication.clear();
+                lastPendingRangeInputs = inputs;
+            }
+
+            ReplicationKey replication = new ReplicationKey(strategy);
+            PendingRangeMaps keyspacePendingRanges = pendingRangesByReplication.get(replication);
+            if (keyspacePendingRanges == null)
+            {
+                if (logger.isDebugEnabled())
+                    logger.debug("Starting pending range calculation for {}", keyspaceName);
+
+                keyspacePendingRanges = calculatePendingRanges(strategy, metadata, bootstrapTokensClone,
+                                                               leavingEndpointsClone, movingEndpointsClone);
+                pendingRangesByReplication.put(replication, keyspacePendingRanges);
+            }
+            else if (logger.isDebugEnabled())
+            {
+                logger.debug("Reusing pending ranges calculated for the same ring and replication for {}", keyspaceName);
+            }
+            pendingRanges.put(keyspaceName, keyspacePendingRanges);
 
             long took = System.currentTimeMillis() - startedAt;
 
@@ -872,6 +912,85 @@ public class TokenMetadata
         }
     }
 
+    /**
+     * Everything, beside the replication strategy, the pending ranges of a keyspace are calculated from.
+     */
+    private static final class PendingRangeInputs
+    {
+        private final long ringVersion;
+        private final Map<Token, InetAddressAndPort> bootstrapTokens;
+        private final Set<InetAddressAndPort> leavingEndpoints;
+        private final Set<Pair<Token, InetAddressAndPort>> movingEndpoints;
+
+        private PendingRangeInputs(long ringVersion,
+                                   BiMultiValMap<Token, InetAddressAndPort> bootstrapTokens,
+                                   Set<InetAddressAndPort> leavingEndpoints,
+                                   Set<Pair<Token, InetAddressAndPort>> movingEndpoints)
+        {
+            this.ringVersion = ringVersion;
+            this.bootstrapTokens = new HashMap<>(bootstrapTokens);
+            this.leavingEndpoints = leavingEndpoints;
+            this.movingEndpoints = movingEndpoints;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (!(o instanceof PendingRangeInputs))
+                return false;
+
+            PendingRangeInputs that = (PendingRangeInputs) o;
+            return ringVersion == that.ringVersion
+                   && bootstrapTokens.equals(that.bootstrapTokens)
+                   && leavingEndpoints.equals(that.leavingEndpoints)
+                   && movingEndpoints.equals(that.movingEndpoints);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(ringVersion, bootstrapTokens, leavingEndpoints, movingEndpoints);
+        }
+    }
+
+    /**
+     * Identifies the replication of a keyspace: two strategies of the same class, with the same options and snitch
+     * place replicas identically, and so have the same pending ranges.
+     */
+    private static final class ReplicationKey
+    {
+        private final Class<? extends AbstractReplicationStrategy> strategyClass;
+        private final Map<String, String> options;
+        private final IEndpointSnitch snitch;
+
+        private ReplicationKey(AbstractReplicationStrategy strategy)
+        {
+            this.strategyClass = strategy.getClass();
+            this.options = strategy.configOptions;
+            this.snitch = strategy.snitch;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (!(o instanceof ReplicationKey))
+                return false;
+
+            ReplicationKey that = (ReplicationKey) o;
+            return strategyClass == that.strategyClass && snitch == that.snitch && options.equals(that.options);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(strategyClass, options, System.identityHashCode(snitch));
+        }
+    }
+
     /**
      * @see TokenMetadata#calculatePendingRanges(AbstractReplicationStrategy, String)
      */
@@ -1343,7 +1462,7 @@ public class TokenMetadata
 
     public void invalidateCachedRings()
     {
-        ringVersion++;
+        ringVersionUpdater.incrementAndGet(this);
         cachedTokenMap.set(null);
     }
 
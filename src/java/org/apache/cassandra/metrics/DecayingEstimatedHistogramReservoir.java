@@ -137,22 +137,22 @@ public class DecayingEstimatedHistogramReservoir implements Reservoir
 
     // Represents the bucket offset as created by {@link EstimatedHistogram#newOffsets()}
     private final int nStripes;
-    private final long[] bucketOffsets;
+    final long[] bucketOffsets;
     private final int distributionPrime;
 
     // decayingBuckets and buckets are one element longer than bucketOffsets -- the last element is values greater than the last offset
-    private final AtomicLongArray decayingBuckets;
-    private final AtomicLongArray buckets;
+    final AtomicLongArray decayingBuckets;
+    final AtomicLongArray buckets;
 
     public static final long HALF_TIME_IN_S = 60L;
     public static final double MEAN_LIFETIME_IN_S = HALF_TIME_IN_S / Math.log(2.0);
     public static final long LANDMARK_RESET_INTERVAL_IN_MS = 30L * 60L * 1000L;
 
     private final AtomicBoolean rescaling = new AtomicBoolean(false);
-    private volatile long decayLandmark;
+    volatile long decayLandmark;
 
     // Wrapper around System.nanoTime() to simplify unit testing.
-    private final Clock clock;
+    final Clock clock;
 
 
     /**
@@ -280,7 +280,7 @@ public class DecayingEstimatedHistogramReservoir implements Reservoir
         return value <= bucketOffsets[firstCandidate] ? firstCandidate : firstCandidate + 1;
     }
 
-    private double forwardDecayWeight(long now)
+    double forwardDecayWeight(long now)
     {
         return Math.exp(((now - decayLandmark) / 1000.0) / MEAN_LIFETIME_IN_S);
     }
@@ -326,7 +326,7 @@ public class DecayingEstimatedHistogramReservoir implements Reservoir
         return bucketValue(bucketOffsets.length, true) > 0;
     }
 
-    private long bucketValue(int index, boolean withDecay)
+    long bucketValue(int index, boolean withDecay)
     {
         long val = 0;
         AtomicLongArray bs = withDecay ? decayingBuckets : buckets;
@@ -347,7 +347,7 @@ public class DecayingEstimatedHistogramReservoir implements Reservoir
         rescaleIfNeeded(clock.getTime());
     }
 
-    private void rescaleIfNeeded(long now)
+    void rescaleIfNeeded(long now)
     {
         if (needRescale(now))
         {
@@ -0,0 +1,41 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+
+import org.apache.cassandra.concurrent.Stage;
+
+import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
+
+/**
+ * Metrics related to Gossip.
+ */
+public class GossipMetrics
+{
+    private static final MetricNameFactory factory = new DefaultNameFactory("Gossip");
+
+    /** Time taken by a gossip round: digest creation, sending it to the selected peers and the status check */
+    public static final Timer roundLatency = Metrics.timer(factory.createMetricName("RoundLatency"));
+    /** Time taken to apply the endpoint states received from a peer, including notifying the state change subscribers */
+    public static final Timer stateApplicationLatency = Metrics.timer(factory.createMetricName("StateApplicationLatency"));
+    /** Number of tasks, mostly received gossip messages, waiting to be processed by the gossip stage */
+    public static final Gauge<Integer> pendingTasks = Metrics.register(factory.createMetricName("PendingTasks"),
+                                                                       (Gauge<Integer>) () -> Stage.GOSSIP.executor().getPendingTaskCount());
+}
@@ -17,9 +17,13 @@
  */
 package org.apache.cassandra.metrics;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import org.apache.cassandra.net.OutboundConnections;
+import org.apache.cassandra.net.Verb;
 
 import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
 
@@ -106,6 +110,8 @@ public class InternodeOutboundMetrics
     public final Gauge<Long> urgentMessageDroppedTasksDueToError;
     /** Dropped bytes because of error for urgent message TCP Connections */
     public final Gauge<Long> urgentMessageDroppedBytesDueToError;
+    /** Pending tasks of each priority lane, summed over the connections */
+    public final Map<Verb.Priority, Gauge<Integer>> pendingTasksByPriority = new EnumMap<>(Verb.Priority.class);
     
     private final MetricNameFactory factory;
 
@@ -156,6 +162,14 @@ public class InternodeOutboundMetrics
         urgentMessageDroppedBytesDueToError = Metrics.register(factory.createMetricName("UrgentMessageDroppedBytesDueToError"), messagingPool.urgent::errorBytes);
         expiredCallbacks = Metrics.meter(factory.createMetricName("Timeouts"));
 
+        for (Verb.Priority priority : Verb.Priority.values())
+        {
+            pendingTasksByPriority.put(priority, Metrics.register(factory.createMetricName(priority + "PendingTasks"),
+                                                                  (Gauge<Integer>) () -> messagingPool.urgent.pendingCount(priority)
+                                                                                         + messagingPool.small.pendingCount(priority)
+                                                                                         + messagingPool.large.pendingCount(priority)));
+        }
+
         // deprecated
         Metrics.register(factory.createMetricName("GossipMessagePendingTasks"), (Gauge<Integer>) messagingPool.urgent::pendingCount);
         Metrics.register(factory.createMetricName("GossipMessageCompletedTasks"), (Gauge<Long>) messagingPool.urgent::sentCount);
@@ -201,5 +215,7 @@ public class InternodeOutboundMetrics
         Metrics.remove(factory.createMetricName("UrgentMessageDroppedTasksDueToError"));
         Metrics.remove(factory.createMetricName("UrgentMessageDroppedBytesDueToError"));
         Metrics.remove(factory.createMetricName("Timeouts"));
+        for (Verb.Priority priority : Verb.Priority.values())
+            Metrics.remove(factory.createMetricName(priority + "PendingTasks"));
     }
 }
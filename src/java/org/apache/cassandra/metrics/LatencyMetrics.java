@@ -19,14 +19,18 @@ package org.apache.cassandra.metrics;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.Lists;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Reservoir;
 import com.codahale.metrics.Snapshot;
 import com.codahale.metrics.Timer;
+import org.apache.cassandra.concurrent.ScheduledExecutors;
 
 import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
 
@@ -36,6 +40,31 @@ import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
  */
 public class LatencyMetrics
 {
+    /**
+     * Whether latencies are recorded by each thread into histograms of its own, merged on read, rather than into
+     * histograms and meters shared by all threads. See {@link ThreadLocalDecayingHistogramReservoir}. Off by default,
+     * as each thread recording into a histogram then holds a few KB for it, which adds up with per table metrics
+     * and hundreds of request threads.
+     */
+    public static final boolean THREAD_LOCAL_RECORDING = Boolean.parseBoolean(System.getProperty("cassandra.latency_metrics_thread_local", "false"));
+
+    // the interval at which the meters of the timers recording thread locally are updated, that of their EWMAs
+    private static final long RATES_TICK_INTERVAL_SECONDS = 5;
+
+    // the timers recording thread locally, whose rates need to be ticked
+    private static final Set<LatencyMetricsTimer> threadLocalTimers = ConcurrentHashMap.newKeySet();
+
+    static
+    {
+        if (THREAD_LOCAL_RECORDING)
+        {
+            ScheduledExecutors.scheduledFastTasks.scheduleWithFixedDelay(() -> threadLocalTimers.forEach(LatencyMetricsTimer::tickRates),
+                                                                         RATES_TICK_INTERVAL_SECONDS,
+                                                                         RATES_TICK_INTERVAL_SECONDS,
+                                                                         TimeUnit.SECONDS);
+        }
+    }
+
     /** Latency */
     public final LatencyMetricsTimer latency;
     /** Total latency in micro sec */
@@ -89,7 +118,9 @@ public class LatencyMetrics
         this.aliasFactory = aliasFactory;
         this.namePrefix = namePrefix;
 
-        LatencyMetricsTimer timer = new LatencyMetrics.LatencyMetricsTimer(new DecayingEstimatedHistogramReservoir());
+        LatencyMetricsTimer timer = THREAD_LOCAL_RECORDING
+                                  ? new LatencyMetrics.LatencyMetricsTimer(new ThreadLocalDecayingHistogramReservoir())
+                                  : new LatencyMetrics.LatencyMetricsTimer(new DecayingEstimatedHistogramReservoir());
         Counter counter = new LatencyMetricsCounter();
 
         if (aliasFactory == null)
@@ -102,6 +133,9 @@ public class LatencyMetrics
             latency = Metrics.register(factory.createMetricName(namePrefix + "Latency"), aliasFactory.createMetricName(namePrefix + "Latency"), timer);
             totalLatency = Metrics.register(factory.createMetricName(namePrefix + "TotalLatency"), aliasFactory.createMetricName(namePrefix + "TotalLatency"), counter);
         }
+
+        if (timer.threadLocalReservoir != null)
+            threadLocalTimers.add(timer);
     }
     
     /**
@@ -152,18 +186,27 @@ public class LatencyMetrics
     /** takes nanoseconds **/
     public void addNano(long nanos)
     {
-        // convert to microseconds. 1 millionth
         latency.update(nanos, TimeUnit.NANOSECONDS);
-        totalLatency.inc(nanos / 1000);
+        // when recording thread locally, the total is the sum of the values recorded by the reservoir
+        if (latency.threadLocalReservoir == null)
+        {
+            // convert to microseconds. 1 millionth
+            totalLatency.inc(nanos / 1000);
+        }
     }
 
     public void release()
     {
+        threadLocalTimers.remove(latency);
+
         // Notify parent metrics that this metric is being released
         for (LatencyMetrics parent : this.parents)
         {
             parent.removeChildren(this);
         }
+        // the recorders of the released metric are folded into its shared buckets, which its parents have merged
+        if (latency.threadLocalReservoir != null)
+            latency.threadLocalReservoir.release();
         if (aliasFactory == null)
         {
             Metrics.remove(factory.createMetricName(namePrefix + "Latency"));
@@ -181,15 +224,54 @@ public class LatencyMetrics
 
         long releasedLatencyCount = 0;
 
+        // null unless latencies are recorded thread locally, in which case the Timer's own histogram and meter are
+        // never updated: the count is kept by the reservoir, and the rates by a meter ticked from that count
+        private final ThreadLocalDecayingHistogramReservoir threadLocalReservoir;
+        private final Meter rates = new Meter();
+        // only accessed by the rates ticking task
+        private long tickedCount = 0;
+
         public LatencyMetricsTimer(Reservoir reservoir) 
         {
             super(reservoir);
+            this.threadLocalReservoir = reservoir instanceof ThreadLocalDecayingHistogramReservoir
+                                      ? (ThreadLocalDecayingHistogramReservoir) reservoir
+                                      : null;
+        }
+
+        @Override
+        public void update(long duration, TimeUnit unit)
+        {
+            if (threadLocalReservoir == null)
+                super.update(duration, unit);
+            else if (duration >= 0)
+                threadLocalReservoir.update(unit.toNanos(duration));
+        }
+
+        private void tickRates()
+        {
+            long count = threadLocalReservoir.count();
+            rates.mark(count - tickedCount);
+            tickedCount = count;
+        }
+
+        private long ownCount()
+        {
+            return threadLocalReservoir == null ? super.getCount() : threadLocalReservoir.count();
+        }
+
+        /**
+         * @return the sum of the latencies recorded in microseconds, if recorded thread locally, 0 otherwise
+         */
+        private long ownTotalLatency()
+        {
+            return threadLocalReservoir == null ? 0 : threadLocalReservoir.sum() / 1000;
         }
 
         @Override
         public long getCount()
         {
-            long count = super.getCount() + releasedLatencyCount;
+            long count = ownCount() + releasedLatencyCount;
             for (LatencyMetrics child : children)
             {
                 count += child.latency.getCount();
@@ -201,7 +283,7 @@ public class LatencyMetrics
         @Override
         public double getFifteenMinuteRate()
         {
-            double rate = super.getFifteenMinuteRate();
+            double rate = threadLocalReservoir == null ? super.getFifteenMinuteRate() : rates.getFifteenMinuteRate();
             for (LatencyMetrics child : children)
             {
                 rate += child.latency.getFifteenMinuteRate();
@@ -212,7 +294,7 @@ public class LatencyMetrics
         @Override
         public double getFiveMinuteRate()
         {
-            double rate = super.getFiveMinuteRate();
+            double rate = threadLocalReservoir == null ? super.getFiveMinuteRate() : rates.getFiveMinuteRate();
             for (LatencyMetrics child : children)
             {
                 rate += child.latency.getFiveMinuteRate();
@@ -224,7 +306,7 @@ public class LatencyMetrics
         public double getMeanRate()
         {
             // Not necessarily 100% accurate, but close enough
-            double rate = super.getMeanRate();
+            double rate = threadLocalReservoir == null ? super.getMeanRate() : rates.getMeanRate();
             for (LatencyMetrics child : children)
             {
                 rate += child.latency.getMeanRate();
@@ -235,7 +317,7 @@ public class LatencyMetrics
         @Override
         public double getOneMinuteRate()
         {
-            double rate = super.getOneMinuteRate();
+            double rate = threadLocalReservoir == null ? super.getOneMinuteRate() : rates.getOneMinuteRate();
             for (LatencyMetrics child : children)
             {
                 rate += child.latency.getOneMinuteRate();
@@ -261,7 +343,7 @@ public class LatencyMetrics
         @Override
         public long getCount()
         {
-            long count = super.getCount();
+            long count = super.getCount() + latency.ownTotalLatency();
             for (LatencyMetrics child : children)
             {
                 count += child.totalLatency.getCount();
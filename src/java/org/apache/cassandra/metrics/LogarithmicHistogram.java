@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+import com.google.common.base.Preconditions;
+
+import org.apache.cassandra.io.util.DataInputBuffer;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+
+/**
+ * A histogram of non negative values with logarithmically sized buckets, in the manner of DDSketch: for a relative
+ * accuracy {@code a}, bucket {@code i} counts the values in {@code (g^(i-1), g^i]} where {@code g = (1 + a) / (1 - a)},
+ * so that any quantile estimated from the buckets is within {@code a} of the actual value. Unlike the
+ * {@link DecayingEstimatedHistogramReservoir}, the counts never decay, and the histograms recorded with the same
+ * accuracy, on one node or on several, can be merged by adding the counts of their buckets, which gives the exact
+ * histogram of all the values recorded. Rates and recent quantiles are obtained from the difference of two snapshots.
+ *
+ * Values larger than {@link #MAX_TRACKABLE_VALUE} are counted in the last bucket. The buckets are only allocated
+ * by the first update.
+ *
+ * A {@link Snapshot} is serialized as:
+ * <pre>
+ *   byte    format version, currently 1
+ *   double  relative accuracy
+ *   vint    number of zeros
+ *   vint    index of the first non empty bucket
+ *   vint    number of buckets up to the last non empty one
+ *   vint*   counts of these buckets
+ * </pre>
+ */
+public class LogarithmicHistogram
+{
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final long MAX_TRACKABLE_VALUE = 1L << 40;
+
+    private static final byte SERIALIZATION_VERSION = 1;
+
+    private static final AtomicReferenceFieldUpdater<LogarithmicHistogram, AtomicLongArray> bucketsUpdater =
+        AtomicReferenceFieldUpdater.newUpdater(LogarithmicHistogram.class, AtomicLongArray.class, "buckets");
+
+    private final double relativeAccuracy;
+    private final double multiplier;
+    private final int bucketCount;
+
+    // values below 1
+    private final AtomicLong zeros = new AtomicLong();
+    private volatile AtomicLongArray buckets;
+
+    public LogarithmicHistogram()
+    {
+        this(DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    public LogarithmicHistogram(double relativeAccuracy)
+    {
+        Preconditions.checkArgument(relativeAccuracy > 0 && relativeAccuracy < 1, "relative accuracy must be in (0, 1), got %s", relativeAccuracy);
+        this.relativeAccuracy = relativeAccuracy;
+        this.multiplier = multiplier(relativeAccuracy);
+        this.bucketCount = index(MAX_TRACKABLE_VALUE, multiplier) + 1;
+    }
+
+    public double relativeAccuracy()
+    {
+        return relativeAccuracy;
+    }
+
+    public void update(long value)
+    {
+        update(value, 1);
+    }
+
+    public void update(long value, long count)
+    {
+        if (value < 1)
+            updateZeros(count);
+        else
+            updateBucket(bucketIndex(value), count);
+    }
+
+    /**
+     * @return the index of the bucket a value of at least 1 is counted in
+     */
+    int bucketIndex(long value)
+    {
+        return Math.min(index(value, multiplier), bucketCount - 1);
+    }
+
+    int bucketCount()
+    {
+        return bucketCount;
+    }
+
+    void updateZeros(long count)
+    {
+        zeros.addAndGet(count);
+    }
+
+    void updateBucket(int index, long count)
+    {
+        AtomicLongArray buckets = this.buckets;
+        if (buckets == null)
+        {
+            bucketsUpdater.compareAndSet(this, null, new AtomicLongArray(bucketCount));
+            buckets = this.buckets;
+        }
+        buckets.addAndGet(index, count);
+    }
+
+    /**
+     * @return the counts of the histogram, which aren't a consistent view of the histogram if it is updated
+     * concurrently, but of all the values recorded before the call, at least
+     */
+    public Snapshot getSnapshot()
+    {
+        return snapshot(relativeAccuracy, zeros.get(), buckets);
+    }
+
+    /**
+     * @return the snapshot of the given counts, where {@code buckets} holds the counts of the first buckets, if not null
+     */
+    static Snapshot snapshot(double relativeAccuracy, long zeros, AtomicLongArray buckets)
+    {
+        if (buckets == null)
+            return new Snapshot(relativeAccuracy, zeros, 0, new long[0]);
+
+        int first = 0;
+        while (first < buckets.length() && buckets.get(first) == 0)
+            first++;
+        int last = buckets.length() - 1;
+        while (last >= first && buckets.get(last) == 0)
+            last--;
+
+        long[] counts = new long[last - first + 1];
+        for (int i = 0; i < counts.length; i++)
+            counts[i] = buckets.get(first + i);
+        return new Snapshot(relativeAccuracy, zeros, counts.length == 0 ? 0 : first, counts);
+    }
+
+    private static double multiplier(double relativeAccuracy)
+    {
+        return 1 / Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    private static int index(long value, double multiplier)
+    {
+        return (int) Math.ceil(Math.log(value) * multiplier);
+    }
+
+    /**
+     * The counts of a {@link LogarithmicHistogram}.
+     */
+    public static class Snapshot
+    {
+        public final double relativeAccuracy;
+        public final long zeros;
+        // the index of counts[0]
+        public final int offset;
+        private final long[] counts;
+
+        Snapshot(double relativeAccuracy, long zeros, int offset, long[] counts)
+        {
+            this.relativeAccuracy = relativeAccuracy;
+            this.zeros = zeros;
+            this.offset = offset;
+            this.counts = counts;
+        }
+
+        public long count()
+        {
+            long count = zeros;
+            for (long c : counts)
+                count += c;
+            return count;
+        }
+
+        /**
+         * @return the count of the bucket of the given index, {@code (g^(index-1), g^index]}
+         */
+        public long bucketCount(int index)
+        {
+            return index < offset || index >= offset + counts.length ? 0 : counts[index - offset];
+        }
+
+        /**
+         * @return the estimate of the given quantile, within the relative accuracy of the value it estimates, or 0 if
+         * the histogram is empty
+         */
+        public double quantile(double quantile)
+        {
+            Preconditions.checkArgument(quantile >= 0 && quantile <= 1, "quantile must be in [0, 1], got %s", quantile);
+            long count = count();
+            if (count == 0)
+                return 0;
+
+            long rank = (long) (quantile * (count - 1));
+            if (rank < zeros)
+                return 0;
+
+            long seen = zeros;
+            int i = 0;
+            while (i < counts.length - 1 && (seen += counts[i]) <= rank)
+                i++;
+
+            // the value of the bucket that is within the relative accuracy of both its bounds
+            double gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+            return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+        }
+
+        /**
+         * @return the snapshot of the values recorded by this histogram and by the one of {@code other}, which must
+         * have been recorded with the same relative accuracy
+         */
+        public Snapshot merge(Snapshot other)
+        {
+            Preconditions.checkArgument(relativeAccuracy == other.relativeAccuracy,
+                                        "cannot merge histograms of relative accuracy %s and %s", relativeAccuracy, other.relativeAccuracy);
+            if (other.counts.length == 0)
+                return new Snapshot(relativeAccuracy, zeros + other.zeros, offset, counts);
+            if (counts.length == 0)
+                return new Snapshot(relativeAccuracy, zeros + other.zeros, other.offset, other.counts);
+
+            int first = Math.min(offset, other.offset);
+            int last = Math.max(offset + counts.length, other.offset + other.counts.length);
+            long[] merged = new long[last - first];
+            for (int i = 0; i < counts.length; i++)
+                merged[offset - first + i] += counts[i];
+            for (int i = 0; i < other.counts.length; i++)
+                merged[other.offset - first + i] += other.counts[i];
+            return new Snapshot(relativeAccuracy, zeros + other.zeros, first, merged);
+        }
+
+        public ByteBuffer serialize()
+        {
+            try (DataOutputBuffer out = new DataOutputBuffer(32 + counts.length * 2))
+            {
+                out.writeByte(SERIALIZATION_VERSION);
+                out.writeDouble(relativeAccuracy);
+                out.writeUnsignedVInt(zeros);
+                out.writeUnsignedVInt(offset);
+                out.writeUnsignedVInt(counts.length);
+                for (long count : counts)
+                    out.writeUnsignedVInt(count);
+                return out.buffer();
+            }
+            catch (IOException e)
+            {
+                throw new AssertionError(e);
+            }
+        }
+
+        public static Snapshot deserialize(ByteBuffer bytes) throws IOException
+        {
+            try (DataInputBuffer in = new DataInputBuffer(bytes, true))
+            {
+                byte version = in.readByte();
+                if (version != SERIALIZATION_VERSION)
+                    throw new IOException("Unsupported histogram serialization version " + version);
+
+                double relativeAccuracy = in.readDouble();
+                long zeros = in.readUnsignedVInt();
+                int offset = (int) in.readUnsignedVInt();
+                long[] counts = new long[(int) in.readUnsignedVInt()];
+                for (int i = 0; i < counts.length; i++)
+                    counts[i] = in.readUnsignedVInt();
+                return new Snapshot(relativeAccuracy, zeros, offset, counts);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Snapshot))
+                return false;
+
+            Snapshot that = (Snapshot) o;
+            return relativeAccuracy == that.relativeAccuracy
+                   && zeros == that.zeros
+                   && offset == that.offset
+                   && Arrays.equals(counts, that.counts);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * (31 * Long.hashCode(zeros) + offset) + Arrays.hashCode(counts);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "LogarithmicHistogram.Snapshot(accuracy=" + relativeAccuracy + ", zeros=" + zeros + ", offset=" + offset + ", counts=" + Arrays.toString(counts) + ')';
+        }
+    }
+}
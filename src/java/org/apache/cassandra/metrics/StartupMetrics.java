@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.cassandra.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Gauge;
+
+import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
+
+/**
+ * Duration, in milliseconds, of the phases of the startup of the node, -1 until the phase has completed.
+ */
+public class StartupMetrics
+{
+    private static final MetricNameFactory factory = new DefaultNameFactory("Startup");
+
+    public enum Phase
+    {
+        /** Opening the sstables of all the tables */
+        SSTABLE_OPEN("SSTableOpenTime"),
+        /** Loading the saved key, row and counter caches */
+        CACHE_LOAD("CacheLoadTime"),
+        /** Replaying the commit log segments found on disk */
+        COMMIT_LOG_REPLAY("CommitLogReplayTime"),
+        /** From the start of the JVM until the node is ready to serve client requests */
+        TIME_TO_SERVING("TimeToServing");
+
+        private volatile long millis = -1;
+
+        Phase(String name)
+        {
+            Metrics.register(factory.createMetricName(name), (Gauge<Long>) () -> millis);
+        }
+
+        public void record(long durationNanos)
+        {
+            millis = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+        }
+
+        public long millis()
+        {
+            return millis;
+        }
+    }
+}
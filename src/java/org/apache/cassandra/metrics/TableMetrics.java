@@ -47,6 +47,7 @@ import org.apache.cassandra.io.sstable.metadata.MetadataCollector;
 import org.apache.cassandra.metrics.Sampler.SamplerType;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.SchemaConstants;
+import org.apache.cassandra.tracing.SpanSampler;
 import org.apache.cassandra.utils.EstimatedHistogram;
 import org.apache.cassandra.utils.Pair;
 
@@ -91,11 +92,11 @@ public class TableMetrics
     /** Histogram of the number of sstable data files accessed per read */
     public final TableHistogram sstablesPerReadHistogram;
     /** (Local) read metrics */
-    public final LatencyMetrics readLatency;
+    public final TableLatencyMetrics readLatency;
     /** (Local) range slice metrics */
-    public final LatencyMetrics rangeLatency;
+    public final TableLatencyMetrics rangeLatency;
     /** (Local) write metrics */
-    public final LatencyMetrics writeLatency;
+    public final TableLatencyMetrics writeLatency;
     /** Estimated number of tasks pending for this table */
     public final Counter pendingFlushes;
     /** Total number of bytes flushed since server [re]start */
@@ -163,11 +164,11 @@ public class TableMetrics
      */
     public final Counter tombstoneWarnings;
     /** CAS Prepare metrics */
-    public final LatencyMetrics casPrepare;
+    public final TableLatencyMetrics casPrepare;
     /** CAS Propose metrics */
-    public final LatencyMetrics casPropose;
+    public final TableLatencyMetrics casPropose;
     /** CAS Commit metrics */
-    public final LatencyMetrics casCommit;
+    public final TableLatencyMetrics casCommit;
     /** percent of the data that is repaired */
     public final Gauge<Double> percentRepaired;
     /** Reports the size of sstables in repaired, unrepaired, and any ongoing repair buckets */
@@ -373,6 +374,29 @@ public class TableMetrics
         return values;
     }
 
+    /**
+     * @return the sizes of the partitions of the given sstables, as a mergeable histogram. The sstables only keep the
+     * estimated histogram of their partition sizes, so each partition is counted at the upper bound of its estimated
+     * bucket, and the actual resolution is that of {@link EstimatedHistogram}.
+     */
+    public static LogarithmicHistogram.Snapshot partitionSizeSketch(Iterable<SSTableReader> sstables)
+    {
+        LogarithmicHistogram sketch = new LogarithmicHistogram();
+        for (SSTableReader sstable : sstables)
+        {
+            EstimatedHistogram histogram = sstable.getEstimatedPartitionSize();
+            long[] offsets = histogram.getBucketOffsets();
+            long[] buckets = histogram.getBuckets(false);
+            // the last bucket counts the partitions larger than the largest offset
+            for (int i = 0; i < buckets.length; i++)
+            {
+                if (buckets[i] > 0)
+                    sketch.update(offsets[Math.min(i, offsets.length - 1)], buckets[i]);
+            }
+        }
+        return sketch.getSnapshot();
+    }
+
     /**
      * Creates metrics for given {@link ColumnFamilyStore}.
      *
@@ -912,6 +936,7 @@ public class TableMetrics
     public void updateSSTableIterated(int count)
     {
         sstablesPerReadHistogram.update(count);
+        SpanSampler.addSSTablesTouched(count);
     }
 
     /**
@@ -1122,9 +1147,9 @@ public class TableMetrics
                                             globalAliasFactory.createMetricName(alias)));
     }
 
-    private LatencyMetrics createLatencyMetrics(String namePrefix, LatencyMetrics ... parents)
+    private TableLatencyMetrics createLatencyMetrics(String namePrefix, LatencyMetrics ... parents)
     {
-        LatencyMetrics metric = new LatencyMetrics(factory, namePrefix, parents);
+        TableLatencyMetrics metric = new TableLatencyMetrics(factory, namePrefix, parents);
         all.add(metric::release);
         return metric;
     }
@@ -1177,6 +1202,35 @@ public class TableMetrics
         }
     }
 
+    /**
+     * The latency metrics of a table, which also record the latencies, in microseconds, into a mergeable
+     * {@link LogarithmicHistogram}, with per thread counts like their reservoir if latencies are recorded thread locally.
+     */
+    public static class TableLatencyMetrics extends LatencyMetrics
+    {
+        public final LogarithmicHistogram sketch = THREAD_LOCAL_RECORDING ? new ThreadLocalLogarithmicHistogram() : new LogarithmicHistogram();
+
+        private TableLatencyMetrics(MetricNameFactory factory, String namePrefix, LatencyMetrics... parents)
+        {
+            super(factory, namePrefix, parents);
+        }
+
+        @Override
+        public void addNano(long nanos)
+        {
+            super.addNano(nanos);
+            sketch.update(nanos / 1000);
+        }
+
+        @Override
+        public void release()
+        {
+            super.release();
+            if (sketch instanceof ThreadLocalLogarithmicHistogram)
+                ((ThreadLocalLogarithmicHistogram) sketch).release();
+        }
+    }
+
     public static class TableMeter
     {
         public final Meter[] all;
@@ -0,0 +1,264 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Snapshot;
+
+/**
+ * A {@link DecayingEstimatedHistogramReservoir} where threads record their values into buckets of their own, rather
+ * than into buckets shared with (some of) the other threads. As a thread is the only one to ever write to its buckets,
+ * recording a value doesn't need any atomic read-modify-write, only ordered writes, which are plain stores on x86.
+ * The buckets of all threads are merged when read.
+ *
+ * Each thread recording into the reservoir gets its own recorder, from the {@link ThreadLocalRecorders} of the
+ * reservoir, the first time it records a value. The recorders of the threads that have died are folded into the
+ * shared buckets of the parent reservoir, and dropped, when the reservoir is read. As each recorder takes about 2.6KB,
+ * this is only used when {@link LatencyMetrics#THREAD_LOCAL_RECORDING} is enabled.
+ *
+ * The buckets of a recorder are rescaled by its owner the first time it records a value after the landmark of the
+ * reservoir has been reset, and are rescaled on read until then.
+ *
+ * This reservoir also keeps the count and the sum of all the values recorded, so that a
+ * {@link LatencyMetrics.LatencyMetricsTimer} doesn't need to maintain its own.
+ */
+public class ThreadLocalDecayingHistogramReservoir extends DecayingEstimatedHistogramReservoir
+{
+    private final ThreadLocalRecorders<Recorder> recorders = new ThreadLocalRecorders<>(() -> new Recorder(size(), decayLandmark));
+
+    // the count and sum of the values recorded into the shared buckets, including those of retired recorders
+    private final AtomicLong sharedCount = new AtomicLong();
+    private final AtomicLong sharedSum = new AtomicLong();
+
+    public ThreadLocalDecayingHistogramReservoir()
+    {
+        this(Clock.defaultClock());
+    }
+
+    @VisibleForTesting
+    ThreadLocalDecayingHistogramReservoir(Clock clock)
+    {
+        super(DEFAULT_ZERO_CONSIDERATION, DEFAULT_BUCKET_COUNT, DEFAULT_STRIPE_COUNT, clock);
+    }
+
+    @Override
+    public void update(long value)
+    {
+        long now = clock.getTime();
+        rescaleIfNeeded(now);
+        int index = findIndex(bucketOffsets, value);
+        long weight = Math.round(forwardDecayWeight(now));
+
+        Recorder recorder = recorders.get();
+        if (recorder == null || !recorder.update(index, value, decayLandmark, weight))
+        {
+            updateBucket(decayingBuckets, index, weight);
+            updateBucket(buckets, index, 1);
+            sharedCount.incrementAndGet();
+            sharedSum.addAndGet(value);
+        }
+    }
+
+    @Override
+    public Snapshot getSnapshot()
+    {
+        recorders.retireDead(this::retire);
+        return super.getSnapshot();
+    }
+
+    @Override
+    long bucketValue(int index, boolean withDecay)
+    {
+        long value = super.bucketValue(index, withDecay);
+        long landmark = decayLandmark;
+        for (Recorder recorder : recorders.recorders())
+            value += recorder.bucketValue(index, withDecay, landmark);
+        return value;
+    }
+
+    /**
+     * @return the number of values recorded
+     */
+    public long count()
+    {
+        long count = sharedCount.get();
+        for (Recorder recorder : recorders.recorders())
+            count += recorder.count;
+        return count;
+    }
+
+    /**
+     * @return the sum of the values recorded
+     */
+    public long sum()
+    {
+        long sum = sharedSum.get();
+        for (Recorder recorder : recorders.recorders())
+            sum += recorder.sum;
+        return sum;
+    }
+
+    /**
+     * Like the parent's, not thread safe: values recorded concurrently may be lost. The count and sum of the recorded
+     * values are not affected.
+     */
+    @Override
+    public void rebase(EstimatedHistogramReservoirSnapshot snapshot)
+    {
+        super.rebase(snapshot);
+        for (Recorder recorder : recorders.recorders())
+            recorder.clearBuckets();
+    }
+
+    @Override
+    @VisibleForTesting
+    public void clear()
+    {
+        super.clear();
+        for (Recorder recorder : recorders.recorders())
+            recorder.clearBuckets();
+    }
+
+    /**
+     * Folds the buckets of all recorders into the shared ones and drops them, once the reservoir is no longer recorded
+     * into and its values have been merged by its readers, so that the threads that recorded into it don't hold on to
+     * the memory of their buckets. See {@link ThreadLocalRecorders#release}.
+     */
+    public void release()
+    {
+        recorders.release(this::retire);
+    }
+
+    /**
+     * Folds the buckets, count and sum of a recorder that has been removed from the reservoir into the shared ones.
+     */
+    private void retire(Recorder recorder)
+    {
+        AtomicLongArray recorderBuckets = recorder.detach();
+        long landmark = decayLandmark;
+        for (int i = 0; i < size(); i++)
+        {
+            updateBucket(decayingBuckets, i, recorder.decayingValue(recorderBuckets, i, landmark));
+            updateBucket(buckets, i, recorderBuckets.get(size() + i));
+        }
+        sharedCount.addAndGet(recorder.count);
+        sharedSum.addAndGet(recorder.sum);
+    }
+
+    @VisibleForTesting
+    int recorderCount()
+    {
+        return recorders.size();
+    }
+
+    private static final class Recorder extends ThreadLocalRecorders.Recorder
+    {
+        private static final AtomicLongFieldUpdater<Recorder> countUpdater = AtomicLongFieldUpdater.newUpdater(Recorder.class, "count");
+        private static final AtomicLongFieldUpdater<Recorder> sumUpdater = AtomicLongFieldUpdater.newUpdater(Recorder.class, "sum");
+
+        private final int size;
+        // the decaying buckets followed by the plain ones, only ever written by the owner, but for clearBuckets;
+        // null once the recorder has been retired
+        private volatile AtomicLongArray buckets;
+        // the landmark the decaying buckets are relative to
+        private volatile long landmark;
+        private volatile long count;
+        private volatile long sum;
+
+        private Recorder(int size, long landmark)
+        {
+            this.size = size;
+            this.buckets = new AtomicLongArray(2 * size);
+            this.landmark = landmark;
+        }
+
+        /**
+         * Only called by the owner thread.
+         *
+         * @return false if the recorder has been retired, in which case the value isn't recorded
+         */
+        private boolean update(int index, long value, long currentLandmark, long weight)
+        {
+            AtomicLongArray buckets = this.buckets;
+            if (buckets == null)
+                return false;
+
+            if (landmark != currentLandmark)
+            {
+                for (int i = 0; i < size; i++)
+                    buckets.lazySet(i, decayingValue(buckets, i, currentLandmark));
+                landmark = currentLandmark;
+            }
+
+            buckets.lazySet(index, buckets.get(index) + weight);
+            buckets.lazySet(size + index, buckets.get(size + index) + 1);
+            countUpdater.lazySet(this, count + 1);
+            sumUpdater.lazySet(this, sum + value);
+            return true;
+        }
+
+        private long bucketValue(int index, boolean withDecay, long currentLandmark)
+        {
+            AtomicLongArray buckets = this.buckets;
+            if (buckets == null)
+                return 0;
+            return withDecay ? decayingValue(buckets, index, currentLandmark) : buckets.get(size + index);
+        }
+
+        /**
+         * @return the value of the decaying bucket, relative to {@code currentLandmark}
+         */
+        private long decayingValue(AtomicLongArray buckets, int index, long currentLandmark)
+        {
+            long value = buckets.get(index);
+            long landmark = this.landmark;
+            if (landmark == currentLandmark || value == 0)
+                return value;
+
+            return Math.round(value / Math.exp(((currentLandmark - landmark) / 1000.0) / MEAN_LIFETIME_IN_S));
+        }
+
+        private void clearBuckets()
+        {
+            AtomicLongArray buckets = this.buckets;
+            if (buckets == null)
+                return;
+            for (int i = 0; i < buckets.length(); i++)
+                buckets.set(i, 0);
+        }
+
+        /**
+         * Retires the recorder, so that its owner no longer records into it.
+         *
+         * @return the buckets of the recorder
+         */
+        private AtomicLongArray detach()
+        {
+            AtomicLongArray buckets = this.buckets;
+            this.buckets = null;
+            return buckets;
+        }
+    }
+}
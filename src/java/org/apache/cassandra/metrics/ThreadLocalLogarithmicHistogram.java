@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * A {@link LogarithmicHistogram} where threads count their values into buckets of their own, rather than into the
+ * shared ones, so that recording a value doesn't need any atomic read-modify-write, in the same way as the
+ * {@link ThreadLocalDecayingHistogramReservoir}, and with the same {@link ThreadLocalRecorders}. The buckets of all the
+ * recorders are merged with the shared ones when read.
+ *
+ * The buckets of a recorder only cover the values it has recorded so far, and grow as larger values are recorded.
+ */
+public class ThreadLocalLogarithmicHistogram extends LogarithmicHistogram
+{
+    private static final int MIN_RECORDER_BUCKETS = 64;
+
+    private final ThreadLocalRecorders<Recorder> recorders = new ThreadLocalRecorders<>(() -> new Recorder(bucketCount()));
+
+    @Override
+    public void update(long value, long count)
+    {
+        Recorder recorder = recorders.get();
+        if (recorder == null)
+            super.update(value, count);
+        else if (value < 1)
+            recorder.updateZeros(count);
+        else
+            recorder.updateBucket(bucketIndex(value), count);
+    }
+
+    @Override
+    public Snapshot getSnapshot()
+    {
+        recorders.retireDead(this::retire);
+        Snapshot snapshot = super.getSnapshot();
+        for (Recorder recorder : recorders.recorders())
+            snapshot = snapshot.merge(snapshot(relativeAccuracy(), recorder.zeros, recorder.buckets));
+        return snapshot;
+    }
+
+    /**
+     * Adds the counts of all recorders to the shared ones and drops them, once the histogram is no longer recorded
+     * into. See {@link ThreadLocalRecorders#release}.
+     */
+    public void release()
+    {
+        recorders.release(this::retire);
+    }
+
+    /**
+     * Adds the counts of a recorder that has been removed from the histogram to the shared ones.
+     */
+    private void retire(Recorder recorder)
+    {
+        AtomicLongArray buckets = recorder.buckets;
+        for (int i = 0; i < buckets.length(); i++)
+        {
+            long count = buckets.get(i);
+            if (count != 0)
+                updateBucket(i, count);
+        }
+        updateZeros(recorder.zeros);
+        recorder.buckets = Recorder.NO_BUCKETS;
+    }
+
+    @VisibleForTesting
+    int recorderCount()
+    {
+        return recorders.size();
+    }
+
+    private static final class Recorder extends ThreadLocalRecorders.Recorder
+    {
+        private static final AtomicLongFieldUpdater<Recorder> zerosUpdater = AtomicLongFieldUpdater.newUpdater(Recorder.class, "zeros");
+        private static final AtomicLongArray NO_BUCKETS = new AtomicLongArray(0);
+
+        private final int maxBuckets;
+        // only ever written by the owner, which replaces them with a larger copy to count larger values
+        private volatile AtomicLongArray buckets = NO_BUCKETS;
+        private volatile long zeros;
+
+        private Recorder(int maxBuckets)
+        {
+            this.maxBuckets = maxBuckets;
+        }
+
+        /**
+         * Only called by the owner thread.
+         */
+        private void updateZeros(long count)
+        {
+            zerosUpdater.lazySet(this, zeros + count);
+        }
+
+        /**
+         * Only called by the owner thread.
+         */
+        private void updateBucket(int index, long count)
+        {
+            AtomicLongArray buckets = this.buckets;
+            if (index >= buckets.length())
+                buckets = grow(index);
+            buckets.lazySet(index, buckets.get(index) + count);
+        }
+
+        private AtomicLongArray grow(int index)
+        {
+            AtomicLongArray current = buckets;
+            AtomicLongArray grown = new AtomicLongArray(Math.min(Math.max(MIN_RECORDER_BUCKETS, Integer.highestOneBit(index) << 1), maxBuckets));
+            for (int i = 0; i < current.length(); i++)
+                grown.lazySet(i, current.get(i));
+            buckets = grown;
+            return grown;
+        }
+    }
+}
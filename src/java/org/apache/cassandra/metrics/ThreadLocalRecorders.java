@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * The recorders of the threads recording into a histogram of their own, like those of
+ * {@link ThreadLocalDecayingHistogramReservoir} and {@link ThreadLocalLogarithmicHistogram}.
+ *
+ * All the registries share a single {@link FastThreadLocal}, holding for each thread the array of its recorders,
+ * indexed by the id of their registry. The id of a registry is reused once it is released, so these arrays grow with
+ * the number of histograms in use at once, not with the number of histograms ever created. The recorders a thread
+ * holds for a released registry are replaced once the thread records into the next registry with the same id.
+ *
+ * The recorders of the threads that have died are retired when {@link #retireDead} is called, on read.
+ */
+final class ThreadLocalRecorders<R extends ThreadLocalRecorders.Recorder>
+{
+    private static final FastThreadLocal<Recorder[]> threadRecorders = new FastThreadLocal<Recorder[]>()
+    {
+        @Override
+        protected Recorder[] initialValue()
+        {
+            return new Recorder[Math.max(16, nextId.get())];
+        }
+    };
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+    private static final Queue<Integer> releasedIds = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The part of the recorders managed by their registry.
+     */
+    static abstract class Recorder
+    {
+        final Thread owner = Thread.currentThread();
+        // identifies the registry the recorder belongs to, without referencing it and its histogram
+        private Object registry;
+        // set once the recorder has been retired, after which its owner no longer records into it
+        volatile boolean retired;
+    }
+
+    private final int id;
+    private final Object token = new Object();
+    private final List<R> recorders = new CopyOnWriteArrayList<>();
+    // null once released
+    private volatile Supplier<R> factory;
+
+    ThreadLocalRecorders(Supplier<R> factory)
+    {
+        Integer released = releasedIds.poll();
+        this.id = released == null ? nextId.getAndIncrement() : released;
+        this.factory = factory;
+    }
+
+    /**
+     * @return the recorder of the current thread, created on its first call, or null if it has been retired or the
+     * registry released, in which case the value should be recorded into the shared buckets of the histogram
+     */
+    @SuppressWarnings("unchecked")
+    R get()
+    {
+        Recorder[] held = threadRecorders.get();
+        if (id < held.length)
+        {
+            Recorder recorder = held[id];
+            if (recorder != null && recorder.registry == token)
+                return recorder.retired ? null : (R) recorder;
+        }
+        return register();
+    }
+
+    private R register()
+    {
+        Supplier<R> factory = this.factory;
+        if (factory == null)
+            return null;
+
+        R recorder = factory.get();
+        recorder.registry = token;
+        Recorder[] held = threadRecorders.get();
+        if (id >= held.length)
+        {
+            held = Arrays.copyOf(held, Math.max(id + 1, held.length * 2));
+            threadRecorders.set(held);
+        }
+        held[id] = recorder;
+        recorders.add(recorder);
+        // released while registering, nothing has been recorded into it yet
+        if (this.factory == null && recorders.remove(recorder))
+        {
+            recorder.retired = true;
+            return null;
+        }
+        return recorder;
+    }
+
+    Iterable<R> recorders()
+    {
+        return recorders;
+    }
+
+    int size()
+    {
+        return recorders.size();
+    }
+
+    /**
+     * Removes the recorders of the threads that have died, and passes them to {@code retire}. A dead thread can't
+     * record anymore, so none of their values are lost.
+     */
+    void retireDead(Consumer<R> retire)
+    {
+        for (R recorder : recorders)
+        {
+            if (!recorder.owner.isAlive())
+                retire(recorder, retire);
+        }
+    }
+
+    /**
+     * Removes all the recorders, passing them to {@code retire}, and makes the id of this registry available to new
+     * ones. Values recorded concurrently by live threads may be lost, so this should only be called once the histogram
+     * is no longer recorded into. Values recorded afterwards should go to the shared buckets of the histogram.
+     */
+    synchronized void release(Consumer<R> retire)
+    {
+        if (factory == null)
+            return;
+
+        factory = null;
+        for (R recorder : recorders)
+            retire(recorder, retire);
+        releasedIds.add(id);
+    }
+
+    private void retire(R recorder, Consumer<R> retire)
+    {
+        if (recorders.remove(recorder))
+        {
+            recorder.retired = true;
+            retire.accept(recorder);
+        }
+    }
+}
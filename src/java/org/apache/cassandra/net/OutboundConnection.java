@@ -1125,6 +1125,7 @@ public class OutboundConnection
                         Channel channel = success.channel;
                         Established established = new Established(messagingVersion, channel, payloadAllocator, settings);
                         state = established;
+                        queue.messagingVersion(messagingVersion);
                         channel.pipeline().addLast("handleExceptionalStates", new ChannelInboundHandlerAdapter() {
                             @Override
                             public void channelInactive(ChannelHandlerContext ctx)
@@ -1632,6 +1633,14 @@ public class OutboundConnection
         return pendingBytes(pendingCountAndBytes);
     }
 
+    /**
+     * @return the number of messages of the provided priority waiting in the queue
+     */
+    public int pendingCount(Verb.Priority priority)
+    {
+        return queue.size(priority);
+    }
+
     public long sentCount()
     {
         // not volatile, but shouldn't matter
@@ -22,6 +22,7 @@ import java.util.IdentityHashMap;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
@@ -35,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import org.apache.cassandra.utils.MonotonicClock;
 
 import static java.lang.Math.min;
+import static org.apache.cassandra.net.MessagingService.current_version;
 
 /**
  * A composite queue holding messages to be delivered by an {@link OutboundConnection}.
@@ -45,6 +47,12 @@ import static java.lang.Math.min;
  *     drained with exclusive access and from which actual deliveries happen
  * The second, intermediate queue exists to enable efficient in-place pruning of expired messages.
  *
+ * The intermediate queue is split in one lane per {@link Verb.Priority}, served by deficit round robin: every time
+ * its turn comes, a lane is credited with its {@link Verb.Priority#weight} times {@link #QUANTUM_BYTES} and delivers
+ * messages for as long as its credit covers their size, with at least one message per turn. A flood of low priority
+ * messages, like hints, thus only delays higher priority ones, like read responses, by the quanta of the lower lanes,
+ * without being starved itself.
+ *
  * Said pruning will be attempted in several scenarios:
  *  1. By callers invoking {@link #add(Message)} - if metadata indicates presence of expired messages
  *     in the queue, and if exclusive access can be immediately obtained (non-blockingly)
@@ -64,8 +72,23 @@ class OutboundMessageQueue
     private final MonotonicClock clock;
     private final MessageConsumer<RuntimeException> onExpired;
 
+    private static final Verb.Priority[] PRIORITIES = Verb.Priority.values();
+    @VisibleForTesting
+    static final int QUANTUM_BYTES = 16 << 10;
+
     private final ManyToOneConcurrentLinkedQueue<Message<?>> externalQueue = new ManyToOneConcurrentLinkedQueue<>();
-    private final PrunableArrayQueue<Message<?>> internalQueue = new PrunableArrayQueue<>(256);
+    private final PrunableArrayQueue<Message<?>>[] lanes;
+    // number of messages of each priority, whether still in the external queue or already in their lane
+    private final AtomicIntegerArray laneSizes = new AtomicIntegerArray(PRIORITIES.length);
+
+    // deficit round robin state, only accessed with the lock held
+    private final int[] deficits = new int[PRIORITIES.length];
+    private int currentLane;
+    private boolean isCurrentLaneCredited;
+    private int peekedLane = -1;
+
+    // the version messages are charged to their lane with, that of the connection once established
+    private volatile int messagingVersion = current_version;
 
     private volatile long earliestExpiresAt = Long.MAX_VALUE;
     private volatile long nextExpirationDeadline = Long.MAX_VALUE;
@@ -78,6 +101,26 @@ class OutboundMessageQueue
     {
         this.clock = clock;
         this.onExpired = onExpired;
+
+        this.lanes = newLanes();
+    }
+
+    private static PrunableArrayQueue<Message<?>>[] newLanes()
+    {
+        @SuppressWarnings("unchecked")
+        PrunableArrayQueue<Message<?>>[] lanes = new PrunableArrayQueue[PRIORITIES.length];
+        for (int i = 0; i < lanes.length; i++)
+            lanes[i] = new PrunableArrayQueue<>(64);
+        return lanes;
+    }
+
+    /**
+     * Sets the messaging version of the connection, which the size of the messages charged to their lane is computed
+     * with.
+     */
+    void messagingVersion(int messagingVersion)
+    {
+        this.messagingVersion = messagingVersion;
     }
 
     /**
@@ -86,6 +129,7 @@ class OutboundMessageQueue
     void add(Message<?> m)
     {
         maybePruneExpired();
+        laneSizes.incrementAndGet(lane(m));
         externalQueue.offer(m);
         // Known race here. See CASSANDRAi-15958
         nextExpirationDeadlineUpdater.accumulateAndGet(this,
@@ -146,42 +190,66 @@ class OutboundMessageQueue
         private WithLock(long nowNanos)
         {
             this.nowNanos = nowNanos;
-            externalQueue.drain(internalQueue::offer);
+            externalQueue.drain(OutboundMessageQueue.this::offerToLane);
         }
 
         Message<?> poll()
         {
-            Message<?> m;
-            while (null != (m = internalQueue.poll()))
-            {
-                if (shouldSend(m, clock, nowNanos))
-                    break;
-
-                onExpired.accept(m);
-            }
-
+            Message<?> m = peek();
+            if (m != null)
+                removeHead(m);
             return m;
         }
 
+        /**
+         * Removes the message last returned by {@link #peek()}, charging its lane for it
+         */
         void removeHead(Message<?> expectHead)
         {
-            assert expectHead == internalQueue.peek();
-            internalQueue.poll();
+            assert peekedLane >= 0 && expectHead == lanes[peekedLane].peek();
+            lanes[peekedLane].poll();
+            laneSizes.decrementAndGet(peekedLane);
+            deficits[peekedLane] -= min(cost(expectHead), quantum(peekedLane));
+            peekedLane = -1;
         }
 
+        /**
+         * @return the next message to deliver according to the deficit round robin between lanes, expiring the
+         * messages found past their deadline
+         */
         Message<?> peek()
         {
-            Message<?> m;
-            while (null != (m = internalQueue.peek()))
+            int visitedEmpty = 0;
+            while (visitedEmpty < lanes.length)
             {
-                if (shouldSend(m, clock, nowNanos))
-                    break;
+                Message<?> m = peekLane(currentLane, nowNanos);
+                if (m == null)
+                {
+                    deficits[currentLane] = 0;
+                    nextLane();
+                    ++visitedEmpty;
+                    continue;
+                }
 
-                internalQueue.poll();
-                onExpired.accept(m);
+                if (!isCurrentLaneCredited)
+                {
+                    deficits[currentLane] += quantum(currentLane);
+                    isCurrentLaneCredited = true;
+                }
+
+                // messages larger than the quantum are charged a quantum, so each turn delivers at least one
+                if (deficits[currentLane] >= min(cost(m), quantum(currentLane)))
+                {
+                    peekedLane = currentLane;
+                    return m;
+                }
+
+                nextLane();
+                visitedEmpty = 0;
             }
 
-            return m;
+            peekedLane = -1;
+            return null;
         }
 
         void consume(Consumer<Message<?>> consumer)
@@ -201,6 +269,57 @@ class OutboundMessageQueue
         }
     }
 
+    private void nextLane()
+    {
+        currentLane = (currentLane + 1) % lanes.length;
+        isCurrentLaneCredited = false;
+    }
+
+    private Message<?> peekLane(int lane, long nowNanos)
+    {
+        PrunableArrayQueue<Message<?>> queue = lanes[lane];
+        Message<?> m;
+        while (null != (m = queue.peek()))
+        {
+            if (shouldSend(m, clock, nowNanos))
+                break;
+
+            queue.poll();
+            laneSizes.decrementAndGet(lane);
+            onExpired.accept(m);
+        }
+
+        return m;
+    }
+
+    private void offerToLane(Message<?> m)
+    {
+        lanes[lane(m)].offer(m);
+    }
+
+    private static int lane(Message<?> m)
+    {
+        return m.verb().priority.ordinal();
+    }
+
+    private static int quantum(int lane)
+    {
+        return PRIORITIES[lane].weight * QUANTUM_BYTES;
+    }
+
+    private int cost(Message<?> m)
+    {
+        return m.serializedSize(messagingVersion);
+    }
+
+    /**
+     * @return the number of messages of the provided priority waiting to be delivered
+     */
+    int size(Verb.Priority priority)
+    {
+        return laneSizes.get(priority.ordinal());
+    }
+
     /**
      * Call periodically if cannot expect to promptly invoke consume()
      */
@@ -254,7 +373,7 @@ class OutboundMessageQueue
      */
     private void pruneWithLock(long nowNanos)
     {
-        externalQueue.drain(internalQueue::offer);
+        externalQueue.drain(this::offerToLane);
         pruneInternalQueueWithLock(nowNanos);
     }
 
@@ -274,6 +393,7 @@ class OutboundMessageQueue
 
             public void onPruned(Message<?> message)
             {
+                laneSizes.decrementAndGet(lane(message));
                 onExpired.accept(message);
             }
 
@@ -284,7 +404,8 @@ class OutboundMessageQueue
         }
 
         Pruner pruner = new Pruner();
-        internalQueue.prune(pruner);
+        for (PrunableArrayQueue<Message<?>> lane : lanes)
+            lane.prune(pruner);
 
         maybeUpdateNextExpirationDeadline(nowNanos, maybeUpdateEarliestExpiresAt(nowNanos, pruner.earliestExpiresAt));
     }
@@ -471,6 +592,7 @@ class OutboundMessageQueue
                 @Override
                 public void onPruned(Message<?> message)
                 {
+                    laneSizes.decrementAndGet(lane(message));
                     removed.add(message);
                 }
 
@@ -482,8 +604,9 @@ class OutboundMessageQueue
             }
 
             Remover remover = new Remover();
-            externalQueue.drain(internalQueue::offer);
-            internalQueue.prune(remover);
+            externalQueue.drain(OutboundMessageQueue.this::offerToLane);
+            for (PrunableArrayQueue<Message<?>> lane : lanes)
+                lane.prune(remover);
 
             long nowNanos = clock.now();
             maybeUpdateNextExpirationDeadline(nowNanos, maybeUpdateEarliestExpiresAt(nowNanos, remover.earliestExpiresAt));
@@ -38,6 +38,7 @@ import org.apache.cassandra.exceptions.RequestFailureReason;
 import org.apache.cassandra.io.IVersionedAsymmetricSerializer;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.locator.Replica;
+import org.apache.cassandra.locator.ReplicaLoadTracker;
 import org.apache.cassandra.metrics.InternodeOutboundMetrics;
 import org.apache.cassandra.service.AbstractWriteResponseHandler;
 import org.apache.cassandra.service.StorageProxy;
@@ -90,7 +91,9 @@ public class RequestCallbacks implements OutboundMessageCallbacks
     @Nullable
     CallbackInfo remove(long id, InetAddressAndPort peer)
     {
-        return callbacks.remove(key(id, peer));
+        CallbackInfo ci = callbacks.remove(key(id, peer));
+        if (null != ci) onRemoved(ci);
+        return ci;
     }
 
     /**
@@ -100,6 +103,8 @@ public class RequestCallbacks implements OutboundMessageCallbacks
     {
         // mutations need to call the overload with a ConsistencyLevel
         assert message.verb() != Verb.MUTATION_REQ && message.verb() != Verb.COUNTER_MUTATION_REQ && message.verb() != Verb.PAXOS_COMMIT_REQ;
+        if (cb.trackLatencyForSnitch())
+            ReplicaLoadTracker.instance.onRequest(to);
         CallbackInfo previous = callbacks.put(key(message.id(), to), new CallbackInfo(message, to, cb));
         assert previous == null : format("Callback already exists for id %d/%s! (%s)", message.id(), to, previous);
     }
@@ -146,6 +151,7 @@ public class RequestCallbacks implements OutboundMessageCallbacks
                 if (callbacks.remove(entry.getKey(), entry.getValue()))
                 {
                     n++;
+                    onRemoved(entry.getValue());
                     onExpired(entry.getValue());
                 }
             }
@@ -156,8 +162,23 @@ public class RequestCallbacks implements OutboundMessageCallbacks
     private void forceExpire()
     {
         for (Map.Entry<CallbackKey, CallbackInfo> entry : callbacks.entrySet())
+        {
             if (callbacks.remove(entry.getKey(), entry.getValue()))
+            {
+                onRemoved(entry.getValue());
                 onExpired(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Every latency-tracked callback is accounted as outstanding against its replica from registration until removal,
+     * however it is removed.
+     */
+    private static void onRemoved(CallbackInfo info)
+    {
+        if (info.callback.trackLatencyForSnitch())
+            ReplicaLoadTracker.instance.onCompletion(info.peer);
     }
 
     private void onExpired(CallbackInfo info)
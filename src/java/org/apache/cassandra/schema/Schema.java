@@ -520,7 +520,21 @@ public final class Schema implements SchemaProvider
      */
     public void updateVersion()
     {
-        version = SchemaKeyspace.calculateSchemaDigest();
+        updateVersion(SchemaKeyspace.calculateSchemaDigest());
+    }
+
+    /**
+     * Like updateVersion, but only re-reads the schema of the keyspaces modified by schema changes applied since
+     * the last update.
+     */
+    private void updateVersionIncrementally()
+    {
+        updateVersion(SchemaKeyspace.calculateSchemaDigestIncrementally());
+    }
+
+    private void updateVersion(UUID newVersion)
+    {
+        version = newVersion;
         SystemKeyspace.updateSchemaVersion(version);
         SchemaDiagnostics.versionUpdated(this);
     }
@@ -577,7 +591,8 @@ public final class Schema implements SchemaProvider
     synchronized void mergeAndAnnounceVersion(Collection<Mutation> mutations)
     {
         merge(mutations);
-        updateVersionAndAnnounce();
+        updateVersionIncrementally();
+        passiveAnnounceVersion();
     }
 
     public synchronized TransformationResult transform(SchemaTransformation transformation, boolean locally, long now)
@@ -601,7 +616,7 @@ public final class Schema implements SchemaProvider
         SchemaKeyspace.applyChanges(mutations);
 
         merge(diff);
-        updateVersion();
+        updateVersionIncrementally();
         if (!locally)
             passiveAnnounceVersion();
 
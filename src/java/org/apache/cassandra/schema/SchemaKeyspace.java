@@ -17,6 +17,7 @@
  */
 package org.apache.cassandra.schema;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.charset.CharacterCodingException;
 import java.util.*;
@@ -39,6 +40,7 @@ import org.apache.cassandra.db.filter.ColumnFilter;
 import org.apache.cassandra.db.marshal.*;
 import org.apache.cassandra.db.partitions.*;
 import org.apache.cassandra.db.rows.*;
+import org.apache.cassandra.dht.Bounds;
 import org.apache.cassandra.exceptions.InvalidRequestException;
 import org.apache.cassandra.service.reads.SpeculativeRetryPolicy;
 import org.apache.cassandra.schema.ColumnMetadata.ClusteringOrder;
@@ -346,30 +348,84 @@ public final class SchemaKeyspace
             ALL.forEach(table -> FBUtilities.waitOnFuture(getSchemaCFS(table).forceFlush()));
     }
 
+    /**
+     * What each partition of each schema table, that is each non system keyspace, contributes to the schema digest,
+     * in the order they are digested. Keeping them lets {@link #calculateSchemaDigestIncrementally()} only re-read the
+     * keyspaces modified since the previous calculation, rather than the whole schema.
+     */
+    private static final Map<String, SortedMap<DecoratedKey, byte[]>> schemaDigestInputs = new HashMap<>();
+    // the keyspaces modified by applyChanges since the last digest calculation
+    private static final Set<String> keyspacesChangedSinceDigest = new HashSet<>();
+
     /**
      * Read schema from system keyspace and calculate MD5 digest of every row, resulting digest
      * will be converted into UUID which would act as content-based version of the schema.
      */
-    static UUID calculateSchemaDigest()
+    static synchronized UUID calculateSchemaDigest()
+    {
+        schemaDigestInputs.clear();
+        keyspacesChangedSinceDigest.clear();
+        for (String table : ALL)
+            schemaDigestInputs.put(table, readSchemaDigestInputs(getReadCommandForTableSchema(table)));
+        return digestSchemaDigestInputs();
+    }
+
+    /**
+     * Same as {@link #calculateSchemaDigest()}, but only re-reads the schema of the keyspaces modified through
+     * {@link #applyChanges(Collection)} since the previous calculation, reusing what was read then for the others.
+     * The resulting digest is the same as if the whole schema had been read.
+     */
+    static synchronized UUID calculateSchemaDigestIncrementally()
+    {
+        if (schemaDigestInputs.isEmpty())
+            return calculateSchemaDigest();
+
+        for (String table : ALL)
+        {
+            SortedMap<DecoratedKey, byte[]> inputs = schemaDigestInputs.get(table);
+            PartitionRangeReadCommand cmd = getReadCommandForTableSchema(table);
+            for (String keyspace : keyspacesChangedSinceDigest)
+            {
+                DecoratedKey key = decorate(cmd.metadata(), keyspace);
+                inputs.remove(key);
+                inputs.putAll(readSchemaDigestInputs(cmd.forSubRange(new Bounds<>(key, key), false)));
+            }
+        }
+        keyspacesChangedSinceDigest.clear();
+        return digestSchemaDigestInputs();
+    }
+
+    private static UUID digestSchemaDigestInputs()
     {
         Digest digest = Digest.forSchema();
         for (String table : ALL)
         {
-            ReadCommand cmd = getReadCommandForTableSchema(table);
-            try (ReadExecutionController executionController = cmd.executionController();
-                 PartitionIterator schema = cmd.executeInternal(executionController))
+            for (byte[] input : schemaDigestInputs.get(table).values())
+                digest.update(input, 0, input.length);
+        }
+        return UUID.nameUUIDFromBytes(digest.digest());
+    }
+
+    private static SortedMap<DecoratedKey, byte[]> readSchemaDigestInputs(PartitionRangeReadCommand cmd)
+    {
+        SortedMap<DecoratedKey, byte[]> inputs = new TreeMap<>();
+        try (ReadExecutionController executionController = cmd.executionController();
+             PartitionIterator schema = cmd.executeInternal(executionController))
+        {
+            while (schema.hasNext())
             {
-                while (schema.hasNext())
+                try (RowIterator partition = schema.next())
                 {
-                    try (RowIterator partition = schema.next())
-                    {
-                        if (!isSystemKeyspaceSchemaPartition(partition.partitionKey()))
-                            RowIterators.digest(partition, digest);
-                    }
+                    if (isSystemKeyspaceSchemaPartition(partition.partitionKey()))
+                        continue;
+
+                    ByteArrayOutputStream input = new ByteArrayOutputStream();
+                    RowIterators.digest(partition, Digest.recording(input));
+                    inputs.put(partition.partitionKey(), input.toByteArray());
                 }
             }
         }
-        return UUID.nameUUIDFromBytes(digest.digest());
+        return inputs;
     }
 
     /**
@@ -385,7 +441,7 @@ public final class SchemaKeyspace
      * @param schemaTableName The name of the table responsible for part of the schema.
      * @return low-level schema representation
      */
-    private static ReadCommand getReadCommandForTableSchema(String schemaTableName)
+    private static PartitionRangeReadCommand getReadCommandForTableSchema(String schemaTableName)
     {
         ColumnFamilyStore cfs = getSchemaCFS(schemaTableName);
         return PartitionRangeReadCommand.allDataRead(cfs.metadata(), FBUtilities.nowInSeconds());
@@ -1266,6 +1322,11 @@ public final class SchemaKeyspace
         mutations.forEach(Mutation::apply);
         if (SchemaKeyspace.FLUSH_SCHEMA_TABLES)
             SchemaKeyspace.flush();
+
+        synchronized (SchemaKeyspace.class)
+        {
+            keyspacesChangedSinceDigest.addAll(affectedKeyspaces(mutations));
+        }
     }
 
     static Keyspaces fetchKeyspaces(Set<String> toFetch)
@@ -399,13 +399,34 @@ public class CacheService implements CacheServiceMBean
                 public Pair<RowCacheKey, IRowCacheEntry> call() throws Exception
                 {
                     DecoratedKey key = cfs.decorateKey(buffer);
-                    int nowInSec = FBUtilities.nowInSeconds();
-                    SinglePartitionReadCommand cmd = SinglePartitionReadCommand.fullPartitionRead(cfs.metadata(), nowInSec, key);
-                    try (ReadExecutionController controller = cmd.executionController(); UnfilteredRowIterator iter = cmd.queryMemtableAndDisk(cfs, controller))
+                    RowCacheKey cacheKey = new RowCacheKey(cfs.metadata(), key);
+
+                    // The node may already be serving requests if the cache is loaded in the background, so we populate
+                    // the entry the way reads do: a write racing with its loading invalidates our sentinel and we don't
+                    // cache the partition, instead of caching it without the write.
+                    RowCacheSentinel sentinel = new RowCacheSentinel();
+                    if (!CacheService.instance.rowCache.putIfAbsent(cacheKey, sentinel))
+                        return null;
+
+                    boolean sentinelReplaced = false;
+                    try
+                    {
+                        int nowInSec = FBUtilities.nowInSeconds();
+                        SinglePartitionReadCommand cmd = SinglePartitionReadCommand.fullPartitionRead(cfs.metadata(), nowInSec, key);
+                        try (ReadExecutionController controller = cmd.executionController(); UnfilteredRowIterator iter = cmd.queryMemtableAndDisk(cfs, controller))
+                        {
+                            CachedPartition toCache = CachedBTreePartition.create(DataLimits.cqlLimits(rowsToCache).filter(iter, nowInSec, true), nowInSec);
+                            CacheService.instance.rowCache.replace(cacheKey, sentinel, toCache);
+                            sentinelReplaced = true;
+                        }
+                    }
+                    finally
                     {
-                        CachedPartition toCache = CachedBTreePartition.create(DataLimits.cqlLimits(rowsToCache).filter(iter, nowInSec, true), nowInSec);
-                        return Pair.create(new RowCacheKey(cfs.metadata(), key), toCache);
+                        if (!sentinelReplaced)
+                            cfs.invalidateCachedPartition(cacheKey);
                     }
+                    // the entry is already in the cache, there is nothing left for AutoSavingCache to put
+                    return null;
                 }
             });
         }
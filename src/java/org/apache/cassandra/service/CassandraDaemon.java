@@ -24,6 +24,7 @@ import java.lang.management.MemoryPoolMXBean;
 import java.net.InetAddress;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import javax.management.ObjectName;
@@ -33,6 +34,7 @@ import javax.management.remote.JMXConnectorServer;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -68,11 +70,13 @@ import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.metrics.CassandraMetricsRegistry;
 import org.apache.cassandra.metrics.DefaultNameFactory;
+import org.apache.cassandra.metrics.StartupMetrics;
 import org.apache.cassandra.metrics.StorageMetrics;
 import org.apache.cassandra.net.StartupClusterConnectivityChecker;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.SchemaConstants;
 import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.schema.TableMetadataRef;
 import org.apache.cassandra.security.ThreadAwareSecurityManager;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.utils.FBUtilities;
@@ -201,6 +205,7 @@ public class CassandraDaemon
     private final boolean runManaged;
     protected final StartupChecks startupChecks;
     private boolean setupCompleted;
+    private boolean savedCachesLoadStarted;
 
     public CassandraDaemon()
     {
@@ -305,6 +310,19 @@ public class CassandraDaemon
 
         Keyspace.setInitialized();
 
+        long sstableOpenStart = System.nanoTime();
+        // open the sstables of all the keyspaces not opened yet at once, rather than one table after the other
+        List<TableMetadataRef> tablesToLoad = new ArrayList<>();
+        for (String keyspaceName : Schema.instance.getKeyspaces())
+        {
+            if (Schema.instance.getKeyspaceInstance(keyspaceName) != null)
+                continue;
+
+            for (TableMetadata cfm : Schema.instance.getTablesAndViews(keyspaceName))
+                tablesToLoad.add(Schema.instance.getTableMetadataRef(cfm.id));
+        }
+        ColumnFamilyStore.preloadSSTables(tablesToLoad);
+
         // initialize keyspaces
         for (String keyspaceName : Schema.instance.getKeyspaces())
         {
@@ -319,16 +337,25 @@ public class CassandraDaemon
                 }
             }
         }
+        StartupMetrics.Phase.SSTABLE_OPEN.record(System.nanoTime() - sstableOpenStart);
 
-
-        try
+        if (DatabaseDescriptor.getSavedCachesLoadInBackground())
         {
-            loadRowAndKeyCacheAsync().get();
+            logger.info("Saved key and row caches will be loaded in the background once the node has started");
         }
-        catch (Throwable t)
+        else
         {
-            JVMStabilityInspector.inspectThrowable(t);
-            logger.warn("Error loading key or row cache", t);
+            long cacheLoadStart = System.nanoTime();
+            try
+            {
+                loadRowAndKeyCacheAsync().get();
+            }
+            catch (Throwable t)
+            {
+                JVMStabilityInspector.inspectThrowable(t);
+                logger.warn("Error loading key or row cache", t);
+            }
+            StartupMetrics.Phase.CACHE_LOAD.record(System.nanoTime() - cacheLoadStart);
         }
 
         try
@@ -342,6 +369,7 @@ public class CassandraDaemon
         }
 
         // Replay any CommitLogSegments found on disk
+        long commitLogReplayStart = System.nanoTime();
         try
         {
             CommitLog.instance.recoverSegmentsOnDisk();
@@ -350,6 +378,7 @@ public class CassandraDaemon
         {
             throw new RuntimeException(e);
         }
+        StartupMetrics.Phase.COMMIT_LOG_REPLAY.record(System.nanoTime() - commitLogReplayStart);
 
         // Re-populate token metadata after commit log recover (new peers might be loaded onto system keyspace #10293)
         StorageService.instance.populateTokenMetadata();
@@ -571,6 +600,14 @@ public class CassandraDaemon
      */
     public void start()
     {
+        if (DatabaseDescriptor.getSavedCachesLoadInBackground() && !savedCachesLoadStarted)
+        {
+            savedCachesLoadStarted = true;
+            final long cacheLoadStart = System.nanoTime();
+            loadRowAndKeyCacheAsync().addListener(() -> StartupMetrics.Phase.CACHE_LOAD.record(System.nanoTime() - cacheLoadStart),
+                                                  MoreExecutors.directExecutor());
+        }
+
         StartupClusterConnectivityChecker connectivityChecker = StartupClusterConnectivityChecker.create(DatabaseDescriptor.getBlockForPeersTimeoutInSeconds(),
                                                                                                          DatabaseDescriptor.getBlockForPeersInRemoteDatacenters());
         connectivityChecker.execute(Gossiper.instance.getEndpoints(), DatabaseDescriptor.getEndpointSnitch()::getDatacenter);
@@ -685,7 +722,13 @@ public class CassandraDaemon
 
             start();
 
-            logger.info("Startup complete");
+            long uptime = ManagementFactory.getRuntimeMXBean().getUptime();
+            StartupMetrics.Phase.TIME_TO_SERVING.record(TimeUnit.MILLISECONDS.toNanos(uptime));
+            logger.info("Startup complete in {} ms (sstable open: {} ms, cache load: {} ms, commit log replay: {} ms)",
+                        uptime,
+                        StartupMetrics.Phase.SSTABLE_OPEN.millis(),
+                        StartupMetrics.Phase.CACHE_LOAD.millis(),
+                        StartupMetrics.Phase.COMMIT_LOG_REPLAY.millis());
         }
         catch (Throwable e)
         {
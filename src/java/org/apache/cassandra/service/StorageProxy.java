@@ -111,6 +111,7 @@ import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.locator.LocalStrategy;
 import org.apache.cassandra.locator.Replica;
 import org.apache.cassandra.locator.ReplicaLayout;
+import org.apache.cassandra.locator.ReplicaLoadTracker;
 import org.apache.cassandra.locator.ReplicaPlan;
 import org.apache.cassandra.locator.ReplicaPlans;
 import org.apache.cassandra.locator.Replicas;
@@ -133,12 +134,16 @@ import org.apache.cassandra.schema.SchemaConstants;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.service.paxos.Commit;
 import org.apache.cassandra.service.paxos.PaxosState;
+import org.apache.cassandra.service.paxos.PrepareAndReadRequest;
+import org.apache.cassandra.service.paxos.PrepareAndReadResponse;
 import org.apache.cassandra.service.paxos.PrepareCallback;
 import org.apache.cassandra.service.paxos.ProposeCallback;
 import org.apache.cassandra.service.reads.AbstractReadExecutor;
 import org.apache.cassandra.service.reads.DataResolver;
 import org.apache.cassandra.service.reads.ReadCallback;
+import org.apache.cassandra.service.reads.ReadCoalescer;
 import org.apache.cassandra.service.reads.repair.ReadRepair;
+import org.apache.cassandra.tracing.SpanSampler;
 import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.triggers.TriggerExecutor;
 import org.apache.cassandra.utils.AbstractIterator;
@@ -154,10 +159,12 @@ import static org.apache.cassandra.net.NoPayload.noPayload;
 import static org.apache.cassandra.net.Verb.BATCH_STORE_REQ;
 import static org.apache.cassandra.net.Verb.MUTATION_REQ;
 import static org.apache.cassandra.net.Verb.PAXOS_COMMIT_REQ;
+import static org.apache.cassandra.net.Verb.PAXOS_PREPARE_AND_READ_REQ;
 import static org.apache.cassandra.net.Verb.PAXOS_PREPARE_REQ;
 import static org.apache.cassandra.net.Verb.PAXOS_PROPOSE_REQ;
 import static org.apache.cassandra.net.Verb.TRUNCATE_REQ;
 import static org.apache.cassandra.service.BatchlogResponseHandler.BatchlogCleanup;
+import static org.apache.cassandra.service.paxos.PrepareAndReadVerbHandler.doPrepareAndRead;
 import static org.apache.cassandra.service.paxos.PrepareVerbHandler.doPrepare;
 import static org.apache.cassandra.service.paxos.ProposeVerbHandler.doPropose;
 
@@ -313,19 +320,27 @@ public class StorageProxy implements StorageProxyMBean
                 // for simplicity, we'll do a single liveness check at the start of each attempt
                 ReplicaPlan.ForPaxosWrite replicaPlan = ReplicaPlans.forPaxos(Keyspace.open(keyspaceName), key, consistencyForPaxos);
 
-                final PaxosBallotAndContention pair = beginAndRepairPaxos(queryStartNanoTime, key, metadata, replicaPlan, consistencyForPaxos, consistencyForCommit, true, state);
-                final UUID ballot = pair.ballot;
-                contentions += pair.contentions;
-
-                // read the current values and check they validate the conditions
-                Tracing.trace("Reading existing values for CAS precondition");
                 SinglePartitionReadCommand readCommand = (SinglePartitionReadCommand) request.readCommand(nowInSeconds);
                 ConsistencyLevel readConsistency = consistencyForPaxos == ConsistencyLevel.LOCAL_SERIAL ? ConsistencyLevel.LOCAL_QUORUM : ConsistencyLevel.QUORUM;
 
-                FilteredPartition current;
-                try (RowIterator rowIter = readOne(readCommand, readConsistency, queryStartNanoTime))
+                final PaxosBallotAndContention pair = beginAndRepairPaxos(queryStartNanoTime, key, metadata, replicaPlan, consistencyForPaxos, consistencyForCommit, true, state,
+                                                                          DatabaseDescriptor.getPaxosPrepareWithRead() ? readCommand : null, readConsistency);
+                final UUID ballot = pair.ballot;
+                contentions += pair.contentions;
+
+                // read the current values, unless the replicas returned them with their promise, and check they validate the conditions
+                FilteredPartition current = pair.current;
+                if (current == null)
+                {
+                    Tracing.trace("Reading existing values for CAS precondition");
+                    try (RowIterator rowIter = readOne(readCommand, readConsistency, queryStartNanoTime))
+                    {
+                        current = FilteredPartition.create(rowIter);
+                    }
+                }
+                else
                 {
-                    current = FilteredPartition.create(rowIter);
+                    Tracing.trace("Existing values for CAS precondition read along with the prepare");
                 }
 
                 if (!request.appliesTo(current))
@@ -430,8 +445,32 @@ public class StorageProxy implements StorageProxyMBean
                                                                 final boolean isWrite,
                                                                 ClientState state)
     throws WriteTimeoutException, WriteFailureException
+    {
+        return beginAndRepairPaxos(queryStartNanoTime, key, metadata, paxosPlan, consistencyForPaxos, consistencyForCommit, isWrite, state, null, null);
+    }
+
+    /**
+     * Same as above, but if {@code read} is provided it is sent to the replicas along with the prepare, and the
+     * partition they return is used as the result of that read if they agree on it at {@code readConsistency}.
+     */
+    private static PaxosBallotAndContention beginAndRepairPaxos(long queryStartNanoTime,
+                                                                DecoratedKey key,
+                                                                TableMetadata metadata,
+                                                                ReplicaPlan.ForPaxosWrite paxosPlan,
+                                                                ConsistencyLevel consistencyForPaxos,
+                                                                ConsistencyLevel consistencyForCommit,
+                                                                final boolean isWrite,
+                                                                ClientState state,
+                                                                SinglePartitionReadCommand read,
+                                                                ConsistencyLevel readConsistency)
+    throws WriteTimeoutException, WriteFailureException
     {
         long timeoutNanos = DatabaseDescriptor.getCasContentionTimeout(NANOSECONDS);
+        InetAddressAndPort dataReplica = read == null ? null : dataReplicaForPaxos(paxosPlan);
+        if (dataReplica != null)
+            read.setDigestVersion(MessagingService.current_version);
+        else
+            read = null;
 
         PrepareCallback summary = null;
         int contentions = 0;
@@ -450,7 +489,7 @@ public class StorageProxy implements StorageProxyMBean
             // prepare
             Tracing.trace("Preparing {}", ballot);
             Commit toPrepare = Commit.newPrepare(key, metadata, ballot);
-            summary = preparePaxos(toPrepare, paxosPlan, queryStartNanoTime);
+            summary = preparePaxos(toPrepare, paxosPlan, read, dataReplica, queryStartNanoTime);
             if (!summary.promised)
             {
                 Tracing.trace("Some replicas have already promised a higher ballot than ours; aborting");
@@ -513,7 +552,8 @@ public class StorageProxy implements StorageProxyMBean
                 continue;
             }
 
-            return new PaxosBallotAndContention(ballot, contentions);
+            FilteredPartition current = read == null ? null : summary.readResult(read, dataReplica, readConsistency.blockFor(Keyspace.open(metadata.keyspace)));
+            return new PaxosBallotAndContention(ballot, contentions, current);
         }
 
         recordCasContention(contentions);
@@ -530,19 +570,39 @@ public class StorageProxy implements StorageProxyMBean
             MessagingService.instance().send(message, target);
     }
 
-    private static PrepareCallback preparePaxos(Commit toPrepare, ReplicaPlan.ForPaxosWrite replicaPlan, long queryStartNanoTime)
+    /**
+     * @return the closest live natural replica of the Paxos plan, that we ask for the data of a read sent along with the
+     * prepare, or null if there is none
+     */
+    private static InetAddressAndPort dataReplicaForPaxos(ReplicaPlan.ForPaxosWrite replicaPlan)
+    {
+        EndpointsForToken candidates = replicaPlan.contacts().filter(replica -> !replicaPlan.pending().contains(replica));
+        if (candidates.isEmpty())
+            return null;
+        return DatabaseDescriptor.getEndpointSnitch().sortedByProximity(FBUtilities.getBroadcastAddressAndPort(), candidates).get(0).endpoint();
+    }
+
+    private static PrepareCallback preparePaxos(Commit toPrepare, ReplicaPlan.ForPaxosWrite replicaPlan, SinglePartitionReadCommand read, InetAddressAndPort dataReplica, long queryStartNanoTime)
     throws WriteTimeoutException
     {
         PrepareCallback callback = new PrepareCallback(toPrepare.update.partitionKey(), toPrepare.update.metadata(), replicaPlan.requiredParticipants(), replicaPlan.consistencyLevel(), queryStartNanoTime);
+        RequestCallback<PrepareAndReadResponse> readCallback = callback.withRead();
         Message<Commit> message = Message.out(PAXOS_PREPARE_REQ, toPrepare);
         for (Replica replica: replicaPlan.contacts())
         {
+            // pending replicas may not have all the data yet, so they only take part in the prepare
+            Message<PrepareAndReadRequest> withRead = read == null || replicaPlan.pending().contains(replica)
+                                                    ? null
+                                                    : Message.out(PAXOS_PREPARE_AND_READ_REQ, new PrepareAndReadRequest(toPrepare, replica.endpoint().equals(dataReplica) ? read : read.copyAsDigestQuery(replica)));
             if (replica.isSelf())
             {
                 PAXOS_PREPARE_REQ.stage.execute(() -> {
                     try
                     {
-                        callback.onResponse(message.responseWith(doPrepare(toPrepare)));
+                        if (withRead == null)
+                            callback.onResponse(message.responseWith(doPrepare(toPrepare)));
+                        else
+                            readCallback.onResponse(withRead.responseWith(doPrepareAndRead(withRead.payload)));
                     }
                     catch (Exception ex)
                     {
@@ -550,10 +610,14 @@ public class StorageProxy implements StorageProxyMBean
                     }
                 });
             }
-            else
+            else if (withRead == null)
             {
                 MessagingService.instance().sendWithCallback(message, replica.endpoint(), callback);
             }
+            else
+            {
+                MessagingService.instance().sendWithCallback(withRead, replica.endpoint(), readCallback);
+            }
         }
         callback.await();
         return callback;
@@ -607,6 +671,7 @@ public class StorageProxy implements StorageProxyMBean
         Keyspace keyspace = Keyspace.open(proposal.update.metadata().keyspace);
 
         Token tk = proposal.update.partitionKey().getToken();
+        ReadCoalescer.instance.onWrite(proposal.update.metadata().id, proposal.update.partitionKey());
 
         AbstractWriteResponseHandler<Commit> responseHandler = null;
         // NOTE: this ReplicaPlan is a lie, this usage of ReplicaPlan could do with being clarified - the selected() collection is essentially (I think) never used
@@ -650,8 +715,16 @@ public class StorageProxy implements StorageProxyMBean
             }
         }
 
-        if (shouldBlock)
-            responseHandler.get();
+        try
+        {
+            if (shouldBlock)
+                responseHandler.get();
+        }
+        finally
+        {
+            // the commit may be acknowledged now: reads that started while it was in progress may not reflect it
+            ReadCoalescer.instance.onWrite(proposal.update.metadata().id, proposal.update.partitionKey());
+        }
     }
 
     /**
@@ -708,10 +781,12 @@ public class StorageProxy implements StorageProxyMBean
         List<AbstractWriteResponseHandler<IMutation>> responseHandlers = new ArrayList<>(mutations.size());
         WriteType plainWriteType = mutations.size() <= 1 ? WriteType.SIMPLE : WriteType.UNLOGGED_BATCH;
 
+        SpanSampler.Span span = SpanSampler.instance.maybeStart(SpanSampler.Kind.COORDINATOR_WRITE, mutations, 0);
         try
         {
             for (IMutation mutation : mutations)
             {
+                ReadCoalescer.instance.onWrite(mutation);
                 if (mutation instanceof CounterMutation)
                     responseHandlers.add(mutateCounter((CounterMutation)mutation, localDataCenter, queryStartNanoTime));
                 else
@@ -771,6 +846,11 @@ public class StorageProxy implements StorageProxyMBean
         }
         finally
         {
+            // the writes may be acknowledged now: reads that started while they were in progress may not reflect them
+            for (IMutation mutation : mutations)
+                ReadCoalescer.instance.onWrite(mutation);
+
+            SpanSampler.instance.finish(span);
             long latency = System.nanoTime() - startTime;
             writeMetrics.addNano(latency);
             writeMetricsMap.get(consistencyLevel).addNano(latency);
@@ -976,12 +1056,15 @@ public class StorageProxy implements StorageProxyMBean
     {
         Tracing.trace("Determining replicas for atomic batch");
         long startTime = System.nanoTime();
+        for (Mutation mutation : mutations)
+            ReadCoalescer.instance.onWrite(mutation);
 
         List<WriteResponseHandlerWrapper> wrappers = new ArrayList<WriteResponseHandlerWrapper>(mutations.size());
 
         if (mutations.stream().anyMatch(mutation -> Keyspace.open(mutation.getKeyspaceName()).getReplicationStrategy().hasTransientReplicas()))
             throw new AssertionError("Logged batches are unsupported with transient replication");
 
+        SpanSampler.Span span = SpanSampler.instance.maybeStart(SpanSampler.Kind.COORDINATOR_WRITE, mutations, 0);
         try
         {
 
@@ -1046,6 +1129,11 @@ public class StorageProxy implements StorageProxyMBean
         }
         finally
         {
+            // the writes may be acknowledged now: reads that started while they were in progress may not reflect them
+            for (Mutation mutation : mutations)
+                ReadCoalescer.instance.onWrite(mutation);
+
+            SpanSampler.instance.finish(span);
             long latency = System.nanoTime() - startTime;
             writeMetrics.addNano(latency);
             writeMetricsMap.get(consistency_level).addNano(latency);
@@ -1342,7 +1430,8 @@ public class StorageProxy implements StorageProxyMBean
         if (insertLocal)
         {
             Preconditions.checkNotNull(localReplica);
-            performLocally(stage, localReplica, mutation::apply, responseHandler);
+            long enqueuedAtNanos = MonotonicClock.approxTime.now();
+            performLocally(stage, localReplica, () -> applyLocally(mutation, enqueuedAtNanos), responseHandler);
         }
 
         if (localDc != null)
@@ -1358,6 +1447,19 @@ public class StorageProxy implements StorageProxyMBean
         }
     }
 
+    private static void applyLocally(IMutation mutation, long enqueuedAtNanos)
+    {
+        SpanSampler.Span span = SpanSampler.instance.maybeStart(SpanSampler.Kind.REPLICA_WRITE, mutation, MonotonicClock.approxTime.now() - enqueuedAtNanos);
+        try
+        {
+            mutation.apply();
+        }
+        finally
+        {
+            SpanSampler.instance.finish(span);
+        }
+    }
+
     private static void checkHintOverload(Replica destination)
     {
         // avoid OOMing due to excess hints.  we need to do this check even for "live" nodes, since we can
@@ -1706,9 +1808,13 @@ public class StorageProxy implements StorageProxyMBean
     throws UnavailableException, ReadFailureException, ReadTimeoutException
     {
         long start = System.nanoTime();
+        SpanSampler.Span span = SpanSampler.instance.maybeStart(SpanSampler.Kind.COORDINATOR_READ, group.metadata(), 0);
         try
         {
-            PartitionIterator result = fetchRows(group.queries, consistencyLevel, queryStartNanoTime);
+            PartitionIterator result = group.queries.size() == 1 && ReadCoalescer.canCoalesce(group.queries.get(0))
+                                     ? ReadCoalescer.instance.read(group.queries.get(0), consistencyLevel, queryStartNanoTime,
+                                                                   () -> fetchRows(group.queries, consistencyLevel, queryStartNanoTime))
+                                     : fetchRows(group.queries, consistencyLevel, queryStartNanoTime);
             // Note that the only difference between the command in a group must be the partition key on which
             // they applied.
             boolean enforceStrictLiveness = group.queries.get(0).metadata().enforceStrictLiveness();
@@ -1738,6 +1844,7 @@ public class StorageProxy implements StorageProxyMBean
         }
         finally
         {
+            SpanSampler.instance.finish(span);
             long latency = System.nanoTime() - start;
             readMetrics.addNano(latency);
             readMetricsMap.get(consistencyLevel).addNano(latency);
@@ -1858,6 +1965,14 @@ public class StorageProxy implements StorageProxyMBean
             super(Verb.READ_REQ);
             this.command = command;
             this.handler = handler;
+            // like requests to other replicas, local reads are outstanding from their submission to their completion
+            ReplicaLoadTracker.instance.onRequest(FBUtilities.getBroadcastAddressAndPort());
+        }
+
+        @Override
+        protected void onDropped()
+        {
+            ReplicaLoadTracker.instance.onCompletion(FBUtilities.getBroadcastAddressAndPort());
         }
 
         protected void runMayThrow()
@@ -1867,11 +1982,18 @@ public class StorageProxy implements StorageProxyMBean
                 command.setMonitoringTime(approxCreationTimeNanos, false, verb.expiresAfterNanos(), DatabaseDescriptor.getSlowQueryTimeout(NANOSECONDS));
 
                 ReadResponse response;
+                SpanSampler.Span span = SpanSampler.instance.maybeStart(command.isRangeRequest() ? SpanSampler.Kind.REPLICA_RANGE_READ : SpanSampler.Kind.REPLICA_READ,
+                                                                        command.metadata(),
+                                                                        MonotonicClock.approxTime.now() - approxCreationTimeNanos);
                 try (ReadExecutionController executionController = command.executionController();
                      UnfilteredPartitionIterator iterator = command.executeLocally(executionController))
                 {
                     response = command.createResponse(iterator);
                 }
+                finally
+                {
+                    SpanSampler.instance.finish(span);
+                }
 
                 if (command.complete())
                 {
@@ -1898,6 +2020,10 @@ public class StorageProxy implements StorageProxyMBean
                     throw t;
                 }
             }
+            finally
+            {
+                ReplicaLoadTracker.instance.onCompletion(FBUtilities.getBroadcastAddressAndPort());
+            }
         }
     }
 
@@ -2578,6 +2704,7 @@ public class StorageProxy implements StorageProxyMBean
             {
                 long timeTakenNanos = approxCurrentTimeNanos - approxCreationTimeNanos;
                 MessagingService.instance().metrics.recordSelfDroppedMessage(verb, timeTakenNanos, NANOSECONDS);
+                onDropped();
                 return;
             }
             try
@@ -2591,6 +2718,13 @@ public class StorageProxy implements StorageProxyMBean
         }
 
         abstract protected void runMayThrow() throws Exception;
+
+        /**
+         * Called instead of {@link #runMayThrow()} if the task expired before it could run.
+         */
+        protected void onDropped()
+        {
+        }
     }
 
     /**
@@ -2768,6 +2902,9 @@ public class StorageProxy implements StorageProxyMBean
     public Long getReadRpcTimeout() { return DatabaseDescriptor.getReadRpcTimeout(MILLISECONDS); }
     public void setReadRpcTimeout(Long timeoutInMillis) { DatabaseDescriptor.setReadRpcTimeout(timeoutInMillis); }
 
+    public int getReadCoalescingWindowInMs() { return DatabaseDescriptor.getReadCoalescingWindowInMs(); }
+    public void setReadCoalescingWindowInMs(int windowInMs) { DatabaseDescriptor.setReadCoalescingWindowInMs(windowInMs); }
+
     public Long getWriteRpcTimeout() { return DatabaseDescriptor.getWriteRpcTimeout(MILLISECONDS); }
     public void setWriteRpcTimeout(Long timeoutInMillis) { DatabaseDescriptor.setWriteRpcTimeout(timeoutInMillis); }
 
@@ -2908,11 +3045,14 @@ public class StorageProxy implements StorageProxyMBean
     {
         final UUID ballot;
         final int contentions;
+        // the partition read along with the prepare, if any, which isn't part of equality
+        final FilteredPartition current;
 
-        PaxosBallotAndContention(UUID ballot, int contentions)
+        PaxosBallotAndContention(UUID ballot, int contentions, FilteredPartition current)
         {
             this.ballot = ballot;
             this.contentions = contentions;
+            this.current = current;
         }
 
         @Override
@@ -40,6 +40,8 @@ public interface StorageProxyMBean
     public void setRpcTimeout(Long timeoutInMillis);
     public Long getReadRpcTimeout();
     public void setReadRpcTimeout(Long timeoutInMillis);
+    public int getReadCoalescingWindowInMs();
+    public void setReadCoalescingWindowInMs(int windowInMs);
     public Long getWriteRpcTimeout();
     public void setWriteRpcTimeout(Long timeoutInMillis);
     public Long getCounterWriteRpcTimeout();
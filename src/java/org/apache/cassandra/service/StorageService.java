@@ -100,6 +100,7 @@ import org.apache.cassandra.schema.TableMetadataRef;
 import org.apache.cassandra.schema.ViewMetadata;
 import org.apache.cassandra.streaming.*;
 import org.apache.cassandra.tracing.TraceKeyspace;
+import org.apache.cassandra.tracing.Tracing;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.transport.Server;
 import org.apache.cassandra.utils.*;
@@ -4663,6 +4664,9 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
 
             StorageProxy.instance.verifyNoHintsInProgress();
 
+            // neither clients nor other nodes can start traced requests anymore
+            Tracing.instance.shutdown();
+
             if (!isFinalShutdown)
                 setMode(Mode.DRAINING, "flushing column families", false);
 
@@ -5323,6 +5327,18 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
         return traceProbability;
     }
 
+    public void setSpanSamplingProbability(double probability)
+    {
+        if (probability < 0 || probability > 1)
+            throw new IllegalArgumentException("Span sampling probability must be between 0 and 1, got " + probability);
+        DatabaseDescriptor.setSpanSamplingProbability(probability);
+    }
+
+    public double getSpanSamplingProbability()
+    {
+        return DatabaseDescriptor.getSpanSamplingProbability();
+    }
+
     public boolean shouldTraceProbablistically()
     {
         return traceProbability != 0 && ThreadLocalRandom.current().nextDouble() < traceProbability;
@@ -5612,7 +5628,7 @@ public class StorageService extends NotificationBroadcasterSupport implements IE
         maxArchiveRetries = maxArchiveRetries != Integer.MIN_VALUE ? maxArchiveRetries : fqlOptions.max_archive_retries;
 
         Preconditions.checkNotNull(path, "cassandra.yaml did not set log_dir and not set as parameter");
-        FullQueryLogger.instance.enable(Paths.get(path), rollCycle, blocking, maxQueueWeight, maxLogSize, archiveCommand, maxArchiveRetries);
+        FullQueryLogger.instance.enable(Paths.get(path), rollCycle, blocking, maxQueueWeight, maxLogSize, archiveCommand, maxArchiveRetries, fqlOptions.compressed_batches);
     }
 
     @Override
@@ -675,6 +675,17 @@ public interface StorageServiceMBean extends NotificationEmitter
      */
     public double getTraceProbability();
 
+    /**
+     * Sets the probability with which reads and writes record an in memory span, exposed by the
+     * system_views.sampled_spans and system_views.span_breakdowns tables. 0 disables sampling.
+     */
+    public void setSpanSamplingProbability(double probability);
+
+    /**
+     * Returns the probability with which reads and writes record an in memory span.
+     */
+    public double getSpanSamplingProbability();
+
     void disableAutoCompaction(String ks, String ... tables) throws IOException;
     void enableAutoCompaction(String ks, String ... tables) throws IOException;
     Map<String, Boolean> getAutoCompactionStatus(String ks, String... tables) throws IOException;
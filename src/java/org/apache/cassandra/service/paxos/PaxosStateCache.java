@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service.paxos;
+
+import java.util.function.UnaryOperator;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.Pair;
+import org.apache.cassandra.utils.UUIDGen;
+
+/**
+ * Keeps the Paxos state of recently used partitions in memory, in front of system.paxos, so that prepares and
+ * proposals, which must load the state before saving theirs, don't have to read it back from the table.
+ *
+ * Every update is written to system.paxos first, and then merged into the cached state (if any) the way the table
+ * reconciles it, the most recent ballot of each of the promise, the accepted proposal and the most recent commit
+ * winning. States are only cached by loads, which are atomic with the merges of the same partition, so a cached state
+ * never misses an update. Fields of the cached state are expired after the Paxos TTL, counted from their ballot.
+ */
+public class PaxosStateCache
+{
+    // a rough estimate of the heap used by an entry, on top of its key and updates
+    private static final int ENTRY_OVERHEAD = 512;
+    private static final long EMPTY_BALLOT_TIMESTAMP = UUIDGen.minTimeUUID(0).timestamp();
+
+    public static final PaxosStateCache instance = new PaxosStateCache(DatabaseDescriptor.getPaxosStateCacheSizeInMB() * 1024 * 1024);
+
+    // null if disabled
+    private final Cache<Pair<TableId, DecoratedKey>, PaxosState> cache;
+
+    @VisibleForTesting
+    PaxosStateCache(long capacityInBytes)
+    {
+        cache = capacityInBytes <= 0
+              ? null
+              : Caffeine.newBuilder()
+                        .maximumWeight(capacityInBytes)
+                        .executor(MoreExecutors.directExecutor())
+                        .weigher(PaxosStateCache::weight)
+                        .build();
+    }
+
+    public PaxosState load(DecoratedKey key, TableMetadata metadata, int nowInSec)
+    {
+        if (cache == null)
+            return SystemKeyspace.loadPaxosState(key, metadata, nowInSec);
+
+        PaxosState state = cache.get(Pair.create(metadata.id, key), ignore -> SystemKeyspace.loadPaxosState(key, metadata, nowInSec));
+        return withoutExpired(state, key, metadata, nowInSec);
+    }
+
+    public void savePromise(Commit promise)
+    {
+        SystemKeyspace.savePaxosPromise(promise);
+        merge(promise, state -> isNewer(promise, state.promised)
+                              ? new PaxosState(promise, state.accepted, state.mostRecentCommit)
+                              : state);
+    }
+
+    public void saveProposal(Commit proposal)
+    {
+        SystemKeyspace.savePaxosProposal(proposal);
+        merge(proposal, state -> isNewer(proposal, state.accepted) && proposal.isAfter(state.mostRecentCommit)
+                               ? new PaxosState(state.promised, proposal, state.mostRecentCommit)
+                               : state);
+    }
+
+    public void saveCommit(Commit commit)
+    {
+        SystemKeyspace.savePaxosCommit(commit);
+        merge(commit, state -> {
+            if (!isNewer(commit, state.mostRecentCommit))
+                return state;
+
+            // as in SystemKeyspace.loadPaxosState, a proposal that isn't more recent than the commit is over
+            Commit accepted = state.accepted.isAfter(commit)
+                            ? state.accepted
+                            : Commit.emptyCommit(commit.update.partitionKey(), commit.update.metadata());
+            return new PaxosState(state.promised, accepted, commit);
+        });
+    }
+
+    private void merge(Commit commit, UnaryOperator<PaxosState> merger)
+    {
+        if (cache != null)
+            cache.asMap().computeIfPresent(Pair.create(commit.update.metadata().id, commit.update.partitionKey()), (key, state) -> merger.apply(state));
+    }
+
+    private static boolean isNewer(Commit commit, Commit current)
+    {
+        return commit.ballot.timestamp() >= current.ballot.timestamp();
+    }
+
+    private static PaxosState withoutExpired(PaxosState state, DecoratedKey key, TableMetadata metadata, int nowInSec)
+    {
+        int ttlSec = SystemKeyspace.paxosTtlSec(metadata);
+        boolean promisedExpired = isExpired(state.promised, ttlSec, nowInSec);
+        boolean acceptedExpired = isExpired(state.accepted, ttlSec, nowInSec);
+        boolean mostRecentExpired = isExpired(state.mostRecentCommit, ttlSec, nowInSec);
+        if (!promisedExpired && !acceptedExpired && !mostRecentExpired)
+            return state;
+
+        return new PaxosState(promisedExpired ? Commit.emptyCommit(key, metadata) : state.promised,
+                              acceptedExpired ? Commit.emptyCommit(key, metadata) : state.accepted,
+                              mostRecentExpired ? Commit.emptyCommit(key, metadata) : state.mostRecentCommit);
+    }
+
+    private static boolean isExpired(Commit commit, int ttlSec, int nowInSec)
+    {
+        return commit.ballot.timestamp() != EMPTY_BALLOT_TIMESTAMP
+               && UUIDGen.unixTimestampInSec(commit.ballot) + ttlSec <= nowInSec;
+    }
+
+    private static int weight(Pair<TableId, DecoratedKey> key, PaxosState state)
+    {
+        return ENTRY_OVERHEAD
+               + key.right.getKey().remaining()
+               + state.promised.update.dataSize()
+               + state.accepted.update.dataSize()
+               + state.mostRecentCommit.update.dataSize();
+    }
+}
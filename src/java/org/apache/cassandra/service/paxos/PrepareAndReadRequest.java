@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service.paxos;
+
+import java.io.IOException;
+
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+
+/**
+ * A Paxos prepare carrying the read of the partition that the proposer needs to make its proposal, which the replica
+ * performs if it promises the ballot.
+ */
+public class PrepareAndReadRequest
+{
+    public static final IVersionedSerializer<PrepareAndReadRequest> serializer = new Serializer();
+
+    public final Commit toPrepare;
+    public final ReadCommand read;
+
+    public PrepareAndReadRequest(Commit toPrepare, ReadCommand read)
+    {
+        this.toPrepare = toPrepare;
+        this.read = read;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("PrepareAndReadRequest(%s, %s)", toPrepare, read);
+    }
+
+    private static class Serializer implements IVersionedSerializer<PrepareAndReadRequest>
+    {
+        public void serialize(PrepareAndReadRequest request, DataOutputPlus out, int version) throws IOException
+        {
+            Commit.serializer.serialize(request.toPrepare, out, version);
+            ReadCommand.serializer.serialize(request.read, out, version);
+        }
+
+        public PrepareAndReadRequest deserialize(DataInputPlus in, int version) throws IOException
+        {
+            Commit toPrepare = Commit.serializer.deserialize(in, version);
+            ReadCommand read = ReadCommand.serializer.deserialize(in, version);
+            return new PrepareAndReadRequest(toPrepare, read);
+        }
+
+        public long serializedSize(PrepareAndReadRequest request, int version)
+        {
+            return Commit.serializer.serializedSize(request.toPrepare, version)
+                 + ReadCommand.serializer.serializedSize(request.read, version);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service.paxos;
+
+import java.io.IOException;
+
+import org.apache.cassandra.db.ReadResponse;
+import org.apache.cassandra.db.TypeSizes;
+import org.apache.cassandra.io.IVersionedSerializer;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
+
+public class PrepareAndReadResponse
+{
+    public static final IVersionedSerializer<PrepareAndReadResponse> serializer = new Serializer();
+
+    public final PrepareResponse prepare;
+
+    /**
+     * The response to the read of the request, or null if the ballot wasn't promised.
+     */
+    public final ReadResponse read;
+
+    public PrepareAndReadResponse(PrepareResponse prepare, ReadResponse read)
+    {
+        assert prepare.promised || read == null;
+        this.prepare = prepare;
+        this.read = read;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("PrepareAndReadResponse(%s, %s)", prepare, read);
+    }
+
+    private static class Serializer implements IVersionedSerializer<PrepareAndReadResponse>
+    {
+        public void serialize(PrepareAndReadResponse response, DataOutputPlus out, int version) throws IOException
+        {
+            PrepareResponse.serializer.serialize(response.prepare, out, version);
+            out.writeBoolean(response.read != null);
+            if (response.read != null)
+                ReadResponse.serializer.serialize(response.read, out, version);
+        }
+
+        public PrepareAndReadResponse deserialize(DataInputPlus in, int version) throws IOException
+        {
+            PrepareResponse prepare = PrepareResponse.serializer.deserialize(in, version);
+            ReadResponse read = in.readBoolean() ? ReadResponse.serializer.deserialize(in, version) : null;
+            return new PrepareAndReadResponse(prepare, read);
+        }
+
+        public long serializedSize(PrepareAndReadResponse response, int version)
+        {
+            long size = PrepareResponse.serializer.serializedSize(response.prepare, version)
+                      + TypeSizes.sizeof(response.read != null);
+            if (response.read != null)
+                size += ReadResponse.serializer.serializedSize(response.read, version);
+            return size;
+        }
+    }
+}
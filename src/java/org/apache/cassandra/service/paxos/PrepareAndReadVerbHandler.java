@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service.paxos;
+
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.ReadExecutionController;
+import org.apache.cassandra.db.ReadResponse;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterator;
+import org.apache.cassandra.net.IVerbHandler;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.tracing.Tracing;
+
+public class PrepareAndReadVerbHandler implements IVerbHandler<PrepareAndReadRequest>
+{
+    public static final PrepareAndReadVerbHandler instance = new PrepareAndReadVerbHandler();
+
+    public static PrepareAndReadResponse doPrepareAndRead(PrepareAndReadRequest request)
+    {
+        PrepareResponse prepare = PrepareVerbHandler.doPrepare(request.toPrepare);
+        if (!prepare.promised)
+            return new PrepareAndReadResponse(prepare, null);
+
+        // Reading once the promise is made, any proposal this read could miss has a lower ballot than ours and so
+        // is reported in the response, and anything committed after it would make our own proposal fail
+        Tracing.trace("Reading partition for CAS precondition");
+        ReadCommand command = request.read;
+        ReadResponse read;
+        try (ReadExecutionController executionController = command.executionController();
+             UnfilteredPartitionIterator iterator = command.executeLocally(executionController))
+        {
+            read = command.createResponse(iterator);
+        }
+        return new PrepareAndReadResponse(prepare, read);
+    }
+
+    public void doVerb(Message<PrepareAndReadRequest> message)
+    {
+        Message<PrepareAndReadResponse> reply = message.responseWith(doPrepareAndRead(message.payload));
+        MessagingService.instance().send(reply, message.from());
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.cassandra.service.paxos;
  */
 
 
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -32,11 +33,18 @@ import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.db.ConsistencyLevel;
 import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.ReadResponse;
+import org.apache.cassandra.db.SinglePartitionReadCommand;
+import org.apache.cassandra.db.partitions.FilteredPartition;
+import org.apache.cassandra.db.partitions.PartitionIterators;
+import org.apache.cassandra.db.partitions.UnfilteredPartitionIterators;
+import org.apache.cassandra.db.rows.RowIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.db.SystemKeyspace;
 import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.RequestCallback;
 import org.apache.cassandra.utils.UUIDGen;
 
 public class PrepareCallback extends AbstractPaxosCallback<PrepareResponse>
@@ -49,6 +57,8 @@ public class PrepareCallback extends AbstractPaxosCallback<PrepareResponse>
     public Commit mostRecentInProgressCommitWithUpdate;
 
     private final Map<InetAddressAndPort, Commit> commitsByReplica = new ConcurrentHashMap<>();
+    // responses to the read sent along with the prepare, if any, by replica
+    private final Map<InetAddressAndPort, ReadResponse> readsByReplica = new ConcurrentHashMap<>();
 
     public PrepareCallback(DecoratedKey key, TableMetadata metadata, int targets, ConsistencyLevel consistency, long queryStartNanoTime)
     {
@@ -59,10 +69,22 @@ public class PrepareCallback extends AbstractPaxosCallback<PrepareResponse>
         mostRecentInProgressCommitWithUpdate = Commit.emptyCommit(key, metadata);
     }
 
-    public synchronized void onResponse(Message<PrepareResponse> message)
+    public void onResponse(Message<PrepareResponse> message)
     {
-        PrepareResponse response = message.payload;
-        logger.trace("Prepare response {} from {}", response, message.from());
+        onResponse(message.payload, null, message.from());
+    }
+
+    /**
+     * @return the callback to use for the replicas sent a {@link PrepareAndReadRequest}
+     */
+    public RequestCallback<PrepareAndReadResponse> withRead()
+    {
+        return message -> onResponse(message.payload.prepare, message.payload.read, message.from());
+    }
+
+    private synchronized void onResponse(PrepareResponse response, ReadResponse read, InetAddressAndPort from)
+    {
+        logger.trace("Prepare response {} from {}", response, from);
 
         // In case of clock skew, another node could be proposing with ballot that are quite a bit
         // older than our own. In that case, we record the more recent commit we've received to make
@@ -78,7 +100,9 @@ public class PrepareCallback extends AbstractPaxosCallback<PrepareResponse>
             return;
         }
 
-        commitsByReplica.put(message.from(), response.mostRecentCommit);
+        commitsByReplica.put(from, response.mostRecentCommit);
+        if (read != null)
+            readsByReplica.put(from, read);
         if (response.mostRecentCommit.isAfter(mostRecentCommit))
             mostRecentCommit = response.mostRecentCommit;
 
@@ -113,4 +137,29 @@ public class PrepareCallback extends AbstractPaxosCallback<PrepareResponse>
             }
         });
     }
+
+    /**
+     * Resolves the reads sent along with the prepare, provided the data response of {@code dataReplica} has been
+     * received and matches the digests of enough other replicas to satisfy the consistency level of the read.
+     *
+     * @return the current content of the partition, or null if it has to be read separately
+     */
+    public FilteredPartition readResult(SinglePartitionReadCommand command, InetAddressAndPort dataReplica, int blockFor)
+    {
+        ReadResponse data = readsByReplica.get(dataReplica);
+        if (data == null || data.isDigestResponse() || readsByReplica.size() < blockFor)
+            return null;
+
+        ByteBuffer digest = data.digest(command);
+        for (ReadResponse response : readsByReplica.values())
+        {
+            if (response != data && !response.digest(command).equals(digest))
+                return null;
+        }
+
+        try (RowIterator rows = PartitionIterators.getOnlyElement(UnfilteredPartitionIterators.filter(data.makeIterator(command), command.nowInSec()), command))
+        {
+            return FilteredPartition.create(rows);
+        }
+    }
 }
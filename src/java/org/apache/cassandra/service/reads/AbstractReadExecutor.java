@@ -28,6 +28,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.ConsistencyLevel;
 import org.apache.cassandra.db.DecoratedKey;
@@ -42,6 +43,7 @@ import org.apache.cassandra.locator.EndpointsForToken;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.locator.Replica;
 import org.apache.cassandra.locator.ReplicaCollection;
+import org.apache.cassandra.locator.ReplicaLoadTracker;
 import org.apache.cassandra.net.Message;
 import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.service.reads.repair.ReadRepair;
@@ -220,7 +222,21 @@ public abstract class AbstractReadExecutor
         if (cfs.sampleReadLatencyNanos > command.getTimeout(NANOSECONDS))
             return false;
 
-        return !handler.await(cfs.sampleReadLatencyNanos, NANOSECONDS);
+        return !handler.await(speculationThresholdNanos(), NANOSECONDS);
+    }
+
+    /**
+     * The table-wide latency percentile is slow to reflect a single replica going slow, so when the snitch is load
+     * aware we also speculate as soon as the contacted replicas are late with respect to their own recent latency.
+     */
+    private long speculationThresholdNanos()
+    {
+        long threshold = cfs.sampleReadLatencyNanos;
+        if (!DatabaseDescriptor.isDynamicSnitchLoadAware())
+            return threshold;
+
+        long expected = ReplicaLoadTracker.instance.expectedLatencyNanos(replicaPlan().contacts());
+        return expected < 0 ? threshold : Math.min(threshold, expected);
     }
 
     ReplicaPlan.ForTokenRead replicaPlan()
@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service.reads;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import com.codahale.metrics.Meter;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.EmptyIterators;
+import org.apache.cassandra.db.IMutation;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.ReadCommand;
+import org.apache.cassandra.db.SinglePartitionReadCommand;
+import org.apache.cassandra.db.partitions.FilteredPartition;
+import org.apache.cassandra.db.partitions.PartitionIterator;
+import org.apache.cassandra.db.partitions.PartitionIterators;
+import org.apache.cassandra.db.rows.RowIterator;
+import org.apache.cassandra.exceptions.ReadTimeoutException;
+import org.apache.cassandra.io.util.DataOutputBuffer;
+import org.apache.cassandra.metrics.DefaultNameFactory;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.tracing.Tracing;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.cassandra.metrics.CassandraMetricsRegistry.Metrics;
+
+/**
+ * Coalesces identical single partition reads on the coordinator: while a read is in flight, any other read of the same
+ * command (table, partition key, filters, limits and nowInSec) at the same consistency level that arrives within
+ * {@code read_coalescing_window_in_ms} of its start waits for it and is answered from its result, rather than being
+ * sent to the replicas again.
+ *
+ * A read only joins another one if no write to the partition has gone through this node, either as coordinator or as
+ * replica, since that other read started; otherwise it starts a new read that later ones will join instead. Writes
+ * coordinated by other nodes can't be seen here, so a coalesced read may not reflect a write acknowledged to another
+ * client less than the window before it arrived, which is why coalescing is disabled by default.
+ */
+public class ReadCoalescer
+{
+    // must be a power of two
+    private static final int WRITE_STRIPES = 1024;
+
+    public static final ReadCoalescer instance = new ReadCoalescer();
+
+    private final ConcurrentHashMap<Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+    /*
+     * Incremented by every write to a partition hashing to the stripe, both when it starts and once it has been
+     * applied or acknowledged. Reads only join a read that started at the same generation, so that they never get a
+     * result that could predate a write that went through this node: a read that starts while a write is in progress
+     * may not see it, so reads arriving after the write completes must not join it.
+     */
+    private final AtomicLongArray writeGenerations = new AtomicLongArray(WRITE_STRIPES);
+
+    /**
+     * Reads answered from the result of an identical read already in flight.
+     */
+    public final Meter coalesced = Metrics.meter(new DefaultNameFactory("ClientRequest", "Read").createMetricName("Coalesced"));
+
+    @VisibleForTesting
+    ReadCoalescer()
+    {
+    }
+
+    /**
+     * @return whether {@code command} may be coalesced with identical reads. The result of reversed queries is not
+     * kept in query order once materialized, and traced queries should report their own replica requests.
+     */
+    public static boolean canCoalesce(SinglePartitionReadCommand command)
+    {
+        return DatabaseDescriptor.getReadCoalescingWindowInMs() > 0
+               && !command.isDigestQuery()
+               && !command.isReversed()
+               && !Tracing.isTracing();
+    }
+
+    /**
+     * Reads {@code command} using {@code fetch}, unless an identical read is in flight that can be joined.
+     */
+    public PartitionIterator read(SinglePartitionReadCommand command,
+                                  ConsistencyLevel consistencyLevel,
+                                  long queryStartNanoTime,
+                                  Supplier<PartitionIterator> fetch)
+    {
+        long windowNanos = MILLISECONDS.toNanos(DatabaseDescriptor.getReadCoalescingWindowInMs());
+        int stripe = stripe(command.metadata().id, command.partitionKey());
+        Key key = new Key(command, consistencyLevel);
+        Flight flight = new Flight(System.nanoTime(), writeGenerations.get(stripe));
+
+        while (true)
+        {
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null)
+                break;
+
+            if (existing.generation == flight.generation && flight.startedAt - existing.startedAt <= windowNanos)
+            {
+                coalesced.mark();
+                return existing.await(command, consistencyLevel, queryStartNanoTime);
+            }
+
+            // too old, or a write happened since it started: become the read later ones join
+            if (inFlight.replace(key, existing, flight))
+                break;
+        }
+
+        return lead(key, flight, fetch);
+    }
+
+    private PartitionIterator lead(Key key, Flight flight, Supplier<PartitionIterator> fetch)
+    {
+        FilteredPartition partition = null;
+        try (PartitionIterator partitions = fetch.get())
+        {
+            if (partitions.hasNext())
+            {
+                try (RowIterator rows = partitions.next())
+                {
+                    partition = FilteredPartition.create(rows);
+                }
+            }
+        }
+        catch (Throwable t)
+        {
+            flight.result.completeExceptionally(t);
+            throw t;
+        }
+        finally
+        {
+            inFlight.remove(key, flight);
+        }
+
+        flight.result.complete(partition);
+        return iterator(partition);
+    }
+
+    /**
+     * Prevents reads of the partition(s) written by {@code mutation} from joining reads that started before it. Must
+     * be called both when the write starts and once it has been applied or acknowledged, so that reads that started
+     * while it was in progress aren't joined by reads that start after it completed either.
+     */
+    public void onWrite(IMutation mutation)
+    {
+        if (DatabaseDescriptor.getReadCoalescingWindowInMs() <= 0)
+            return;
+
+        DecoratedKey key = mutation.key();
+        for (TableId tableId : mutation.getTableIds())
+            writeGenerations.incrementAndGet(stripe(tableId, key));
+    }
+
+    /**
+     * Prevents reads of the provided partition from joining reads that started before it was written. Like
+     * {@link #onWrite(IMutation)}, must be called both when the write starts and once it completed.
+     */
+    public void onWrite(TableId tableId, DecoratedKey key)
+    {
+        if (DatabaseDescriptor.getReadCoalescingWindowInMs() > 0)
+            writeGenerations.incrementAndGet(stripe(tableId, key));
+    }
+
+    private static int stripe(TableId tableId, DecoratedKey key)
+    {
+        int hash = 31 * tableId.hashCode() + key.hashCode();
+        return (hash ^ (hash >>> 16)) & (WRITE_STRIPES - 1);
+    }
+
+    private static PartitionIterator iterator(FilteredPartition partition)
+    {
+        return partition == null ? EmptyIterators.partition() : PartitionIterators.singletonIterator(partition.rowIterator());
+    }
+
+    private static final class Key
+    {
+        // the serialized command, which covers everything that determines its result
+        private final ByteBuffer command;
+        private final ConsistencyLevel consistencyLevel;
+        private final int hashCode;
+
+        private Key(SinglePartitionReadCommand command, ConsistencyLevel consistencyLevel)
+        {
+            int version = MessagingService.current_version;
+            try (DataOutputBuffer out = new DataOutputBuffer((int) ReadCommand.serializer.serializedSize(command, version)))
+            {
+                ReadCommand.serializer.serialize(command, out, version);
+                this.command = out.buffer();
+            }
+            catch (IOException e)
+            {
+                throw new AssertionError(e);
+            }
+            this.consistencyLevel = consistencyLevel;
+            this.hashCode = 31 * this.command.hashCode() + consistencyLevel.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (!(o instanceof Key))
+                return false;
+
+            Key that = (Key) o;
+            return hashCode == that.hashCode && consistencyLevel == that.consistencyLevel && command.equals(that.command);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+    }
+
+    private static final class Flight
+    {
+        private final long startedAt;
+        private final long generation;
+        // the single partition read, or null if it has no result
+        private final CompletableFuture<FilteredPartition> result = new CompletableFuture<>();
+
+        private Flight(long startedAt, long generation)
+        {
+            this.startedAt = startedAt;
+            this.generation = generation;
+        }
+
+        private PartitionIterator await(SinglePartitionReadCommand command, ConsistencyLevel consistencyLevel, long queryStartNanoTime)
+        {
+            long timeout = DatabaseDescriptor.getReadRpcTimeout(NANOSECONDS) - (System.nanoTime() - queryStartNanoTime);
+            try
+            {
+                return iterator(result.get(Math.max(0, timeout), NANOSECONDS));
+            }
+            catch (TimeoutException e)
+            {
+                int blockFor = consistencyLevel.blockFor(Keyspace.open(command.metadata().keyspace));
+                throw new ReadTimeoutException(consistencyLevel, 0, blockFor, false);
+            }
+            catch (InterruptedException e)
+            {
+                throw new AssertionError(e);
+            }
+            catch (ExecutionException e)
+            {
+                // the read we joined failed, and so does this one, the same way
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException)
+                    throw (RuntimeException) cause;
+                if (cause instanceof Error)
+                    throw (Error) cause;
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+}
@@ -128,12 +128,23 @@ public class AuditLogViewer
                 return;
             }
 
+            if (BinAuditLogger.AUDITLOG_COMPRESSED_BATCH.equals(type))
+            {
+                BinLog.readBatch(wireIn, record -> display(BinAuditLogger.AUDITLOG_TYPE, BinAuditLogger.readLogString(record)));
+                return;
+            }
+
+            display(type, wireIn.read(BinAuditLogger.AUDITLOG_MESSAGE).text());
+        }
+
+        private void display(String type, String message)
+        {
             StringBuilder sb = new StringBuilder();
             sb.append("Type: ")
               .append(type)
               .append(System.lineSeparator())
               .append("LogMessage: ")
-              .append(wireIn.read(BinAuditLogger.AUDITLOG_MESSAGE).text())
+              .append(message)
               .append(System.lineSeparator());
 
             displayFun.accept(sb.toString());
@@ -157,7 +168,7 @@ public class AuditLogViewer
 
         private boolean isSupportedType(String type)
         {
-            if (BinAuditLogger.AUDITLOG_TYPE.equals(type))
+            if (BinAuditLogger.AUDITLOG_TYPE.equals(type) || BinAuditLogger.AUDITLOG_COMPRESSED_BATCH.equals(type))
             {
                 return true;
             }
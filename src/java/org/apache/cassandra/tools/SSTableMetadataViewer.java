@@ -432,6 +432,8 @@ public class SSTableMetadataViewer
             field("StaticColumns", FBUtilities.toString(statics));
             field("RegularColumns", FBUtilities.toString(regulars));
             field("IsTransient", stats.isTransient);
+            field("HasPartitionLevelDeletions", stats.hasPartitionLevelDeletions);
+            field("HasRangeTombstones", stats.hasRangeTombstones);
         }
     }
 
@@ -42,6 +42,7 @@ public class GetFullQueryLog extends NodeToolCmd
         tableBuilder.add("max_log_size", Long.toString(options.max_log_size));
         tableBuilder.add("max_queue_weight", Integer.toString(options.max_queue_weight));
         tableBuilder.add("max_archive_retries", Long.toString(options.max_archive_retries));
+        tableBuilder.add("compressed_batches", Boolean.toString(options.compressed_batches));
 
         tableBuilder.printTo(probe.output().out);
     }
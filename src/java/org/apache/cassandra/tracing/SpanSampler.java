@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.tracing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.IMutation;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadata;
+
+/**
+ * Records, for a sample of the reads and writes, an in memory span of where their time went: how long they took on
+ * the coordinator and on the replicas, how long they waited before a replica started to process them, how many
+ * sstables they touched and how many chunk cache misses they had, and how long these misses waited for the disk.
+ *
+ * Unlike tracing, sampling is meant to be always on: a request that isn't sampled only costs a random draw, and a
+ * sampled one a few thread local lookups, and spans are only ever written to memory, to a ring buffer of the most
+ * recent ones and to per table aggregates, both exposed by virtual tables.
+ *
+ * A span is started and finished by the same thread, and is the current span of the thread in between, so that the
+ * code it calls into can add to it. A span started while another one is current, as when the coordinator executes the
+ * local read of a request on its own thread, takes over until it is finished.
+ */
+public class SpanSampler
+{
+    public enum Kind
+    {
+        COORDINATOR_READ, COORDINATOR_WRITE, REPLICA_READ, REPLICA_RANGE_READ, REPLICA_WRITE;
+
+        public String toString()
+        {
+            return name().toLowerCase();
+        }
+    }
+
+    public static final SpanSampler instance = new SpanSampler(DatabaseDescriptor.getSampledSpansBufferSize());
+
+    private static final FastThreadLocal<Span> current = new FastThreadLocal<>();
+
+    private final AtomicReferenceArray<Span> spans;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentMap<TableId, TableBreakdown> breakdowns = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    SpanSampler(int bufferSize)
+    {
+        spans = new AtomicReferenceArray<>(bufferSize);
+    }
+
+    /**
+     * @return a new span of the given table that is now the current one, or null if the request isn't sampled
+     */
+    public Span maybeStart(Kind kind, TableMetadata table, long queueNanos)
+    {
+        return shouldSample() ? start(kind, Collections.singletonList(table), queueNanos) : null;
+    }
+
+    /**
+     * @return a new span of the tables of the given mutation that is now the current one, or null if the request
+     * isn't sampled
+     */
+    public Span maybeStart(Kind kind, IMutation mutation, long queueNanos)
+    {
+        return maybeStart(kind, Collections.singletonList(mutation), queueNanos);
+    }
+
+    /**
+     * @return a new span of the tables of the given mutations that is now the current one, or null if the request
+     * isn't sampled
+     */
+    public Span maybeStart(Kind kind, Collection<? extends IMutation> mutations, long queueNanos)
+    {
+        if (!shouldSample())
+            return null;
+
+        List<TableMetadata> tables = new ArrayList<>();
+        for (IMutation mutation : mutations)
+        {
+            for (PartitionUpdate update : mutation.getPartitionUpdates())
+            {
+                if (!tables.contains(update.metadata()))
+                    tables.add(update.metadata());
+            }
+        }
+        return start(kind, tables, queueNanos);
+    }
+
+    private static boolean shouldSample()
+    {
+        double probability = DatabaseDescriptor.getSpanSamplingProbability();
+        return probability != 0 && ThreadLocalRandom.current().nextDouble() < probability;
+    }
+
+    private Span start(Kind kind, List<TableMetadata> tables, long queueNanos)
+    {
+        Span span = new Span(kind, tables, queueNanos, current.get());
+        current.set(span);
+        return span;
+    }
+
+    /**
+     * Finishes the given span, if any, which must be the current one, and records it.
+     */
+    public void finish(Span span)
+    {
+        if (span == null)
+            return;
+
+        span.durationNanos = System.nanoTime() - span.startNanos;
+        current.set(span.parent);
+        span.parent = null;
+
+        span.sequence = sequence.getAndIncrement();
+        spans.lazySet((int) (span.sequence % spans.length()), span);
+        for (TableMetadata table : span.tables)
+            breakdowns.computeIfAbsent(table.id, id -> new TableBreakdown(table)).add(span);
+    }
+
+    /**
+     * Adds the given number of sstables touched to the current span, if any.
+     */
+    public static void addSSTablesTouched(int count)
+    {
+        Span span = current.get();
+        if (span != null)
+            span.sstables += count;
+    }
+
+    /**
+     * @return whether the current thread has a span to add to
+     */
+    public static boolean isSampling()
+    {
+        return current.get() != null;
+    }
+
+    /**
+     * Adds a chunk cache miss, which waited for the disk for the given time, to the current span, if any.
+     */
+    public static void addChunkCacheMiss(long diskWaitNanos)
+    {
+        Span span = current.get();
+        if (span != null)
+        {
+            span.chunkCacheMisses++;
+            span.diskWaitNanos += diskWaitNanos;
+        }
+    }
+
+    /**
+     * @return the most recent spans, in no particular order
+     */
+    public List<Span> recentSpans()
+    {
+        List<Span> recent = new ArrayList<>(spans.length());
+        for (int i = 0; i < spans.length(); i++)
+        {
+            Span span = spans.get(i);
+            if (span != null)
+                recent.add(span);
+        }
+        return recent;
+    }
+
+    /**
+     * @return the aggregates of the spans of each table that still exists
+     */
+    public Collection<TableBreakdown> breakdowns()
+    {
+        breakdowns.keySet().removeIf(id -> Schema.instance.getTableMetadata(id) == null);
+        return breakdowns.values();
+    }
+
+    public static final class Span
+    {
+        public final Kind kind;
+        public final List<TableMetadata> tables;
+        public final long startedAtMillis = System.currentTimeMillis();
+        // for a replica, the time since the request was created, so including the network for a remote one
+        public final long queueNanos;
+
+        private final long startNanos = System.nanoTime();
+        // the span that was current when this one started, restored once it is finished
+        private Span parent;
+
+        // only written by the thread of the span until it is finished
+        private long durationNanos;
+        private int sstables;
+        private int chunkCacheMisses;
+        private long diskWaitNanos;
+        private long sequence;
+
+        private Span(Kind kind, List<TableMetadata> tables, long queueNanos, Span parent)
+        {
+            this.kind = kind;
+            this.tables = tables;
+            this.queueNanos = queueNanos;
+            this.parent = parent;
+        }
+
+        public long durationNanos()
+        {
+            return durationNanos;
+        }
+
+        public int sstables()
+        {
+            return sstables;
+        }
+
+        public int chunkCacheMisses()
+        {
+            return chunkCacheMisses;
+        }
+
+        public long diskWaitNanos()
+        {
+            return diskWaitNanos;
+        }
+
+        /**
+         * @return the order in which the span was finished, among all spans
+         */
+        public long sequence()
+        {
+            return sequence;
+        }
+    }
+
+    /**
+     * The aggregates of the spans of a table, by kind.
+     */
+    public static final class TableBreakdown
+    {
+        public final String keyspace;
+        public final String table;
+        private final Breakdown[] byKind = new Breakdown[Kind.values().length];
+
+        private TableBreakdown(TableMetadata metadata)
+        {
+            this.keyspace = metadata.keyspace;
+            this.table = metadata.name;
+            for (int i = 0; i < byKind.length; i++)
+                byKind[i] = new Breakdown();
+        }
+
+        private void add(Span span)
+        {
+            byKind[span.kind.ordinal()].add(span);
+        }
+
+        public Breakdown get(Kind kind)
+        {
+            return byKind[kind.ordinal()];
+        }
+    }
+
+    public static final class Breakdown
+    {
+        private final LongAdder spans = new LongAdder();
+        private final LongAdder durationNanos = new LongAdder();
+        private final LongAccumulator maxDurationNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder queueNanos = new LongAdder();
+        private final LongAdder sstables = new LongAdder();
+        private final LongAdder chunkCacheMisses = new LongAdder();
+        private final LongAdder diskWaitNanos = new LongAdder();
+
+        private void add(Span span)
+        {
+            spans.increment();
+            durationNanos.add(span.durationNanos);
+            maxDurationNanos.accumulate(span.durationNanos);
+            queueNanos.add(span.queueNanos);
+            sstables.add(span.sstables);
+            chunkCacheMisses.add(span.chunkCacheMisses);
+            diskWaitNanos.add(span.diskWaitNanos);
+        }
+
+        public long spans()
+        {
+            return spans.sum();
+        }
+
+        public long durationNanos()
+        {
+            return durationNanos.sum();
+        }
+
+        public long maxDurationNanos()
+        {
+            return maxDurationNanos.get();
+        }
+
+        public long queueNanos()
+        {
+            return queueNanos.sum();
+        }
+
+        public long sstables()
+        {
+            return sstables.sum();
+        }
+
+        public long chunkCacheMisses()
+        {
+            return chunkCacheMisses.sum();
+        }
+
+        public long diskWaitNanos()
+        {
+            return diskWaitNanos.sum();
+        }
+    }
+}
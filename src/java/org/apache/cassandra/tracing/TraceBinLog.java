@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.tracing;
+
+import java.net.InetAddress;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.UUID;
+
+import com.google.common.primitives.Ints;
+
+import net.openhft.chronicle.wire.ValueOut;
+import net.openhft.chronicle.wire.WireOut;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.ObjectSizes;
+import org.apache.cassandra.utils.binlog.BinLog;
+import org.apache.cassandra.utils.concurrent.WeightedQueue;
+
+/**
+ * Writes the tracing sessions and events of this node to a local binary log rather than to the system_traces tables,
+ * when tracing_storage is binlog. Each node only logs what it traces itself, so the events of a session are spread
+ * over the logs of the nodes it touched, and can be joined by session id.
+ */
+final class TraceBinLog
+{
+    static final long CURRENT_VERSION = 0;
+
+    static final String SESSION_START = "trace_session_start";
+    static final String SESSION_STOP = "trace_session_stop";
+    static final String EVENT = "trace_event";
+
+    static final String SESSION_ID = "session_id";
+    static final String SOURCE = "source";
+    static final String CLIENT = "client";
+    static final String REQUEST = "request";
+    static final String STARTED_AT = "started_at";
+    static final String COMMAND = "command";
+    static final String PARAMETERS = "parameters";
+    static final String DURATION = "duration";
+    static final String EVENT_ID = "event_id";
+    static final String ACTIVITY = "activity";
+    static final String SOURCE_ELAPSED = "source_elapsed";
+    static final String THREAD = "thread";
+
+    private final BinLog binLog;
+    private final String source = FBUtilities.getBroadcastAddressAndPort().toString();
+
+    TraceBinLog(TracingBinLogOptions options)
+    {
+        binLog = new BinLog.Builder().path(Paths.get(options.log_dir))
+                                     .rollCycle(options.roll_cycle)
+                                     .blocking(options.block)
+                                     .maxQueueWeight(options.max_queue_weight)
+                                     .maxLogSize(options.max_log_size)
+                                     .archiveCommand(options.archive_command)
+                                     .maxArchiveRetries(options.max_archive_retries)
+                                     .build(false);
+    }
+
+    void logSessionStart(UUID sessionId, InetAddress client, Map<String, String> parameters, String request, long startedAt, String command)
+    {
+        binLog.logRecord(new Record(SESSION_START, sessionId, ObjectSizes.sizeOf(request))
+        {
+            protected void writeRecordPayload(WireOut wire)
+            {
+                wire.write(CLIENT).text(client == null ? null : client.getHostAddress());
+                wire.write(REQUEST).text(request);
+                wire.write(STARTED_AT).int64(startedAt);
+                wire.write(COMMAND).text(command);
+                ValueOut valueOut = wire.write(PARAMETERS);
+                valueOut.int32(parameters.size());
+                for (Map.Entry<String, String> parameter : parameters.entrySet())
+                {
+                    valueOut.text(parameter.getKey());
+                    valueOut.text(parameter.getValue());
+                }
+            }
+        });
+    }
+
+    void logSessionStop(UUID sessionId, int duration)
+    {
+        binLog.logRecord(new Record(SESSION_STOP, sessionId, 0)
+        {
+            protected void writeRecordPayload(WireOut wire)
+            {
+                wire.write(DURATION).int32(duration);
+            }
+        });
+    }
+
+    void logEvent(UUID sessionId, TraceKeyspace.Event event)
+    {
+        binLog.logRecord(new Record(EVENT, sessionId, ObjectSizes.sizeOf(event.message))
+        {
+            protected void writeRecordPayload(WireOut wire)
+            {
+                wire.write(EVENT_ID).text(event.id.toString());
+                wire.write(ACTIVITY).text(event.message);
+                wire.write(SOURCE_ELAPSED).int32(event.elapsed);
+                wire.write(THREAD).text(event.threadName);
+            }
+        });
+    }
+
+    void stop() throws InterruptedException
+    {
+        binLog.stop();
+    }
+
+    private abstract class Record extends BinLog.ReleaseableWriteMarshallable implements WeightedQueue.Weighable
+    {
+        // a rough estimate of the heap used by a record, on top of its strings
+        private static final int RECORD_OVERHEAD = 128;
+
+        private final String type;
+        private final UUID sessionId;
+        private final int weight;
+
+        Record(String type, UUID sessionId, long payloadSize)
+        {
+            this.type = type;
+            this.sessionId = sessionId;
+            this.weight = Ints.saturatedCast(RECORD_OVERHEAD + payloadSize);
+        }
+
+        protected long version()
+        {
+            return CURRENT_VERSION;
+        }
+
+        protected String type()
+        {
+            return type;
+        }
+
+        public void writeMarshallablePayload(WireOut wire)
+        {
+            wire.write(SESSION_ID).text(sessionId.toString());
+            wire.write(SOURCE).text(source);
+            writeRecordPayload(wire);
+        }
+
+        protected abstract void writeRecordPayload(WireOut wire);
+
+        public void release()
+        {
+        }
+
+        public int weight()
+        {
+            return weight;
+        }
+    }
+}
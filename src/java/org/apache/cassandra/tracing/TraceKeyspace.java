@@ -139,19 +139,50 @@ public final class TraceKeyspace
 
     static Mutation makeEventMutation(ByteBuffer sessionId, String message, int elapsed, String threadName, int ttl)
     {
-        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(Events, sessionId);
-        Row.SimpleBuilder rowBuilder = builder.row(UUIDGen.getTimeUUID())
-                                              .ttl(ttl);
-
-        rowBuilder.add("activity", message)
-                  .add("source", FBUtilities.getBroadcastAddressAndPort().address);
-        if (!Gossiper.instance.haveMajorVersion3Nodes())
-            rowBuilder.add("source_port", FBUtilities.getBroadcastAddressAndPort().port);
-        rowBuilder.add("thread", threadName);
+        return makeEventsMutation(sessionId, Collections.singletonList(new Event(message, elapsed, threadName)), ttl);
+    }
 
-        if (elapsed >= 0)
-            rowBuilder.add("source_elapsed", elapsed);
+    /**
+     * @return a single mutation of the partition of the given session in the events table, with a row per event
+     */
+    static Mutation makeEventsMutation(ByteBuffer sessionId, List<Event> events, int ttl)
+    {
+        PartitionUpdate.SimpleBuilder builder = PartitionUpdate.simpleBuilder(Events, sessionId);
+        boolean withPort = !Gossiper.instance.haveMajorVersion3Nodes();
+        for (Event event : events)
+        {
+            Row.SimpleBuilder rowBuilder = builder.row(event.id)
+                                                  .ttl(ttl);
+
+            rowBuilder.add("activity", event.message)
+                      .add("source", FBUtilities.getBroadcastAddressAndPort().address);
+            if (withPort)
+                rowBuilder.add("source_port", FBUtilities.getBroadcastAddressAndPort().port);
+            rowBuilder.add("thread", event.threadName);
+
+            if (event.elapsed >= 0)
+                rowBuilder.add("source_elapsed", event.elapsed);
+        }
 
         return builder.buildAsMutation();
     }
+
+    /**
+     * A trace event, whose id is the time it was traced at.
+     */
+    static final class Event
+    {
+        final UUID id = UUIDGen.getTimeUUID();
+        final String message;
+        // -1 if unknown
+        final int elapsed;
+        final String threadName;
+
+        Event(String message, int elapsed, String threadName)
+        {
+            this.message = message;
+            this.elapsed = elapsed;
+            this.threadName = threadName;
+        }
+    }
 }
@@ -17,7 +17,10 @@
  */
 package org.apache.cassandra.tracing;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -30,7 +33,10 @@ import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.cassandra.concurrent.ScheduledExecutors;
 import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.ConsistencyLevel;
 import org.apache.cassandra.db.Mutation;
 import org.apache.cassandra.exceptions.OverloadedException;
@@ -42,6 +48,11 @@ import org.apache.cassandra.utils.WrappedRunnable;
 /**
  * ThreadLocal state for a tracing session. The presence of an instance of this class as a ThreadLocal denotes that an
  * operation is being traced.
+ *
+ * Events are buffered per session and written as a single partition update once enough of them accumulate, when the
+ * session stops (along with the stop of the session), when a replica is done with its part of the session, or at
+ * the latest after tracing_events_flush_interval_ms. When tracing_storage is binlog, they are instead written to the
+ * local {@link TraceBinLog} as they come.
  */
 public class TraceStateImpl extends TraceState
 {
@@ -51,8 +62,29 @@ public class TraceStateImpl extends TraceState
     public static int WAIT_FOR_PENDING_EVENTS_TIMEOUT_SECS =
       Integer.parseInt(System.getProperty("cassandra.wait_for_tracing_events_timeout_secs", "0"));
 
+    @VisibleForTesting
+    public static int EVENTS_BATCH_SIZE =
+      Integer.parseInt(System.getProperty("cassandra.tracing_events_batch_size", "64"));
+
+    private static final long EVENTS_FLUSH_INTERVAL_MS =
+      Long.parseLong(System.getProperty("cassandra.tracing_events_flush_interval_ms", "1000"));
+
+    // the states that have buffered events, so sessions that never stop still get theirs written
+    private static final Set<TraceStateImpl> statesWithPendingEvents = ConcurrentHashMap.newKeySet();
+
+    static
+    {
+        ScheduledExecutors.optionalTasks.scheduleWithFixedDelay(TraceStateImpl::flushAllEvents,
+                                                                EVENTS_FLUSH_INTERVAL_MS,
+                                                                EVENTS_FLUSH_INTERVAL_MS,
+                                                                TimeUnit.MILLISECONDS);
+    }
+
     private final Set<Future<?>> pendingFutures = ConcurrentHashMap.newKeySet();
 
+    // guarded by itself rather than by this, which TraceState waits on for activity notifications
+    private final List<TraceKeyspace.Event> pendingEvents = new ArrayList<>();
+
     public TraceStateImpl(InetAddressAndPort coordinator, UUID sessionId, Tracing.TraceType traceType)
     {
         super(coordinator, sessionId, traceType);
@@ -60,19 +92,86 @@ public class TraceStateImpl extends TraceState
 
     protected void traceImpl(String message)
     {
-        final String threadName = Thread.currentThread().getName();
-        final int elapsed = elapsed();
-
-        executeMutation(TraceKeyspace.makeEventMutation(sessionIdBytes, message, elapsed, threadName, ttl));
+        TraceKeyspace.Event event = new TraceKeyspace.Event(message, elapsed(), Thread.currentThread().getName());
         if (logger.isTraceEnabled())
             logger.trace("Adding <{}> to trace events", message);
+
+        if (DatabaseDescriptor.getTracingStorage() == Config.TracingStorage.binlog)
+        {
+            TracingImpl.binLog().logEvent(sessionId, event);
+            return;
+        }
+
+        List<TraceKeyspace.Event> batch = null;
+        synchronized (pendingEvents)
+        {
+            pendingEvents.add(event);
+            if (pendingEvents.size() >= EVENTS_BATCH_SIZE)
+                batch = drainEvents();
+            else if (pendingEvents.size() == 1)
+                statesWithPendingEvents.add(this);
+        }
+
+        if (batch != null)
+            executeMutation(TraceKeyspace.makeEventsMutation(sessionIdBytes, batch, ttl));
+    }
+
+    /**
+     * Writes the buffered events, if any.
+     */
+    void flushEvents()
+    {
+        flushEvents(null);
+    }
+
+    /**
+     * Writes the buffered events, if any, in the same mutation as {@code sessionMutation} if not null.
+     */
+    void flushEvents(Mutation sessionMutation)
+    {
+        List<TraceKeyspace.Event> batch;
+        synchronized (pendingEvents)
+        {
+            batch = drainEvents();
+        }
+
+        if (batch.isEmpty())
+        {
+            if (sessionMutation != null)
+                executeMutation(sessionMutation);
+            return;
+        }
+
+        Mutation eventsMutation = TraceKeyspace.makeEventsMutation(sessionIdBytes, batch, ttl);
+        executeMutation(sessionMutation == null ? eventsMutation : Mutation.merge(Arrays.asList(sessionMutation, eventsMutation)));
+    }
+
+    private List<TraceKeyspace.Event> drainEvents()
+    {
+        assert Thread.holdsLock(pendingEvents);
+
+        if (pendingEvents.isEmpty())
+            return Collections.emptyList();
+
+        List<TraceKeyspace.Event> batch = new ArrayList<>(pendingEvents);
+        pendingEvents.clear();
+        statesWithPendingEvents.remove(this);
+        return batch;
+    }
+
+    private static void flushAllEvents()
+    {
+        for (TraceStateImpl state : statesWithPendingEvents)
+            state.flushEvents();
     }
 
     /**
-     * Wait on submitted futures
+     * Write the buffered events and wait on submitted futures
      */
     protected void waitForPendingEvents()
     {
+        flushEvents();
+
         if (WAIT_FOR_PENDING_EVENTS_TIMEOUT_SECS <= 0)
             return;
 
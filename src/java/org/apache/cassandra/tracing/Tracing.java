@@ -365,4 +365,11 @@ public abstract class Tracing implements ExecutorLocal<TraceState>
      * Called for non-local traces (traces that are not initiated by local node == coordinator).
      */
     public abstract void trace(ByteBuffer sessionId, String message, int ttl);
+
+    /**
+     * Called when the node drains, once nothing is traced anymore, to release what the implementation holds.
+     */
+    public void shutdown() throws InterruptedException
+    {
+    }
 }
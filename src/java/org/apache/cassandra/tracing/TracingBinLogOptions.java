@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.tracing;
+
+import org.apache.commons.lang3.StringUtils;
+
+import org.apache.cassandra.utils.binlog.BinLogOptions;
+
+/**
+ * The options of the binary log tracing writes to when tracing_storage is binlog. Unlike the other binary logs, the
+ * tracing one defaults to a ring of small files that never blocks the traced requests: the oldest files are deleted
+ * once the log reaches its maximum size, and events are dropped if the log falls behind.
+ */
+public class TracingBinLogOptions extends BinLogOptions
+{
+    public String log_dir = StringUtils.EMPTY;
+
+    public TracingBinLogOptions()
+    {
+        roll_cycle = "MINUTELY";
+        block = false;
+        max_queue_weight = 64 * 1024 * 1024;
+        max_log_size = 1024L * 1024L * 1024L;
+    }
+
+    public String toString()
+    {
+        return "TracingBinLogOptions{" +
+               "log_dir='" + log_dir + '\'' +
+               ", archive_command='" + archive_command + '\'' +
+               ", roll_cycle='" + roll_cycle + '\'' +
+               ", block=" + block +
+               ", max_queue_weight=" + max_queue_weight +
+               ", max_log_size=" + max_log_size +
+               '}';
+    }
+}
@@ -25,7 +25,10 @@ import java.util.Map;
 import java.util.UUID;
 
 import org.apache.cassandra.concurrent.Stage;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.locator.InetAddressAndPort;
+import org.apache.cassandra.utils.UUIDGen;
 import org.apache.cassandra.utils.WrappedRunnable;
 
 
@@ -35,6 +38,42 @@ import org.apache.cassandra.utils.WrappedRunnable;
  */
 class TracingImpl extends Tracing
 {
+    // only created once something is traced with tracing_storage: binlog
+    private static volatile TraceBinLog binLog;
+
+    static TraceBinLog binLog()
+    {
+        TraceBinLog log = binLog;
+        if (log != null)
+            return log;
+
+        synchronized (TracingImpl.class)
+        {
+            if (binLog == null)
+                binLog = new TraceBinLog(DatabaseDescriptor.getTracingBinLogOptions());
+            return binLog;
+        }
+    }
+
+    @Override
+    public void shutdown() throws InterruptedException
+    {
+        TraceBinLog log;
+        synchronized (TracingImpl.class)
+        {
+            log = binLog;
+            binLog = null;
+        }
+
+        if (log != null)
+            log.stop();
+    }
+
+    private static boolean useBinLog()
+    {
+        return DatabaseDescriptor.getTracingStorage() == Config.TracingStorage.binlog;
+    }
+
     public void stopSessionImpl()
     {
         final TraceStateImpl state = getStateImpl();
@@ -45,7 +84,10 @@ class TracingImpl extends Tracing
         ByteBuffer sessionId = state.sessionIdBytes;
         int ttl = state.ttl;
 
-        state.executeMutation(TraceKeyspace.makeStopSessionMutation(sessionId, elapsed, ttl));
+        if (useBinLog())
+            binLog().logSessionStop(state.sessionId, elapsed);
+        else
+            state.flushEvents(TraceKeyspace.makeStopSessionMutation(sessionId, elapsed, ttl));
     }
 
     public TraceState begin(final String request, final InetAddress client, final Map<String, String> parameters)
@@ -60,10 +102,23 @@ class TracingImpl extends Tracing
         final String command = state.traceType.toString();
         final int ttl = state.ttl;
 
-        state.executeMutation(TraceKeyspace.makeStartSessionMutation(sessionId, client, parameters, request, startedAt, command, ttl));
+        if (useBinLog())
+            binLog().logSessionStart(state.sessionId, client, parameters, request, startedAt, command);
+        else
+            state.executeMutation(TraceKeyspace.makeStartSessionMutation(sessionId, client, parameters, request, startedAt, command, ttl));
         return state;
     }
 
+    @Override
+    public void doneWithNonLocalSession(TraceState state)
+    {
+        super.doneWithNonLocalSession(state);
+
+        // the replica has answered, so write what it traced without waiting for more events
+        if (state instanceof TraceStateImpl)
+            ((TraceStateImpl) state).flushEvents();
+    }
+
     /**
      * Convert the abstract tracing state to its implementation.
      *
@@ -105,6 +160,12 @@ class TracingImpl extends Tracing
     {
         final String threadName = Thread.currentThread().getName();
 
+        if (useBinLog())
+        {
+            binLog().logEvent(UUIDGen.getUUID(sessionId), new TraceKeyspace.Event(message, -1, threadName));
+            return;
+        }
+
         Stage.TRACING.execute(new WrappedRunnable()
         {
             public void runMayThrow()
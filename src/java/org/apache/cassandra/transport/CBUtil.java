@@ -464,6 +464,19 @@ public abstract class CBUtil
         cb.writeInt(remaining);
 
         if (remaining > 0)
+            writeBytes(bytes, remaining, cb);
+    }
+
+    /**
+     * Writes the {@code remaining} readable bytes of {@code bytes} without modifying its position. Heap buffers are
+     * copied straight from their backing array as {@code duplicate()} allocates for every value written, which
+     * adds up when encoding large result sets.
+     */
+    private static void writeBytes(ByteBuffer bytes, int remaining, ByteBuf cb)
+    {
+        if (bytes.hasArray())
+            cb.writeBytes(bytes.array(), bytes.arrayOffset() + bytes.position(), remaining);
+        else
             cb.writeBytes(bytes.duplicate());
     }
 
@@ -28,6 +28,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -35,10 +36,16 @@ import com.google.common.base.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ChronicleQueueBuilder;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.WireIn;
 import net.openhft.chronicle.wire.WireOut;
 import net.openhft.chronicle.wire.WriteMarshallable;
 import org.apache.cassandra.concurrent.NamedThreadFactory;
@@ -73,6 +80,16 @@ public class BinLog implements Runnable
     public static final String VERSION = "version";
     public static final String TYPE = "type";
 
+    public static final String BATCH_RECORDS = "records";
+    public static final String BATCH_LENGTH = "uncompressed-length";
+    public static final String BATCH_CONTENT = "batch";
+
+    // a batch is written once it is at least this large, or once the writer caught up with the queue
+    private static final int BATCH_SIZE = 64 * 1024;
+    // how many records to write per drain of the queue, batches cannot grow larger than that
+    private static final int DRAIN_SIZE = 16;
+    private static final int BATCHED_DRAIN_SIZE = 1024;
+
     private ChronicleQueue queue;
     private ExcerptAppender appender;
     @VisibleForTesting
@@ -81,6 +98,13 @@ public class BinLog implements Runnable
     private final BinLogArchiver archiver;
     private final boolean blocking;
 
+    // only used by the log writing thread, and only if compressed batches are enabled
+    private final ByteBuf batch;
+    private final LZ4Compressor compressor;
+    private String batchType;
+    private long batchVersion;
+    private int batchRecords;
+
     private final AtomicLong droppedSamplesSinceLastLog = new AtomicLong();
 
     private BinLogOptions options;
@@ -133,6 +157,8 @@ public class BinLog implements Runnable
         appender = queue.acquireAppender();
         this.blocking = options.block;
         this.path = path;
+        this.batch = options.compressed_batches ? Unpooled.buffer(BATCH_SIZE) : null;
+        this.compressor = options.compressed_batches ? LZ4Factory.fastestInstance().fastCompressor() : null;
 
         this.options = options;
     }
@@ -223,8 +249,96 @@ public class BinLog implements Runnable
                 continue;
             }
 
+            if (batch != null && t instanceof BatchableWriteMarshallable)
+            {
+                addToBatch((BatchableWriteMarshallable) t);
+                continue;
+            }
+
+            writeBatch();
             appender.writeDocument(t);
         }
+        writeBatch();
+    }
+
+    private void addToBatch(BatchableWriteMarshallable record)
+    {
+        if (batchRecords > 0 && (!record.batchType().equals(batchType) || record.version() != batchVersion))
+            writeBatch();
+
+        batchType = record.batchType();
+        batchVersion = record.version();
+
+        int lengthIndex = batch.writerIndex();
+        batch.writeInt(0);
+        try
+        {
+            record.writeTo(batch);
+        }
+        catch (Throwable t)
+        {
+            // drop whatever the record wrote, so the batch stays readable, and carry on with the next records
+            batch.writerIndex(lengthIndex);
+            JVMStabilityInspector.inspectThrowable(t);
+            logger.error("Unable to add a {} record to the binary log batch, skipping it", batchType, t);
+            return;
+        }
+        batch.setInt(lengthIndex, batch.writerIndex() - lengthIndex - 4);
+        batchRecords++;
+
+        if (batch.readableBytes() >= BATCH_SIZE)
+            writeBatch();
+    }
+
+    private void writeBatch()
+    {
+        if (batchRecords == 0)
+            return;
+
+        String type = batchType;
+        long version = batchVersion;
+        int records = batchRecords;
+        int length = batch.readableBytes();
+        byte[] compressed = compressor.compress(batch.array(), batch.arrayOffset() + batch.readerIndex(), length);
+        try
+        {
+            appender.writeDocument(wire ->
+            {
+                wire.write(VERSION).int16(version);
+                wire.write(TYPE).text(type);
+                wire.write(BATCH_RECORDS).int32(records);
+                wire.write(BATCH_LENGTH).int32(length);
+                wire.write(BATCH_CONTENT).bytes(compressed);
+            });
+        }
+        finally
+        {
+            batch.clear();
+            // don't hold on to the memory of an unusually large record
+            if (batch.capacity() > 4 * BATCH_SIZE)
+                batch.capacity(BATCH_SIZE);
+            batchRecords = 0;
+        }
+    }
+
+    /**
+     * Reads the records of a document written as a compressed batch, whose version and type have already been read,
+     * handing each of them to the consumer in the order they were logged. The buffers handed to the consumer are
+     * only valid until it returns.
+     */
+    public static void readBatch(WireIn wire, Consumer<ByteBuf> consumer)
+    {
+        int records = wire.read(BATCH_RECORDS).int32();
+        int length = wire.read(BATCH_LENGTH).int32();
+        byte[] compressed = wire.read(BATCH_CONTENT).bytes();
+
+        LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+        ByteBuf batch = Unpooled.wrappedBuffer(decompressor.decompress(compressed, length));
+        for (int ii = 0; ii < records; ii++)
+        {
+            int recordLength = batch.readInt();
+            consumer.accept(batch.readSlice(recordLength));
+        }
     }
 
     @Override
@@ -238,7 +352,7 @@ public class BinLog implements Runnable
                 tasks.clear();
                 ReleaseableWriteMarshallable task = sampleQueue.take();
                 tasks.add(task);
-                sampleQueue.drainTo(tasks, 15);
+                sampleQueue.drainTo(tasks, (batch != null ? BATCHED_DRAIN_SIZE : DRAIN_SIZE) - 1);
 
                 processTasks(tasks);
             }
@@ -349,6 +463,25 @@ public class BinLog implements Runnable
         public abstract void release();
     }
 
+    /**
+     * A record that can also be written in binary form, so that when compressed batches are enabled it is appended to
+     * a batch of records of the same type and version rather than written as a document of its own. The batch
+     * documents have the same version as their records and the type returned by {@link #batchType()}, and can be
+     * read with {@link #readBatch(WireIn, Consumer)}.
+     */
+    public abstract static class BatchableWriteMarshallable extends ReleaseableWriteMarshallable
+    {
+        /**
+         * @return the type of the documents the batches of this record are written as
+         */
+        protected abstract String batchType();
+
+        /**
+         * Writes this record, in binary form, to a batch.
+         */
+        protected abstract void writeTo(ByteBuf batch);
+    }
+
     public static class Builder
     {
         private Path path;
@@ -358,6 +491,7 @@ public class BinLog implements Runnable
         private String archiveCommand;
         private int maxArchiveRetries;
         private boolean blocking;
+        private boolean compressedBatches;
 
         public Builder path(Path path)
         {
@@ -412,10 +546,16 @@ public class BinLog implements Runnable
             return this;
         }
 
+        public Builder compressedBatches(boolean compressedBatches)
+        {
+            this.compressedBatches = compressedBatches;
+            return this;
+        }
+
 
         public BinLog build(boolean cleanDirectory)
         {
-            logger.info("Attempting to configure bin log: Path: {} Roll cycle: {} Blocking: {} Max queue weight: {} Max log size:{} Archive command: {}", path, rollCycle, blocking, maxQueueWeight, maxLogSize, archiveCommand);
+            logger.info("Attempting to configure bin log: Path: {} Roll cycle: {} Blocking: {} Max queue weight: {} Max log size:{} Archive command: {} Compressed batches: {}", path, rollCycle, blocking, maxQueueWeight, maxLogSize, archiveCommand, compressedBatches);
             synchronized (currentPaths)
             {
                 if (currentPaths.contains(path))
@@ -447,6 +587,7 @@ public class BinLog implements Runnable
                 options.roll_cycle = rollCycle;
                 options.archive_command = archiveCommand;
                 options.max_archive_retries = maxArchiveRetries;
+                options.compressed_batches = compressedBatches;
 
                 BinLog binlog = new BinLog(path, options, archiver);
                 binlog.start();
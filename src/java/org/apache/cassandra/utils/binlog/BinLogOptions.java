@@ -50,4 +50,17 @@ public class BinLogOptions
      * Limit the number of times to retry a command.
      */
     public int max_archive_retries = 10;
+
+    /**
+     * Indicates if the records that support it should be written in LZ4 compressed batches, a document per batch,
+     * rather than as a document each. Batches are cut whenever the writer catches up with the queue, so this only
+     * trades latency for throughput when the log is under load.
+     *
+     * Readers tell the two formats apart by the type of each document, rather than by the version of the log, so a
+     * log can hold both, for instance once this is enabled on a running node, and the readers of this release read
+     * either. Off by default so that the logs stay readable by the tools of earlier releases, which only know of the
+     * document per record format. It is meant to become the default once no such reader is supported anymore, with
+     * no change to the format of the documents, which will keep being read.
+     */
+    public boolean compressed_batches = false;
 }
@@ -59,7 +59,8 @@ public abstract class EnsureOnHeap extends Transformation
         {
             if (row == null)
                 return null;
-            return Rows.copy(row, HeapAllocator.instance.cloningBTreeRowBuilder()).build();
+            // memtable rows are already sorted and reconciled, so we only need to clone their clustering and values
+            return row.copy(HeapAllocator.instance);
         }
 
         public Row applyToStatic(Row row)
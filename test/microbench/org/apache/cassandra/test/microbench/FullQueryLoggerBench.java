@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.test.microbench;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.fql.FullQueryLogger;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.service.ClientState;
+import org.apache.cassandra.service.QueryState;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.binlog.BinLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The rate at which queries can be logged to a blocking full query log, writing a document per query or compressed
+ * batches of them. The queue being bounded, this is the rate at which the log writer drains it once it is full.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 4, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 8, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(value = 2)
+@Threads(4)
+@State(Scope.Benchmark)
+public class FullQueryLoggerBench
+{
+    @Param({"false", "true"})
+    private boolean compressedBatches;
+
+    private File dir;
+    private BinLog binLog;
+    private QueryState queryState;
+    private QueryOptions options;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception
+    {
+        DatabaseDescriptor.daemonInitialization();
+        dir = Files.createTempDirectory("fqlbench").toFile();
+        binLog = new BinLog.Builder().path(dir.toPath())
+                                     .rollCycle("HOURLY")
+                                     .blocking(true)
+                                     .maxQueueWeight(256 * 1024 * 1024)
+                                     .maxLogSize(16L * 1024 * 1024 * 1024)
+                                     .compressedBatches(compressedBatches)
+                                     .build(false);
+        queryState = new QueryState(ClientState.forExternalCalls(new InetSocketAddress("127.0.0.1", 9042)));
+        options = QueryOptions.forInternalCalls(Collections.singletonList(ByteBufferUtil.bytes("some value of a logged query")));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception
+    {
+        binLog.stop();
+        FileUtils.deleteRecursive(dir);
+    }
+
+    @Benchmark
+    public void logQuery() throws InterruptedException
+    {
+        binLog.put(new FullQueryLogger.Query("SELECT * FROM ks.tbl WHERE pk = ?", options, queryState, System.currentTimeMillis()));
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.cassandra.metrics.LatencyMetrics;
 import org.apache.cassandra.metrics.LatencyMetricsTest;
 import org.apache.cassandra.metrics.MetricNameFactory;
 import org.apache.cassandra.metrics.TableMetrics;
+import org.apache.cassandra.metrics.ThreadLocalDecayingHistogramReservoir;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.CompilerControl;
@@ -38,6 +39,7 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -59,9 +61,14 @@ public class LatencyTrackingBench
     private LatencyMetrics parent;
     private LatencyMetrics grandParent;
     private DecayingEstimatedHistogramReservoir dehr;
+    private ThreadLocalDecayingHistogramReservoir threadLocalDehr;
     private final MetricNameFactory factory = new BenchMetricsNameFactory();
     private long[] values = new long[1024];
 
+    // every set of params runs in its own fork, so this is read before LatencyMetrics is initialized
+    @Param({ "true", "false" })
+    private String threadLocalRecording;
+
     class BenchMetricsNameFactory implements MetricNameFactory
     {
 
@@ -72,6 +79,12 @@ public class LatencyTrackingBench
         }
     }
 
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        System.setProperty("cassandra.latency_metrics_thread_local", threadLocalRecording);
+    }
+
     @Setup(Level.Iteration)
     public void setup() 
     {
@@ -81,6 +94,7 @@ public class LatencyTrackingBench
         // Replicates behavior from ColumnFamilyStore metrics
         metrics = new LatencyMetrics(factory, "testCF", parent, grandParent);
         dehr = new DecayingEstimatedHistogramReservoir(false);
+        threadLocalDehr = new ThreadLocalDecayingHistogramReservoir();
         for(int i = 0; i < 1024; i++) 
         {
             values[i] = TimeUnit.MICROSECONDS.toNanos(ThreadLocalRandom.current().nextLong(346));
@@ -115,4 +129,41 @@ public class LatencyTrackingBench
         }
         bh.consume(dehr);
     }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public void benchInsertToThreadLocalDEHR(Blackhole bh)
+    {
+        for(int i = 0; i < values.length; i++)
+        {
+            threadLocalDehr.update(values[i]);
+        }
+        bh.consume(threadLocalDehr);
+    }
+
+    // a node records latencies from far more threads than it has cores: those of the request stages and of netty
+
+    @Benchmark
+    @Threads(64)
+    @OperationsPerInvocation(1024)
+    public void benchLatencyMetricsWriteManyThreads()
+    {
+        benchLatencyMetricsWrite();
+    }
+
+    @Benchmark
+    @Threads(64)
+    @OperationsPerInvocation(1024)
+    public void benchInsertToDEHRManyThreads(Blackhole bh)
+    {
+        benchInsertToDEHR(bh);
+    }
+
+    @Benchmark
+    @Threads(64)
+    @OperationsPerInvocation(1024)
+    public void benchInsertToThreadLocalDEHRManyThreads(Blackhole bh)
+    {
+        benchInsertToThreadLocalDEHR(bh);
+    }
 }
@@ -21,23 +21,32 @@
 package org.apache.cassandra.test.microbench;
 
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.dht.Murmur3Partitioner;
 import org.apache.cassandra.dht.RandomPartitioner;
 import org.apache.cassandra.dht.Range;
 import org.apache.cassandra.dht.Token;
+import org.apache.cassandra.locator.AbstractReplicationStrategy;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.locator.PendingRangeMaps;
 import org.apache.cassandra.locator.Replica;
 import org.apache.cassandra.locator.ReplicaUtils;
+import org.apache.cassandra.locator.SimpleSnitch;
+import org.apache.cassandra.locator.SimpleStrategy;
+import org.apache.cassandra.locator.TokenMetadata;
 import org.openjdk.jmh.annotations.*;
 import org.openjdk.jmh.infra.Blackhole;
 
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
@@ -113,4 +122,101 @@ public class PendingRangesBench
         bh.consume(replicas);
     }
 
+    /**
+     * A ring of {@code nodes} nodes with {@code vnodes} tokens each, one of which bootstrapping, and {@code keyspaces}
+     * keyspaces spread over a few replication factors.
+     */
+    @State(Scope.Benchmark)
+    public static class Ring
+    {
+        @Param({ "1000" })
+        int nodes;
+
+        @Param({ "256" })
+        int vnodes;
+
+        @Param({ "80" })
+        int keyspaces;
+
+        @Param({ "3" })
+        int replicationFactors;
+
+        TokenMetadata tokenMetadata;
+        List<String> keyspaceNames;
+        List<AbstractReplicationStrategy> strategies;
+
+        @Setup(Level.Trial)
+        public void setUp() throws UnknownHostException
+        {
+            DatabaseDescriptor.daemonInitialization();
+            DatabaseDescriptor.setPartitionerUnsafe(Murmur3Partitioner.instance);
+
+            Random random = new Random(42);
+            tokenMetadata = new TokenMetadata();
+            for (int i = 0; i < nodes; i++)
+                tokenMetadata.updateNormalTokens(randomTokens(random), endpoint(i));
+            tokenMetadata.addBootstrapTokens(randomTokens(random), endpoint(nodes));
+
+            SimpleSnitch snitch = new SimpleSnitch();
+            keyspaceNames = new ArrayList<>(keyspaces);
+            strategies = new ArrayList<>(keyspaces);
+            for (int i = 0; i < keyspaces; i++)
+            {
+                String rf = Integer.toString(1 + i % replicationFactors);
+                keyspaceNames.add("ks" + i);
+                strategies.add(new SimpleStrategy("ks" + i, tokenMetadata, snitch, ImmutableMap.of("replication_factor", rf)));
+            }
+        }
+
+        private Collection<Token> randomTokens(Random random)
+        {
+            List<Token> tokens = new ArrayList<>(vnodes);
+            for (int i = 0; i < vnodes; i++)
+                tokens.add(new Murmur3Partitioner.LongToken(random.nextLong()));
+            return tokens;
+        }
+
+        private static InetAddressAndPort endpoint(int i) throws UnknownHostException
+        {
+            return InetAddressAndPort.getByAddress(new byte[]{ 10, (byte) (i >> 16), (byte) (i >> 8), (byte) i });
+        }
+
+        void calculatePendingRanges(Blackhole bh)
+        {
+            for (int i = 0; i < keyspaces; i++)
+            {
+                tokenMetadata.calculatePendingRanges(strategies.get(i), keyspaceNames.get(i));
+                bh.consume(tokenMetadata.getPendingRanges(keyspaceNames.get(i)));
+            }
+        }
+    }
+
+    /**
+     * Pending range calculation for every keyspace after a ring change, as done by the PendingRangeCalculatorService
+     * when a node starts bootstrapping.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+    public void calculatePendingRangesAfterRingChange(Ring ring, Blackhole bh)
+    {
+        ring.tokenMetadata.invalidateCachedRings();
+        ring.calculatePendingRanges(bh);
+    }
+
+    /**
+     * Pending range calculation for every keyspace on a gossip state change that didn't modify the ring.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    @Fork(value = 1, jvmArgsAppend = "-Xmx4G")
+    public void calculatePendingRangesWithoutRingChange(Ring ring, Blackhole bh)
+    {
+        ring.calculatePendingRanges(bh);
+    }
 }
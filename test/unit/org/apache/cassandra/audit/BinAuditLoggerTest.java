@@ -18,6 +18,10 @@
 package org.apache.cassandra.audit;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -32,6 +36,7 @@ import net.openhft.chronicle.queue.RollCycles;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.config.ParameterizedClass;
 import org.apache.cassandra.cql3.CQLTester;
+import org.apache.cassandra.utils.binlog.BinLog;
 import org.apache.cassandra.utils.binlog.BinLogTest;
 
 import static org.hamcrest.core.StringContains.containsString;
@@ -92,4 +97,60 @@ public class BinAuditLoggerTest extends CQLTester
             }));
         }
     }
+
+    @Test
+    public void testCompressedBatches() throws Throwable
+    {
+        Path dir = BinLogTest.tempDir();
+        AuditLogOptions previous = DatabaseDescriptor.getAuditLoggingOptions();
+        AuditLogOptions options = new AuditLogOptions();
+        options.roll_cycle = "TEST_SECONDLY";
+        options.block = true;
+        options.audit_logs_dir = dir.toString();
+        options.compressed_batches = true;
+        DatabaseDescriptor.setAuditLoggingOptions(options);
+
+        List<String> expected = new ArrayList<>();
+        List<String> read = new ArrayList<>();
+        BinAuditLogger auditLogger = new BinAuditLogger(Collections.emptyMap());
+        try
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                AuditLogEntry entry = new AuditLogEntry.Builder(i % 2 == 0 ? AuditLogEntryType.SELECT : AuditLogEntryType.UPDATE)
+                                      .setUser("user" + i)
+                                      .setTimestamp(i + 1)
+                                      .setKeyspace(i % 3 == 0 ? null : KEYSPACE)
+                                      .setBatch(i % 5 == 0 ? UUID.randomUUID() : null)
+                                      .setOperation("query " + i)
+                                      .build();
+                auditLogger.log(entry);
+                expected.add(entry.getLogString());
+            }
+
+            long deadline = System.currentTimeMillis() + 60000;
+            try (ChronicleQueue queue = ChronicleQueueBuilder.single(dir.toFile()).rollCycle(RollCycles.TEST_SECONDLY).readOnly(true).build())
+            {
+                ExcerptTailer tailer = queue.createTailer();
+                while (read.size() < expected.size() && System.currentTimeMillis() < deadline)
+                {
+                    boolean hadDocument = tailer.readDocument(wire -> {
+                        assertEquals(0L, wire.read("version").int16());
+                        assertEquals(BinAuditLogger.AUDITLOG_COMPRESSED_BATCH, wire.read("type").text());
+                        BinLog.readBatch(wire, record -> read.add(BinAuditLogger.readLogString(record)));
+                    });
+                    if (!hadDocument)
+                        Thread.sleep(10);
+                }
+            }
+        }
+        finally
+        {
+            auditLogger.stop();
+            DatabaseDescriptor.setAuditLoggingOptions(previous);
+        }
+
+        // the entries are batched and encoded off the request thread, but read back as they would have been logged
+        assertEquals(expected, read);
+    }
 }
@@ -17,9 +17,12 @@
  */
 package org.apache.cassandra.batchlog;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.Lists;
 
@@ -30,6 +33,7 @@ import org.apache.cassandra.Util;
 import org.apache.cassandra.Util.PartitionerSwitcher;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.config.Config;
 import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.schema.Schema;
 import org.apache.cassandra.schema.SchemaConstants;
@@ -47,7 +51,9 @@ import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.db.rows.Row;
 import org.apache.cassandra.dht.Murmur3Partitioner;
 import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.util.FileUtils;
 import org.apache.cassandra.locator.TokenMetadata;
+import org.apache.cassandra.net.MessagingService;
 import org.apache.cassandra.service.StorageService;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.utils.ByteBufferUtil;
@@ -379,4 +385,90 @@ public class BatchlogManagerTest
         // Replay should be cancelled as there are no peers in the ring.
         assertEquals(1, BatchlogManager.instance.countAllBatches() - initialAllBatches);
     }
+
+    @Test
+    public void testReplayBatchesLeftInLogSegments() throws Exception
+    {
+        File directory = Files.createTempDirectory("batchlog").toFile();
+        try
+        {
+            // a batch left by batchlog_storage: log
+            long timestamp = System.currentTimeMillis() - BatchlogManager.getBatchlogTimeout() - 1;
+            Batch batch = Batch.createLocal(UUIDGen.getTimeUUID(timestamp), timestamp * 1000, mutations(CF_STANDARD4, 1));
+            BatchlogStore store = BatchlogStore.open(directory, DatabaseDescriptor.getBatchlogSegmentSize());
+            store.store(batch.id, batch.creationTime, MessagingService.current_version, BatchlogManager.encodeMutations(batch), true);
+            store.close();
+
+            BatchlogManager manager = new BatchlogManager(Config.BatchlogStorage.table, directory);
+            try
+            {
+                assertEquals(1, manager.countAllBatches());
+                manager.performInitialReplay();
+
+                assertEquals(1, manager.getTotalBatchesReplayed());
+                assertEquals(0, manager.countAllBatches());
+                assertEquals(0, BatchlogStore.open(directory, DatabaseDescriptor.getBatchlogSegmentSize()).count());
+                assertRowsApplied(CF_STANDARD4, 1);
+            }
+            finally
+            {
+                manager.shutdownAndWait(10, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            FileUtils.deleteRecursive(directory);
+        }
+    }
+
+    @Test
+    public void testReplayBatchesLeftInTable() throws Exception
+    {
+        File directory = Files.createTempDirectory("batchlog").toFile();
+        try
+        {
+            // a batch left by batchlog_storage: table
+            long timestamp = System.currentTimeMillis() - BatchlogManager.getBatchlogTimeout() - 1;
+            BatchlogManager.store(Batch.createLocal(UUIDGen.getTimeUUID(timestamp), timestamp * 1000, mutations(CF_STANDARD4, 2)));
+
+            BatchlogManager manager = new BatchlogManager(Config.BatchlogStorage.log, directory);
+            try
+            {
+                assertEquals(1, manager.countAllBatches());
+                manager.performInitialReplay();
+
+                assertEquals(1, manager.getTotalBatchesReplayed());
+                assertEquals(0, manager.countAllBatches());
+                assertRowsApplied(CF_STANDARD4, 2);
+            }
+            finally
+            {
+                manager.shutdownAndWait(10, TimeUnit.SECONDS);
+            }
+        }
+        finally
+        {
+            FileUtils.deleteRecursive(directory);
+        }
+    }
+
+    private static List<Mutation> mutations(String table, int key)
+    {
+        TableMetadata cfm = Keyspace.open(KEYSPACE1).getColumnFamilyStore(table).metadata();
+        List<Mutation> mutations = new ArrayList<>(10);
+        for (int j = 0; j < 10; j++)
+        {
+            mutations.add(new RowUpdateBuilder(cfm, FBUtilities.timestampMicros(), ByteBufferUtil.bytes(key))
+                          .clustering("name" + j)
+                          .add("val", "val" + j)
+                          .build());
+        }
+        return mutations;
+    }
+
+    private static void assertRowsApplied(String table, int key)
+    {
+        String query = String.format("SELECT * FROM \"%s\".\"%s\" WHERE key = intAsBlob(%d)", KEYSPACE1, table, key);
+        assertEquals(10, executeInternal(query).size());
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.batchlog;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.io.util.FileUtils;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.CloseableIterator;
+import org.apache.cassandra.utils.UUIDGen;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchlogStoreTest
+{
+    private static final int VERSION = MessagingService.current_version;
+
+    @BeforeClass
+    public static void setUp()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testSegmentsAreDeletedOnceAllTheirBatchesAreRemoved() throws IOException
+    {
+        File directory = Files.createTempDirectory("batchlog").toFile();
+        try
+        {
+            // a single record per segment
+            BatchlogStore store = BatchlogStore.open(directory, 1);
+            UUID first = UUIDGen.getTimeUUID();
+            UUID second = UUIDGen.getTimeUUID();
+            store.store(first, 0, VERSION, mutations(first), false);
+            store.store(second, 0, VERSION, mutations(second), true);
+            assertEquals(2, store.count());
+
+            List<BatchlogStore.Segment> segments = store.segments();
+            assertEquals(2, segments.size());
+
+            store.remove(first);
+            assertEquals(1, store.count());
+            assertFalse(segments.get(0).file().exists());
+            assertTrue(segments.get(1).file().exists());
+
+            // removing twice, or removing an unknown batch, is a no-op
+            store.remove(first);
+            store.remove(UUIDGen.getTimeUUID());
+            assertEquals(1, store.count());
+
+            assertEquals(Collections.singletonList(second), read(store, Long.MAX_VALUE));
+            assertEquals(Collections.emptyList(), read(store, UUIDGen.unixTimestamp(second) - 1));
+            store.close();
+        }
+        finally
+        {
+            FileUtils.deleteRecursive(directory);
+        }
+    }
+
+    @Test
+    public void testLiveBatchesAreLoadedOnOpen() throws IOException
+    {
+        File directory = Files.createTempDirectory("batchlog").toFile();
+        try
+        {
+            BatchlogStore store = BatchlogStore.open(directory, 1 << 20);
+            List<UUID> ids = new ArrayList<>();
+            for (int i = 0; i < 10; i++)
+            {
+                UUID id = UUIDGen.getTimeUUID();
+                ids.add(id);
+                store.store(id, 0, VERSION, mutations(id), false);
+            }
+            for (int i = 0; i < 10; i += 2)
+                store.remove(ids.get(i));
+            store.close();
+
+            // a torn write at the end of the segment is ignored
+            File segment = store.segments().get(0).file();
+            Files.write(segment.toPath(), new byte[]{ 0, 0, 1 }, StandardOpenOption.APPEND);
+
+            BatchlogStore reopened = BatchlogStore.open(directory, 1 << 20);
+            assertEquals(5, reopened.count());
+            List<UUID> live = new ArrayList<>();
+            for (int i = 1; i < 10; i += 2)
+                live.add(ids.get(i));
+            assertEquals(live, read(reopened, Long.MAX_VALUE));
+
+            // new batches go to a new segment, and the old one goes once all its batches are done
+            UUID id = UUIDGen.getTimeUUID();
+            reopened.store(id, 0, VERSION, mutations(id), false);
+            assertEquals(2, reopened.segments().size());
+            for (UUID liveId : live)
+                reopened.remove(liveId);
+            assertFalse(segment.exists());
+            assertEquals(Collections.singletonList(id), read(reopened, Long.MAX_VALUE));
+            reopened.close();
+        }
+        finally
+        {
+            FileUtils.deleteRecursive(directory);
+        }
+    }
+
+    private static List<ByteBuffer> mutations(UUID id)
+    {
+        return Arrays.asList(ByteBufferUtil.bytes(id.toString()), ByteBufferUtil.bytes(id.getMostSignificantBits()));
+    }
+
+    private static List<UUID> read(BatchlogStore store, long maxTimeMillis)
+    {
+        List<UUID> ids = new ArrayList<>();
+        for (BatchlogStore.Segment segment : store.segments())
+        {
+            try (CloseableIterator<BatchlogManager.StoredBatch> batches = store.read(segment, maxTimeMillis))
+            {
+                while (batches.hasNext())
+                {
+                    BatchlogManager.StoredBatch batch = batches.next();
+                    assertEquals(VERSION, batch.version);
+                    assertEquals(mutations(batch.id), batch.mutations);
+                    ids.add(batch.id);
+                }
+            }
+        }
+        return ids;
+    }
+}
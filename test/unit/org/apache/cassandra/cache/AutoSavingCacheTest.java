@@ -17,6 +17,16 @@
  */
 package org.apache.cassandra.cache;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+
 import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.config.DatabaseDescriptor;
@@ -30,9 +40,12 @@ import org.junit.Test;
 import org.apache.cassandra.SchemaLoader;
 import org.apache.cassandra.Util;
 import org.apache.cassandra.exceptions.ConfigurationException;
+import org.apache.cassandra.io.util.DataInputPlus;
+import org.apache.cassandra.io.util.DataOutputPlus;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.Pair;
 
 public class AutoSavingCacheTest
 {
@@ -64,6 +77,77 @@ public class AutoSavingCacheTest
         doTestSerializeAndLoadKeyCache();
     }
 
+    @Test
+    public void testSerializeAndLoadKeyCacheHottestFirstThrottled() throws Exception
+    {
+        DatabaseDescriptor.setColumnIndexCacheSize(8);
+        DatabaseDescriptor.setSavedCachesLoadInBackground(true);
+        try
+        {
+            ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1);
+            cfs.truncateBlocking();
+            ColumnMetadata colDef = ColumnMetadata.regularColumn(cfs.metadata(), ByteBufferUtil.bytes("col1"), AsciiType.instance);
+            for (int i = 0; i < 10; i++)
+            {
+                RowUpdateBuilder rowBuilder = new RowUpdateBuilder(cfs.metadata(), System.currentTimeMillis(), "key" + i);
+                rowBuilder.add(colDef, "val1");
+                rowBuilder.build().apply();
+            }
+            cfs.forceBlockingFlush();
+            SSTableReader sstable = Iterables.getOnlyElement(cfs.getLiveSSTables());
+
+            AutoSavingCache<KeyCacheKey, RowIndexEntry> keyCache = CacheService.instance.keyCache;
+            keyCache.clear();
+            // the later keys are read more often, so are hotter
+            for (int i = 0; i < 10; i++)
+            {
+                for (int j = 0; j <= i; j++)
+                    sstable.getPosition(Util.dk("key" + i), SSTableReader.Operator.EQ);
+            }
+            List<KeyCacheKey> hottestFirst = Lists.newArrayList(keyCache.hotKeyIterator(keyCache.size()));
+            Assert.assertTrue(hottestFirst.size() >= 10);
+
+            keyCache.submitWrite(keyCache.size()).get();
+            keyCache.clear();
+
+            // load the saved cache into another one, recording the order of its entries
+            List<KeyCacheKey> loaded = new ArrayList<>();
+            AutoSavingCache.CacheSerializer<KeyCacheKey, RowIndexEntry> serializer = new CacheService.KeyCacheSerializer();
+            AutoSavingCache<KeyCacheKey, RowIndexEntry> loader = new AutoSavingCache<>(CaffeineCache.create(1024 * 1024), CacheService.CacheType.KEY_CACHE, new AutoSavingCache.CacheSerializer<KeyCacheKey, RowIndexEntry>()
+            {
+                public void serialize(KeyCacheKey key, DataOutputPlus out, ColumnFamilyStore cfs)
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                public Future<Pair<KeyCacheKey, RowIndexEntry>> deserialize(DataInputPlus in, ColumnFamilyStore cfs) throws IOException
+                {
+                    Future<Pair<KeyCacheKey, RowIndexEntry>> entry = serializer.deserialize(in, cfs);
+                    if (entry != null)
+                        loaded.add(Futures.getUnchecked(entry).left);
+                    return entry;
+                }
+            });
+
+            DatabaseDescriptor.setSavedCachesLoadThroughputKbPerSec(1);
+            long start = System.nanoTime();
+            Assert.assertEquals(hottestFirst.size(), loader.loadSaved());
+            long elapsed = System.nanoTime() - start;
+
+            Assert.assertEquals(hottestFirst, loaded);
+            // each entry is paid for by the bytes read from the saved cache, once read, before loading the next one
+            long loadedBytes = loader.getCacheDataPath(AutoSavingCache.CURRENT_VERSION).length();
+            Assert.assertTrue(loadedBytes > 0);
+            Assert.assertTrue("loading " + loadedBytes + " bytes took " + elapsed + "ns",
+                              elapsed >= TimeUnit.SECONDS.toNanos(1) * loadedBytes / 2 / 1024);
+        }
+        finally
+        {
+            DatabaseDescriptor.setSavedCachesLoadInBackground(false);
+            DatabaseDescriptor.setSavedCachesLoadThroughputKbPerSec(0);
+        }
+    }
+
     private static void doTestSerializeAndLoadKeyCache() throws Exception
     {
         ColumnFamilyStore cfs = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD1);
@@ -47,6 +47,7 @@ import org.apache.cassandra.utils.FBUtilities;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
@@ -79,9 +80,14 @@ public class CacheProviderTest
     }
 
     private CachedBTreePartition createPartition()
+    {
+        return createPartition("val1");
+    }
+
+    private CachedBTreePartition createPartition(String value)
     {
         PartitionUpdate update = new RowUpdateBuilder(cfm, System.currentTimeMillis(), "key1")
-                                 .add("col1", "val1")
+                                 .add("col1", value)
                                  .buildUpdate();
 
         return CachedBTreePartition.create(update.unfilteredIterator(), FBUtilities.nowInSeconds());
@@ -151,6 +157,27 @@ public class CacheProviderTest
         concurrentCase(partition, cache);
     }
 
+    @Test
+    public void testSerializingCacheReplace()
+    {
+        ICache<MeasureableString, IRowCacheEntry> cache = SerializingCache.create(CAPACITY,
+            Weigher.singletonWeigher(), new SerializingCacheProvider.RowCacheSerializer());
+        CachedBTreePartition partition = createPartition();
+        CachedBTreePartition other = createPartition("val2");
+        cache.put(key1, partition);
+
+        // the cached value is a deserialized copy, which is replaced as long as it matches the cached one
+        IRowCacheEntry cached = cache.get(key1);
+        assertNotSame(partition, cached);
+        assertTrue(cache.replace(key1, cached, other));
+        assertDigests(cache.get(key1), other);
+
+        // but not once the cached value has changed
+        assertFalse(cache.replace(key1, cached, partition));
+        assertFalse(cache.replace(key2, cached, partition));
+        assertDigests(cache.get(key1), other);
+    }
+
     @Test
     public void testKeys()
     {
@@ -18,6 +18,7 @@
 
 package org.apache.cassandra.db;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 
@@ -84,6 +85,55 @@ public class DigestTest
                           Digest.forReadResponse().update(onHeapBuf).digest());
     }
 
+    @Test
+    public void testStagedUpdatesMatchDirectHashing()
+    {
+        // mix small inputs, which get staged, with larger ones, which flush them, across several staging buffers
+        Digest digest = Digest.forReadResponse();
+        ByteBuffer expected = ByteBuffer.allocate(64 * 1024);
+        for (int i = 0; i < 500; i++)
+        {
+            byte[] bytes = new byte[i % 70];
+            Arrays.fill(bytes, (byte) i);
+            ByteBuffer direct = ByteBuffer.allocateDirect(i % 45);
+            while (direct.hasRemaining())
+                direct.put((byte) -i);
+            direct.flip();
+
+            digest.updateWithLong(i)
+                  .update(bytes, 0, bytes.length)
+                  .updateWithInt(-i)
+                  .update(direct)
+                  .updateWithByte(i)
+                  .updateWithBoolean(i % 2 == 0);
+            expected.putLong(i).put(bytes).putInt(-i).put(direct.duplicate()).put((byte) i).put((byte) (i % 2 == 0 ? 0 : 1));
+        }
+        expected.flip();
+
+        assertEquals(expected.remaining(), digest.inputBytes());
+        @SuppressWarnings("deprecation")
+        byte[] md5 = Hashing.md5().hashBytes(expected.array(), 0, expected.limit()).asBytes();
+        assertArrayEquals(md5, digest.digest());
+    }
+
+    @Test
+    public void testRecordingDigestDoesNotStage()
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Digest recording = Digest.recording(output);
+        Digest direct = Digest.forSchema();
+        for (int i = 0; i < 10; i++)
+        {
+            recording.updateWithInt(i).updateWithLong(-i).updateWithByte(i);
+            direct.updateWithInt(i).updateWithLong(-i).updateWithByte(i);
+        }
+
+        // the recorded input is read without calling digest(), so none of it may be left staged
+        byte[] recorded = output.toByteArray();
+        assertEquals(recording.inputBytes(), recorded.length);
+        assertArrayEquals(direct.digest(), Digest.forSchema().update(recorded, 0, recorded.length).digest());
+    }
+
     @Test
     public void testValidatorDigest()
     {
@@ -26,6 +26,8 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.collect.Iterables;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -153,6 +155,11 @@ public class NativeCellTest
         Assert.assertEquals(row, brow);
         Assert.assertEquals(nrow, brow);
 
+        Row hrow = nrow.copy(HeapAllocator.instance);
+        Assert.assertEquals(row, hrow);
+        Assert.assertEquals(row.clustering(), hrow.clustering());
+        Assert.assertTrue(Iterables.all(hrow.cells(), c -> !(c instanceof NativeCell)));
+
         Assert.assertEquals(row.clustering(), nrow.clustering());
         Assert.assertEquals(row.clustering(), brow.clustering());
         Assert.assertEquals(nrow.clustering(), brow.clustering());
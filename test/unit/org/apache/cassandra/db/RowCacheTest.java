@@ -31,6 +31,7 @@ import org.junit.Test;
 import org.apache.cassandra.SchemaLoader;
 import org.apache.cassandra.Util;
 import org.apache.cassandra.cache.RowCacheKey;
+import org.apache.cassandra.config.DatabaseDescriptor;
 import org.apache.cassandra.db.marshal.ValueAccessors;
 import org.apache.cassandra.locator.InetAddressAndPort;
 import org.apache.cassandra.schema.Schema;
@@ -47,6 +48,7 @@ import org.apache.cassandra.dht.ByteOrderedPartitioner.BytesToken;
 import org.apache.cassandra.locator.TokenMetadata;
 import org.apache.cassandra.metrics.ClearableHistogram;
 import org.apache.cassandra.schema.CachingParams;
+import org.apache.cassandra.schema.ColumnMetadata;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.service.StorageService;
@@ -473,6 +475,59 @@ public class RowCacheTest
         cachedStore.truncateBlocking();
     }
 
+    @Test
+    public void testRowCacheMergeWrites()
+    {
+        CompactionManager.instance.disableAutoCompaction();
+        DatabaseDescriptor.setRowCacheMergeWrites(true);
+        try
+        {
+            Keyspace keyspace = Keyspace.open(KEYSPACE_CACHED);
+            ColumnFamilyStore cachedStore  = keyspace.getColumnFamilyStore(CF_CACHEDINT);
+            CacheService.instance.invalidateRowCache();
+            CacheService.instance.setRowCacheCapacityInMB(1);
+
+            ByteBuffer key = ByteBufferUtil.bytes("rowcachemerge");
+            DecoratedKey dk = cachedStore.decorateKey(key);
+            RowCacheKey rck = new RowCacheKey(cachedStore.metadata(), dk);
+            long timestamp = System.currentTimeMillis();
+            for (int i = 0; i < 200; i++)
+            {
+                RowUpdateBuilder rub = new RowUpdateBuilder(cachedStore.metadata(), timestamp, key);
+                rub.clustering(String.valueOf(i));
+                rub.add("val", ByteBufferUtil.bytes("val" + i));
+                rub.build().applyUnsafe();
+            }
+
+            // populate the row cache with the first 100 rows (by clustering order, so "0" up to "188")
+            Util.getAll(Util.cmd(cachedStore, dk).withLimit(10).build());
+            assertEquals(100, ((CachedPartition) CacheService.instance.rowCache.get(rck)).rowCount());
+
+            // a write inside the cached head is merged into it, one past it is ignored
+            new RowUpdateBuilder(cachedStore.metadata(), timestamp + 1, key).clustering("0").add("val", ByteBufferUtil.bytes("updated")).build().applyUnsafe();
+            new RowUpdateBuilder(cachedStore.metadata(), timestamp + 1, key).clustering("99").add("val", ByteBufferUtil.bytes("updated")).build().applyUnsafe();
+
+            CachedPartition cached = (CachedPartition) CacheService.instance.rowCache.get(rck);
+            assertNotNull(cached);
+            assertEquals(100, cached.rowCount());
+            assertEquals(100, cached.cachedLiveRows());
+            Row first = cached.getRow(Clustering.make(ByteBufferUtil.bytes("0")));
+            ColumnMetadata val = cachedStore.metadata().getColumn(ByteBufferUtil.bytes("val"));
+            assertEquals(ByteBufferUtil.bytes("updated"), first.getCell(val).buffer());
+            assertNull(cached.getRow(Clustering.make(ByteBufferUtil.bytes("99"))));
+
+            long hits = cachedStore.metric.rowCacheHit.getCount();
+            Util.getAll(Util.cmd(cachedStore, dk).withLimit(10).build());
+            assertEquals(hits + 1, cachedStore.metric.rowCacheHit.getCount());
+
+            cachedStore.truncateBlocking();
+        }
+        finally
+        {
+            DatabaseDescriptor.setRowCacheMergeWrites(false);
+        }
+    }
+
     @Test
     public void testSSTablesPerReadHistogramWhenRowCache()
     {
@@ -411,4 +411,37 @@ public class SinglePartitionSliceCommandTest
         assertQueryReturnsSingleRT("SELECT * FROM ks.legacy_mc_inaccurate_min_max WHERE k=100 AND c1=3 AND c2=2 AND c3=2"); // clustering names
 
     }
+
+    /**
+     * Deletions in an older sstable shadow the rows of newer sstables that don't contain any deletion themselves,
+     * whether they are partition deletions or range tombstones, and whether the rows are read by slices or by names.
+     */
+    @Test
+    public void deletionsInOlderSSTablesAreApplied()
+    {
+        ColumnFamilyStore cfs = Keyspace.open(KEYSPACE).getColumnFamilyStore(TABLE_SCLICES);
+
+        QueryProcessor.executeInternal("DELETE FROM ks.tbl_slices USING TIMESTAMP 10 WHERE k='k1'");
+        QueryProcessor.executeInternal("DELETE FROM ks.tbl_slices USING TIMESTAMP 10 WHERE k='k2' AND c1=0");
+        cfs.forceBlockingFlush();
+
+        for (String key : new String[]{ "k1", "k2" })
+        {
+            QueryProcessor.executeInternal(String.format("INSERT INTO ks.tbl_slices (k, c1, c2, v) VALUES ('%s', 0, 0, 0) USING TIMESTAMP 5", key));
+            QueryProcessor.executeInternal(String.format("INSERT INTO ks.tbl_slices (k, c1, c2, v) VALUES ('%s', 1, 0, 1) USING TIMESTAMP 5", key));
+        }
+        cfs.forceBlockingFlush();
+        assertEquals(2, cfs.getLiveSSTables().size());
+
+        assertTrue(QueryProcessor.executeInternal("SELECT * FROM ks.tbl_slices WHERE k='k1'").isEmpty());
+        assertTrue(QueryProcessor.executeInternal("SELECT * FROM ks.tbl_slices WHERE k='k1' LIMIT 1").isEmpty());
+        assertTrue(QueryProcessor.executeInternal("SELECT * FROM ks.tbl_slices WHERE k='k1' AND c1=1").isEmpty());
+        assertTrue(QueryProcessor.executeInternal("SELECT * FROM ks.tbl_slices WHERE k='k1' AND c1=1 AND c2=0").isEmpty());
+
+        UntypedResultSet rows = QueryProcessor.executeInternal("SELECT * FROM ks.tbl_slices WHERE k='k2' LIMIT 1");
+        assertEquals(1, rows.size());
+        assertEquals(1, rows.one().getInt("c1"));
+        assertTrue(QueryProcessor.executeInternal("SELECT * FROM ks.tbl_slices WHERE k='k2' AND c1=0").isEmpty());
+        assertTrue(QueryProcessor.executeInternal("SELECT * FROM ks.tbl_slices WHERE k='k2' AND c1=0 AND c2=0").isEmpty());
+    }
 }
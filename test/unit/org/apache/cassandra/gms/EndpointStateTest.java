@@ -49,6 +49,24 @@ public class EndpointStateTest
         DatabaseDescriptor.daemonInitialization();
     }
 
+    @Test
+    public void testMaxApplicationStateVersion()
+    {
+        EndpointState state = new EndpointState(new HeartBeatState(0));
+        assertEquals(0, state.getMaxApplicationStateVersion());
+
+        VersionedValue load = valueFactory.load(1);
+        VersionedValue schema = valueFactory.schema(UUID.randomUUID());
+        state.addApplicationState(ApplicationState.SCHEMA, schema);
+        state.addApplicationState(ApplicationState.LOAD, load);
+        assertEquals(Math.max(load.version, schema.version), state.getMaxApplicationStateVersion());
+
+        VersionedValue newLoad = valueFactory.load(2);
+        state.addApplicationState(ApplicationState.LOAD, newLoad);
+        assertEquals(newLoad.version, state.getMaxApplicationStateVersion());
+        assertEquals(newLoad.version, state.getMaxApplicationStateVersion());
+    }
+
     @Test
     public void testMultiThreadedReadConsistency() throws InterruptedException
     {
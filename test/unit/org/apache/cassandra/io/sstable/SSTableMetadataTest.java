@@ -19,9 +19,13 @@ package org.apache.cassandra.io.sstable;
 
 import java.nio.charset.CharacterCodingException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Sets;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -31,14 +35,18 @@ import org.apache.cassandra.schema.TableMetadata;
 import org.apache.cassandra.db.ColumnFamilyStore;
 import org.apache.cassandra.db.DecoratedKey;
 import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.Mutation;
 import org.apache.cassandra.db.RowUpdateBuilder;
 import org.apache.cassandra.db.marshal.AsciiType;
 import org.apache.cassandra.db.marshal.IntegerType;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.io.sstable.format.SSTableReader;
 import org.apache.cassandra.schema.KeyspaceParams;
 import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 public class SSTableMetadataTest
@@ -47,6 +55,7 @@ public class SSTableMetadataTest
     public static final String CF_STANDARD = "Standard1";
     public static final String CF_STANDARD2 = "Standard2";
     public static final String CF_STANDARD3 = "Standard3";
+    public static final String CF_STANDARD4 = "Standard4";
     public static final String CF_STANDARDCOMPOSITE2 = "StandardComposite2";
     public static final String CF_COUNTER1 = "Counter1";
 
@@ -59,6 +68,7 @@ public class SSTableMetadataTest
                                     SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARD),
                                     SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARD2),
                                     SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARD3),
+                                    SchemaLoader.standardCFMD(KEYSPACE1, CF_STANDARD4),
                                     TableMetadata.builder(KEYSPACE1, CF_STANDARDCOMPOSITE2)
                                                  .addPartitionKeyColumn("key", AsciiType.instance)
                                                  .addClusteringColumn("name", AsciiType.instance)
@@ -248,6 +258,52 @@ public class SSTableMetadataTest
         }
     }
 
+    @Test
+    public void trackPartitionDeletionsAndRangeTombstones()
+    {
+        ColumnFamilyStore store = Keyspace.open(KEYSPACE1).getColumnFamilyStore(CF_STANDARD4);
+        store.truncateBlocking();
+        long timestamp = FBUtilities.timestampMicros();
+
+        // rows, an expiring cell and a row deletion are tombstones, but neither partition deletions nor range tombstones
+        new RowUpdateBuilder(store.metadata(), timestamp, "k1").clustering("a").add("val", "val").build().applyUnsafe();
+        new RowUpdateBuilder(store.metadata(), timestamp, 1000, "k1").clustering("b").add("val", "val").build().applyUnsafe();
+        RowUpdateBuilder.deleteRow(store.metadata(), timestamp, "k1", "c").applyUnsafe();
+        SSTableReader sstable = flush(store);
+        assertTrue(sstable.mayHaveTombstones());
+        assertFalse(sstable.getSSTableMetadata().hasPartitionLevelDeletions);
+        assertFalse(sstable.getSSTableMetadata().hasRangeTombstones);
+        assertFalse(sstable.mayHavePartitionLevelDeletions());
+        assertFalse(sstable.mayHaveRangeTombstones());
+
+        new Mutation(PartitionUpdate.fullPartitionDelete(store.metadata(), Util.dk("k2"), timestamp, FBUtilities.nowInSeconds())).applyUnsafe();
+        sstable = flush(store);
+        assertTrue(sstable.getSSTableMetadata().hasPartitionLevelDeletions);
+        assertFalse(sstable.getSSTableMetadata().hasRangeTombstones);
+        assertTrue(sstable.mayHavePartitionLevelDeletions());
+        assertFalse(sstable.mayHaveRangeTombstones());
+
+        new RowUpdateBuilder(store.metadata(), timestamp, "k3").addRangeTombstone("a", "c").build().applyUnsafe();
+        sstable = flush(store);
+        assertFalse(sstable.getSSTableMetadata().hasPartitionLevelDeletions);
+        assertTrue(sstable.getSSTableMetadata().hasRangeTombstones);
+        assertFalse(sstable.mayHavePartitionLevelDeletions());
+        assertTrue(sstable.mayHaveRangeTombstones());
+
+        // both are kept by compaction, as long as the tombstones are
+        Util.compact(store, store.getLiveSSTables());
+        sstable = Iterables.getOnlyElement(store.getLiveSSTables());
+        assertTrue(sstable.getSSTableMetadata().hasPartitionLevelDeletions);
+        assertTrue(sstable.getSSTableMetadata().hasRangeTombstones);
+    }
+
+    private static SSTableReader flush(ColumnFamilyStore store)
+    {
+        Set<SSTableReader> before = new HashSet<>(store.getLiveSSTables());
+        store.forceBlockingFlush();
+        return Iterables.getOnlyElement(Sets.difference(store.getLiveSSTables(), before));
+    }
+
     /*@Test
     public void testLegacyCounterShardTracking()
     {
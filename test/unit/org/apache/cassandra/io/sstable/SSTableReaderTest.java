@@ -56,6 +56,8 @@ import org.apache.cassandra.io.util.MmappedRegions;
 import org.apache.cassandra.schema.CachingParams;
 import org.apache.cassandra.schema.CompressionParams;
 import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.schema.TableId;
+import org.apache.cassandra.schema.TableMetadataRef;
 import org.apache.cassandra.service.CacheService;
 import org.apache.cassandra.utils.ByteBufferUtil;
 import org.apache.cassandra.utils.FilterFactory;
@@ -485,6 +487,52 @@ public class SSTableReaderTest
         }
     }
 
+    @Test
+    public void testOpenAllTablesAtOnce() throws Exception
+    {
+        Keyspace keyspace = Keyspace.open(KEYSPACE1);
+        Map<TableMetadataRef, Set<Map.Entry<Descriptor, Set<Component>>>> entries = new HashMap<>();
+        Map<TableId, Set<Descriptor>> expected = new HashMap<>();
+        for (String cf : Arrays.asList(CF_STANDARD, CF_STANDARD2))
+        {
+            ColumnFamilyStore store = keyspace.getColumnFamilyStore(cf);
+            store.disableAutoCompaction();
+            for (int i = 0; i < 2; i++)
+            {
+                new RowUpdateBuilder(store.metadata(), System.currentTimeMillis(), "k" + i)
+                    .clustering("0")
+                    .add("val", ByteBufferUtil.EMPTY_BYTE_BUFFER)
+                    .build()
+                    .applyUnsafe();
+                store.forceBlockingFlush();
+            }
+
+            Set<Descriptor> descriptors = new HashSet<>();
+            Map<Descriptor, Set<Component>> components = new HashMap<>();
+            for (SSTableReader sstable : store.getLiveSSTables())
+            {
+                descriptors.add(sstable.descriptor);
+                components.put(sstable.descriptor, sstable.components);
+            }
+            entries.put(store.metadata, components.entrySet());
+            expected.put(store.metadata.id, descriptors);
+        }
+
+        Map<TableId, Collection<SSTableReader>> opened = SSTableReader.openAll(entries);
+        assertEquals(expected.keySet(), opened.keySet());
+        for (Map.Entry<TableId, Collection<SSTableReader>> entry : opened.entrySet())
+        {
+            Set<Descriptor> descriptors = new HashSet<>();
+            for (SSTableReader sstable : entry.getValue())
+            {
+                assertEquals(entry.getKey(), sstable.metadata().id);
+                descriptors.add(sstable.descriptor);
+                sstable.selfRef().release();
+            }
+            assertEquals(expected.get(entry.getKey()), descriptors);
+        }
+    }
+
     /** see CASSANDRA-5407 */
     @Test
     public void testGetScannerForNoIntersectingRanges() throws Exception
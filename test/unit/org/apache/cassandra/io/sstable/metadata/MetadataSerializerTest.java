@@ -171,6 +171,18 @@ public class MetadataSerializerTest
         testOldReadsNew("na", "na");
     }
 
+    @Test
+    public void testNaReadNb() throws IOException
+    {
+        testOldReadsNew("na", "nb");
+    }
+
+    @Test
+    public void testNbReadNb() throws IOException
+    {
+        testOldReadsNew("nb", "nb");
+    }
+
     public void testOldReadsNew(String oldV, String newV) throws IOException
     {
         Map<MetadataType, MetadataComponent> originalMetadata = constructMetadata();
@@ -206,4 +218,13 @@ public class MetadataSerializerTest
         Version na = BigFormat.instance.getVersion("na");
         assertTrue(na.hasPendingRepair());
     }
+
+    @Test
+    public void deletionPresenceMarkersCompatibility()
+    {
+        Version na = BigFormat.instance.getVersion("na");
+        assertFalse(na.hasDeletionPresenceMarkers());
+        Version nb = BigFormat.instance.getVersion("nb");
+        assertTrue(nb.hasDeletionPresenceMarkers());
+    }
 }
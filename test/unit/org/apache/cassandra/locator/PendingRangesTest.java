@@ -34,6 +34,8 @@ import org.quicktheories.core.Gen;
 import org.quicktheories.generators.Generate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.quicktheories.QuickTheory.qt;
 import static org.quicktheories.generators.SourceDSL.integers;
@@ -250,6 +252,48 @@ public class PendingRangesTest
                                tm.getPendingRanges(KEYSPACE, node4));
     }
 
+    @Test
+    public void testPendingRangesSharedBetweenKeyspacesWithSameReplication()
+    {
+        TokenMetadata tm = new TokenMetadata();
+        AbstractReplicationStrategy rf2 = simpleStrategy(tm, 2);
+        AbstractReplicationStrategy rf3 = simpleStrategy(tm, 3);
+
+        Token token1 = token(-9);
+        Token token2 = token(-4);
+        Token token3 = token(0);
+        Token token4 = token(4);
+
+        InetAddressAndPort node1 = peer(1);
+        InetAddressAndPort node2 = peer(2);
+        InetAddressAndPort node3 = peer(3);
+        InetAddressAndPort node4 = peer(4);
+
+        addNode(tm, node1, token1);
+        addNode(tm, node2, token2);
+        addNode(tm, node3, token3);
+        addNode(tm, node4, token4);
+
+        tm.addLeavingEndpoint(node2);
+
+        tm.calculatePendingRanges(rf2, "ks1");
+        tm.calculatePendingRanges(rf2, "ks2");
+        tm.calculatePendingRanges(rf3, "ks3");
+        assertSame(tm.getPendingRanges("ks1"), tm.getPendingRanges("ks2"));
+        assertNotSame(tm.getPendingRanges("ks1"), tm.getPendingRanges("ks3"));
+        assertRangesAtEndpoint(RangesAtEndpoint.of(new Replica(node4, new Range<>(token1, token2), true)),
+                               tm.getPendingRanges("ks2", node4));
+
+        // a new operation must trigger a new calculation
+        tm.addLeavingEndpoint(node3);
+        tm.calculatePendingRanges(rf2, "ks2");
+        assertRangesAtEndpoint(RangesAtEndpoint.of(new Replica(node4, new Range<>(token4, token1), true),
+                                                   new Replica(node4, new Range<>(token1, token2), true)),
+                               tm.getPendingRanges("ks2", node4));
+        assertRangesAtEndpoint(RangesAtEndpoint.of(new Replica(node4, new Range<>(token1, token2), true)),
+                               tm.getPendingRanges("ks1", node4));
+    }
+
     @Test
     public void testBootstrapLeaveAndMovePermutationsWithoutVnodes()
     {
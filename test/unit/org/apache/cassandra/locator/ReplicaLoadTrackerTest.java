@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.locator;
+
+import java.net.UnknownHostException;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicaLoadTrackerTest
+{
+    private static InetAddressAndPort host1;
+    private static InetAddressAndPort host2;
+
+    @BeforeClass
+    public static void setupDD() throws UnknownHostException
+    {
+        DatabaseDescriptor.daemonInitialization();
+        host1 = InetAddressAndPort.getByName("127.0.0.2");
+        host2 = InetAddressAndPort.getByName("127.0.0.3");
+    }
+
+    @Test
+    public void testOutstandingRequests()
+    {
+        ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+        tracker.onRequest(host1);
+        tracker.onRequest(host1);
+        tracker.onCompletion(host1);
+
+        assertEquals(1, tracker.get(host1).outstanding());
+        assertEquals(1, tracker.get(host1).completed());
+    }
+
+    @Test
+    public void testSmoothedLatency()
+    {
+        ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+        assertEquals(-1, tracker.expectedLatencyNanos(EndpointsForToken.of(ReplicaUtils.tk(1), ReplicaUtils.full(host1, ReplicaUtils.tk(1)))));
+
+        tracker.receiveTiming(host1, 8, MILLISECONDS);
+        assertEquals(MILLISECONDS.toNanos(8), tracker.get(host1).smoothedLatencyNanos());
+        assertEquals(MILLISECONDS.toNanos(4), tracker.get(host1).latencyVariationNanos());
+        assertEquals(MILLISECONDS.toNanos(24), tracker.get(host1).expectedLatencyNanos());
+
+        // a single slow response moves the estimate by an eighth of the difference
+        tracker.receiveTiming(host1, 16, MILLISECONDS);
+        assertEquals(MILLISECONDS.toNanos(9), tracker.get(host1).smoothedLatencyNanos());
+    }
+
+    @Test
+    public void testScorePenalisesQueuedReplicas()
+    {
+        ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+        tracker.receiveTiming(host1, 1, MILLISECONDS);
+        tracker.receiveTiming(host2, 2, MILLISECONDS);
+        assertTrue(tracker.score(host1) < tracker.score(host2));
+
+        // host1 stops responding, requests queue against it
+        tracker.onRequest(host1);
+        tracker.onRequest(host1);
+        assertTrue(tracker.score(host1) > tracker.score(host2));
+    }
+
+    @Test
+    public void testExpectedLatencyWithLocalReplica()
+    {
+        ReplicaLoadTracker tracker = new ReplicaLoadTracker();
+        InetAddressAndPort self = FBUtilities.getBroadcastAddressAndPort();
+        EndpointsForToken replicas = EndpointsForToken.of(ReplicaUtils.tk(1),
+                                                          ReplicaUtils.full(self, ReplicaUtils.tk(1)),
+                                                          ReplicaUtils.full(host1, ReplicaUtils.tk(1)));
+
+        // we haven't read locally yet, only the other replica matters
+        tracker.receiveTiming(host1, 8, MILLISECONDS);
+        assertEquals(MILLISECONDS.toNanos(24), tracker.expectedLatencyNanos(replicas));
+
+        // once we have, our local reads are accounted like any other replica
+        tracker.receiveTiming(self, 20, MILLISECONDS);
+        assertEquals(MILLISECONDS.toNanos(60), tracker.expectedLatencyNanos(replicas));
+
+        // but a remote replica without latency information still makes it unknown
+        EndpointsForToken withUnknown = EndpointsForToken.of(ReplicaUtils.tk(1),
+                                                             ReplicaUtils.full(self, ReplicaUtils.tk(1)),
+                                                             ReplicaUtils.full(host2, ReplicaUtils.tk(1)));
+        assertEquals(-1, tracker.expectedLatencyNanos(withUnknown));
+    }
+}
@@ -37,6 +37,8 @@ import org.apache.cassandra.service.StorageService;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -327,4 +329,24 @@ public class TokenMetadataTest
         assertEquals(0, tokenMetadata.getSizeOfLeavingEndpoints());
         assertEquals(0, tokenMetadata.getSizeOfMovingEndpoints());
     }
+
+    @Test
+    public void testCachedOnlyTokenMapFollowsRingVersion() throws UnknownHostException
+    {
+        TokenMetadata tokenMetadata = tmd.cloneOnlyTokenMap();
+        assertEquals(tmd.getRingVersion(), tokenMetadata.getRingVersion());
+
+        TokenMetadata cached = tokenMetadata.cachedOnlyTokenMap();
+        assertSame(cached, tokenMetadata.cachedOnlyTokenMap());
+        assertEquals(tokenMetadata.getRingVersion(), cached.getRingVersion());
+
+        InetAddressAndPort third = InetAddressAndPort.getByName("127.0.0.3");
+        tokenMetadata.updateNormalToken(token("3"), third);
+
+        TokenMetadata updated = tokenMetadata.cachedOnlyTokenMap();
+        assertNotSame(cached, updated);
+        assertEquals(tokenMetadata.getRingVersion(), updated.getRingVersion());
+        assertTrue(updated.isMember(third));
+        assertFalse(cached.isMember(third));
+    }
 }
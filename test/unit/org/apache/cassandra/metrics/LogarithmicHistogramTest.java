@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.metrics;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LogarithmicHistogramTest
+{
+    @Test
+    public void testQuantilesAreWithinRelativeAccuracy()
+    {
+        long seed = System.nanoTime();
+        System.out.println("LogarithmicHistogramTest#testQuantilesAreWithinRelativeAccuracy.seed = " + seed);
+        Random random = new Random(seed);
+
+        LogarithmicHistogram histogram = new LogarithmicHistogram();
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++)
+        {
+            // log-uniformly distributed, up to a minute in microseconds
+            values[i] = 1 + (long) Math.exp(random.nextDouble() * Math.log(60_000_000));
+            histogram.update(values[i]);
+        }
+        Arrays.sort(values);
+
+        LogarithmicHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(values.length, snapshot.count());
+        for (double quantile : new double[]{ 0, 0.5, 0.75, 0.95, 0.99, 0.999, 1 })
+        {
+            long expected = values[(int) (quantile * (values.length - 1))];
+            double actual = snapshot.quantile(quantile);
+            assertTrue(quantile + ": " + actual + " vs " + expected,
+                       Math.abs(actual - expected) <= expected * LogarithmicHistogram.DEFAULT_RELATIVE_ACCURACY * 1.0001);
+        }
+    }
+
+    @Test
+    public void testZerosAndLargeValues()
+    {
+        LogarithmicHistogram histogram = new LogarithmicHistogram();
+        assertEquals(0, histogram.getSnapshot().count());
+        assertEquals(0, histogram.getSnapshot().quantile(0.5), 0);
+
+        histogram.update(0, 3);
+        histogram.update(Long.MAX_VALUE);
+        LogarithmicHistogram.Snapshot snapshot = histogram.getSnapshot();
+        assertEquals(3, snapshot.zeros);
+        assertEquals(4, snapshot.count());
+        assertEquals(0, snapshot.quantile(0.5), 0);
+        assertTrue(snapshot.quantile(1) >= LogarithmicHistogram.MAX_TRACKABLE_VALUE * (1 - LogarithmicHistogram.DEFAULT_RELATIVE_ACCURACY));
+    }
+
+    @Test
+    public void testMergeEqualsHistogramOfAllValues()
+    {
+        LogarithmicHistogram first = new LogarithmicHistogram();
+        LogarithmicHistogram second = new LogarithmicHistogram();
+        LogarithmicHistogram all = new LogarithmicHistogram();
+        for (int i = 0; i < 1000; i++)
+        {
+            first.update(i);
+            all.update(i);
+        }
+        for (int i = 500; i < 5000; i += 3)
+        {
+            second.update(i);
+            all.update(i);
+        }
+
+        assertEquals(all.getSnapshot(), first.getSnapshot().merge(second.getSnapshot()));
+        assertEquals(all.getSnapshot(), second.getSnapshot().merge(first.getSnapshot()));
+        assertEquals(first.getSnapshot(), first.getSnapshot().merge(new LogarithmicHistogram().getSnapshot()));
+        assertEquals(first.getSnapshot(), new LogarithmicHistogram().getSnapshot().merge(first.getSnapshot()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMergeOfDifferentAccuracies()
+    {
+        new LogarithmicHistogram(0.01).getSnapshot().merge(new LogarithmicHistogram(0.02).getSnapshot());
+    }
+
+    @Test
+    public void testSerializationRoundTrip() throws IOException
+    {
+        LogarithmicHistogram histogram = new LogarithmicHistogram(0.02);
+        assertEquals(histogram.getSnapshot(), LogarithmicHistogram.Snapshot.deserialize(histogram.getSnapshot().serialize()));
+
+        for (int i = 0; i < 10_000; i++)
+            histogram.update(i * 37L);
+        LogarithmicHistogram.Snapshot snapshot = histogram.getSnapshot();
+        LogarithmicHistogram.Snapshot deserialized = LogarithmicHistogram.Snapshot.deserialize(snapshot.serialize());
+        assertEquals(snapshot, deserialized);
+        assertEquals(0.02, deserialized.relativeAccuracy, 0);
+        assertEquals(snapshot.quantile(0.99), deserialized.quantile(0.99), 0);
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.metrics;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.codahale.metrics.Clock;
+import com.codahale.metrics.Snapshot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class ThreadLocalDecayingHistogramReservoirTest
+{
+    private static final double DOUBLE_ASSERT_DELTA = 0;
+
+    @Test
+    public void testMatchesSharedReservoir() throws InterruptedException
+    {
+        testMatchesSharedReservoir(4);
+    }
+
+    @Test
+    public void testMatchesSharedReservoirWithManyThreads() throws InterruptedException
+    {
+        testMatchesSharedReservoir(64);
+    }
+
+    private static void testMatchesSharedReservoir(int nThreads) throws InterruptedException
+    {
+        TestClock clock = new TestClock();
+        DecayingEstimatedHistogramReservoir model = new DecayingEstimatedHistogramReservoir(clock);
+        ThreadLocalDecayingHistogramReservoir test = new ThreadLocalDecayingHistogramReservoir(clock);
+
+        long seed = System.nanoTime();
+        System.out.println("ThreadLocalDecayingHistogramReservoirTest#testMatchesSharedReservoir.seed = " + seed);
+        Random valGen = new Random(seed);
+        long[] values = new long[100_000];
+        long sum = 0;
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = valGen.nextInt(1 << 20);
+            sum += values[i];
+        }
+
+        Thread[] threads = new Thread[nThreads];
+        for (int t = 0; t < nThreads; t++)
+        {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                for (int i = first; i < values.length; i += nThreads)
+                {
+                    model.update(values[i]);
+                    test.update(values[i]);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        // each thread records into its own recorder
+        assertEquals(nThreads, test.recorderCount());
+        assertEquals(100_000, test.count());
+        assertEquals(sum, test.sum());
+
+        // the values of the threads that are gone are kept once their recorders are retired
+        assertSnapshotsEqual(model.getSnapshot(), test.getSnapshot());
+        assertEquals(0, test.recorderCount());
+        assertSnapshotsEqual(model.getSnapshot(), test.getSnapshot());
+        assertEquals(100_000, test.count());
+        assertEquals(sum, test.sum());
+    }
+
+    @Test
+    public void testRelease()
+    {
+        TestClock clock = new TestClock();
+        DecayingEstimatedHistogramReservoir model = new DecayingEstimatedHistogramReservoir(clock);
+        ThreadLocalDecayingHistogramReservoir test = new ThreadLocalDecayingHistogramReservoir(clock);
+        for (int i = 0; i < 100; i++)
+        {
+            model.update(i);
+            test.update(i);
+        }
+        assertEquals(1, test.recorderCount());
+
+        // the recorder of this live thread is dropped, but not its values
+        test.release();
+        assertEquals(0, test.recorderCount());
+        assertSnapshotsEqual(model.getSnapshot(), test.getSnapshot());
+        assertEquals(100, test.count());
+        assertEquals(4950, test.sum());
+
+        // this thread records into the shared buckets from now on
+        model.update(100);
+        test.update(100);
+        assertEquals(0, test.recorderCount());
+        assertSnapshotsEqual(model.getSnapshot(), test.getSnapshot());
+        assertEquals(101, test.count());
+        assertEquals(5050, test.sum());
+    }
+
+    @Test
+    public void testRecordersOfReleasedReservoirReplaced()
+    {
+        TestClock clock = new TestClock();
+        ThreadLocalDecayingHistogramReservoir released = new ThreadLocalDecayingHistogramReservoir(clock);
+        released.update(1);
+        released.release();
+
+        // the next reservoir reuses the recorder slot of the released one, and this thread gets a new recorder for it
+        ThreadLocalDecayingHistogramReservoir next = new ThreadLocalDecayingHistogramReservoir(clock);
+        next.update(2);
+        next.update(3);
+        assertEquals(1, next.recorderCount());
+        assertEquals(2, next.count());
+        assertEquals(5, next.sum());
+        assertEquals(0, released.recorderCount());
+        assertEquals(1, released.count());
+    }
+
+    @Test
+    public void testDecay()
+    {
+        TestClock clock = new TestClock();
+        DecayingEstimatedHistogramReservoir model = new DecayingEstimatedHistogramReservoir(clock);
+        ThreadLocalDecayingHistogramReservoir test = new ThreadLocalDecayingHistogramReservoir(clock);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            model.update(10);
+            test.update(10);
+        }
+
+        // values recorded after two half lives weigh four times more
+        clock.addMillis(DecayingEstimatedHistogramReservoir.HALF_TIME_IN_S * 2000);
+        for (int i = 0; i < 1000; i++)
+        {
+            model.update(1000);
+            test.update(1000);
+        }
+        assertSnapshotsEqual(model.getSnapshot(), test.getSnapshot());
+
+        // past the landmark reset, read before and after this thread rescales its buckets
+        clock.addMillis(DecayingEstimatedHistogramReservoir.LANDMARK_RESET_INTERVAL_IN_MS);
+        assertSnapshotsEqual(model.getSnapshot(), test.getSnapshot());
+        model.update(100);
+        test.update(100);
+        assertSnapshotsEqual(model.getSnapshot(), test.getSnapshot());
+        assertEquals(2001, test.count());
+    }
+
+    @Test
+    public void testRebase()
+    {
+        TestClock clock = new TestClock();
+        ThreadLocalDecayingHistogramReservoir test = new ThreadLocalDecayingHistogramReservoir(clock);
+        for (int i = 0; i < 100; i++)
+            test.update(i);
+
+        DecayingEstimatedHistogramReservoir.EstimatedHistogramReservoirSnapshot snapshot = (DecayingEstimatedHistogramReservoir.EstimatedHistogramReservoirSnapshot) test.getSnapshot();
+        snapshot.add(new DecayingEstimatedHistogramReservoir(clock).getSnapshot());
+        snapshot.rebaseReservoir();
+
+        assertArrayEquals(snapshot.getValues(), test.getSnapshot().getValues());
+        assertEquals(snapshot.getMean(), test.getSnapshot().getMean(), DOUBLE_ASSERT_DELTA);
+        assertEquals(100, test.count());
+    }
+
+    private static void assertSnapshotsEqual(Snapshot expected, Snapshot actual)
+    {
+        assertArrayEquals(expected.getValues(), actual.getValues());
+        assertEquals(expected.getMean(), actual.getMean(), DOUBLE_ASSERT_DELTA);
+        assertEquals(expected.getMin(), actual.getMin(), DOUBLE_ASSERT_DELTA);
+        assertEquals(expected.getMax(), actual.getMax(), DOUBLE_ASSERT_DELTA);
+        for (double i = 0.0; i < 1.0; i += 0.1)
+            assertEquals(expected.getValue(i), actual.getValue(i), DOUBLE_ASSERT_DELTA);
+    }
+
+    private static class TestClock extends Clock
+    {
+        private long tick = 0;
+
+        void addMillis(long millis)
+        {
+            tick += millis * 1_000_000L;
+        }
+
+        public long getTick()
+        {
+            return tick;
+        }
+
+        public long getTime()
+        {
+            return tick / 1_000_000L;
+        }
+    }
+}
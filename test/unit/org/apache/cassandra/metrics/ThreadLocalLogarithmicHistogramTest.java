@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.metrics;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ThreadLocalLogarithmicHistogramTest
+{
+    @Test
+    public void testMatchesSharedHistogram() throws InterruptedException
+    {
+        testMatchesSharedHistogram(4);
+    }
+
+    @Test
+    public void testMatchesSharedHistogramWithManyThreads() throws InterruptedException
+    {
+        testMatchesSharedHistogram(64);
+    }
+
+    private static void testMatchesSharedHistogram(int nThreads) throws InterruptedException
+    {
+        LogarithmicHistogram model = new LogarithmicHistogram();
+        ThreadLocalLogarithmicHistogram test = new ThreadLocalLogarithmicHistogram();
+
+        long seed = System.nanoTime();
+        System.out.println("ThreadLocalLogarithmicHistogramTest#testMatchesSharedHistogram.seed = " + seed);
+        Random valGen = new Random(seed);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = valGen.nextInt(10) == 0 ? 0 : (long) Math.pow(2, valGen.nextDouble() * 44);
+
+        Thread[] threads = new Thread[nThreads];
+        for (int t = 0; t < nThreads; t++)
+        {
+            int first = t;
+            threads[t] = new Thread(() -> {
+                for (int i = first; i < values.length; i += nThreads)
+                {
+                    model.update(values[i]);
+                    test.update(values[i]);
+                }
+            });
+            threads[t].start();
+        }
+
+        // read while the threads record, so their recorders are merged both while they live and once retired
+        test.getSnapshot();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(model.getSnapshot(), test.getSnapshot());
+        assertEquals(0, test.recorderCount());
+    }
+
+    @Test
+    public void testRecordersRetiredOnceOwnersDie() throws InterruptedException
+    {
+        ThreadLocalLogarithmicHistogram test = new ThreadLocalLogarithmicHistogram();
+        LogarithmicHistogram model = new LogarithmicHistogram();
+        for (int t = 0; t < 3; t++)
+        {
+            long value = 1000 * (t + 1);
+            Thread thread = new Thread(() -> {
+                test.update(value);
+                test.update(0);
+            });
+            thread.start();
+            thread.join();
+            model.update(value);
+            model.update(0);
+            assertEquals(1, test.recorderCount());
+            assertEquals(model.getSnapshot(), test.getSnapshot());
+            assertEquals(0, test.recorderCount());
+        }
+
+        // values larger than the maximum trackable one are counted in the last bucket
+        test.update(1L << 42);
+        model.update(1L << 42);
+        assertEquals(1, test.recorderCount());
+        assertEquals(model.getSnapshot(), test.getSnapshot());
+        double max = LogarithmicHistogram.MAX_TRACKABLE_VALUE;
+        assertEquals(max, test.getSnapshot().quantile(1), max * LogarithmicHistogram.DEFAULT_RELATIVE_ACCURACY);
+    }
+
+    @Test
+    public void testRelease()
+    {
+        ThreadLocalLogarithmicHistogram test = new ThreadLocalLogarithmicHistogram();
+        LogarithmicHistogram model = new LogarithmicHistogram();
+        for (int i = 0; i < 100; i++)
+        {
+            test.update(i);
+            model.update(i);
+        }
+        assertEquals(1, test.recorderCount());
+
+        // the recorder of this live thread is dropped, but not its counts, and it counts into the shared buckets after
+        test.release();
+        assertEquals(0, test.recorderCount());
+        assertEquals(model.getSnapshot(), test.getSnapshot());
+        test.update(100);
+        model.update(100);
+        assertEquals(0, test.recorderCount());
+        assertEquals(model.getSnapshot(), test.getSnapshot());
+    }
+}
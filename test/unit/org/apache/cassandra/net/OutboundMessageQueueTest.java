@@ -92,6 +92,41 @@ public class OutboundMessageQueueTest
         }
     }
 
+    @Test
+    public void testPriorityLanesShareDelivery()
+    {
+        OutboundMessageQueue queue = new OutboundMessageQueue(approxTime, message -> true);
+
+        // flood the P1 lane with more messages than fit its quantum, then add a single P2 message behind them
+        int flood = 10 * OutboundMessageQueue.QUANTUM_BYTES * Verb.Priority.P1.weight / Message.out(Verb.MUTATION_RSP, noPayload).serializedSize(MessagingService.current_version);
+        for (int i = 0; i < flood; i++)
+            queue.add(Message.out(Verb.MUTATION_RSP, noPayload));
+        Message<?> other = Message.out(Verb.PAXOS_COMMIT_RSP, noPayload);
+        queue.add(other);
+
+        Assert.assertEquals(flood, queue.size(Verb.Priority.P1));
+        Assert.assertEquals(1, queue.size(Verb.Priority.P2));
+
+        int delivered = 0;
+        int otherDeliveredAt = -1;
+        try (OutboundMessageQueue.WithLock lock = queue.lockOrCallback(approxTime.now(), () -> {}))
+        {
+            Message<?> m;
+            while (null != (m = lock.poll()))
+            {
+                if (m == other)
+                    otherDeliveredAt = delivered;
+                delivered++;
+            }
+        }
+
+        Assert.assertEquals(flood + 1, delivered);
+        // the P2 message gets its turn once the P1 lane has used up its first quantum, not after the whole flood
+        Assert.assertTrue(otherDeliveredAt > 0 && otherDeliveredAt < flood / 5);
+        Assert.assertEquals(0, queue.size(Verb.Priority.P1));
+        Assert.assertEquals(0, queue.size(Verb.Priority.P2));
+    }
+
     @Test
     public void testExpirationOnIteration()
     {
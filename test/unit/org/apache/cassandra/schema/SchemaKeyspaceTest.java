@@ -23,6 +23,7 @@ import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.UUID;
 
 import com.google.common.collect.ImmutableMap;
 
@@ -35,9 +36,16 @@ import org.apache.cassandra.cql3.QueryProcessor;
 import org.apache.cassandra.cql3.UntypedResultSet;
 import org.apache.cassandra.cql3.statements.schema.CreateTableStatement;
 import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.Digest;
 import org.apache.cassandra.db.Keyspace;
 import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.PartitionRangeReadCommand;
+import org.apache.cassandra.db.ReadExecutionController;
+import org.apache.cassandra.db.marshal.UTF8Type;
+import org.apache.cassandra.db.partitions.PartitionIterator;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.db.rows.RowIterator;
+import org.apache.cassandra.db.rows.RowIterators;
 import org.apache.cassandra.db.rows.UnfilteredRowIterators;
 import org.apache.cassandra.exceptions.ConfigurationException;
 import org.apache.cassandra.service.reads.repair.ReadRepairStrategy;
@@ -107,6 +115,66 @@ public class SchemaKeyspaceTest
 
     }
 
+    @Test
+    public void testIncrementalSchemaDigest()
+    {
+        UUID initial = SchemaKeyspace.calculateSchemaDigest();
+
+        createTable("digest_ks", "CREATE TABLE tbl (a text primary key, b int)");
+        UUID incremental = SchemaKeyspace.calculateSchemaDigestIncrementally();
+        Assert.assertNotEquals(initial, incremental);
+        assertEquals(SchemaKeyspace.calculateSchemaDigest(), incremental);
+
+        TableMetadata metadata = Schema.instance.getTableMetadata("digest_ks", "tbl");
+        updateTable("digest_ks", metadata, metadata.unbuild().comment("altered").build());
+        incremental = SchemaKeyspace.calculateSchemaDigestIncrementally();
+        assertEquals(SchemaKeyspace.calculateSchemaDigest(), incremental);
+    }
+
+    @Test
+    public void testIncrementalSchemaDigestMatchesDirectDigest()
+    {
+        // the digests calculated from recorded inputs must be the ones nodes hashing the schema directly calculate
+        assertEquals(calculateSchemaDigestDirectly(), SchemaKeyspace.calculateSchemaDigest());
+
+        createTable("direct_digest_ks", "CREATE TABLE tbl (a text primary key, b int)");
+        assertEquals(calculateSchemaDigestDirectly(), SchemaKeyspace.calculateSchemaDigestIncrementally());
+
+        // only changes the tail of the partition of the table
+        TableMetadata metadata = Schema.instance.getTableMetadata("direct_digest_ks", "tbl");
+        updateTable("direct_digest_ks", metadata, metadata.unbuild().comment("altered").build());
+        UUID direct = calculateSchemaDigestDirectly();
+        assertEquals(direct, SchemaKeyspace.calculateSchemaDigestIncrementally());
+        assertEquals(direct, SchemaKeyspace.calculateSchemaDigest());
+    }
+
+    /**
+     * Calculates the schema digest by hashing the schema partitions with a single digest, as nodes did before the
+     * inputs of each partition were recorded.
+     */
+    private static UUID calculateSchemaDigestDirectly()
+    {
+        Digest digest = Digest.forSchema();
+        for (String table : SchemaKeyspace.ALL)
+        {
+            ColumnFamilyStore cfs = Keyspace.open(SchemaConstants.SCHEMA_KEYSPACE_NAME).getColumnFamilyStore(table);
+            PartitionRangeReadCommand cmd = PartitionRangeReadCommand.allDataRead(cfs.metadata(), FBUtilities.nowInSeconds());
+            try (ReadExecutionController executionController = cmd.executionController();
+                 PartitionIterator schema = cmd.executeInternal(executionController))
+            {
+                while (schema.hasNext())
+                {
+                    try (RowIterator partition = schema.next())
+                    {
+                        if (!SchemaConstants.isLocalSystemKeyspace(UTF8Type.instance.compose(partition.partitionKey().getKey())))
+                            RowIterators.digest(partition, digest);
+                    }
+                }
+            }
+        }
+        return UUID.nameUUIDFromBytes(digest.digest());
+    }
+
     private static void updateTable(String keyspace, TableMetadata oldTable, TableMetadata newTable)
     {
         KeyspaceMetadata ksm = Schema.instance.getKeyspaceInstance(keyspace).getMetadata();
@@ -21,6 +21,10 @@ import java.nio.ByteBuffer;
 import java.util.UUID;
 
 import com.google.common.collect.Iterables;
+import org.apache.cassandra.service.paxos.PrepareAndReadRequest;
+import org.apache.cassandra.service.paxos.PrepareAndReadResponse;
+import org.apache.cassandra.service.paxos.PrepareAndReadVerbHandler;
+import org.apache.cassandra.service.paxos.PrepareCallback;
 import org.apache.cassandra.service.paxos.PrepareVerbHandler;
 import org.apache.cassandra.service.paxos.ProposeVerbHandler;
 import org.junit.AfterClass;
@@ -31,8 +35,12 @@ import org.apache.cassandra.SchemaLoader;
 import org.apache.cassandra.Util;
 import org.apache.cassandra.db.*;
 import org.apache.cassandra.db.rows.Row;
+import org.apache.cassandra.db.partitions.FilteredPartition;
 import org.apache.cassandra.db.partitions.PartitionUpdate;
 import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.net.Message;
+import org.apache.cassandra.net.MessagingService;
+import org.apache.cassandra.net.Verb;
 import org.apache.cassandra.service.paxos.Commit;
 import org.apache.cassandra.service.paxos.PaxosState;
 import org.apache.cassandra.utils.ByteBufferUtil;
@@ -124,4 +132,42 @@ public class PaxosStateTest
         assertTrue("paxos prepare stage failed", PrepareVerbHandler.doPrepare(commit).promised);
         assertTrue("paxos propose stage failed", ProposeVerbHandler.doPropose(commit));
     }
+
+    @Test
+    public void testPrepareAndReadPaxos() throws Throwable
+    {
+        ColumnFamilyStore cfs = Keyspace.open("PaxosStateTestKeyspace1").getColumnFamilyStore("Standard1");
+        String key = "key" + System.nanoTime();
+        DecoratedKey dk = Util.dk(key);
+        ByteBuffer value = ByteBufferUtil.bytes(0);
+        RowUpdateBuilder builder = new RowUpdateBuilder(cfs.metadata(), FBUtilities.timestampMicros(), key);
+        builder.clustering("a").add("val", value);
+        PaxosState.commit(newProposal(0, Iterables.getOnlyElement(builder.build().getPartitionUpdates())));
+
+        SinglePartitionReadCommand read = (SinglePartitionReadCommand) Util.cmd(cfs, dk).build();
+        read.setDigestVersion(MessagingService.current_version);
+        UUID ballot = UUIDGen.getRandomTimeUUIDFromMicros(FBUtilities.timestampMicros());
+        PrepareAndReadRequest request = new PrepareAndReadRequest(Commit.newPrepare(dk, cfs.metadata(), ballot), read);
+
+        PrepareAndReadResponse response = PrepareAndReadVerbHandler.doPrepareAndRead(request);
+        assertTrue(response.prepare.promised);
+        assertNotNull(response.read);
+
+        PrepareCallback callback = new PrepareCallback(dk, cfs.metadata(), 1, ConsistencyLevel.SERIAL, System.nanoTime());
+        callback.withRead().onResponse(Message.builder(Verb.PAXOS_PREPARE_AND_READ_RSP, response).from(FBUtilities.getBroadcastAddressAndPort()).build());
+        callback.await();
+        assertTrue(callback.promised);
+
+        FilteredPartition current = callback.readResult(read, FBUtilities.getBroadcastAddressAndPort(), 1);
+        assertNotNull(current);
+        assertEquals(0, ByteBufferUtil.compareUnsigned(value, current.lastRow().getCell(cfs.metadata().getColumn(ByteBufferUtil.bytes("val"))).buffer()));
+
+        // not enough replicas agreeing on the partition, it has to be read separately
+        assertNull(callback.readResult(read, FBUtilities.getBroadcastAddressAndPort(), 2));
+
+        // the same ballot can't be promised again, and nothing is read then
+        response = PrepareAndReadVerbHandler.doPrepareAndRead(request);
+        assertFalse(response.prepare.promised);
+        assertNull(response.read);
+    }
 }
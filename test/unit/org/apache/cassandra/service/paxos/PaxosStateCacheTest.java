@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service.paxos;
+
+import java.util.UUID;
+
+import com.google.common.collect.Iterables;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.db.ColumnFamilyStore;
+import org.apache.cassandra.db.DecoratedKey;
+import org.apache.cassandra.db.Keyspace;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.db.SystemKeyspace;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.gms.Gossiper;
+import org.apache.cassandra.schema.TableMetadata;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.UUIDGen;
+
+import static org.junit.Assert.assertEquals;
+
+public class PaxosStateCacheTest
+{
+    @BeforeClass
+    public static void setUpClass() throws Throwable
+    {
+        SchemaLoader.loadSchema();
+        SchemaLoader.schemaDefinition("PaxosStateCacheTest");
+    }
+
+    @AfterClass
+    public static void stopGossiper()
+    {
+        Gossiper.instance.stop();
+    }
+
+    @Test
+    public void testCachedStateMatchesTable()
+    {
+        ColumnFamilyStore cfs = Keyspace.open("PaxosStateCacheTestKeyspace1").getColumnFamilyStore("Standard1");
+        TableMetadata metadata = cfs.metadata();
+        String key = "key" + System.nanoTime();
+        DecoratedKey dk = Util.dk(key);
+        long now = FBUtilities.timestampMicros();
+        int nowInSec = (int) (now / 1000000);
+
+        PaxosStateCache cache = new PaxosStateCache(1 << 20);
+        assertSameState(cache, dk, metadata, nowInSec);
+
+        Commit promise = Commit.newPrepare(dk, metadata, ballot(now));
+        cache.savePromise(promise);
+        assertEquals(promise.ballot, cache.load(dk, metadata, nowInSec).promised.ballot);
+        assertSameState(cache, dk, metadata, nowInSec);
+
+        Commit proposal = Commit.newProposal(promise.ballot, update(cfs, key, now));
+        cache.saveProposal(proposal);
+        assertEquals(proposal.ballot, cache.load(dk, metadata, nowInSec).accepted.ballot);
+        assertSameState(cache, dk, metadata, nowInSec);
+
+        // an older promise received late changes nothing
+        cache.savePromise(Commit.newPrepare(dk, metadata, ballot(now - 1000)));
+        assertEquals(promise.ballot, cache.load(dk, metadata, nowInSec).promised.ballot);
+        assertSameState(cache, dk, metadata, nowInSec);
+
+        // once committed, the proposal is over
+        cache.saveCommit(proposal);
+        PaxosState state = cache.load(dk, metadata, nowInSec);
+        assertEquals(proposal.ballot, state.mostRecentCommit.ballot);
+        assertEquals(Commit.emptyCommit(dk, metadata).ballot, state.accepted.ballot);
+        assertSameState(cache, dk, metadata, nowInSec);
+
+        // a more recent proposal still shows
+        Commit nextProposal = Commit.newProposal(ballot(now + 1000), update(cfs, key, now + 1000));
+        cache.saveProposal(nextProposal);
+        assertEquals(nextProposal.ballot, cache.load(dk, metadata, nowInSec).accepted.ballot);
+        assertSameState(cache, dk, metadata, nowInSec);
+
+        // everything expires with the paxos TTL
+        state = cache.load(dk, metadata, nowInSec + SystemKeyspace.paxosTtlSec(metadata) + 1);
+        assertEquals(Commit.emptyCommit(dk, metadata).ballot, state.promised.ballot);
+        assertEquals(Commit.emptyCommit(dk, metadata).ballot, state.accepted.ballot);
+        assertEquals(Commit.emptyCommit(dk, metadata).ballot, state.mostRecentCommit.ballot);
+    }
+
+    private static UUID ballot(long micros)
+    {
+        return UUIDGen.getRandomTimeUUIDFromMicros(micros);
+    }
+
+    private static PartitionUpdate update(ColumnFamilyStore cfs, String key, long timestamp)
+    {
+        RowUpdateBuilder builder = new RowUpdateBuilder(cfs.metadata(), timestamp, key);
+        builder.clustering("a").add("val", ByteBufferUtil.bytes(timestamp));
+        return Iterables.getOnlyElement(builder.build().getPartitionUpdates());
+    }
+
+    private static void assertSameState(PaxosStateCache cache, DecoratedKey key, TableMetadata metadata, int nowInSec)
+    {
+        PaxosState cached = cache.load(key, metadata, nowInSec);
+        PaxosState persisted = SystemKeyspace.loadPaxosState(key, metadata, nowInSec);
+        assertEquals(persisted.promised.ballot, cached.promised.ballot);
+        assertEquals(persisted.accepted.ballot, cached.accepted.ballot);
+        assertEquals(persisted.accepted.update.isEmpty(), cached.accepted.update.isEmpty());
+        assertEquals(persisted.mostRecentCommit.ballot, cached.mostRecentCommit.ballot);
+        assertEquals(persisted.mostRecentCommit.update.isEmpty(), cached.mostRecentCommit.update.isEmpty());
+    }
+}
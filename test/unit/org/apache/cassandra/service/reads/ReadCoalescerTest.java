@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.service.reads;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.cassandra.Util;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.ConsistencyLevel;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.RowUpdateBuilder;
+import org.apache.cassandra.db.SinglePartitionReadCommand;
+import org.apache.cassandra.db.partitions.PartitionIterator;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.utils.FBUtilities;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReadCoalescerTest extends AbstractReadResponseTest
+{
+    private int previousWindow;
+    private SinglePartitionReadCommand command;
+    private PartitionUpdate update;
+
+    @Before
+    public void setUpCoalescing()
+    {
+        previousWindow = DatabaseDescriptor.getReadCoalescingWindowInMs();
+        DatabaseDescriptor.setReadCoalescingWindowInMs(60000);
+        command = (SinglePartitionReadCommand) Util.cmd(cfs, dk).withNowInSeconds(nowInSec).build();
+        update = new RowUpdateBuilder(cfm, nowInSec, 0L, dk).clustering("1").add("c1", "v1").buildUpdate();
+    }
+
+    @After
+    public void tearDownCoalescing()
+    {
+        DatabaseDescriptor.setReadCoalescingWindowInMs(previousWindow);
+    }
+
+    @Test
+    public void identicalConcurrentReadsShareOneFetch() throws Exception
+    {
+        ReadCoalescer coalescer = new ReadCoalescer();
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<PartitionIterator> fetch = () -> {
+            fetches.incrementAndGet();
+            fetching.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            return filter(iter(update));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try
+        {
+            long coalescedBefore = coalescer.coalesced.getCount();
+            Future<PartitionIterator> leader = executor.submit(() -> coalescer.read(command, ConsistencyLevel.QUORUM, System.nanoTime(), fetch));
+            fetching.await(10, TimeUnit.SECONDS);
+            Future<PartitionIterator> follower = executor.submit(() -> coalescer.read(command, ConsistencyLevel.QUORUM, System.nanoTime(), fetch));
+            Util.spinAssertEquals(coalescedBefore + 1, coalescer.coalesced::getCount, 10);
+            release.countDown();
+
+            assertPartitionsEqual(filter(iter(update)), leader.get(10, TimeUnit.SECONDS));
+            assertPartitionsEqual(filter(iter(update)), follower.get(10, TimeUnit.SECONDS));
+            assertEquals(1, fetches.get());
+
+            // the result is only shared while the read is in flight
+            consume(coalescer.read(command, ConsistencyLevel.QUORUM, System.nanoTime(), fetch));
+            assertEquals(2, fetches.get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void readsDoNotJoinAcrossWritesOrConsistencyLevels() throws Exception
+    {
+        ReadCoalescer coalescer = new ReadCoalescer();
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fetching = new CountDownLatch(1);
+        Supplier<PartitionIterator> blockingFetch = () -> {
+            fetches.incrementAndGet();
+            fetching.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            return filter(iter(update));
+        };
+        Supplier<PartitionIterator> fetch = () -> {
+            fetches.incrementAndGet();
+            return filter(iter(update));
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            long coalescedBefore = coalescer.coalesced.getCount();
+            Future<PartitionIterator> leader = executor.submit(() -> coalescer.read(command, ConsistencyLevel.QUORUM, System.nanoTime(), blockingFetch));
+            fetching.await(10, TimeUnit.SECONDS);
+
+            consume(coalescer.read(command, ConsistencyLevel.ONE, System.nanoTime(), fetch));
+            assertEquals(2, fetches.get());
+
+            coalescer.onWrite(new Mutation(update));
+            consume(coalescer.read(command, ConsistencyLevel.QUORUM, System.nanoTime(), fetch));
+            assertEquals(3, fetches.get());
+
+            SinglePartitionReadCommand later = (SinglePartitionReadCommand) Util.cmd(cfs, dk).withNowInSeconds(FBUtilities.nowInSeconds() + 1).build();
+            consume(coalescer.read(later, ConsistencyLevel.QUORUM, System.nanoTime(), fetch));
+            assertEquals(4, fetches.get());
+            assertEquals(coalescedBefore, coalescer.coalesced.getCount());
+
+            release.countDown();
+            consume(leader.get(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void readsDoNotJoinReadsStartedBeforeAWriteWasAcknowledged() throws Exception
+    {
+        ReadCoalescer coalescer = new ReadCoalescer();
+        AtomicInteger fetches = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fetching = new CountDownLatch(1);
+        Supplier<PartitionIterator> blockingFetch = () -> {
+            fetches.incrementAndGet();
+            fetching.countDown();
+            Uninterruptibles.awaitUninterruptibly(release);
+            return filter(iter(update));
+        };
+        Supplier<PartitionIterator> fetch = () -> {
+            fetches.incrementAndGet();
+            return filter(iter(update));
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            long coalescedBefore = coalescer.coalesced.getCount();
+            Mutation write = new Mutation(update);
+
+            // the write starts, then a read starts while it is in progress, and may not see it
+            coalescer.onWrite(write);
+            Future<PartitionIterator> leader = executor.submit(() -> coalescer.read(command, ConsistencyLevel.QUORUM, System.nanoTime(), blockingFetch));
+            fetching.await(10, TimeUnit.SECONDS);
+
+            // once the write is acknowledged, reads must not be answered from the read that started before
+            coalescer.onWrite(write);
+            consume(coalescer.read(command, ConsistencyLevel.QUORUM, System.nanoTime(), fetch));
+            assertEquals(2, fetches.get());
+            assertEquals(coalescedBefore, coalescer.coalesced.getCount());
+
+            release.countDown();
+            consume(leader.get(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+}
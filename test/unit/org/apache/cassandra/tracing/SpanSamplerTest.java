@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.tracing;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import org.apache.cassandra.SchemaLoader;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.schema.KeyspaceParams;
+import org.apache.cassandra.schema.Schema;
+import org.apache.cassandra.schema.TableMetadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SpanSamplerTest
+{
+    private static final String KEYSPACE = "SpanSamplerTest";
+    private static final String TABLE = "Standard1";
+
+    private static TableMetadata table;
+
+    @BeforeClass
+    public static void setUp()
+    {
+        SchemaLoader.prepareServer();
+        SchemaLoader.createKeyspace(KEYSPACE, KeyspaceParams.simple(1), SchemaLoader.standardCFMD(KEYSPACE, TABLE));
+        table = Schema.instance.getTableMetadata(KEYSPACE, TABLE);
+    }
+
+    @After
+    public void resetProbability()
+    {
+        DatabaseDescriptor.setSpanSamplingProbability(0.01);
+    }
+
+    @Test
+    public void testNothingIsRecordedWhenDisabled()
+    {
+        DatabaseDescriptor.setSpanSamplingProbability(0);
+        SpanSampler sampler = new SpanSampler(4);
+        for (int i = 0; i < 100; i++)
+        {
+            SpanSampler.Span span = sampler.maybeStart(SpanSampler.Kind.REPLICA_READ, table, 0);
+            assertNull(span);
+            assertFalse(SpanSampler.isSampling());
+            sampler.finish(span);
+        }
+        assertTrue(sampler.recentSpans().isEmpty());
+        assertTrue(sampler.breakdowns().isEmpty());
+    }
+
+    @Test
+    public void testNestedSpans()
+    {
+        DatabaseDescriptor.setSpanSamplingProbability(1);
+        SpanSampler sampler = new SpanSampler(4);
+
+        SpanSampler.Span coordinator = sampler.maybeStart(SpanSampler.Kind.COORDINATOR_READ, table, 0);
+        SpanSampler.addSSTablesTouched(1);
+
+        SpanSampler.Span replica = sampler.maybeStart(SpanSampler.Kind.REPLICA_READ, table, 1000);
+        SpanSampler.addSSTablesTouched(3);
+        SpanSampler.addChunkCacheMiss(2000);
+        SpanSampler.addChunkCacheMiss(4000);
+        sampler.finish(replica);
+
+        // the coordinator span is current again
+        assertTrue(SpanSampler.isSampling());
+        SpanSampler.addSSTablesTouched(1);
+        sampler.finish(coordinator);
+        assertFalse(SpanSampler.isSampling());
+
+        assertEquals(3, replica.sstables());
+        assertEquals(2, replica.chunkCacheMisses());
+        assertEquals(6000, replica.diskWaitNanos());
+        assertEquals(2, coordinator.sstables());
+        assertEquals(0, coordinator.chunkCacheMisses());
+        assertTrue(coordinator.durationNanos() >= replica.durationNanos());
+
+        Collection<SpanSampler.TableBreakdown> breakdowns = sampler.breakdowns();
+        assertEquals(1, breakdowns.size());
+        SpanSampler.TableBreakdown breakdown = breakdowns.iterator().next();
+        assertEquals(KEYSPACE, breakdown.keyspace);
+        assertEquals(TABLE, breakdown.table);
+        assertEquals(1, breakdown.get(SpanSampler.Kind.REPLICA_READ).spans());
+        assertEquals(1000, breakdown.get(SpanSampler.Kind.REPLICA_READ).queueNanos());
+        assertEquals(3, breakdown.get(SpanSampler.Kind.REPLICA_READ).sstables());
+        assertEquals(6000, breakdown.get(SpanSampler.Kind.REPLICA_READ).diskWaitNanos());
+        assertEquals(1, breakdown.get(SpanSampler.Kind.COORDINATOR_READ).spans());
+        assertEquals(0, breakdown.get(SpanSampler.Kind.REPLICA_WRITE).spans());
+    }
+
+    @Test
+    public void testOnlyTheMostRecentSpansAreKept()
+    {
+        DatabaseDescriptor.setSpanSamplingProbability(1);
+        SpanSampler sampler = new SpanSampler(4);
+        for (int i = 0; i < 10; i++)
+            sampler.finish(sampler.maybeStart(SpanSampler.Kind.REPLICA_WRITE, table, 0));
+
+        List<SpanSampler.Span> recent = sampler.recentSpans();
+        assertEquals(4, recent.size());
+        for (SpanSampler.Span span : recent)
+            assertTrue(span.sequence() >= 6);
+        assertEquals(10, sampler.breakdowns().iterator().next().get(SpanSampler.Kind.REPLICA_WRITE).spans());
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.cassandra.tracing;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ChronicleQueueBuilder;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
+import net.openhft.chronicle.wire.ValueIn;
+import org.apache.cassandra.Util;
+import org.apache.cassandra.config.Config;
+import org.apache.cassandra.config.DatabaseDescriptor;
+import org.apache.cassandra.db.Mutation;
+import org.apache.cassandra.db.partitions.PartitionUpdate;
+import org.apache.cassandra.locator.InetAddressAndPort;
+import org.apache.cassandra.utils.ByteBufferUtil;
+import org.apache.cassandra.utils.FBUtilities;
+import org.apache.cassandra.utils.binlog.BinLog;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TraceStateImplTest
+{
+    @BeforeClass
+    public static void setupDD()
+    {
+        DatabaseDescriptor.daemonInitialization();
+    }
+
+    @Test
+    public void testEventsWrittenInBatches()
+    {
+        int batchSize = TraceStateImpl.EVENTS_BATCH_SIZE;
+        TraceStateImpl.EVENTS_BATCH_SIZE = 4;
+        try
+        {
+            RecordingTracing tracing = new RecordingTracing();
+            tracing.newSession(Tracing.TraceType.QUERY);
+            TraceState state = tracing.get();
+            for (int i = 0; i < 7; i++)
+                state.trace("test-" + i);
+
+            // the 4 first events are written together, the others wait for more
+            assertEquals(1, tracing.mutations.size());
+            assertEquals(4, rowCount(tracing.mutations.get(0), TraceKeyspace.EVENTS));
+            assertEquals(0, rowCount(tracing.mutations.get(0), TraceKeyspace.SESSIONS));
+
+            tracing.stopSession();
+            assertEquals(2, tracing.mutations.size());
+            assertEquals(3, rowCount(tracing.mutations.get(1), TraceKeyspace.EVENTS));
+        }
+        finally
+        {
+            TraceStateImpl.EVENTS_BATCH_SIZE = batchSize;
+        }
+    }
+
+    @Test
+    public void testEventsWrittenWithSessionStop()
+    {
+        RecordingTracing tracing = new RecordingTracing();
+        tracing.newSession(Tracing.TraceType.QUERY);
+        TraceState state = tracing.begin("test-request", Collections.emptyMap());
+        state.trace("test-1");
+        state.trace("test-2");
+
+        // only the start of the session is written until it stops
+        assertEquals(1, tracing.mutations.size());
+        assertEquals(1, rowCount(tracing.mutations.get(0), TraceKeyspace.SESSIONS));
+        assertEquals(0, rowCount(tracing.mutations.get(0), TraceKeyspace.EVENTS));
+
+        tracing.stopSession();
+        assertEquals(2, tracing.mutations.size());
+        Mutation stop = tracing.mutations.get(1);
+        assertEquals(1, rowCount(stop, TraceKeyspace.SESSIONS));
+        assertEquals(2, rowCount(stop, TraceKeyspace.EVENTS));
+    }
+
+    @Test
+    public void testSessionStopWithoutEvents()
+    {
+        RecordingTracing tracing = new RecordingTracing();
+        tracing.newSession(Tracing.TraceType.QUERY);
+        tracing.begin("test-request", Collections.emptyMap());
+        tracing.stopSession();
+
+        assertEquals(2, tracing.mutations.size());
+        assertEquals(1, rowCount(tracing.mutations.get(1), TraceKeyspace.SESSIONS));
+        assertEquals(0, rowCount(tracing.mutations.get(1), TraceKeyspace.EVENTS));
+    }
+
+    @Test
+    public void testEventsWrittenWhenDoneWithNonLocalSession()
+    {
+        RecordingTracing tracing = new RecordingTracing();
+        tracing.newSession(Tracing.TraceType.QUERY);
+        TraceState state = tracing.get();
+        tracing.set(null);
+        state.trace("test-1");
+        state.trace("test-2");
+        assertEquals(0, tracing.mutations.size());
+
+        tracing.doneWithNonLocalSession(state);
+        assertEquals(1, tracing.mutations.size());
+        assertEquals(2, rowCount(tracing.mutations.get(0), TraceKeyspace.EVENTS));
+        assertNull(tracing.get(state.sessionId));
+    }
+
+    @Test
+    public void testEventsWrittenPeriodically()
+    {
+        RecordingTracing tracing = new RecordingTracing();
+        tracing.newSession(Tracing.TraceType.QUERY);
+        TraceState state = tracing.get();
+        tracing.set(null);
+        state.trace("test-1");
+
+        // the session is neither stopped nor released, but its event is written by the periodic flush
+        Util.spinAssertEquals(1, tracing.mutations::size, 10);
+        assertEquals(1, rowCount(tracing.mutations.get(0), TraceKeyspace.EVENTS));
+    }
+
+    @Test
+    public void testBinLogRecords() throws Exception
+    {
+        File dir = Files.createTempDirectory("tracing").toFile();
+        String logDir = DatabaseDescriptor.getTracingBinLogOptions().log_dir;
+        DatabaseDescriptor.getTracingBinLogOptions().log_dir = dir.getPath();
+        DatabaseDescriptor.setTracingStorage(Config.TracingStorage.binlog);
+        RecordingTracing tracing = new RecordingTracing();
+        try
+        {
+            UUID sessionId = tracing.newSession(Tracing.TraceType.QUERY);
+            TraceState state = tracing.begin("test-request", InetAddress.getLoopbackAddress(), Collections.singletonMap("key", "value"));
+            state.trace("test-1");
+            tracing.stopSession();
+            tracing.trace(ByteBufferUtil.bytes(sessionId), "test-2", Tracing.TraceType.QUERY.getTTL());
+
+            List<String> expected = Arrays.asList(TraceBinLog.SESSION_START + ' ' + sessionId + " test-request QUERY 127.0.0.1 {key=value}",
+                                                  TraceBinLog.EVENT + ' ' + sessionId + " test-1",
+                                                  TraceBinLog.SESSION_STOP + ' ' + sessionId,
+                                                  TraceBinLog.EVENT + ' ' + sessionId + " test-2");
+            Util.spinAssertEquals(expected, () -> readBinLog(dir), 10);
+
+            // nothing is written to the tables
+            assertTrue(tracing.mutations.isEmpty());
+        }
+        finally
+        {
+            tracing.shutdown();
+            DatabaseDescriptor.setTracingStorage(Config.TracingStorage.table);
+            DatabaseDescriptor.getTracingBinLogOptions().log_dir = logDir;
+        }
+    }
+
+    private static int rowCount(Mutation mutation, String table)
+    {
+        for (PartitionUpdate update : mutation.getPartitionUpdates())
+        {
+            if (update.metadata().name.equals(table))
+                return update.rowCount();
+        }
+        return 0;
+    }
+
+    private static List<String> readBinLog(File dir)
+    {
+        List<String> records = new ArrayList<>();
+        try (ChronicleQueue queue = ChronicleQueueBuilder.single(dir).rollCycle(RollCycles.MINUTELY).build())
+        {
+            ExcerptTailer tailer = queue.createTailer();
+            while (tailer.readDocument(wire -> {
+                assertEquals(TraceBinLog.CURRENT_VERSION, wire.read(BinLog.VERSION).int16());
+                String type = wire.read(BinLog.TYPE).text();
+                StringBuilder record = new StringBuilder(type).append(' ').append(wire.read(TraceBinLog.SESSION_ID).text());
+                assertEquals(FBUtilities.getBroadcastAddressAndPort().toString(), wire.read(TraceBinLog.SOURCE).text());
+                switch (type)
+                {
+                    case TraceBinLog.SESSION_START:
+                        String client = wire.read(TraceBinLog.CLIENT).text();
+                        record.append(' ').append(wire.read(TraceBinLog.REQUEST).text());
+                        assertTrue(wire.read(TraceBinLog.STARTED_AT).int64() > 0);
+                        record.append(' ').append(wire.read(TraceBinLog.COMMAND).text());
+                        record.append(' ').append(client);
+                        ValueIn in = wire.read(TraceBinLog.PARAMETERS);
+                        int parameters = in.int32();
+                        record.append(" {");
+                        for (int i = 0; i < parameters; i++)
+                            record.append(i > 0 ? ", " : "").append(in.text()).append('=').append(in.text());
+                        record.append('}');
+                        break;
+                    case TraceBinLog.EVENT:
+                        wire.read(TraceBinLog.EVENT_ID).text();
+                        record.append(' ').append(wire.read(TraceBinLog.ACTIVITY).text());
+                        break;
+                    case TraceBinLog.SESSION_STOP:
+                        assertTrue(wire.read(TraceBinLog.DURATION).int32() >= 0);
+                        break;
+                }
+                records.add(record.toString());
+            }));
+        }
+        return records;
+    }
+
+    /**
+     * Records the mutations of its sessions rather than writing them.
+     */
+    private static class RecordingTracing extends TracingImpl
+    {
+        private final List<Mutation> mutations = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected TraceState newTraceState(InetAddressAndPort coordinator, UUID sessionId, TraceType traceType)
+        {
+            return new TraceStateImpl(coordinator, sessionId, traceType)
+            {
+                @Override
+                void executeMutation(Mutation mutation)
+                {
+                    mutations.add(mutation);
+                }
+            };
+        }
+    }
+}
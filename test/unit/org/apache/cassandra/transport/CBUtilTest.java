@@ -18,6 +18,8 @@
 
 package org.apache.cassandra.transport;
 
+import java.nio.ByteBuffer;
+
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Test;
@@ -91,4 +93,24 @@ public class CBUtilTest
                                size,
                                buf.writerIndex());
     }
+
+    @Test
+    public void writeAndReadValueFromBufferSlices()
+    {
+        byte[] bytes = new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 };
+        ByteBuffer heap = ByteBuffer.wrap(bytes, 2, 4).slice();
+        ByteBuffer direct = ByteBuffer.allocateDirect(4);
+        direct.put(bytes, 2, 4).flip();
+
+        buf = allocator.heapBuffer(CBUtil.sizeOfValue(heap) + CBUtil.sizeOfValue(direct));
+        CBUtil.writeValue(heap, buf);
+        CBUtil.writeValue(direct, buf);
+
+        // writing must not consume the source buffers
+        Assert.assertEquals(4, heap.remaining());
+        Assert.assertEquals(4, direct.remaining());
+        Assert.assertEquals(CBUtil.sizeOfValue(heap) + CBUtil.sizeOfValue(direct), buf.writerIndex());
+        Assert.assertEquals(heap, CBUtil.readValue(buf));
+        Assert.assertEquals(direct, CBUtil.readValue(buf));
+    }
 }
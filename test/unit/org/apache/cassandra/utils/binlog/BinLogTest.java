@@ -19,6 +19,7 @@
 package org.apache.cassandra.utils.binlog;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
@@ -33,6 +34,8 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ChronicleQueueBuilder;
 import net.openhft.chronicle.queue.ExcerptTailer;
@@ -444,6 +447,69 @@ public class BinLogTest
         Util.spinAssertEquals(2, () -> readBinLogRecords(path).size(), 60);
     }
 
+    /**
+     * Check that a record failing to write itself to a compressed batch is skipped, without corrupting the batch
+     */
+    @Test
+    public void testBatchSkipsFailedRecord() throws Exception
+    {
+        binLog.stop();
+        binLog = new BinLog.Builder().path(path)
+                                     .rollCycle(RollCycles.TEST_SECONDLY.toString())
+                                     .maxQueueWeight(10)
+                                     .maxLogSize(1024 * 1024 * 128)
+                                     .blocking(true)
+                                     .compressedBatches(true)
+                                     .build(false);
+
+        binLog.put(batchableRecord(testString, false));
+        binLog.put(batchableRecord("partially written", true));
+        binLog.put(batchableRecord(testString2, false));
+
+        List<String> expected = new ArrayList<>();
+        expected.add(testString);
+        expected.add(testString2);
+        Util.spinAssertEquals(expected, () -> readBinLogBatches(path), 60);
+    }
+
+    static BinLog.BatchableWriteMarshallable batchableRecord(String text, boolean fail)
+    {
+        return new BinLog.BatchableWriteMarshallable()
+        {
+            public void release()
+            {
+                //Do nothing
+            }
+
+            protected long version()
+            {
+                return 0;
+            }
+
+            protected String type()
+            {
+                return "test";
+            }
+
+            protected String batchType()
+            {
+                return "test_batch";
+            }
+
+            public void writeMarshallablePayload(WireOut wire)
+            {
+                wire.write("text").text(text);
+            }
+
+            protected void writeTo(ByteBuf batch)
+            {
+                ByteBufUtil.writeUtf8(batch, text);
+                if (fail)
+                    throw new RuntimeException("Failed to write " + text);
+            }
+        };
+    }
+
     static BinLog.ReleaseableWriteMarshallable record(String text)
     {
         return new BinLog.ReleaseableWriteMarshallable()
@@ -470,6 +536,24 @@ public class BinLogTest
         };
     }
 
+    List<String> readBinLogBatches(Path path)
+    {
+        List<String> records = new ArrayList<String>();
+        try (ChronicleQueue queue = ChronicleQueueBuilder.single(path.toFile()).rollCycle(RollCycles.TEST_SECONDLY).build())
+        {
+            ExcerptTailer tailer = queue.createTailer();
+            while (tailer.readDocument(wire ->
+                                       {
+                                           wire.read(BinLog.VERSION).int16();
+                                           assertEquals("test_batch", wire.read(BinLog.TYPE).text());
+                                           BinLog.readBatch(wire, record -> records.add(record.toString(StandardCharsets.UTF_8)));
+                                       }))
+            {
+            }
+            return records;
+        }
+    }
+
     List<String> readBinLogRecords(Path path)
     {
         List<String> records = new ArrayList<String>();
@@ -18,11 +18,14 @@
 
 package org.apache.cassandra.fqltool;
 
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 import com.google.common.collect.Sets;
 import com.google.common.primitives.Longs;
@@ -43,17 +46,35 @@ public abstract class FQLQuery implements Comparable<FQLQuery>
     public final QueryOptions queryOptions;
     public final int protocolVersion;
     public final QueryState queryState;
+    /**
+     * The client connection the query was received on, if it was logged. Replays keep the queries of a connection in
+     * the order they were logged.
+     */
+    @Nullable
+    public final InetSocketAddress clientAddress;
 
     public FQLQuery(String keyspace, int protocolVersion, QueryOptions queryOptions, long queryStartTime, long generatedTimestamp, int generatedNowInSeconds)
+    {
+        this(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds, null);
+    }
+
+    public FQLQuery(String keyspace, int protocolVersion, QueryOptions queryOptions, long queryStartTime, long generatedTimestamp, int generatedNowInSeconds, @Nullable InetSocketAddress clientAddress)
     {
         this.queryStartTime = queryStartTime;
         this.queryOptions = queryOptions;
         this.protocolVersion = protocolVersion;
         this.queryState = queryState(keyspace, generatedTimestamp, generatedNowInSeconds);
+        this.clientAddress = clientAddress;
     }
 
     public abstract Statement toStatement();
 
+    /**
+     * @return the kind of statement this is, the first keyword of the query (SELECT, INSERT...) or BATCH, which
+     * replays report latencies by
+     */
+    public abstract String statementType();
+
     /**
      * used when storing the queries executed
      */
@@ -112,11 +133,25 @@ public abstract class FQLQuery implements Comparable<FQLQuery>
 
         public Single(String keyspace, int protocolVersion, QueryOptions queryOptions, long queryStartTime, long generatedTimestamp, int generatedNowInSeconds, String queryString, List<ByteBuffer> values)
         {
-            super(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds);
+            this(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds, queryString, values, null);
+        }
+
+        public Single(String keyspace, int protocolVersion, QueryOptions queryOptions, long queryStartTime, long generatedTimestamp, int generatedNowInSeconds, String queryString, List<ByteBuffer> values, @Nullable InetSocketAddress clientAddress)
+        {
+            super(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds, clientAddress);
             this.query = queryString;
             this.values = values;
         }
 
+        public String statementType()
+        {
+            String trimmed = query.trim();
+            int end = 0;
+            while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end)))
+                end++;
+            return end == 0 ? "UNKNOWN" : trimmed.substring(0, end).toUpperCase(Locale.ROOT);
+        }
+
         @Override
         public String toString()
         {
@@ -202,11 +237,21 @@ public abstract class FQLQuery implements Comparable<FQLQuery>
 
         public Batch(String keyspace, int protocolVersion, QueryOptions queryOptions, long queryStartTime, long generatedTimestamp, int generatedNowInSeconds, BatchStatement.Type batchType, List<String> queries, List<List<ByteBuffer>> values)
         {
-            super(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds);
+            this(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds, batchType, queries, values, null);
+        }
+
+        public Batch(String keyspace, int protocolVersion, QueryOptions queryOptions, long queryStartTime, long generatedTimestamp, int generatedNowInSeconds, BatchStatement.Type batchType, List<String> queries, List<List<ByteBuffer>> values, @Nullable InetSocketAddress clientAddress)
+        {
+            super(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds, clientAddress);
             this.batchType = batchType;
             this.queries = new ArrayList<>(queries.size());
             for (int i = 0; i < queries.size(); i++)
-                this.queries.add(new Single(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds, queries.get(i), values.get(i)));
+                this.queries.add(new Single(keyspace, protocolVersion, queryOptions, queryStartTime, generatedTimestamp, generatedNowInSeconds, queries.get(i), values.get(i), clientAddress));
+        }
+
+        public String statementType()
+        {
+            return "BATCH";
         }
 
         public Statement toStatement()
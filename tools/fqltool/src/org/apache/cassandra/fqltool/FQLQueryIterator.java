@@ -18,6 +18,7 @@
 
 package org.apache.cassandra.fqltool;
 
+import java.util.ArrayDeque;
 import java.util.PriorityQueue;
 
 import net.openhft.chronicle.queue.ExcerptTailer;
@@ -29,6 +30,8 @@ public class FQLQueryIterator extends AbstractIterator<FQLQuery>
     private final PriorityQueue<FQLQuery> pq;
     private final ExcerptTailer tailer;
     private final FQLQueryReader reader;
+    // the queries of the last document read that are not in the priority queue yet, if it was a compressed batch
+    private final ArrayDeque<FQLQuery> unread = new ArrayDeque<>();
 
     /**
      * Create an iterator over the FQLQueries in tailer
@@ -64,9 +67,9 @@ public class FQLQueryIterator extends AbstractIterator<FQLQuery>
 
     private FQLQuery readNext()
     {
-        if (tailer.readDocument(reader))
-            return reader.getQuery();
-        return null;
+        if (unread.isEmpty() && tailer.readDocument(reader))
+            unread.addAll(reader.getQueries());
+        return unread.poll();
     }
 }
 
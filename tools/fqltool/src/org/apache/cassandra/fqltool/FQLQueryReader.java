@@ -19,19 +19,27 @@
 package org.apache.cassandra.fqltool;
 
 
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import com.datastax.driver.core.BatchStatement;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import net.openhft.chronicle.core.io.IORuntimeException;
 import net.openhft.chronicle.wire.ReadMarshallable;
 import net.openhft.chronicle.wire.ValueIn;
 import net.openhft.chronicle.wire.WireIn;
 import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.transport.CBUtil;
 import org.apache.cassandra.transport.ProtocolVersion;
+import org.apache.cassandra.utils.binlog.BinLog;
 
+import static org.apache.cassandra.fql.FullQueryLogger.CLIENT_ADDRESS;
+import static org.apache.cassandra.fql.FullQueryLogger.COMPRESSED_BATCH;
 import static org.apache.cassandra.fql.FullQueryLogger.CURRENT_VERSION;
 import static org.apache.cassandra.fql.FullQueryLogger.GENERATED_NOW_IN_SECONDS;
 import static org.apache.cassandra.fql.FullQueryLogger.GENERATED_TIMESTAMP;
@@ -48,15 +56,28 @@ import static org.apache.cassandra.fql.FullQueryLogger.QUERY;
 import static org.apache.cassandra.fql.FullQueryLogger.SINGLE_QUERY;
 import static org.apache.cassandra.fql.FullQueryLogger.VALUES;
 
+/**
+ * Reads the queries of a full query log document, which is either a single query or batch of queries, or a compressed
+ * batch of those.
+ */
 public class FQLQueryReader implements ReadMarshallable
 {
-    private FQLQuery query;
+    private final List<FQLQuery> queries = new ArrayList<>();
 
     public void readMarshallable(WireIn wireIn) throws IORuntimeException
     {
+        queries.clear();
         verifyVersion(wireIn);
         String type = readType(wireIn);
 
+        if (COMPRESSED_BATCH.equals(type))
+            BinLog.readBatch(wireIn, record -> queries.add(readQuery(record)));
+        else
+            queries.add(readQuery(type, wireIn));
+    }
+
+    private static FQLQuery readQuery(String type, WireIn wireIn)
+    {
         long queryStartTime = wireIn.read(QUERY_START_TIME).int64();
         int protocolVersion = wireIn.read(PROTOCOL_VERSION).int32();
         QueryOptions queryOptions = QueryOptions.codec.decode(Unpooled.wrappedBuffer(wireIn.read(QUERY_OPTIONS).bytes()), ProtocolVersion.decode(protocolVersion, true));
@@ -68,15 +89,15 @@ public class FQLQueryReader implements ReadMarshallable
         {
             case SINGLE_QUERY:
                 String queryString = wireIn.read(QUERY).text();
-                query = new FQLQuery.Single(keyspace,
-                                            protocolVersion,
-                                            queryOptions,
-                                            queryStartTime,
-                                            generatedTimestamp,
-                                            generatedNowInSeconds,
-                                            queryString,
-                                            queryOptions.getValues());
-                break;
+                return new FQLQuery.Single(keyspace,
+                                           protocolVersion,
+                                           queryOptions,
+                                           queryStartTime,
+                                           generatedTimestamp,
+                                           generatedNowInSeconds,
+                                           queryString,
+                                           queryOptions.getValues(),
+                                           readClientAddress(wireIn));
             case BATCH:
                 BatchStatement.Type batchType = BatchStatement.Type.valueOf(wireIn.read(BATCH_TYPE).text());
                 ValueIn in = wireIn.read(QUERIES);
@@ -96,16 +117,79 @@ public class FQLQueryReader implements ReadMarshallable
                     for (int zz = 0; zz < numSubValues; zz++)
                         subValues.add(ByteBuffer.wrap(in.bytes()));
                 }
-                query = new FQLQuery.Batch(keyspace,
+                return new FQLQuery.Batch(keyspace,
+                                          protocolVersion,
+                                          queryOptions,
+                                          queryStartTime,
+                                          generatedTimestamp,
+                                          generatedNowInSeconds,
+                                          batchType,
+                                          queries,
+                                          values,
+                                          readClientAddress(wireIn));
+            default:
+                throw new IORuntimeException("Unhandled record type: " + type);
+        }
+    }
+
+    /**
+     * Reads the optional last field of a query document, absent from the documents logged without a client address.
+     */
+    @Nullable
+    private static InetSocketAddress readClientAddress(WireIn wireIn)
+    {
+        if (wireIn.bytes().readRemaining() <= 0)
+            return null;
+        return CBUtil.readInet(Unpooled.wrappedBuffer(wireIn.read(CLIENT_ADDRESS).bytes()));
+    }
+
+    /**
+     * Reads a query from its binary form in a compressed batch, as described in {@link org.apache.cassandra.fql.FullQueryLogger#COMPRESSED_BATCH}.
+     */
+    public static FQLQuery readQuery(ByteBuf in)
+    {
+        String type = CBUtil.readString(in);
+        long queryStartTime = in.readLong();
+        int protocolVersion = in.readInt();
+        ProtocolVersion version = ProtocolVersion.decode(protocolVersion, true);
+        QueryOptions queryOptions = QueryOptions.codec.decode(in.readSlice(in.readInt()), version);
+        long generatedTimestamp = in.readLong();
+        int generatedNowInSeconds = in.readInt();
+        String keyspace = in.readBoolean() ? CBUtil.readString(in) : null;
+        InetSocketAddress clientAddress = in.readBoolean() ? CBUtil.readInet(in) : null;
+
+        switch (type)
+        {
+            case SINGLE_QUERY:
+                return new FQLQuery.Single(keyspace,
                                            protocolVersion,
                                            queryOptions,
                                            queryStartTime,
                                            generatedTimestamp,
                                            generatedNowInSeconds,
-                                           batchType,
-                                           queries,
-                                           values);
-                break;
+                                           CBUtil.readLongString(in),
+                                           queryOptions.getValues(),
+                                           clientAddress);
+            case BATCH:
+                BatchStatement.Type batchType = BatchStatement.Type.valueOf(CBUtil.readString(in));
+                int queryCount = in.readUnsignedShort();
+                List<String> queries = new ArrayList<>(queryCount);
+                for (int i = 0; i < queryCount; i++)
+                    queries.add(CBUtil.readLongString(in));
+                int valueCount = in.readInt();
+                List<List<ByteBuffer>> values = new ArrayList<>(valueCount);
+                for (int i = 0; i < valueCount; i++)
+                    values.add(CBUtil.readValueList(in, version));
+                return new FQLQuery.Batch(keyspace,
+                                          protocolVersion,
+                                          queryOptions,
+                                          queryStartTime,
+                                          generatedTimestamp,
+                                          generatedNowInSeconds,
+                                          batchType,
+                                          queries,
+                                          values,
+                                          clientAddress);
             default:
                 throw new IORuntimeException("Unhandled record type: " + type);
         }
@@ -125,17 +209,33 @@ public class FQLQueryReader implements ReadMarshallable
     private String readType(WireIn wireIn) throws IORuntimeException
     {
         String type = wireIn.read(TYPE).text();
-        if (!SINGLE_QUERY.equals(type) && !BATCH.equals(type))
+        if (!SINGLE_QUERY.equals(type) && !BATCH.equals(type) && !COMPRESSED_BATCH.equals(type))
         {
             throw new IORuntimeException("Unsupported record type field [" + type
-                                         + "] - supported record types are [" + SINGLE_QUERY + ", " + BATCH + ']');
+                                         + "] - supported record types are [" + SINGLE_QUERY + ", " + BATCH + ", " + COMPRESSED_BATCH + ']');
         }
 
         return type;
     }
 
+    /**
+     * @return the query read by the last call to {@link #readMarshallable}
+     * @throws IllegalStateException if the last document read held more than one query, as compressed batches do
+     * @deprecated use {@link #getQueries}, which also handles the documents holding several queries
+     */
+    @Deprecated
     public FQLQuery getQuery()
     {
-        return query;
+        if (queries.size() > 1)
+            throw new IllegalStateException("The last document read holds " + queries.size() + " queries, use getQueries()");
+        return queries.isEmpty() ? null : queries.get(0);
+    }
+
+    /**
+     * @return the queries read by the last call to {@link #readMarshallable}, in the order they were logged
+     */
+    public List<FQLQuery> getQueries()
+    {
+        return queries;
     }
 }
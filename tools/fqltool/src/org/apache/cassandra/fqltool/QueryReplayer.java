@@ -21,20 +21,28 @@ package org.apache.cassandra.fqltool;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
-import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.base.Preconditions;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,19 +53,86 @@ import com.datastax.driver.core.Cluster;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Session;
 import com.datastax.driver.core.Statement;
+import org.apache.cassandra.metrics.LogarithmicHistogram;
 import org.apache.cassandra.utils.FBUtilities;
 
+/**
+ * Replays full query logs against one or more target clusters.
+ *
+ * Queries are dispatched in the order they were logged, either as fast as possible or paced to reproduce the time
+ * between them in the log, possibly sped up, and optionally capped to a maximum rate. They are executed by a number
+ * of lanes, each with its own thread and driver sessions. All the queries received on a client connection go to the
+ * same lane, which executes them in order if each lane only has one query in flight, so a captured workload keeps
+ * the ordering its clients relied on. Queries logged without their client connection all go to the first lane.
+ * Whatever the lane that executed them, the results of the queries are handled in the order they were dispatched,
+ * so that the results stored by different replays can be compared.
+ *
+ * The latencies of the queries are recorded per target and statement type, along with how late queries started
+ * compared to when they were due, and are logged once the replay completes.
+ */
 public class QueryReplayer implements Closeable
 {
     private static final Logger logger = LoggerFactory.getLogger(QueryReplayer.class);
     private static final int PRINT_RATE = 5000;
-    private final ExecutorService es = Executors.newFixedThreadPool(1);
+    // how many dispatched queries can wait for each lane, before the dispatching blocks
+    private static final int LANE_QUEUE_SIZE = 1024;
+    private static final double[] REPORTED_QUANTILES = { 0.5, 0.95, 0.99, 0.999 };
+
     private final Iterator<List<FQLQuery>> queryIterator;
     private final List<Predicate<FQLQuery>> filters;
+    private final List<String> targetHosts;
     private final List<Session> sessions;
     private final ResultHandler resultHandler;
     private final MetricRegistry metrics = new MetricRegistry();
     private final SessionProvider sessionProvider;
+    private final Options options;
+
+    // the sessions opened for the lanes other than the first, which uses the ones of the session provider
+    private final List<Session> laneSessions = new ArrayList<>();
+
+    // per target, latencies in microseconds by statement type
+    private final List<ConcurrentMap<String, LogarithmicHistogram>> latencies;
+    // how many microseconds late queries started compared to when they were due, if paced
+    private final LogarithmicHistogram scheduleLag = new LogarithmicHistogram();
+    private final OrderedResults orderedResults;
+    // whether a query without a client address, which can't be spread over lanes, has been warned about
+    private boolean warnedNoClientAddress;
+
+    /**
+     * How to replay the queries.
+     */
+    public static class Options
+    {
+        /**
+         * The number of lanes the queries are partitioned between, by client connection.
+         */
+        public int threads = 1;
+
+        /**
+         * How many queries each lane can be executing at once. Queries are only guaranteed to execute in the order
+         * they were logged, per client connection, if 1. Their results are handled in that order either way.
+         */
+        public int maxInFlight = 1;
+
+        /**
+         * 0 to replay the queries as fast as possible, or how much faster than logged to replay them: 1 reproduces
+         * the time between the queries in the log, 2 halves it and so on.
+         */
+        public double speed = 0;
+
+        /**
+         * The maximum number of queries per second to dispatch, or 0 for no limit.
+         */
+        public double maxRate = 0;
+
+        private void validate()
+        {
+            Preconditions.checkArgument(threads > 0, "threads must be > 0");
+            Preconditions.checkArgument(maxInFlight > 0, "maxInFlight must be > 0");
+            Preconditions.checkArgument(speed >= 0, "speed must be >= 0");
+            Preconditions.checkArgument(maxRate >= 0, "maxRate must be >= 0");
+        }
+    }
 
     /**
      * @param queryIterator the queries to be replayed
@@ -72,7 +147,17 @@ public class QueryReplayer implements Closeable
                          List<Predicate<FQLQuery>> filters,
                          String queryFilePathString)
     {
-        this(queryIterator, targetHosts, resultPaths, filters, queryFilePathString, new DefaultSessionProvider(), null);
+        this(queryIterator, targetHosts, resultPaths, filters, queryFilePathString, new Options());
+    }
+
+    public QueryReplayer(Iterator<List<FQLQuery>> queryIterator,
+                         List<String> targetHosts,
+                         List<File> resultPaths,
+                         List<Predicate<FQLQuery>> filters,
+                         String queryFilePathString,
+                         Options options)
+    {
+        this(queryIterator, targetHosts, resultPaths, filters, queryFilePathString, new DefaultSessionProvider(), null, options);
     }
 
     /**
@@ -88,65 +173,308 @@ public class QueryReplayer implements Closeable
                          SessionProvider sessionProvider,
                          MismatchListener mismatchListener)
     {
+        this(queryIterator, targetHosts, resultPaths, filters, queryFilePathString, sessionProvider, mismatchListener, new Options());
+    }
+
+    /**
+     * With more than one thread, the lanes other than the first open their own sessions with
+     * {@link SessionProvider#connectAgain}, as USE changes the keyspace of a whole session.
+     */
+    public QueryReplayer(Iterator<List<FQLQuery>> queryIterator,
+                         List<String> targetHosts,
+                         List<File> resultPaths,
+                         List<Predicate<FQLQuery>> filters,
+                         String queryFilePathString,
+                         SessionProvider sessionProvider,
+                         MismatchListener mismatchListener,
+                         Options options)
+    {
+        options.validate();
+        this.options = options;
         this.sessionProvider = sessionProvider;
         this.queryIterator = queryIterator;
         this.filters = filters;
+        this.targetHosts = targetHosts;
         sessions = targetHosts.stream().map(sessionProvider::connect).collect(Collectors.toList());
+        latencies = targetHosts.stream().map(t -> new ConcurrentHashMap<String, LogarithmicHistogram>()).collect(Collectors.toList());
         File queryFilePath = queryFilePathString != null ? new File(queryFilePathString) : null;
         resultHandler = new ResultHandler(targetHosts, resultPaths, queryFilePath, mismatchListener);
+        // every lane can have a full queue and its maximum of queries in flight ahead of the next results to handle
+        orderedResults = new OrderedResults(options.threads * (LANE_QUEUE_SIZE + options.maxInFlight));
     }
 
     public void replay()
     {
-        while (queryIterator.hasNext())
+        List<Lane> lanes = new ArrayList<>(options.threads);
+        for (int i = 0; i < options.threads; i++)
         {
-            List<FQLQuery> queries = queryIterator.next();
-            for (FQLQuery query : queries)
+            List<Session> sessions = this.sessions;
+            if (i > 0)
             {
-                if (filters.stream().anyMatch(f -> !f.test(query)))
-                    continue;
-                try (Timer.Context ctx = metrics.timer("queries").time())
+                sessions = this.sessions.stream().map(sessionProvider::connectAgain).collect(Collectors.toList());
+                laneSessions.addAll(sessions);
+            }
+            Lane lane = new Lane(sessions);
+            lanes.add(lane);
+            lane.thread = new Thread(lane, "QueryReplayer-lane-" + i);
+            lane.thread.start();
+        }
+
+        RateLimiter rateLimiter = options.maxRate > 0 ? RateLimiter.create(options.maxRate) : null;
+        long sequence = 0;
+        long firstQueryStartTime = Long.MIN_VALUE;
+        long replayStartNanos = 0;
+        try
+        {
+            while (queryIterator.hasNext())
+            {
+                List<FQLQuery> queries = queryIterator.next();
+                for (FQLQuery query : queries)
+                {
+                    if (filters.stream().anyMatch(f -> !f.test(query)))
+                        continue;
+
+                    long dueNanos = 0;
+                    if (options.speed > 0)
+                    {
+                        if (firstQueryStartTime == Long.MIN_VALUE)
+                        {
+                            firstQueryStartTime = query.queryStartTime;
+                            replayStartNanos = System.nanoTime();
+                        }
+                        // queries are only mostly sorted by the iterator, so the earlier ones are just due right away
+                        long offsetNanos = (long) (TimeUnit.MILLISECONDS.toNanos(query.queryStartTime - firstQueryStartTime) / options.speed);
+                        dueNanos = replayStartNanos + Math.max(0, offsetNanos);
+                        long waitNanos = dueNanos - System.nanoTime();
+                        if (waitNanos > 0)
+                            Uninterruptibles.sleepUninterruptibly(waitNanos, TimeUnit.NANOSECONDS);
+                    }
+
+                    if (rateLimiter != null)
+                        rateLimiter.acquire();
+
+                    Lane lane = lanes.get(laneFor(query));
+                    Uninterruptibles.putUninterruptibly(lane.queue, new ScheduledQuery(query, sequence++, dueNanos));
+                }
+            }
+        }
+        finally
+        {
+            for (Lane lane : lanes)
+                Uninterruptibles.putUninterruptibly(lane.queue, ScheduledQuery.END);
+            for (Lane lane : lanes)
+                Uninterruptibles.joinUninterruptibly(lane.thread);
+        }
+
+        logLatencies();
+    }
+
+    private int laneFor(FQLQuery query)
+    {
+        if (query.clientAddress == null)
+        {
+            if (options.threads > 1 && !warnedNoClientAddress)
+            {
+                logger.warn("Queries logged without the address of their client connection are all replayed by the first of the {} threads", options.threads);
+                warnedNoClientAddress = true;
+            }
+            return 0;
+        }
+        return (query.clientAddress.hashCode() & Integer.MAX_VALUE) % options.threads;
+    }
+
+    private void logLatencies()
+    {
+        Timer timer = metrics.timer("queries");
+        logger.info(String.format("Replayed %d queries, rate = %.2f", timer.getCount(), timer.getMeanRate()));
+        for (int i = 0; i < targetHosts.size(); i++)
+        {
+            for (Map.Entry<String, LogarithmicHistogram> entry : new TreeMap<>(latencies.get(i)).entrySet())
+                logger.info("{} {} latencies (micros): {}", targetHosts.get(i), entry.getKey(), describe(entry.getValue().getSnapshot()));
+        }
+        if (options.speed > 0)
+            logger.info("Schedule lag (micros): {}", describe(scheduleLag.getSnapshot()));
+    }
+
+    private static String describe(LogarithmicHistogram.Snapshot snapshot)
+    {
+        StringBuilder sb = new StringBuilder("count=").append(snapshot.count());
+        if (snapshot.count() == 0)
+            return sb.toString();
+
+        for (double quantile : REPORTED_QUANTILES)
+            sb.append(String.format(", p%s=%.0f", quantile * 100, snapshot.quantile(quantile)));
+        return sb.append(String.format(", max=%.0f", snapshot.quantile(1))).toString();
+    }
+
+    private void recordLatency(int target, String statementType, long startNanos)
+    {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        latencies.get(target).computeIfAbsent(statementType, t -> new LogarithmicHistogram()).update(micros);
+    }
+
+    /**
+     * Executes the queries of the client connections assigned to it, in the order they were dispatched.
+     */
+    private class Lane implements Runnable
+    {
+        private final BlockingQueue<ScheduledQuery> queue = new ArrayBlockingQueue<>(LANE_QUEUE_SIZE);
+        private final List<Session> sessions;
+        private Thread thread;
+
+        Lane(List<Session> sessions)
+        {
+            this.sessions = sessions;
+        }
+
+        public void run()
+        {
+            Deque<InFlightQuery> inFlight = new ArrayDeque<>();
+            while (true)
+            {
+                ScheduledQuery scheduled = Uninterruptibles.takeUninterruptibly(queue);
+                if (scheduled == ScheduledQuery.END)
+                    break;
+
+                FQLQuery query = scheduled.query;
+                // USE applies to the whole session, so let the queries against the current keyspace complete first
+                if (needsKeyspaceSwitch(query))
+                    handleResults(inFlight, 0);
+
+                try
                 {
                     List<ListenableFuture<ResultHandler.ComparableResultSet>> results = new ArrayList<>(sessions.size());
                     Statement statement = query.toStatement();
-                    for (Session session : sessions)
+                    String statementType = query.statementType();
+                    Timer.Context ctx = metrics.timer("queries").time();
+                    if (scheduled.dueNanos != 0)
+                        scheduleLag.update(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - scheduled.dueNanos)));
+                    for (int i = 0; i < sessions.size(); i++)
                     {
+                        Session session = sessions.get(i);
                         maybeSetKeyspace(session, query);
                         if (logger.isDebugEnabled())
                             logger.debug("Executing query: {}", query);
+                        long startNanos = System.nanoTime();
                         ListenableFuture<ResultSet> future = session.executeAsync(statement);
+                        int target = i;
+                        future.addListener(() -> recordLatency(target, statementType, startNanos), MoreExecutors.directExecutor());
                         results.add(handleErrors(future));
                     }
 
+                    // note that the order of the result sets is significant - resultSets.get(x) should be the
+                    // result from a query against targetHosts.get(x)
                     ListenableFuture<List<ResultHandler.ComparableResultSet>> resultList = Futures.allAsList(results);
+                    resultList.addListener(ctx::stop, MoreExecutors.directExecutor());
+                    inFlight.add(new InFlightQuery(query, scheduled.sequence, resultList));
+                }
+                catch (Throwable t)
+                {
+                    // skipped when its turn to be handled comes, after the queries dispatched to the lane before it
+                    inFlight.add(new InFlightQuery(query, scheduled.sequence, Futures.immediateFailedFuture(t)));
+                }
 
-                    Futures.addCallback(resultList, new FutureCallback<List<ResultHandler.ComparableResultSet>>()
-                    {
-                        public void onSuccess(List<ResultHandler.ComparableResultSet> resultSets)
-                        {
-                            // note that the order of resultSets is signifcant here - resultSets.get(x) should
-                            // be the result from a query against targetHosts.get(x)
-                            resultHandler.handleResults(query, resultSets);
-                        }
-
-                        public void onFailure(Throwable throwable)
-                        {
-                            throw new AssertionError("Errors should be handled in FQLQuery.execute", throwable);
-                        }
-                    }, es);
+                handleResults(inFlight, options.maxInFlight - 1);
+            }
+            handleResults(inFlight, 0);
+        }
 
-                    FBUtilities.waitOnFuture(resultList);
+        /**
+         * Handles the results of the oldest queries in flight, waiting for them to complete until at most maxRemaining
+         * queries are left in flight.
+         */
+        private void handleResults(Deque<InFlightQuery> inFlight, int maxRemaining)
+        {
+            while (!inFlight.isEmpty() && (inFlight.size() > maxRemaining || inFlight.peek().results.isDone()))
+            {
+                InFlightQuery next = inFlight.poll();
+                List<ResultHandler.ComparableResultSet> resultSets = null;
+                try
+                {
+                    resultSets = FBUtilities.waitOnFuture(next.results);
                 }
                 catch (Throwable t)
                 {
-                    logger.error("QUERY %s got exception: %s", query, t.getMessage());
+                    logger.error("QUERY {} got exception: {}", next.query, t.getMessage());
                 }
+                orderedResults.add(next.sequence, next.query, resultSets);
 
                 Timer timer = metrics.timer("queries");
                 if (timer.getCount() % PRINT_RATE == 0)
                     logger.info(String.format("%d queries, rate = %.2f", timer.getCount(), timer.getOneMinuteRate()));
             }
         }
+
+        private boolean needsKeyspaceSwitch(FQLQuery query)
+        {
+            if (query.keyspace() == null)
+                return false;
+
+            for (Session session : sessions)
+            {
+                if (!query.keyspace().equals(session.getLoggedKeyspace()))
+                    return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Hands the results of the queries to the result handler in the order the queries were dispatched, which the
+     * lanes complete them out of.
+     */
+    private class OrderedResults
+    {
+        // the results received ahead of those of earlier queries, by sequence number
+        private final Map<Long, CompletedQuery> pending = new HashMap<>();
+        private final int maxPending;
+        // the sequence number of the next query to handle the results of
+        private long next;
+
+        OrderedResults(int maxPending)
+        {
+            this.maxPending = maxPending;
+        }
+
+        /**
+         * Handles the results of a query, or skips it if {@code resultSets} is null, once all the queries dispatched
+         * before it have been. Waits, rather than buffer more than maxPending results, unless these are the next
+         * results to handle: those are always accepted, and each lane adds the results of its queries in the order
+         * they were dispatched, so the lane that has them can't be blocked here.
+         */
+        synchronized void add(long sequence, FQLQuery query, List<ResultHandler.ComparableResultSet> resultSets)
+        {
+            while (sequence != next && pending.size() >= maxPending)
+            {
+                try
+                {
+                    wait();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            pending.put(sequence, new CompletedQuery(query, resultSets));
+            CompletedQuery ready;
+            while ((ready = pending.remove(next)) != null)
+            {
+                next++;
+                if (ready.resultSets == null)
+                    continue;
+
+                try
+                {
+                    resultHandler.handleResults(ready.query, ready.resultSets);
+                }
+                catch (Throwable t)
+                {
+                    logger.error("QUERY {} got exception: {}", ready.query, t.getMessage());
+                }
+            }
+            notifyAll();
+        }
     }
 
     private void maybeSetKeyspace(Session session, FQLQuery query)
@@ -180,11 +508,66 @@ public class QueryReplayer implements Closeable
 
     public void close() throws IOException
     {
-        es.shutdown();
+        for (Session session : laneSessions)
+        {
+            try
+            {
+                session.close();
+            }
+            catch (Throwable t)
+            {
+                logger.error("Could not close connection", t);
+            }
+        }
         sessionProvider.close();
         resultHandler.close();
     }
 
+    private static class ScheduledQuery
+    {
+        static final ScheduledQuery END = new ScheduledQuery(null, -1, 0);
+
+        final FQLQuery query;
+        // the position of the query in the order they were dispatched in
+        final long sequence;
+        // when the query is due to start, or 0 if it is not paced
+        final long dueNanos;
+
+        ScheduledQuery(FQLQuery query, long sequence, long dueNanos)
+        {
+            this.query = query;
+            this.sequence = sequence;
+            this.dueNanos = dueNanos;
+        }
+    }
+
+    private static class InFlightQuery
+    {
+        final FQLQuery query;
+        final long sequence;
+        final ListenableFuture<List<ResultHandler.ComparableResultSet>> results;
+
+        InFlightQuery(FQLQuery query, long sequence, ListenableFuture<List<ResultHandler.ComparableResultSet>> results)
+        {
+            this.query = query;
+            this.sequence = sequence;
+            this.results = results;
+        }
+    }
+
+    private static class CompletedQuery
+    {
+        final FQLQuery query;
+        // null if the query could not be executed
+        final List<ResultHandler.ComparableResultSet> resultSets;
+
+        CompletedQuery(FQLQuery query, List<ResultHandler.ComparableResultSet> resultSets)
+        {
+            this.query = query;
+            this.resultSets = resultSets;
+        }
+    }
+
     static class ParsedTargetHost
     {
         final int port;
@@ -233,6 +616,16 @@ public class QueryReplayer implements Closeable
     public static interface SessionProvider extends Closeable
     {
         Session connect(String connectionString);
+
+        /**
+         * Opens another session to the cluster of a session returned by {@link #connect}, for the lanes of a replay
+         * with several threads. The replayer closes these sessions itself.
+         */
+        default Session connectAgain(Session session)
+        {
+            return session.getCluster().connect();
+        }
+
         void close();
     }
 
@@ -42,6 +42,8 @@ import net.openhft.chronicle.wire.ValueIn;
 import net.openhft.chronicle.wire.WireIn;
 import org.apache.cassandra.fql.FullQueryLogger;
 import org.apache.cassandra.cql3.QueryOptions;
+import org.apache.cassandra.fqltool.FQLQuery;
+import org.apache.cassandra.fqltool.FQLQueryReader;
 import org.apache.cassandra.transport.ProtocolVersion;
 import org.apache.cassandra.utils.binlog.BinLog;
 
@@ -83,10 +85,18 @@ public class Dump implements Runnable
             }
 
             String type = wireIn.read(BinLog.TYPE).text();
+            if (FullQueryLogger.COMPRESSED_BATCH.equals(type))
+            {
+                BinLog.readBatch(wireIn, record -> dumpQuery(FQLQueryReader.readQuery(record), sb));
+                System.out.print(sb.toString());
+                System.out.flush();
+                return;
+            }
+
             if (!FullQueryLogger.SINGLE_QUERY.equals((type)) && !FullQueryLogger.BATCH.equals((type)))
             {
                 throw new IORuntimeException("Unsupported record type field [" + type
-                                             + "] - supported record types are [" + FullQueryLogger.SINGLE_QUERY + ", " + FullQueryLogger.BATCH + ']');
+                                             + "] - supported record types are [" + FullQueryLogger.SINGLE_QUERY + ", " + FullQueryLogger.BATCH + ", " + FullQueryLogger.COMPRESSED_BATCH + ']');
             }
 
             sb.append("Type: ")
@@ -164,6 +174,55 @@ public class Dump implements Runnable
         }
     }
 
+    /**
+     * Dumps a query read from a compressed batch, in the same format as the queries written as a document each.
+     */
+    private static void dumpQuery(FQLQuery query, StringBuilder sb)
+    {
+        boolean isBatch = query instanceof FQLQuery.Batch;
+        sb.append("Type: ")
+          .append(isBatch ? FullQueryLogger.BATCH : FullQueryLogger.SINGLE_QUERY)
+          .append(System.lineSeparator());
+        sb.append("Query start time: ")
+          .append(query.queryStartTime)
+          .append(System.lineSeparator());
+        sb.append("Protocol version: ")
+          .append(query.protocolVersion)
+          .append(System.lineSeparator());
+        sb.append("Generated timestamp:")
+          .append(query.queryState.generatedTimestamp())
+          .append(System.lineSeparator());
+        sb.append("Generated nowInSeconds:")
+          .append(query.queryState.generatedNowInSeconds())
+          .append(System.lineSeparator());
+
+        List<FQLQuery.Single> queries;
+        if (isBatch)
+        {
+            sb.append("Batch type: ")
+              .append(((FQLQuery.Batch) query).batchType.name())
+              .append(System.lineSeparator());
+            queries = ((FQLQuery.Batch) query).queries;
+        }
+        else
+        {
+            queries = Collections.singletonList((FQLQuery.Single) query);
+        }
+
+        for (FQLQuery.Single single : queries)
+        {
+            sb.append("Query: ")
+              .append(single.query)
+              .append(System.lineSeparator());
+
+            sb.append("Values: ")
+              .append(System.lineSeparator());
+            appendValuesToStringBuilder(single.values != null ? single.values : Collections.emptyList(), sb);
+        }
+
+        sb.append(System.lineSeparator());
+    }
+
     private static void dumpQuery(QueryOptions options, WireIn wireIn, StringBuilder sb)
     {
         sb.append("Query: ")
@@ -67,6 +67,18 @@ public class Replay implements Runnable
     @Option(title = "replay_ddl_statements", name = { "--replay-ddl-statements" }, description = "If specified, replays DDL statements as well, they are excluded from replaying by default.")
     private boolean replayDDLStatements;
 
+    @Option(title = "max_in_flight", name = { "--max-in-flight" }, description = "How many queries each thread can be executing at once, 1 by default. Queries of a client connection are only guaranteed to execute in the order they were logged with 1, but results are always stored in that order, whatever the number of threads.")
+    private int maxInFlight = 1;
+
+    @Option(title = "threads", name = { "--threads" }, description = "How many threads to replay the queries with, 1 by default. The queries of a client connection are always replayed by the same thread, if the logs recorded it.")
+    private int threads = 1;
+
+    @Option(title = "speed", name = { "--speed" }, description = "Replay the queries with the time between them in the logs, divided by this factor: 1 reproduces the original timing, 2 replays twice as fast. Replays as fast as possible by default.")
+    private double speed = 0;
+
+    @Option(title = "max_rate", name = { "--max-rate" }, description = "The maximum number of queries per second to replay, unlimited by default.")
+    private double maxRate = 0;
+
     @Override
     public void run()
     {
@@ -89,7 +101,22 @@ public class Replay implements Runnable
                 System.err.println("You need to state at least one --target host to replay the query against");
                 System.exit(1);
             }
-            replay(keyspace, arguments, targetHosts, resultPaths, queryStorePath, replayDDLStatements);
+            if (maxInFlight < 1 || threads < 1)
+            {
+                System.err.println("--max-in-flight and --threads should be at least 1");
+                System.exit(1);
+            }
+            if (speed < 0 || maxRate < 0)
+            {
+                System.err.println("--speed and --max-rate should not be negative");
+                System.exit(1);
+            }
+            QueryReplayer.Options options = new QueryReplayer.Options();
+            options.maxInFlight = maxInFlight;
+            options.threads = threads;
+            options.speed = speed;
+            options.maxRate = maxRate;
+            replay(keyspace, arguments, targetHosts, resultPaths, queryStorePath, replayDDLStatements, options);
         }
         catch (Exception e)
         {
@@ -98,6 +125,11 @@ public class Replay implements Runnable
     }
 
     public static void replay(String keyspace, List<String> arguments, List<String> targetHosts, List<File> resultPaths, String queryStorePath, boolean replayDDLStatements)
+    {
+        replay(keyspace, arguments, targetHosts, resultPaths, queryStorePath, replayDDLStatements, new QueryReplayer.Options());
+    }
+
+    public static void replay(String keyspace, List<String> arguments, List<String> targetHosts, List<File> resultPaths, String queryStorePath, boolean replayDDLStatements, QueryReplayer.Options options)
     {
         int readAhead = 200; // how many fql queries should we read in to memory to be able to sort them?
         List<ChronicleQueue> readQueues = null;
@@ -122,7 +154,7 @@ public class Replay implements Runnable
             readQueues = arguments.stream().map(s -> ChronicleQueueBuilder.single(s).readOnly(true).build()).collect(Collectors.toList());
             iterators = readQueues.stream().map(ChronicleQueue::createTailer).map(tailer -> new FQLQueryIterator(tailer, readAhead)).collect(Collectors.toList());
             try (MergeIterator<FQLQuery, List<FQLQuery>> iter = MergeIterator.get(iterators, FQLQuery::compareTo, new Reducer());
-                 QueryReplayer replayer = new QueryReplayer(iter, targetHosts, resultPaths, filters, queryStorePath))
+                 QueryReplayer replayer = new QueryReplayer(iter, targetHosts, resultPaths, filters, queryStorePath, options))
             {
                 replayer.replay();
             }
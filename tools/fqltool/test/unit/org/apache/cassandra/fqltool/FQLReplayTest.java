@@ -20,20 +20,36 @@ package org.apache.cassandra.fqltool;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
 import org.junit.Test;
 
 import com.datastax.driver.core.CodecRegistry;
+import com.datastax.driver.core.ResultSet;
+import com.datastax.driver.core.ResultSetFuture;
+import com.datastax.driver.core.Session;
 import com.datastax.driver.core.SimpleStatement;
 import com.datastax.driver.core.Statement;
 import net.openhft.chronicle.core.io.IORuntimeException;
@@ -41,6 +57,7 @@ import net.openhft.chronicle.queue.ChronicleQueue;
 import net.openhft.chronicle.queue.ChronicleQueueBuilder;
 import net.openhft.chronicle.queue.ExcerptAppender;
 import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.queue.RollCycles;
 import net.openhft.chronicle.wire.WireOut;
 import org.apache.cassandra.fql.FullQueryLogger;
 import org.apache.cassandra.cql3.QueryOptions;
@@ -62,6 +79,7 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class FQLReplayTest
 {
@@ -163,6 +181,102 @@ public class FQLReplayTest
         }
     }
 
+    @Test
+    public void testCompressedBatches() throws Exception
+    {
+        testReadLoggedQueries(true);
+    }
+
+    @Test
+    public void testSingleDocuments() throws Exception
+    {
+        testReadLoggedQueries(false);
+    }
+
+    private static void testReadLoggedQueries(boolean compressedBatches) throws Exception
+    {
+        File dir = Files.createTempDirectory("compressed").toFile();
+        int protocolVersion = QueryOptions.DEFAULT.getProtocolVersion().asInt();
+        List<FQLQuery> expected = new ArrayList<>();
+        BinLog binLog = new BinLog.Builder().path(dir.toPath())
+                                            .rollCycle("TEST_SECONDLY")
+                                            .blocking(true)
+                                            .maxQueueWeight(1024 * 1024)
+                                            .maxLogSize(1024 * 1024 * 1024)
+                                            .compressedBatches(compressedBatches)
+                                            .build(false);
+        try
+        {
+            for (int i = 0; i < 1000; i++)
+            {
+                ClientState clientState = i % 3 == 0 ? ClientState.forInternalCalls()
+                                        : i % 3 == 1 ? ClientState.forInternalCalls("someks")
+                                        : ClientState.forExternalCalls(new InetSocketAddress("127.0.0.1", 10000 + i % 7));
+                QueryState queryState = new QueryState(clientState, i, i);
+                if (i % 10 == 0)
+                {
+                    List<String> queries = Lists.newArrayList("insert batch " + i + ":0", "insert batch " + i + ":1");
+                    List<List<ByteBuffer>> values = Lists.newArrayList(Collections.singletonList(ByteBufferUtil.bytes(i)), Collections.emptyList());
+                    binLog.put(new FullQueryLogger.Batch(BatchStatement.Type.UNLOGGED, queries, values, QueryOptions.DEFAULT, queryState, i));
+                    expected.add(new FQLQuery.Batch(queryState.getClientState().getRawKeyspace(), protocolVersion, QueryOptions.DEFAULT, i, i, i,
+                                                    com.datastax.driver.core.BatchStatement.Type.UNLOGGED, queries, values));
+                }
+                else
+                {
+                    QueryOptions options = QueryOptions.forInternalCalls(Collections.singletonList(ByteBufferUtil.bytes("value " + i)));
+                    binLog.put(new FullQueryLogger.Query("select " + i, options, queryState, i));
+                    expected.add(new FQLQuery.Single(queryState.getClientState().getRawKeyspace(), protocolVersion, options, i, i, i,
+                                                     "select " + i, options.getValues()));
+                }
+            }
+
+            List<FQLQuery> read = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 60000;
+            try (ChronicleQueue queue = ChronicleQueueBuilder.single(dir).rollCycle(RollCycles.TEST_SECONDLY).readOnly(true).build())
+            {
+                ExcerptTailer tailer = queue.createTailer();
+                FQLQueryReader reader = new FQLQueryReader();
+                while (read.size() < expected.size() && System.currentTimeMillis() < deadline)
+                {
+                    if (tailer.readDocument(reader))
+                    {
+                        read.addAll(reader.getQueries());
+                        if (reader.getQueries().size() > 1)
+                        {
+                            // a single query can't stand for the whole batch
+                            try
+                            {
+                                reader.getQuery();
+                                fail("getQuery() should refuse documents holding several queries");
+                            }
+                            catch (IllegalStateException e)
+                            {
+                                // expected
+                            }
+                        }
+                    }
+                    else
+                    {
+                        Thread.sleep(10);
+                    }
+                }
+            }
+
+            // batched or not, each of the queries is read back as logged and in order, along with its client address
+            assertEquals(expected, read);
+            for (int i = 0; i < read.size(); i++)
+            {
+                InetSocketAddress clientAddress = i % 3 == 2 ? new InetSocketAddress("127.0.0.1", 10000 + i % 7) : null;
+                assertEquals(clientAddress, read.get(i).clientAddress);
+                assertEquals(i % 10 == 0 ? "BATCH" : "SELECT", read.get(i).statementType());
+            }
+        }
+        finally
+        {
+            binLog.stop();
+        }
+    }
+
     @Test
     public void testStoringResults() throws Throwable
     {
@@ -549,6 +663,168 @@ public class FQLReplayTest
             compareStatements(statements.get(i), fromFQLQueries.get(i));
     }
 
+    @Test
+    public void testReplayStoresResultsInLoggedOrder() throws IOException
+    {
+        List<FQLQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            queries.add(query("select * from tbl where id = " + i, i, i % 10));
+
+        QueryReplayer.Options options = new QueryReplayer.Options();
+        options.threads = 4;
+        options.maxInFlight = 8;
+        File resultDir = Files.createTempDirectory("results").toFile();
+        File queryDir = Files.createTempDirectory("queries").toFile();
+        StubSessionProvider sessionProvider = new StubSessionProvider();
+        replay(queries, sessionProvider, options, resultDir, queryDir);
+
+        // the lanes complete the queries out of order, but the results are stored in the order they were logged
+        List<Pair<FQLQuery, ResultHandler.ComparableResultSet>> stored = readResultFile(resultDir, queryDir);
+        assertEquals(queries.size(), stored.size());
+        for (int i = 0; i < queries.size(); i++)
+        {
+            assertEquals(queries.get(i), stored.get(i).left);
+            assertTrue(stored.get(i).right.wasFailed());
+            assertEquals(((FQLQuery.Single) queries.get(i)).query, stored.get(i).right.getFailureException().getMessage());
+        }
+
+        // the queries of a client connection are all replayed by the same lane
+        Map<InetSocketAddress, Set<String>> lanesByClient = new HashMap<>();
+        for (FQLQuery query : queries)
+            lanesByClient.computeIfAbsent(query.clientAddress, c -> new HashSet<>()).add(sessionProvider.lanes.get(((FQLQuery.Single) query).query));
+        Set<String> lanes = new HashSet<>();
+        for (Set<String> clientLanes : lanesByClient.values())
+        {
+            assertEquals(1, clientLanes.size());
+            lanes.addAll(clientLanes);
+        }
+        assertTrue(lanes.size() > 1);
+    }
+
+    @Test
+    public void testReplayPacing()
+    {
+        // 200ms of logged queries, replayed twice as fast
+        List<FQLQuery> queries = new ArrayList<>();
+        for (int i = 0; i <= 20; i++)
+            queries.add(query("select * from tbl where id = " + i, i * 10, i % 3));
+
+        QueryReplayer.Options options = new QueryReplayer.Options();
+        options.threads = 2;
+        options.speed = 2;
+        StubSessionProvider sessionProvider = new StubSessionProvider();
+        long start = System.nanoTime();
+        replay(queries, sessionProvider, options, null, null);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(queries.size(), sessionProvider.executed.get());
+    }
+
+    @Test
+    public void testReplayMaxRate()
+    {
+        // all logged at once, but dispatched at 100 queries per second
+        List<FQLQuery> queries = new ArrayList<>();
+        for (int i = 0; i < 51; i++)
+            queries.add(query("select * from tbl where id = " + i, 0, i % 3));
+
+        QueryReplayer.Options options = new QueryReplayer.Options();
+        options.threads = 2;
+        options.maxRate = 100;
+        StubSessionProvider sessionProvider = new StubSessionProvider();
+        long start = System.nanoTime();
+        replay(queries, sessionProvider, options, null, null);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(450));
+        assertEquals(queries.size(), sessionProvider.executed.get());
+    }
+
+    private static FQLQuery query(String query, long queryStartTime, int client)
+    {
+        return new FQLQuery.Single(null, QueryOptions.DEFAULT.getProtocolVersion().asInt(), QueryOptions.DEFAULT, queryStartTime, 1, 1,
+                                   query, Collections.emptyList(), new InetSocketAddress("127.0.0.1", 9000 + client));
+    }
+
+    private static void replay(List<FQLQuery> queries, StubSessionProvider sessionProvider, QueryReplayer.Options options, File resultDir, File queryDir)
+    {
+        try (QueryReplayer replayer = new QueryReplayer(Collections.singletonList(queries).iterator(),
+                                                        Collections.singletonList("stub"),
+                                                        resultDir == null ? null : Collections.singletonList(resultDir),
+                                                        Collections.emptyList(),
+                                                        queryDir == null ? null : queryDir.getPath(),
+                                                        sessionProvider,
+                                                        null,
+                                                        options))
+        {
+            replayer.replay();
+        }
+        catch (IOException e)
+        {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Provides sessions that fail every query with its query string, after a random delay, recording the thread
+     * that executed it.
+     */
+    private static class StubSessionProvider implements QueryReplayer.SessionProvider
+    {
+        private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        private final Map<String, String> lanes = new ConcurrentHashMap<>();
+        private final AtomicInteger executed = new AtomicInteger();
+        private final Random random = new Random();
+
+        public Session connect(String connectionString)
+        {
+            return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(), new Class<?>[]{ Session.class }, (proxy, method, args) -> {
+                if (method.getName().equals("executeAsync"))
+                    return execute((SimpleStatement) args[0]);
+                if (method.getName().equals("equals"))
+                    return proxy == args[0];
+                if (method.getName().equals("hashCode"))
+                    return System.identityHashCode(proxy);
+                return null;
+            });
+        }
+
+        public Session connectAgain(Session session)
+        {
+            return connect(null);
+        }
+
+        private ResultSetFuture execute(SimpleStatement statement)
+        {
+            String query = statement.getQueryString(CodecRegistry.DEFAULT_INSTANCE);
+            lanes.put(query, Thread.currentThread().getName());
+            executed.incrementAndGet();
+            StubResultSetFuture future = new StubResultSetFuture();
+            executor.schedule(() -> future.fail(query), random.nextInt(5), TimeUnit.MILLISECONDS);
+            return future;
+        }
+
+        public void close()
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class StubResultSetFuture extends AbstractFuture<ResultSet> implements ResultSetFuture
+    {
+        void fail(String message)
+        {
+            setException(new RuntimeException(message));
+        }
+
+        public ResultSet getUninterruptibly()
+        {
+            return Futures.getUnchecked(this);
+        }
+
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit)
+        {
+            return Futures.getUnchecked(this);
+        }
+    }
+
     @Test
     public void testParser() {
         QueryReplayer.ParsedTargetHost pth;